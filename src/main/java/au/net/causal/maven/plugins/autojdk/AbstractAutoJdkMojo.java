@@ -3,10 +3,12 @@ package au.net.causal.maven.plugins.autojdk;
 import au.net.causal.maven.plugins.autojdk.config.ActivationProcessor;
 import au.net.causal.maven.plugins.autojdk.xml.config.AutoJdkConfiguration;
 import au.net.causal.maven.plugins.autojdk.config.AutoJdkConfigurationException;
+import au.net.causal.maven.plugins.autojdk.foojay.FoojayQueryPlanner;
 import au.net.causal.maven.plugins.autojdk.xml.config.JdkUpdatePolicy;
 import au.net.causal.maven.plugins.autojdk.xml.metadata.ReleaseType;
 import com.google.common.base.StandardSystemProperty;
-import jakarta.xml.bind.JAXBException;
+import eu.hansolo.jdktools.Architecture;
+import eu.hansolo.jdktools.OperatingSystem;
 import org.apache.maven.execution.MavenSession;
 import org.apache.maven.model.profile.activation.FileProfileActivator;
 import org.apache.maven.model.profile.activation.JdkVersionProfileActivator;
@@ -30,7 +32,9 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Clock;
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 public abstract class AbstractAutoJdkMojo extends AbstractMojo
 {
@@ -38,6 +42,11 @@ public abstract class AbstractAutoJdkMojo extends AbstractMojo
     private static final String UPDATE_POLICY_NEVER = "never";
     private static final String UPDATE_POLICY_ALWAYS = "always";
 
+    /**
+     * Wildcard platform value that specifies all well-known platforms.
+     */
+    private static final String ALL_PLATFORMS_VALUE = "all";
+
     static final String PROPERTY_JDK_VENDOR = "autojdk.jdk.vendor";
     static final String PROPERTY_JDK_VERSION = "autojdk.jdk.version";
     static final String PROPERTY_JDK_RELEASE_TYPE = "autojdk.jdk.releaseType";
@@ -71,6 +80,10 @@ public abstract class AbstractAutoJdkMojo extends AbstractMojo
     @Parameter(defaultValue = "${session}", readonly = true)
     protected MavenSession session;
 
+    /**
+     * Directory for files downloaded by this goal itself.  JDKs installed for a build are downloaded to the top-level project's build
+     * directory since they are shared between all modules.
+     */
     @Parameter(defaultValue = "${project.build.directory}/autojdk-download", required = true)
     protected File downloadDirectory;
 
@@ -100,6 +113,13 @@ public abstract class AbstractAutoJdkMojo extends AbstractMojo
     @Parameter(property="autojdk.download.allowHttp", defaultValue = "false")
     private boolean allowHttpJdkDownloads;
 
+    /**
+     * If true, JDKs already installed on the system outside of AutoJDK (in well-known locations such as /usr/lib/jvm, SDKMAN's candidates directory,
+     * or registered in the user's Maven toolchains file) will be used as well as JDKs that AutoJDK installs itself.
+     */
+    @Parameter(property = "autojdk.systemJdks", defaultValue = "false")
+    private boolean useSystemJdks;
+
     /**
      * If true, skip execution of autojdk plugin.
      */
@@ -119,6 +139,59 @@ public abstract class AbstractAutoJdkMojo extends AbstractMojo
         return jdkReleaseType;
     }
 
+    /**
+     * @return the AutoJDK configuration file to use, which might not exist.
+     */
+    protected Path getAutoJdkConfigurationFile()
+    {
+        if (autoJdkConfigurationFile == null)
+            return AutoJdkHome.defaultHome().getAutoJdkConfigurationFile();
+        else
+            return autoJdkConfigurationFile.toPath();
+    }
+
+    /**
+     * @return the update policy configured on the plugin that overrides the one from the AutoJDK configuration file, or null if not overridden.
+     */
+    protected String getUpdatePolicyOverride()
+    {
+        return updatePolicy;
+    }
+
+    /**
+     * @return whether JDKs installed on the system outside of AutoJDK are used.
+     */
+    protected boolean isUseSystemJdks()
+    {
+        return useSystemJdks;
+    }
+
+    /**
+     * @return a resolver for JDKs installed on the system outside of AutoJDK, shared across builds so that JDKs are not probed again
+     *         unless they change.
+     */
+    protected SystemJdkResolver getSystemJdkResolver()
+    {
+        File userToolchainsFile = session.getRequest().getUserToolchainsFile();
+        return ResidentJdkRegistry.shared().systemJdkResolver(Path.of(StandardSystemProperty.USER_HOME.value()),
+                                                              userToolchainsFile == null ? null : userToolchainsFile.toPath());
+    }
+
+    protected RepositorySystem getRepositorySystem()
+    {
+        return repositorySystem;
+    }
+
+    protected RepositorySystemSession getRepositorySystemSession()
+    {
+        return repoSession;
+    }
+
+    protected String getAutoJdkPluginVersion()
+    {
+        return pluginDescriptor.getVersion();
+    }
+
     protected void executeImpl()
     throws MojoExecutionException, MojoFailureException
     {
@@ -141,27 +214,20 @@ public abstract class AbstractAutoJdkMojo extends AbstractMojo
         FileDownloader fileDownloader = new HttpClientFileDownloader(this::tempDownloadDirectory, httpClientBuilder);
         fileDownloader.addDownloadProgressListener(new MavenDownloadProgressAdapter(repoSession));
 
-        AutoJdkXmlManager xmlManager;
-        try
-        {
-            xmlManager = new AutoJdkXmlManager();
-        }
-        catch (JAXBException e)
-        {
-            throw new MojoExecutionException("Error initializing JAXB: " + e, e);
-        }
+        AutoJdkXmlManager xmlManager = new AutoJdkXmlManager();
 
         String autoJdkPluginVersion = pluginDescriptor.getVersion();
         ActivationProcessor activationProcessor = new ActivationProcessor(
                 fileProfileActivator, operatingSystemProfileActivator, propertyProfileActivator, jdkVersionProfileActivator, autoJdkPluginVersion
         );
 
-        AutoJdkInstalledJdkSystem localJdkResolver = new AutoJdkInstalledJdkSystem(autojdkHome.getLocalJdksDirectory(), xmlManager);
+        //Long-lived Maven processes keep installed JDKs and configuration between builds
+        ResidentJdkRegistry registry = ResidentJdkRegistry.shared();
 
         AutoJdkConfiguration autoJdkConfiguration;
         try
         {
-            autoJdkConfiguration = AutoJdkConfiguration.fromFile(autoJdkConfigurationFile.toPath(), xmlManager, activationProcessor, session);
+            autoJdkConfiguration = AutoJdkConfiguration.fromFile(autoJdkConfigurationFile.toPath(), registry.configurationFileReader(xmlManager), activationProcessor, session);
         }
         catch (AutoJdkXmlManager.XmlParseException | AutoJdkConfigurationException e)
         {
@@ -169,19 +235,50 @@ public abstract class AbstractAutoJdkMojo extends AbstractMojo
         }
         configureAutoJdkUpdatePolicy(autoJdkConfiguration);
 
-        List<JdkArchiveRepository<?>> jdkArchiveRepositories = new ArrayList<>();
-        for (AutoJdkConfiguration.JdkRepository jdkRepository : autoJdkConfiguration.getJdkRepositories())
+        VersionTranslationScheme versionTranslationScheme = getVersionTranslationScheme();
+
+        //Modules in the same build with the same effective configuration share the engine and its repositories
+        AutoJdkSessionCache.Key engineKey = new AutoJdkSessionCache.Key(autojdkHome.getLocalJdksDirectory(), autoJdkConfiguration, versionTranslationScheme,
+                                                                        offlineMode, allowHttpJdkDownloads, useSystemJdks);
+        //The engine outlives this execution, so it must not use this module's download directory or anything else of this mojo
+        MavenSession engineSession = session;
+        ExceptionalSupplier<Path, IOException> engineDownloadDirectory = () -> sessionDownloadDirectory(engineSession);
+        autoJdk = AutoJdkSessionCache.forSession(repoSession).getOrCreate(engineKey, () ->
         {
-            JdkArchiveRepository<?> jdkArchiveRepository = jdkRepository.createJdkArchiveRepository(repositorySystem, repoSession, offlineMode, allowHttpJdkDownloads, this::tempDownloadDirectory, xmlManager, autoJdkConfiguration, getLog());
-            if (jdkArchiveRepository != null)
-                jdkArchiveRepositories.add(jdkArchiveRepository);
-        }
+            getLog().debug("Creating AutoJDK engine for " + engineKey);
 
-        VersionTranslationScheme versionTranslationScheme = getVersionTranslationScheme();
-        Clock clock = Clock.systemDefaultZone();
-        JdkSearchUpdateChecker jdkSearchUpdateChecker = new MetadataFileJdkSearchUpdateChecker(autojdkHome.getAutoJdkSearchUpToDateCheckMetadataFile(), xmlManager);
+            ResidentJdkRegistry.InstalledJdkSystem localJdkResolver = registry.installedJdkSystem(autojdkHome.getLocalJdksDirectory(), autojdkHome.getJdkUsageDirectory(), xmlManager);
+            List<LocalJdkResolver> readOnlyLocalJdkResolvers = new ArrayList<>();
+
+            //Shared stores may be network mounts where file watching doesn't see changes from other hosts, so they are always read directly
+            for (Path sharedJdksDirectory : autojdkHome.getSharedJdksDirectories())
+            {
+                readOnlyLocalJdkResolvers.add(new AutoJdkInstalledJdkSystem(sharedJdksDirectory, xmlManager));
+            }
+
+            if (useSystemJdks)
+                readOnlyLocalJdkResolvers.add(getSystemJdkResolver());
+
+            List<JdkArchiveRepository<?>> jdkArchiveRepositories = new ArrayList<>();
+            for (AutoJdkConfiguration.JdkRepository jdkRepository : autoJdkConfiguration.getJdkRepositories())
+            {
+                JdkArchiveRepository<?> jdkArchiveRepository = jdkRepository.createJdkArchiveRepository(repositorySystem, repoSession, offlineMode, allowHttpJdkDownloads, engineDownloadDirectory, autojdkHome, xmlManager, autoJdkConfiguration);
+                if (jdkArchiveRepository != null)
+                    jdkArchiveRepositories.add(jdkArchiveRepository);
+            }
 
-        autoJdk = new AutoJdk(localJdkResolver, localJdkResolver, jdkArchiveRepositories, versionTranslationScheme, autoJdkConfiguration, jdkSearchUpdateChecker, clock);
+            Clock clock = Clock.systemDefaultZone();
+            JdkSearchUpdateChecker jdkSearchUpdateChecker = new MetadataFileJdkSearchUpdateChecker(autojdkHome.getAutoJdkSearchUpToDateCheckMetadataFile(), xmlManager);
+
+            return new AutoJdk(localJdkResolver, readOnlyLocalJdkResolvers, localJdkResolver, jdkArchiveRepositories, versionTranslationScheme, autoJdkConfiguration, jdkSearchUpdateChecker, clock);
+        });
+
+        //Summarize Foojay searches of all modules once at the end of the build
+        if (!DelegatingExecutionListener.isRegistered(session.getRequest().getExecutionListener(), FoojayQuerySummaryExecutionListener.class))
+        {
+            session.getRequest().setExecutionListener(new FoojayQuerySummaryExecutionListener(session.getRequest().getExecutionListener(),
+                                                                                               FoojayQueryPlanner.forSession(repoSession)));
+        }
     }
 
     @Override
@@ -226,7 +323,28 @@ public abstract class AbstractAutoJdkMojo extends AbstractMojo
         }
     }
 
-    private synchronized Path tempDownloadDirectory()
+    /**
+     * @return the directory where the session's shared AutoJDK engine downloads JDK archives to before installing them.  This is in the
+     *         top-level project's build directory rather than any module's, since the engine is shared between all modules of a build.
+     *
+     * @throws IOException if an error occurs creating the directory.
+     */
+    private static Path sessionDownloadDirectory(MavenSession session)
+    throws IOException
+    {
+        MavenProject topLevelProject = session.getTopLevelProject();
+
+        Path directory;
+        if (topLevelProject == null || topLevelProject.getFile() == null)
+            directory = Path.of(StandardSystemProperty.JAVA_IO_TMPDIR.value());
+        else
+            directory = Path.of(topLevelProject.getBuild().getDirectory(), "autojdk-download");
+
+        Files.createDirectories(directory);
+        return directory;
+    }
+
+    protected synchronized Path tempDownloadDirectory()
     throws IOException
     {
         if (!downloadDirectorySetUp)
@@ -244,6 +362,49 @@ public abstract class AbstractAutoJdkMojo extends AbstractMojo
         return downloadDirectory.toPath();
     }
 
+    /**
+     * Parses platforms configured on the plugin.
+     *
+     * @param platformStrings platforms, each in the form 'os-architecture', e.g. 'linux-x64', 'macos-aarch64'.  A value of 'all' selects all
+     *                        well-known platforms.
+     *
+     * @return the parsed platforms, or the current platform if none were configured.
+     *
+     * @throws MojoExecutionException if a platform is invalid.
+     */
+    protected List<Platform> parsePlatforms(List<String> platformStrings)
+    throws MojoExecutionException
+    {
+        if (platformStrings == null || platformStrings.isEmpty())
+            return List.of(new Platform(platformTools.getCurrentOperatingSystem(), platformTools.getCurrentArchitecture()));
+
+        Set<Platform> platforms = new LinkedHashSet<>();
+        for (String platformString : platformStrings)
+        {
+            if (ALL_PLATFORMS_VALUE.equals(platformString))
+            {
+                platforms.addAll(PlatformTools.WELL_KNOWN_PLATFORMS);
+                continue;
+            }
+
+            //Operating systems never have '-' in them but some architectures do
+            int separatorIndex = platformString.indexOf('-');
+            if (separatorIndex < 0)
+                throw new MojoExecutionException("Invalid platform '" + platformString + "', expected 'os-architecture'");
+
+            OperatingSystem operatingSystem = OperatingSystem.fromText(platformString.substring(0, separatorIndex));
+            Architecture architecture = Architecture.fromText(platformString.substring(separatorIndex + 1));
+            if (operatingSystem == OperatingSystem.NOT_FOUND)
+                throw new MojoExecutionException("Unknown operating system in platform '" + platformString + "'");
+            if (architecture == Architecture.NOT_FOUND)
+                throw new MojoExecutionException("Unknown architecture in platform '" + platformString + "'");
+
+            platforms.add(new Platform(operatingSystem, architecture));
+        }
+
+        return new ArrayList<>(platforms);
+    }
+
     /**
      * Determines/calculates the version translation scheme that should be used from the version translation scheme configured directly or, if set to automatic mode,
      * detects which should be used based on the version.
@@ -77,6 +77,24 @@ public abstract class AbstractProjectBasedAutoJdkMojo extends AbstractAutoJdkMoj
     protected void executeImpl()
     throws MojoExecutionException, MojoFailureException
     {
+        resolveRequiredJdk();
+        super.executeImpl();
+    }
+
+    /**
+     * Resolves the required JDK version and vendor from plugin configuration or the toolchains plugin's configuration.
+     * This is performed as part of {@link #executeImpl()} but may be called earlier by subclasses that need the requirements before
+     * AutoJDK is set up.
+     *
+     * @throws MojoExecutionException if no JDK version was configured or it is invalid.
+     */
+    protected void resolveRequiredJdk()
+    throws MojoExecutionException
+    {
+        //Already resolved
+        if (requiredJdkVersionRange != null)
+            return;
+
         Map<String, String> toolchainJdkRequirements = readToolchainsJdkRequirements();
         if (requiredJdkVersion == null)
             requiredJdkVersion = toolchainJdkRequirements.get("version");
@@ -94,8 +112,6 @@ public abstract class AbstractProjectBasedAutoJdkMojo extends AbstractAutoJdkMoj
         {
             throw new MojoExecutionException("Invalid JDK version/range: " + requiredJdkVersion, e);
         }
-
-        super.executeImpl();
     }
 
     /**
@@ -5,23 +5,27 @@ import au.net.causal.maven.plugins.autojdk.xml.config.JdkUpdatePolicy;
 import au.net.causal.maven.plugins.autojdk.xml.metadata.LocalJdkMetadata;
 import au.net.causal.maven.plugins.autojdk.xml.metadata.ReleaseType;
 import org.apache.maven.artifact.versioning.ArtifactVersion;
+import org.apache.maven.artifact.versioning.InvalidVersionSpecificationException;
 import org.apache.maven.artifact.versioning.VersionRange;
-import org.apache.maven.toolchain.RequirementMatcherFactory;
 import org.apache.maven.toolchain.model.ToolchainModel;
 import org.codehaus.plexus.util.xml.Xpp3Dom;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Clock;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Entrypoint to AutoJDK functionality.
@@ -33,6 +37,7 @@ public class AutoJdk
     private static final PlatformTools platformTools = new PlatformTools();
 
     private final LocalJdkResolver localJdkResolver;
+    private final List<LocalJdkResolver> readOnlyLocalJdkResolvers;
     private final JdkInstallationTarget jdkInstallationTarget;
     private final List<JdkArchiveRepository<?>> jdkArchiveRepositories;
     private final VersionTranslationScheme versionTranslationScheme;
@@ -40,37 +45,83 @@ public class AutoJdk
     private final JdkSearchUpdateChecker jdkSearchUpdateChecker;
     private final Clock clock;
 
+    //Toolchains are only regenerated when the set of installed JDKs changes
+    private volatile GeneratedToolchains generatedToolchains;
+
     public AutoJdk(LocalJdkResolver localJdkResolver, JdkInstallationTarget jdkInstallationTarget,
                    Collection<? extends JdkArchiveRepository<?>> jdkArchiveRepositories, VersionTranslationScheme versionTranslationScheme,
                    AutoJdkConfiguration autoJdkConfiguration,
                    JdkSearchUpdateChecker jdkSearchUpdateChecker,
                    Clock clock)
+    {
+        this(localJdkResolver, List.of(), jdkInstallationTarget, jdkArchiveRepositories, versionTranslationScheme, autoJdkConfiguration, jdkSearchUpdateChecker, clock);
+    }
+
+    /**
+     * Creates AutoJDK with additional local JDK resolvers whose JDKs can be used but are never deleted by AutoJDK, such as JDKs installed
+     * on the system by other tools.
+     */
+    public AutoJdk(LocalJdkResolver localJdkResolver, Collection<? extends LocalJdkResolver> readOnlyLocalJdkResolvers,
+                   JdkInstallationTarget jdkInstallationTarget,
+                   Collection<? extends JdkArchiveRepository<?>> jdkArchiveRepositories, VersionTranslationScheme versionTranslationScheme,
+                   AutoJdkConfiguration autoJdkConfiguration,
+                   JdkSearchUpdateChecker jdkSearchUpdateChecker,
+                   Clock clock)
     {
         this.localJdkResolver = Objects.requireNonNull(localJdkResolver);
+        this.readOnlyLocalJdkResolvers = List.copyOf(readOnlyLocalJdkResolvers);
         this.jdkInstallationTarget = Objects.requireNonNull(jdkInstallationTarget);
-        this.jdkArchiveRepositories = List.copyOf(jdkArchiveRepositories);
+        //Modules of parallel builds share this instance, so make sure they don't all search and download the same JDK at the same time
+        this.jdkArchiveRepositories = List.copyOf(SingleFlightJdkArchiveRepository.wrapRepositories(jdkArchiveRepositories));
         this.versionTranslationScheme = Objects.requireNonNull(versionTranslationScheme);
         this.autoJdkConfiguration = Objects.requireNonNull(autoJdkConfiguration);
         this.jdkSearchUpdateChecker = Objects.requireNonNull(jdkSearchUpdateChecker);
         this.clock = Objects.requireNonNull(clock);
     }
 
+    public AutoJdkConfiguration getAutoJdkConfiguration()
+    {
+        return autoJdkConfiguration;
+    }
+
+    /**
+     * Generates JDK toolchains for all installed JDKs.
+     * <p>
+     *
+     * The returned list is immutable and is shared between callers for as long as the same JDKs are installed, so neither the list nor the
+     * toolchain models in it should be modified.
+     *
+     * @param releaseType only JDKs of this release type are used.  If null, JDKs of all release types are used.
+     *
+     * @return JDK toolchains, ordered from most to least preferred JDK.
+     *
+     * @throws LocalJdkResolutionException if an error occurs finding installed JDKs.
+     */
     public List<? extends ToolchainModel> generateToolchainsFromLocalJdks(ReleaseType releaseType)
     throws LocalJdkResolutionException
     {
-        List<ToolchainModel> toolchains = new ArrayList<>();
+        List<LocalJdk> localJdks = allInstalledJdks(releaseType);
 
-        List<LocalJdk> localJdks = new ArrayList<>(localJdkResolver.getInstalledJdks(releaseType));
-        localJdks.sort(localJdkComparator().reversed());
+        //Compared by value since some resolvers, such as shared stores, read fresh JDK instances every time
+        GeneratedToolchains previous = generatedToolchains;
+        if (previous != null && previous.isFor(releaseType, localJdks))
+            return previous.getToolchains();
 
-        for (LocalJdk jdk : localJdks)
+        List<LocalJdk> sortedJdks = new ArrayList<>(localJdks);
+        sortedJdks.sort(localJdkComparator().reversed());
+
+        List<ToolchainModel> toolchains = new ArrayList<>();
+        for (LocalJdk jdk : sortedJdks)
         {
             for (ArtifactVersion jdkVersion : versionTranslationScheme.expandJdkVersionForRegistration(jdk.getVersion()))
             {
                 toolchains.add(localJdkToToolchainModel(jdk, jdkVersion));
             }
         }
-        return toolchains;
+
+        GeneratedToolchains generated = new GeneratedToolchains(releaseType, localJdks, toolchains);
+        generatedToolchains = generated;
+        return generated.getToolchains();
     }
 
     private ToolchainModel localJdkToToolchainModel(LocalJdk jdk, ArtifactVersion jdkVersionToRegister)
@@ -102,8 +153,7 @@ public class AutoJdk
     public Collection<? extends JdkArtifact> findArtifactsInAllRepositories(JdkSearchRequest searchRequest)
     {
         searchRequest = translateSearchRequestForVersionTranslationScheme(searchRequest);
-        JdkArchiveRepository<?> compositeRepository = new CompositeJdkArchiveRepository(CompositeJdkArchiveRepository.SearchType.EXHAUSTIVE,
-                                                                                        SearchErrorLoggingJdkArchiveRepository.wrapRepositories(jdkArchiveRepositories));
+        JdkArchiveRepository<?> compositeRepository = allRepositories();
         try
         {
             return compositeRepository.search(searchRequest);
@@ -117,6 +167,16 @@ public class AutoJdk
         }
     }
 
+    /**
+     * @return a repository that searches all configured JDK repositories and can resolve archives from any of them.  Search errors of
+     *         individual repositories are logged rather than failing the search.
+     */
+    public CompositeJdkArchiveRepository allRepositories()
+    {
+        return new CompositeJdkArchiveRepository(CompositeJdkArchiveRepository.SearchType.EXHAUSTIVE,
+                                                 SearchErrorLoggingJdkArchiveRepository.wrapRepositories(jdkArchiveRepositories));
+    }
+
     private boolean updateCheckRequiredForJdkSearch(JdkSearchRequest searchRequest)
     throws JdkSearchUpdateCheckException
     {
@@ -136,8 +196,57 @@ public class AutoJdk
         return checkPolicy.isUpdateCheckRequired(lastCheckTime, now);
     }
 
+    /**
+     * Determines how long the result of a JDK search remains up to date according to the configured JDK update policy, i.e. until when
+     * {@link #prepareJdk(JdkSearchRequest)} would not need to check remote repositories for a newer JDK if a matching one is installed locally.
+     *
+     * @param searchRequest the JDK search.
+     *
+     * @return the time up until which the search is up to date, {@link Instant#MAX} if it never needs checking,
+     *         or null if an update check is required right now.
+     *
+     * @throws JdkSearchUpdateCheckException if an error occurs reading the last check time.
+     */
+    public Instant getSearchUpToDateUntil(JdkSearchRequest searchRequest)
+    throws JdkSearchUpdateCheckException
+    {
+        searchRequest = translateSearchRequestForVersionTranslationScheme(searchRequest);
+
+        if (autoJdkConfiguration.getJdkUpdatePolicy() == null || autoJdkConfiguration.getJdkUpdatePolicy().getValue() == null)
+            return null;
+
+        JdkUpdatePolicy checkPolicy = autoJdkConfiguration.getJdkUpdatePolicy().getValue();
+        return checkPolicy.getUpToDateUntil(jdkSearchUpdateChecker.getLastCheckTime(searchRequest));
+    }
+
     public LocalJdk prepareJdk(JdkSearchRequest searchRequest)
     throws LocalJdkResolutionException, JdkNotFoundException, JdkSearchUpdateCheckException, IOException
+    {
+        LocalJdk localJdk = findOrInstallJdk(searchRequest);
+        recordJdkUsage(localJdk);
+        return localJdk;
+    }
+
+    /**
+     * Records that a JDK was just used so that it is not cleaned up.  Failures are not fatal since they only affect cleanup.
+     *
+     * @param localJdk the JDK that was used.
+     */
+    public void recordJdkUsage(LocalJdk localJdk)
+    {
+        try
+        {
+            jdkInstallationTarget.recordJdkUsage(localJdk.getJdkDirectory());
+        }
+        catch (IOException e)
+        {
+            log.warn("Failed to record usage of JDK " + localJdk.getJdkDirectory() + ": " + e.getMessage());
+            log.debug("Failed to record usage of JDK " + localJdk.getJdkDirectory() + ": " + e.getMessage(), e);
+        }
+    }
+
+    private LocalJdk findOrInstallJdk(JdkSearchRequest searchRequest)
+    throws LocalJdkResolutionException, JdkNotFoundException, JdkSearchUpdateCheckException, IOException
     {
         searchRequest = translateSearchRequestForVersionTranslationScheme(searchRequest);
 
@@ -210,7 +319,9 @@ public class AutoJdk
     private <A extends JdkArtifact> JdkArchive<A> attemptDownloadJdkFromRemoteRepository(JdkSearchRequest searchRequest, JdkArchiveRepository<A> repository, LocalJdk bestMatchingLocalJdk)
     throws JdkRepositoryException
     {
-        Collection<? extends A> searchResults = repository.search(searchRequest);
+        //Only the best JDK is selected, so less preferred vendors don't need to be searched if a preferred one has a match
+        //and older versions don't need to be fetched when the latest ones will do
+        Collection<? extends A> searchResults = repository.search(searchRequest.withPreferredVendorsOnly(true).withLatestOnly(true));
         A selectedJdk = searchResults.stream()
                                      .max(jdkComparator()) //Pick the latest available JDK version
                                      .orElse(null);
@@ -261,19 +372,34 @@ public class AutoJdk
                          .thenComparing(LocalJdk::getVersion);
     }
 
+    /**
+     * @return all installed JDKs from both AutoJDK's own installation and read-only resolvers.
+     */
+    private List<LocalJdk> allInstalledJdks(ReleaseType releaseType)
+    throws LocalJdkResolutionException
+    {
+        List<LocalJdk> jdks = new ArrayList<>(localJdkResolver.getInstalledJdks(releaseType));
+        for (LocalJdkResolver readOnlyLocalJdkResolver : readOnlyLocalJdkResolvers)
+        {
+            jdks.addAll(readOnlyLocalJdkResolver.getInstalledJdks(releaseType));
+        }
+        return jdks;
+    }
+
     protected LocalJdk findMatchingLocalJdk(JdkSearchRequest searchRequest)
     throws LocalJdkResolutionException
     {
-        Collection<? extends LocalJdk> jdks = localJdkResolver.getInstalledJdks(searchRequest.getReleaseType());
+        Collection<? extends LocalJdk> jdks = allInstalledJdks(searchRequest.getReleaseType());
 
         //Find highest versioned match
+        ToolchainVersionMatcher versionMatcher = new ToolchainVersionMatcher(searchRequest.getVersionRange());
         return jdks.stream()
-                   .filter(jdk -> localJdkMatches(jdk, searchRequest))
+                   .filter(jdk -> localJdkMatches(jdk, searchRequest, versionMatcher))
                    .max(localJdkComparator())
                    .orElse(null);
     }
 
-    private boolean localJdkMatches(LocalJdk jdk, JdkSearchRequest searchRequest)
+    private boolean localJdkMatches(LocalJdk jdk, JdkSearchRequest searchRequest, ToolchainVersionMatcher versionMatcher)
     {
         //Reject if architecture does not match
         if (searchRequest.getArchitecture() != null &&
@@ -296,7 +422,7 @@ public class AutoJdk
             return false;
 
         //Version comparison
-        if (!localJdkVersionMatches(jdk.getVersion(), searchRequest.getVersionRange()))
+        if (!localJdkVersionMatches(jdk.getVersion(), versionMatcher))
             return false;
 
         //If we get here it matches
@@ -304,13 +430,13 @@ public class AutoJdk
     }
 
     //Needs to have the same logic as toolchains
-    private boolean localJdkVersionMatches(ArtifactVersion jdkVersion, VersionRange searchVersion)
+    private boolean localJdkVersionMatches(ArtifactVersion jdkVersion, ToolchainVersionMatcher versionMatcher)
     {
         //This logic needs to emulate the logic of how we expand local JDKs into toolchains.xml definitions
         //The match logic of this loop must be the same as what toolchains does
         //See DefaultToolchain.matchesRequirements()
         //and RequirementMatcherFactory.VersionMatcher.matches()
-        return RequirementMatcherFactory.createVersionMatcher(jdkVersion.toString()).matches(searchVersion.toString());
+        return versionMatcher.matches(jdkVersion);
     }
 
     public int deleteLocalJdks(JdkSearchRequest searchRequest, boolean deleteCaches)
@@ -318,8 +444,9 @@ public class AutoJdk
     {
         Collection<? extends LocalJdk> jdks = localJdkResolver.getInstalledJdks(searchRequest.getReleaseType());
 
+        ToolchainVersionMatcher versionMatcher = new ToolchainVersionMatcher(searchRequest.getVersionRange());
         List<? extends LocalJdk> matchingLocalJdks = jdks.stream()
-                                                         .filter(jdk -> localJdkMatches(jdk, searchRequest))
+                                                         .filter(jdk -> localJdkMatches(jdk, searchRequest, versionMatcher))
                                                          .collect(Collectors.toList());
         for (LocalJdk localJdk : matchingLocalJdks)
         {
@@ -348,4 +475,187 @@ public class AutoJdk
         jdkInstallationTarget.deleteJdk(localJdk.getJdkDirectory());
         log.info("Deleted local JDK: " + localJdk.getJdkDirectory());
     }
+
+    /**
+     * Removes installed JDKs, and any of their archives cached by repositories, that exceed the limits of a cleanup policy.
+     * Archives in the local repository of JDKs that are no longer installed are also removed when they exceed the limits.
+     * JDKs on the system that were not installed by AutoJDK are never removed.
+     *
+     * @param cleanupPolicy the cleanup policy.
+     * @param localRepositoryArchives JDK archives in the local Maven repository.
+     *
+     * @return the number of JDKs that were removed.
+     *
+     * @throws LocalJdkResolutionException if an error occurs finding installed JDKs.
+     */
+    public int cleanUpLocalJdks(AutoJdkConfiguration.JdkCleanupPolicy cleanupPolicy, LocalRepositoryJdkArchives localRepositoryArchives)
+    throws LocalJdkResolutionException
+    {
+        JdkCleanupPlanner planner = new JdkCleanupPlanner(cleanupPolicy);
+
+        List<LocalRepositoryJdkArchives.CachedArchive> orphanedArchives;
+        try
+        {
+            orphanedArchives = new ArrayList<>(localRepositoryArchives.findArchives());
+        }
+        catch (IOException e)
+        {
+            log.warn("Failed to read JDK archives in local repository, they will not be cleaned up: " + e.getMessage());
+            log.debug("Failed to read JDK archives in local repository, they will not be cleaned up: " + e.getMessage(), e);
+            orphanedArchives = new ArrayList<>();
+        }
+
+        List<JdkCleanupPlanner.Candidate> candidates = new ArrayList<>();
+        for (LocalJdk jdk : localJdkResolver.getInstalledJdks(null))
+        {
+            //Archives of installed JDKs go with their JDK, the rest are planned separately
+            long archivesSize = 0L;
+            for (Iterator<LocalRepositoryJdkArchives.CachedArchive> i = orphanedArchives.iterator(); i.hasNext();)
+            {
+                LocalRepositoryJdkArchives.CachedArchive archive = i.next();
+                if (archive.isFor(jdk))
+                {
+                    archivesSize += archive.getSize();
+                    i.remove();
+                }
+            }
+
+            try
+            {
+                long size = planner.isSizeRequired() ? directorySize(jdk.getJdkDirectory()) + archivesSize : 0L;
+                candidates.add(new JdkCleanupPlanner.Candidate(jdk, jdkInstallationTarget.getLastJdkUsage(jdk.getJdkDirectory()), size));
+            }
+            catch (IOException e)
+            {
+                log.warn("Failed to read details of JDK " + jdk.getJdkDirectory() + ", it will not be cleaned up: " + e.getMessage());
+                log.debug("Failed to read details of JDK " + jdk.getJdkDirectory() + ", it will not be cleaned up: " + e.getMessage(), e);
+            }
+        }
+
+        Instant now = Instant.now(clock);
+        List<JdkCleanupPlanner.Candidate> jdksToRemove = planner.selectJdksToRemove(candidates, now);
+
+        int removedCount = 0;
+        for (JdkCleanupPlanner.Candidate toRemove : jdksToRemove)
+        {
+            LocalJdk jdk = toRemove.getJdk();
+            try
+            {
+                deleteLocalJdk(jdk);
+                removedCount++;
+
+                JdkSearchRequest exactJdkRequest = new JdkSearchRequest(VersionRange.createFromVersionSpec("[" + jdk.getVersion() + "]"),
+                                                                        jdk.getArchitecture(), jdk.getOperatingSystem(), jdk.getVendor(), jdk.getReleaseType());
+                for (JdkArchiveRepository<?> jdkArchiveRepository : jdkArchiveRepositories)
+                {
+                    for (JdkArchive<?> purged : jdkArchiveRepository.purge(exactJdkRequest))
+                    {
+                        log.info("Deleted from cache: " + purged.getArtifact() + " (" + purged.getFile() + ")");
+                    }
+                }
+            }
+            catch (IOException | JdkRepositoryException | InvalidVersionSpecificationException e)
+            {
+                log.warn("Failed to clean up JDK " + jdk.getJdkDirectory() + ": " + e.getMessage());
+                log.debug("Failed to clean up JDK " + jdk.getJdkDirectory() + ": " + e.getMessage(), e);
+            }
+        }
+
+        long keptJdkSize = candidates.stream().filter(c -> !jdksToRemove.contains(c)).mapToLong(JdkCleanupPlanner.Candidate::getSize).sum();
+        for (LocalRepositoryJdkArchives.CachedArchive archive : planner.selectArchivesToRemove(orphanedArchives, keptJdkSize, now))
+        {
+            try
+            {
+                localRepositoryArchives.delete(archive);
+                log.info("Deleted from cache: " + archive.getFile());
+            }
+            catch (IOException e)
+            {
+                log.warn("Failed to clean up JDK archive " + archive.getFile() + ": " + e.getMessage());
+                log.debug("Failed to clean up JDK archive " + archive.getFile() + ": " + e.getMessage(), e);
+            }
+        }
+
+        return removedCount;
+    }
+
+    private static long directorySize(Path directory)
+    throws IOException
+    {
+        if (!Files.isDirectory(directory))
+            return 0L;
+
+        try (Stream<Path> files = Files.walk(directory))
+        {
+            return files.filter(Files::isRegularFile)
+                        .mapToLong(file -> file.toFile().length())
+                        .sum();
+        }
+    }
+
+    /**
+     * Toolchains generated from a particular set of local JDKs.
+     */
+    private static class GeneratedToolchains
+    {
+        private final ReleaseType releaseType;
+        private final List<LocalJdkKey> localJdks;
+        private final List<ToolchainModel> toolchains;
+
+        public GeneratedToolchains(ReleaseType releaseType, List<? extends LocalJdk> localJdks, List<? extends ToolchainModel> toolchains)
+        {
+            this.releaseType = releaseType;
+            this.localJdks = LocalJdkKey.listOf(localJdks);
+            this.toolchains = List.copyOf(toolchains);
+        }
+
+        public boolean isFor(ReleaseType releaseType, List<? extends LocalJdk> localJdks)
+        {
+            return this.releaseType == releaseType && this.localJdks.equals(LocalJdkKey.listOf(localJdks));
+        }
+
+        public List<ToolchainModel> getToolchains()
+        {
+            return toolchains;
+        }
+    }
+
+    /**
+     * The properties of a local JDK that generated toolchains are made from.
+     */
+    private static class LocalJdkKey
+    {
+        private final String vendor;
+        private final String version;
+        private final Path jdkDirectory;
+
+        public LocalJdkKey(LocalJdk jdk)
+        {
+            this.vendor = jdk.getVendor();
+            this.version = jdk.getVersion().toString();
+            this.jdkDirectory = jdk.getJdkDirectory();
+        }
+
+        public static List<LocalJdkKey> listOf(List<? extends LocalJdk> jdks)
+        {
+            return jdks.stream().map(LocalJdkKey::new).collect(Collectors.toUnmodifiableList());
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o)
+                return true;
+            if (o == null || getClass() != o.getClass())
+                return false;
+            LocalJdkKey that = (LocalJdkKey)o;
+            return Objects.equals(vendor, that.vendor) && Objects.equals(version, that.version) && Objects.equals(jdkDirectory, that.jdkDirectory);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(vendor, version, jdkDirectory);
+        }
+    }
 }
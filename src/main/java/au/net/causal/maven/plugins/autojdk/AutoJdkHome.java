@@ -1,16 +1,36 @@
 package au.net.causal.maven.plugins.autojdk;
 
+import com.google.common.base.Splitter;
 import com.google.common.base.StandardSystemProperty;
 
+import java.io.File;
 import java.nio.file.Path;
+import java.util.List;
 import java.util.Objects;
+import java.util.stream.Collectors;
 
 /**
  * AutoJDK home directory, used for holding local JDKs and configuration.
+ * <p>
+ *
+ * As well as the user's own writable JDK directory, there may be shared JDK directories that are layered underneath it.  These hold JDKs
+ * in the same layout as the user's JDK directory but are populated by someone else, such as an administrator of a shared build host,
+ * and are only ever read from.
  */
 public class AutoJdkHome
 {
+    /**
+     * System property holding shared JDK directories, separated by the platform path separator.
+     */
+    public static final String SHARED_JDKS_PROPERTY = "autojdk.shared.jdks";
+
+    /**
+     * Environment variable holding shared JDK directories, used when the system property is not set.
+     */
+    public static final String SHARED_JDKS_ENVIRONMENT_VARIABLE = "AUTOJDK_SHARED_JDKS";
+
     private final Path autoJdkHomeDirectory;
+    private final List<Path> sharedJdksDirectories;
 
     public static AutoJdkHome defaultHome()
     {
@@ -18,12 +38,36 @@ public class AutoJdkHome
         Path m2Home = userHome.resolve(".m2");
         Path autoJdkHome = m2Home.resolve("autojdk");
 
-        return new AutoJdkHome(autoJdkHome);
+        String sharedJdks = System.getProperty(SHARED_JDKS_PROPERTY);
+        if (sharedJdks == null)
+            sharedJdks = System.getenv(SHARED_JDKS_ENVIRONMENT_VARIABLE);
+
+        return new AutoJdkHome(autoJdkHome, parsePathList(sharedJdks));
+    }
+
+    static List<Path> parsePathList(String pathList)
+    {
+        if (pathList == null)
+            return List.of();
+
+        return Splitter.on(File.pathSeparatorChar).trimResults().omitEmptyStrings().splitToStream(pathList)
+                       .map(Path::of)
+                       .collect(Collectors.toUnmodifiableList());
     }
 
     public AutoJdkHome(Path autoJdkHomeDirectory)
+    {
+        this(autoJdkHomeDirectory, List.of());
+    }
+
+    /**
+     * @param autoJdkHomeDirectory the user's AutoJDK home directory.
+     * @param sharedJdksDirectories read-only JDK directories shared with other users.
+     */
+    public AutoJdkHome(Path autoJdkHomeDirectory, List<Path> sharedJdksDirectories)
     {
         this.autoJdkHomeDirectory = Objects.requireNonNull(autoJdkHomeDirectory);
+        this.sharedJdksDirectories = List.copyOf(sharedJdksDirectories);
     }
 
     public Path getAutoJdkHomeDirectory()
@@ -31,11 +75,22 @@ public class AutoJdkHome
         return autoJdkHomeDirectory;
     }
 
+    /**
+     * @return the user's writable JDK directory, where AutoJDK installs JDKs.
+     */
     public Path getLocalJdksDirectory()
     {
         return getAutoJdkHomeDirectory().resolve("jdks");
     }
 
+    /**
+     * @return read-only JDK directories shared with other users, which are searched as well as the user's own JDK directory.
+     */
+    public List<Path> getSharedJdksDirectories()
+    {
+        return sharedJdksDirectories;
+    }
+
     public Path getAutoJdkConfigurationFile()
     {
         return getAutoJdkHomeDirectory().resolve("autojdk-configuration.xml");
@@ -45,4 +100,34 @@ public class AutoJdkHome
     {
         return getAutoJdkHomeDirectory().resolve("autojdk-search-uptodate-check.xml");
     }
+
+    public Path getJdkUsageDirectory()
+    {
+        return getAutoJdkHomeDirectory().resolve("jdk-usage");
+    }
+
+    public Path getJdkCleanupMarkerFile()
+    {
+        return getAutoJdkHomeDirectory().resolve("jdk-cleanup.lastrun");
+    }
+
+    public Path getPrepareCacheDirectory()
+    {
+        return getAutoJdkHomeDirectory().resolve("prepare-cache");
+    }
+
+    public Path getFoojayResponseCacheDirectory()
+    {
+        return getAutoJdkHomeDirectory().resolve("foojay-cache");
+    }
+
+    public Path getCircuitBreakerDirectory()
+    {
+        return getAutoJdkHomeDirectory().resolve("circuit-breakers");
+    }
+
+    public Path getMissingMetadataCacheDirectory()
+    {
+        return getAutoJdkHomeDirectory().resolve("missing-metadata-cache");
+    }
 }
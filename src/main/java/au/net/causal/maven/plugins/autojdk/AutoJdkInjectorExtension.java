@@ -5,7 +5,6 @@ import au.net.causal.maven.plugins.autojdk.xml.config.AutoJdkConfiguration.Exten
 import au.net.causal.maven.plugins.autojdk.ExtensionExclusionProcessor.ExclusionProcessorException;
 import au.net.causal.maven.plugins.autojdk.config.ActivationProcessor;
 import au.net.causal.maven.plugins.autojdk.config.AutoJdkConfigurationException;
-import jakarta.xml.bind.JAXBException;
 import org.apache.maven.AbstractMavenLifecycleParticipant;
 import org.apache.maven.MavenExecutionException;
 import org.apache.maven.artifact.versioning.InvalidVersionSpecificationException;
@@ -89,9 +88,9 @@ public class AutoJdkInjectorExtension extends AbstractMavenLifecycleParticipant
             ActivationProcessor activationProcessor = new ActivationProcessor(fileProfileActivator, new OperatingSystemProfileActivator(), new PropertyProfileActivator(), new JdkVersionProfileActivator(), lookupAutoJdkPluginVersion());
 
             AutoJdkXmlManager xmlManager = new AutoJdkXmlManager();
-            autoJdkConfiguration = AutoJdkConfiguration.fromFile(autoJdkConfigFile, xmlManager, activationProcessor, session);
+            autoJdkConfiguration = AutoJdkConfiguration.fromFile(autoJdkConfigFile, ResidentJdkRegistry.shared().configurationFileReader(xmlManager), activationProcessor, session);
         }
-        catch (AutoJdkXmlManager.XmlParseException | JAXBException | AutoJdkConfigurationException e)
+        catch (AutoJdkXmlManager.XmlParseException | AutoJdkConfigurationException e)
         {
             throw new MavenExecutionException("Error reading " + autojdkHome.getAutoJdkConfigurationFile() + ": " + e.getMessage(), e);
         }
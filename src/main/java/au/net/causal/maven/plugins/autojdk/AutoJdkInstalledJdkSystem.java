@@ -12,10 +12,13 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.NotDirectoryException;
 import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -33,12 +36,27 @@ public class AutoJdkInstalledJdkSystem implements LocalJdkResolver, JdkInstallat
     private static final Logger log = LoggerFactory.getLogger(AutoJdkInstalledJdkSystem.class);
 
     private final Path autoJdkInstallationDirectory;
+    private final Path jdkUsageDirectory;
     private final JdkInstaller jdkInstaller;
     private final AutoJdkXmlManager xmlManager;
 
     public AutoJdkInstalledJdkSystem(Path autoJdkInstallationDirectory, AutoJdkXmlManager xmlManager)
+    {
+        this(autoJdkInstallationDirectory, null, xmlManager);
+    }
+
+    /**
+     * Creates an installed JDK system that tracks JDK usage.
+     *
+     * @param autoJdkInstallationDirectory the directory JDKs are installed into.
+     * @param jdkUsageDirectory the directory usage of each JDK is recorded in.  This is kept separate from the installation directory so that
+     *                          recording usage does not look like a change to the installed JDKs.  If null, usage is not tracked.
+     * @param xmlManager XML manager for reading and writing JDK metadata.
+     */
+    public AutoJdkInstalledJdkSystem(Path autoJdkInstallationDirectory, Path jdkUsageDirectory, AutoJdkXmlManager xmlManager)
     {
         this.autoJdkInstallationDirectory = Objects.requireNonNull(autoJdkInstallationDirectory);
+        this.jdkUsageDirectory = jdkUsageDirectory;
         this.xmlManager = Objects.requireNonNull(xmlManager);
         this.jdkInstaller = new JdkInstaller(autoJdkInstallationDirectory);
     }
@@ -88,8 +106,101 @@ public class AutoJdkInstalledJdkSystem implements LocalJdkResolver, JdkInstallat
             throw new IOException("Missing metadata file for JDK: " + jdkDirectory, new NoSuchFileException(jdkMetadataFile.toString()));
 
         //Perform deletion of metadata and JDK directory
+        //Metadata goes first so that if deletion is interrupted the JDK is no longer seen as installed
         Files.delete(jdkMetadataFile);
         FileUtils.deleteDirectory(jdkDirectory.toFile());
+
+        Path usageFile = usageFileForJdkInstallationDirectory(jdkDirectory);
+        if (usageFile != null)
+            Files.deleteIfExists(usageFile);
+    }
+
+    /**
+     * Records usage by touching a marker file, which is cheap and atomic.  The marker's modification time is the last time the JDK was used.
+     */
+    @Override
+    public void recordJdkUsage(Path jdkDirectory)
+    throws IOException
+    {
+        recordJdkUsage(autoJdkInstallationDirectory, jdkUsageDirectory, jdkDirectory);
+    }
+
+    /**
+     * Records usage of an installed JDK without needing an installed JDK system, for callers that only know where a JDK is.
+     *
+     * @param autoJdkInstallationDirectory the directory AutoJDK installs JDKs into.
+     * @param jdkUsageDirectory the directory usage of each JDK is recorded in.  If null, usage is not tracked.
+     * @param jdkDirectory the JDK that was used.  Nothing is recorded if it is not installed in the installation directory.
+     *
+     * @throws IOException if an error occurs touching the usage marker file.
+     */
+    public static void recordJdkUsage(Path autoJdkInstallationDirectory, Path jdkUsageDirectory, Path jdkDirectory)
+    throws IOException
+    {
+        Path usageFile = usageFileForJdkInstallationDirectory(autoJdkInstallationDirectory, jdkUsageDirectory, jdkDirectory);
+        if (usageFile == null)
+            return;
+
+        try
+        {
+            Files.setLastModifiedTime(usageFile, FileTime.from(Instant.now()));
+        }
+        catch (NoSuchFileException e)
+        {
+            Files.createDirectories(usageFile.getParent());
+            try
+            {
+                Files.createFile(usageFile);
+            }
+            catch (FileAlreadyExistsException ex)
+            {
+                //Another build got in first, which is just as good
+            }
+        }
+    }
+
+    @Override
+    public Instant getLastJdkUsage(Path jdkDirectory)
+    throws IOException
+    {
+        Path usageFile = usageFileForJdkInstallationDirectory(jdkDirectory);
+        if (usageFile == null)
+            return null;
+
+        try
+        {
+            return Files.getLastModifiedTime(usageFile).toInstant();
+        }
+        catch (NoSuchFileException e)
+        {
+            //Installed before usage was tracked, or never used since, so installation time is the best guess
+            Path metadataFile = metadataFileForJdkInstallationDirectory(jdkDirectory);
+            if (Files.exists(metadataFile))
+                return Files.getLastModifiedTime(metadataFile).toInstant();
+
+            return null;
+        }
+    }
+
+    /**
+     * @return the usage marker file for a JDK, or null if usage is not tracked or the JDK is not one installed here.
+     */
+    private Path usageFileForJdkInstallationDirectory(Path jdkDirectory)
+    {
+        return usageFileForJdkInstallationDirectory(autoJdkInstallationDirectory, jdkUsageDirectory, jdkDirectory);
+    }
+
+    private static Path usageFileForJdkInstallationDirectory(Path autoJdkInstallationDirectory, Path jdkUsageDirectory, Path jdkDirectory)
+    {
+        if (jdkUsageDirectory == null)
+            return null;
+
+        Path installationDirectory = autoJdkInstallationDirectory.toAbsolutePath().normalize();
+        Path absoluteJdkDirectory = jdkDirectory.toAbsolutePath().normalize();
+        if (!installationDirectory.equals(absoluteJdkDirectory.getParent()))
+            return null;
+
+        return jdkUsageDirectory.resolve(absoluteJdkDirectory.getFileName().toString() + ".lastused");
     }
 
     private Path metadataFileForJdkInstallationDirectory(Path jdkDirectory)
@@ -153,6 +264,10 @@ public class AutoJdkInstalledJdkSystem implements LocalJdkResolver, JdkInstallat
         private final Path jdkDirectory;
         private final LocalJdkMetadata metadata;
 
+        //Parsed lazily and only once since versions are compared many times when matching and sorting
+        //Volatile since installations may be shared between threads through the resident registry
+        private volatile ArtifactVersion version;
+
         public AutoJdkInstallation(Path jdkDirectory, LocalJdkMetadata metadata)
         {
             this.jdkDirectory = Objects.requireNonNull(jdkDirectory);
@@ -168,7 +283,14 @@ public class AutoJdkInstalledJdkSystem implements LocalJdkResolver, JdkInstallat
         @Override
         public ArtifactVersion getVersion()
         {
-            return new DefaultArtifactVersion(metadata.getVersion());
+            ArtifactVersion version = this.version;
+            if (version == null)
+            {
+                version = new DefaultArtifactVersion(metadata.getVersion());
+                this.version = version;
+            }
+
+            return version;
         }
 
         @Override
@@ -0,0 +1,124 @@
+package au.net.causal.maven.plugins.autojdk;
+
+import au.net.causal.maven.plugins.autojdk.xml.config.AutoJdkConfiguration;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.SessionData;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.StringJoiner;
+
+/**
+ * Holds {@link AutoJdk} instances for the lifetime of a single Maven session so that modules of a multi-module build can share the same engine
+ * and JDK archive repositories (along with anything those repositories cache) instead of rebuilding them for every plugin execution.
+ * <p>
+ *
+ * Instances are keyed by the effective configuration they were built from.  If a later execution resolves to a different effective configuration,
+ * a new engine is created for it rather than the cached one being reused.
+ */
+public class AutoJdkSessionCache
+{
+    private static final String SESSION_DATA_KEY = AutoJdkSessionCache.class.getName();
+
+    private final Map<Key, AutoJdk> engines = new HashMap<>();
+
+    /**
+     * Retrieves the cache for a repository session, creating and registering one if it does not yet exist.
+     *
+     * @param repoSession the repository session that the cache is scoped to.
+     *
+     * @return the cache for the session, never null.
+     */
+    public static AutoJdkSessionCache forSession(RepositorySystemSession repoSession)
+    {
+        SessionData data = repoSession.getData();
+        Object existing = data.get(SESSION_DATA_KEY);
+        if (existing instanceof AutoJdkSessionCache)
+            return (AutoJdkSessionCache)existing;
+
+        AutoJdkSessionCache cache = new AutoJdkSessionCache();
+
+        //If another thread got in first, use theirs
+        if (!data.set(SESSION_DATA_KEY, existing, cache))
+            return (AutoJdkSessionCache)data.get(SESSION_DATA_KEY);
+
+        return cache;
+    }
+
+    /**
+     * Returns a cached engine for the given key, or creates one with the factory and caches it if there is none.
+     *
+     * @param key the effective configuration of the engine.
+     * @param factory used to create the engine if it is not already cached.
+     *
+     * @return the engine.
+     *
+     * @throws E if an error occurs creating the engine.
+     */
+    public synchronized <E extends Exception> AutoJdk getOrCreate(Key key, ExceptionalSupplier<? extends AutoJdk, E> factory)
+    throws E
+    {
+        AutoJdk engine = engines.get(key);
+        if (engine == null)
+        {
+            engine = factory.get();
+            engines.put(key, engine);
+        }
+        return engine;
+    }
+
+    /**
+     * The inputs that determine how an {@link AutoJdk} engine is built.  Engines built from equal keys are interchangeable.
+     */
+    public static class Key
+    {
+        private final Path localJdksDirectory;
+        private final AutoJdkConfiguration configuration;
+        private final VersionTranslationScheme versionTranslationScheme;
+        private final boolean offlineMode;
+        private final boolean allowHttpJdkDownloads;
+        private final boolean useSystemJdks;
+
+        public Key(Path localJdksDirectory, AutoJdkConfiguration configuration, VersionTranslationScheme versionTranslationScheme,
+                   boolean offlineMode, boolean allowHttpJdkDownloads, boolean useSystemJdks)
+        {
+            this.localJdksDirectory = Objects.requireNonNull(localJdksDirectory);
+            this.configuration = Objects.requireNonNull(configuration);
+            this.versionTranslationScheme = Objects.requireNonNull(versionTranslationScheme);
+            this.offlineMode = offlineMode;
+            this.allowHttpJdkDownloads = allowHttpJdkDownloads;
+            this.useSystemJdks = useSystemJdks;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return offlineMode == key.offlineMode && allowHttpJdkDownloads == key.allowHttpJdkDownloads && useSystemJdks == key.useSystemJdks &&
+                    localJdksDirectory.equals(key.localJdksDirectory) && configuration.equals(key.configuration) &&
+                    versionTranslationScheme.equals(key.versionTranslationScheme);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(localJdksDirectory, configuration, versionTranslationScheme, offlineMode, allowHttpJdkDownloads, useSystemJdks);
+        }
+
+        @Override
+        public String toString()
+        {
+            return new StringJoiner(", ", Key.class.getSimpleName() + "[", "]")
+                    .add("localJdksDirectory=" + localJdksDirectory)
+                    .add("versionTranslationScheme=" + versionTranslationScheme)
+                    .add("offlineMode=" + offlineMode)
+                    .add("allowHttpJdkDownloads=" + allowHttpJdkDownloads)
+                    .add("useSystemJdks=" + useSystemJdks)
+                    .toString();
+        }
+    }
+}
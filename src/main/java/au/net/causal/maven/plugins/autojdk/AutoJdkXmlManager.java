@@ -1,15 +1,23 @@
 package au.net.causal.maven.plugins.autojdk;
 
 import au.net.causal.maven.plugins.autojdk.xml.config.AutoJdkConfiguration;
+import au.net.causal.maven.plugins.autojdk.xml.metadata.JdkCatalog;
 import au.net.causal.maven.plugins.autojdk.xml.metadata.JdkSearchUpToDateMetadata;
 import au.net.causal.maven.plugins.autojdk.xml.metadata.LocalJdkMetadata;
 import au.net.causal.maven.plugins.autojdk.xml.metadata.MavenJdkArtifactMetadata;
 import jakarta.xml.bind.JAXBContext;
 import jakarta.xml.bind.JAXBException;
+import jakarta.xml.bind.Marshaller;
+import jakarta.xml.bind.Unmarshaller;
 
+import javax.xml.stream.XMLStreamException;
 import javax.xml.transform.stream.StreamSource;
 import java.io.File;
+import java.io.IOException;
 import java.nio.file.Path;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 /**
  * Wraps any XML / JAXB related reading / writing.
@@ -21,21 +29,37 @@ public class AutoJdkXmlManager
             AutoJdkConfiguration.class,
             MavenJdkArtifactMetadata.class,
             LocalJdkMetadata.class,
-            JdkSearchUpToDateMetadata.class
+            JdkSearchUpToDateMetadata.class,
+            JdkCatalog.class
     };
 
-    private final JAXBContext jaxbContext;
+    /**
+     * Creating a JAXB context is expensive, so the default one is created once and shared by all managers in the JVM.  It is only created
+     * the first time a type that {@link StaxMetadataCodec} does not handle is read or written, so builds that only touch small metadata
+     * files never initialize JAXB at all.
+     */
+    private static final LazyJaxbResources sharedJaxbResources = new LazyJaxbResources(() -> JAXBContext.newInstance(xmlConfigClasses));
+
+    private final LazyJaxbResources jaxb;
+    private final StaxMetadataCodec metadataCodec = new StaxMetadataCodec();
 
     public AutoJdkXmlManager()
-    throws JAXBException
     {
-
-        this(JAXBContext.newInstance(xmlConfigClasses));
+        this.jaxb = sharedJaxbResources;
     }
 
     public AutoJdkXmlManager(JAXBContext jaxbContext)
     {
-        this.jaxbContext = jaxbContext;
+        Objects.requireNonNull(jaxbContext);
+        this.jaxb = new LazyJaxbResources(() -> jaxbContext);
+    }
+
+    /**
+     * @param jaxbContextFactory creates the JAXB context the first time one is needed.
+     */
+    AutoJdkXmlManager(ExceptionalSupplier<? extends JAXBContext, JAXBException> jaxbContextFactory)
+    {
+        this.jaxb = new LazyJaxbResources(jaxbContextFactory);
     }
 
     /**
@@ -69,15 +93,31 @@ public class AutoJdkXmlManager
     public <T> T parseFile(File file, Class<T> type)
     throws XmlParseException
     {
+        //Small frequently-read metadata files skip JAXB
+        if (metadataCodec.supports(type))
+        {
+            try
+            {
+                return metadataCodec.parseFile(file.toPath(), type);
+            }
+            catch (IOException | XMLStreamException e)
+            {
+                throw new XmlParseException("Error parsing " + file + ": " + e.getMessage(), e);
+            }
+        }
+
         try
         {
-            return jaxbContext.createUnmarshaller().unmarshal(new StreamSource(file), type).getValue();
+            JaxbResources jaxbResources = jaxb.get();
+            Unmarshaller unmarshaller = jaxbResources.acquireUnmarshaller();
+            T result = unmarshaller.unmarshal(new StreamSource(file), type).getValue();
+            jaxbResources.releaseUnmarshaller(unmarshaller);
+            return result;
         }
         catch (JAXBException e)
         {
             throw new XmlParseException("Error parsing " + file + ": " + e.getMessage(), e);
         }
-
     }
 
     /**
@@ -91,9 +131,25 @@ public class AutoJdkXmlManager
     public void writeFile(Object data, Path file)
     throws XmlWriteException
     {
+        if (metadataCodec.supports(data.getClass()))
+        {
+            try
+            {
+                metadataCodec.writeFile(data, file);
+                return;
+            }
+            catch (IOException | XMLStreamException e)
+            {
+                throw new XmlWriteException("Error writing XML file " + file + ": " + e.getMessage(), e);
+            }
+        }
+
         try
         {
-            jaxbContext.createMarshaller().marshal(data, file.toFile());
+            JaxbResources jaxbResources = jaxb.get();
+            Marshaller marshaller = jaxbResources.acquireMarshaller();
+            marshaller.marshal(data, file.toFile());
+            jaxbResources.releaseMarshaller(marshaller);
         }
         catch (JAXBException e)
         {
@@ -101,6 +157,87 @@ public class AutoJdkXmlManager
         }
     }
 
+    /**
+     * Creates JAXB resources the first time they are needed and then keeps them.  If creation fails it is tried again next time.
+     */
+    private static class LazyJaxbResources implements ExceptionalSupplier<JaxbResources, JAXBException>
+    {
+        private final ExceptionalSupplier<? extends JAXBContext, JAXBException> contextFactory;
+        private volatile JaxbResources resources;
+
+        public LazyJaxbResources(ExceptionalSupplier<? extends JAXBContext, JAXBException> contextFactory)
+        {
+            this.contextFactory = Objects.requireNonNull(contextFactory);
+        }
+
+        @Override
+        public JaxbResources get()
+        throws JAXBException
+        {
+            JaxbResources result = resources;
+            if (result == null)
+            {
+                synchronized (this)
+                {
+                    result = resources;
+                    if (result == null)
+                    {
+                        result = new JaxbResources(contextFactory.get());
+                        resources = result;
+                    }
+                }
+            }
+            return result;
+        }
+    }
+
+    /**
+     * A JAXB context along with pools of marshallers and unmarshallers created from it.
+     * Marshallers and unmarshallers are not thread-safe but are reusable, so ones that have been used are kept around instead of creating one for every file.
+     * One that failed is not returned to the pool.
+     */
+    private static class JaxbResources
+    {
+        private final JAXBContext context;
+        private final Queue<Unmarshaller> unmarshallers = new ConcurrentLinkedQueue<>();
+        private final Queue<Marshaller> marshallers = new ConcurrentLinkedQueue<>();
+
+        public JaxbResources(JAXBContext context)
+        {
+            this.context = Objects.requireNonNull(context);
+        }
+
+        public Unmarshaller acquireUnmarshaller()
+        throws JAXBException
+        {
+            Unmarshaller unmarshaller = unmarshallers.poll();
+            if (unmarshaller == null)
+                unmarshaller = context.createUnmarshaller();
+
+            return unmarshaller;
+        }
+
+        public void releaseUnmarshaller(Unmarshaller unmarshaller)
+        {
+            unmarshallers.offer(unmarshaller);
+        }
+
+        public Marshaller acquireMarshaller()
+        throws JAXBException
+        {
+            Marshaller marshaller = marshallers.poll();
+            if (marshaller == null)
+                marshaller = context.createMarshaller();
+
+            return marshaller;
+        }
+
+        public void releaseMarshaller(Marshaller marshaller)
+        {
+            marshallers.offer(marshaller);
+        }
+    }
+
     /**
      * Thrown when an error occurs parsing or validating an XML file.
      */
@@ -0,0 +1,346 @@
+package au.net.causal.maven.plugins.autojdk;
+
+import au.net.causal.maven.plugins.autojdk.xml.metadata.JdkCatalog;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.google.common.io.MoreFiles;
+import com.google.common.net.UrlEscapers;
+import eu.hansolo.jdktools.Architecture;
+import eu.hansolo.jdktools.LibCType;
+import eu.hansolo.jdktools.OperatingSystem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Searches for JDKs in a {@linkplain JdkCatalog catalog snapshot} previously exported from a JDK catalog such as Foojay, so no network access is
+ * needed for searching.  The catalog is read once and indexed in memory by platform and major version, so searches only look at JDKs that could
+ * possibly match.
+ * <p>
+ *
+ * Archives are downloaded from the URL recorded in the catalog, or from a mirror when one is configured.  Mirrors are expected to hold each
+ * archive under its original file name.  Archives are verified against their checksums when the catalog has them.
+ * <p>
+ *
+ * Vendors are matched using the synonyms recorded in the catalog when it was exported, the same way the catalog it was exported from matches
+ * them, so a search for a vendor finds its JDKs under any of its names.
+ */
+public class CatalogJdkArchiveRepository implements JdkArchiveRepository<CatalogJdkArtifact>
+{
+    private static final Logger log = LoggerFactory.getLogger(CatalogJdkArchiveRepository.class);
+
+    private final ExceptionalSupplier<? extends JdkCatalog, ? extends JdkRepositoryException> catalogLoader;
+    private final URI mirrorUri;
+    private final FileDownloader fileDownloader;
+    private final PlatformTools platformTools = new PlatformTools();
+
+    /**
+     * Downloads that are still in use, so they can be cleaned up properly.  A download might be the mirror file itself rather than a temporary
+     * file, in which case it must not be deleted.
+     */
+    private final Map<JdkArchive<CatalogJdkArtifact>, FileDownloader.Download> activeDownloads = new ConcurrentHashMap<>();
+
+    private Map<Platform, NavigableMap<Integer, List<CatalogJdkArtifact>>> index;
+    private List<JdkCatalog.Vendor> vendors;
+
+    /**
+     * @param catalogLoader loads the catalog the first time it is needed.
+     * @param mirrorUri base URI of a mirror holding JDK archives by file name, or null to download from the URLs in the catalog.
+     * @param fileDownloader downloads JDK archives.
+     */
+    public CatalogJdkArchiveRepository(ExceptionalSupplier<? extends JdkCatalog, ? extends JdkRepositoryException> catalogLoader,
+                                       URI mirrorUri, FileDownloader fileDownloader)
+    {
+        this.catalogLoader = Objects.requireNonNull(catalogLoader);
+        this.mirrorUri = mirrorUri;
+        this.fileDownloader = Objects.requireNonNull(fileDownloader);
+    }
+
+    private synchronized Map<Platform, NavigableMap<Integer, List<CatalogJdkArtifact>>> index()
+    throws JdkRepositoryException
+    {
+        if (index == null)
+        {
+            JdkCatalog catalog = catalogLoader.get();
+            index = buildIndex(catalog);
+            vendors = List.copyOf(catalog.getVendors());
+        }
+
+        return index;
+    }
+
+    private synchronized List<JdkCatalog.Vendor> vendors()
+    throws JdkRepositoryException
+    {
+        index();
+        return vendors;
+    }
+
+    /**
+     * @return lowercase names of the vendor and all of its synonyms known to the catalog.
+     */
+    private Set<String> vendorAndSynonyms(String vendor)
+    throws JdkRepositoryException
+    {
+        Set<String> vendorAndSynonyms = new HashSet<>();
+        vendorAndSynonyms.add(vendor.toLowerCase(Locale.ROOT));
+        for (JdkCatalog.Vendor catalogVendor : vendors())
+        {
+            if (vendor.equalsIgnoreCase(catalogVendor.getName()) || catalogVendor.getSynonyms().stream().anyMatch(vendor::equalsIgnoreCase))
+            {
+                if (catalogVendor.getName() != null)
+                    vendorAndSynonyms.add(catalogVendor.getName().toLowerCase(Locale.ROOT));
+                catalogVendor.getSynonyms().forEach(synonym -> vendorAndSynonyms.add(synonym.toLowerCase(Locale.ROOT)));
+            }
+        }
+        return vendorAndSynonyms;
+    }
+
+    private Map<Platform, NavigableMap<Integer, List<CatalogJdkArtifact>>> buildIndex(JdkCatalog catalog)
+    throws JdkRepositoryException
+    {
+        if (catalog.getFormatVersion() > JdkCatalog.CURRENT_FORMAT_VERSION)
+        {
+            throw new JdkRepositoryException("JDK catalog format version " + catalog.getFormatVersion() + " is not supported, upgrade AutoJDK to use it " +
+                                             "(supports up to version " + JdkCatalog.CURRENT_FORMAT_VERSION + ")");
+        }
+
+        Map<Platform, NavigableMap<Integer, List<CatalogJdkArtifact>>> index = new HashMap<>();
+        for (JdkCatalog.Jdk jdk : catalog.getJdks())
+        {
+            //Anything not understood is skipped, as with unknown archive types in other repositories
+            if (jdk.getVersion() == null || jdk.getOperatingSystem() == null || jdk.getArchitecture() == null || jdk.getArchiveType() == null)
+            {
+                log.debug("Skipping incomplete catalog JDK " + jdk);
+                continue;
+            }
+
+            CatalogJdkArtifact artifact = new CatalogJdkArtifact(jdk);
+            index.computeIfAbsent(indexPlatform(jdk.getOperatingSystem(), jdk.getArchitecture()), p -> new TreeMap<>())
+                 .computeIfAbsent(artifact.getVersion().getMajorVersion(), v -> new ArrayList<>())
+                 .add(artifact);
+        }
+
+        //Highest versions first
+        for (NavigableMap<Integer, List<CatalogJdkArtifact>> platformJdks : index.values())
+        {
+            for (List<CatalogJdkArtifact> majorVersionJdks : platformJdks.values())
+            {
+                majorVersionJdks.sort(Comparator.comparing(CatalogJdkArtifact::getVersion).reversed());
+            }
+        }
+
+        return index;
+    }
+
+    private Platform indexPlatform(OperatingSystem operatingSystem, Architecture architecture)
+    {
+        return new Platform(platformTools.canonicalOperatingSystem(operatingSystem), platformTools.canonicalArchitecture(architecture));
+    }
+
+    @Override
+    public Collection<? extends CatalogJdkArtifact> search(JdkSearchRequest searchRequest)
+    throws JdkRepositoryException
+    {
+        OperatingSystem searchOperatingSystem = platformTools.canonicalOperatingSystem(searchRequest.getOperatingSystem());
+        Architecture searchArchitecture = platformTools.canonicalArchitecture(searchRequest.getArchitecture());
+        LibCType searchLibCType = searchRequest.getOperatingSystem() == null ? null : searchRequest.getOperatingSystem().getLibCType();
+        ToolchainVersionMatcher versionMatcher = new ToolchainVersionMatcher(searchRequest.getVersionRange());
+        Set<String> searchVendors = searchRequest.getVendor() == null ? null : vendorAndSynonyms(searchRequest.getVendor());
+
+        List<CatalogJdkArtifact> results = new ArrayList<>();
+        for (Map.Entry<Platform, NavigableMap<Integer, List<CatalogJdkArtifact>>> platformEntry : index().entrySet())
+        {
+            Platform platform = platformEntry.getKey();
+            if (searchOperatingSystem != null && platform.getOperatingSystem() != searchOperatingSystem)
+                continue;
+            if (searchArchitecture != null && platform.getArchitecture() != searchArchitecture)
+                continue;
+
+            for (Map.Entry<Integer, List<CatalogJdkArtifact>> majorVersionEntry : platformEntry.getValue().descendingMap().entrySet())
+            {
+                if (!VersionTools.rangeOverlapsMajorVersion(searchRequest.getVersionRange(), majorVersionEntry.getKey()))
+                    continue;
+
+                for (CatalogJdkArtifact artifact : majorVersionEntry.getValue())
+                {
+                    if (matches(artifact, searchRequest, searchVendors, searchLibCType, versionMatcher))
+                        results.add(artifact);
+                }
+            }
+        }
+
+        return results;
+    }
+
+    private boolean matches(CatalogJdkArtifact artifact, JdkSearchRequest searchRequest, Set<String> searchVendors, LibCType searchLibCType,
+                            ToolchainVersionMatcher versionMatcher)
+    {
+        if (searchVendors != null && (artifact.getVendor() == null || !searchVendors.contains(artifact.getVendor().toLowerCase(Locale.ROOT))))
+            return false;
+        if (searchRequest.getReleaseType() != null && searchRequest.getReleaseType() != artifact.getReleaseType())
+            return false;
+
+        //If there is no libc type just assume match since we can't check
+        LibCType jdkLibCType = artifact.getCatalogJdk().getLibCType();
+        if (searchLibCType != null && jdkLibCType != null && searchLibCType != jdkLibCType)
+            return false;
+
+        return versionMatcher.matches(artifact.getVersion());
+    }
+
+    /**
+     * @return the URI an archive should be downloaded from.
+     */
+    private URI downloadUri(CatalogJdkArtifact jdkArtifact)
+    throws JdkRepositoryException
+    {
+        JdkCatalog.Jdk jdk = jdkArtifact.getCatalogJdk();
+
+        if (mirrorUri != null && jdk.getFileName() != null)
+        {
+            String mirrorBase = mirrorUri.toString();
+            if (!mirrorBase.endsWith("/"))
+                mirrorBase = mirrorBase + "/";
+
+            return URI.create(mirrorBase + UrlEscapers.urlPathSegmentEscaper().escape(jdk.getFileName()));
+        }
+
+        if (jdk.getDownloadUrl() == null)
+            throw new JdkRepositoryException("Download information not found for catalog JDK " + jdk.getId() + ":" + jdk.getVersion());
+
+        try
+        {
+            return URI.create(jdk.getDownloadUrl());
+        }
+        catch (IllegalArgumentException e)
+        {
+            throw new JdkRepositoryException("Invalid JDK download URL: " + jdk.getDownloadUrl() + " - " + e, e);
+        }
+    }
+
+    @Override
+    public JdkArchive<CatalogJdkArtifact> resolveArchive(CatalogJdkArtifact jdkArtifact)
+    throws JdkRepositoryException
+    {
+        URI downloadUri = downloadUri(jdkArtifact);
+
+        FileDownloader.Download download;
+        try
+        {
+            download = fileDownloader.downloadFile(downloadUri.toURL());
+        }
+        catch (MalformedURLException e)
+        {
+            throw new JdkRepositoryException("Invalid JDK download URL: " + downloadUri + " - " + e, e);
+        }
+        catch (IOException e)
+        {
+            throw new JdkRepositoryException("Failed to download JDK: " + e.getMessage(), e);
+        }
+
+        try
+        {
+            verifyChecksum(jdkArtifact.getCatalogJdk(), download);
+        }
+        catch (JdkRepositoryException e)
+        {
+            closeDownload(download);
+            throw e;
+        }
+
+        JdkArchive<CatalogJdkArtifact> archive = new JdkArchive<>(jdkArtifact, download.getFile());
+        activeDownloads.put(archive, download);
+        return archive;
+    }
+
+    private void verifyChecksum(JdkCatalog.Jdk jdk, FileDownloader.Download download)
+    throws JdkRepositoryException
+    {
+        if (jdk.getChecksum() == null || jdk.getChecksumType() == null)
+            return;
+
+        HashFunction hashFunction = hashFunction(jdk.getChecksumType());
+        if (hashFunction == null)
+        {
+            log.debug("Not verifying " + download.getUrl() + " with unsupported checksum type " + jdk.getChecksumType());
+            return;
+        }
+
+        HashCode actual;
+        try
+        {
+            actual = MoreFiles.asByteSource(download.getFile()).hash(hashFunction);
+        }
+        catch (IOException e)
+        {
+            throw new JdkRepositoryException("Error verifying checksum of " + download.getUrl() + ": " + e.getMessage(), e);
+        }
+
+        if (!actual.toString().equalsIgnoreCase(jdk.getChecksum()))
+        {
+            throw new JdkRepositoryException("Checksum mismatch for " + download.getUrl() + ", expected " + jdk.getChecksumType() + " " +
+                                             jdk.getChecksum() + " but was " + actual);
+        }
+    }
+
+    private static HashFunction hashFunction(String checksumType)
+    {
+        switch (checksumType.toLowerCase(Locale.ROOT).replace("-", ""))
+        {
+            case "sha256":
+                return Hashing.sha256();
+            case "sha512":
+                return Hashing.sha512();
+            default:
+                return null;
+        }
+    }
+
+    private void closeDownload(FileDownloader.Download download)
+    throws JdkRepositoryException
+    {
+        try
+        {
+            download.close();
+        }
+        catch (IOException e)
+        {
+            throw new JdkRepositoryException("Error deleting downloaded archive " + download.getFile() + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void cleanUpAfterArchiveUse(JdkArchive<CatalogJdkArtifact> archive)
+    throws JdkRepositoryException
+    {
+        FileDownloader.Download download = activeDownloads.remove(archive);
+        if (download != null)
+            closeDownload(download);
+    }
+
+    @Override
+    public Collection<? extends JdkArchive<CatalogJdkArtifact>> purge(JdkSearchRequest jdkMatchSearchRequest)
+    throws JdkRepositoryException
+    {
+        //This repository does not cache anything itself
+        return List.of();
+    }
+}
@@ -0,0 +1,81 @@
+package au.net.causal.maven.plugins.autojdk;
+
+import au.net.causal.maven.plugins.autojdk.xml.metadata.ArchiveType;
+import au.net.causal.maven.plugins.autojdk.xml.metadata.JdkCatalog;
+import au.net.causal.maven.plugins.autojdk.xml.metadata.ReleaseType;
+import eu.hansolo.jdktools.Architecture;
+import eu.hansolo.jdktools.OperatingSystem;
+import org.apache.maven.artifact.versioning.ArtifactVersion;
+import org.apache.maven.artifact.versioning.DefaultArtifactVersion;
+
+import java.util.Objects;
+
+/**
+ * A JDK from a {@linkplain JdkCatalog catalog snapshot}.
+ */
+public class CatalogJdkArtifact implements JdkArtifact
+{
+    private final JdkCatalog.Jdk catalogJdk;
+    private final ArtifactVersion version;
+
+    public CatalogJdkArtifact(JdkCatalog.Jdk catalogJdk)
+    {
+        this.catalogJdk = Objects.requireNonNull(catalogJdk);
+        this.version = new DefaultArtifactVersion(catalogJdk.getVersion());
+    }
+
+    public JdkCatalog.Jdk getCatalogJdk()
+    {
+        return catalogJdk;
+    }
+
+    @Override
+    public String getVendor()
+    {
+        return catalogJdk.getVendor();
+    }
+
+    @Override
+    public ArtifactVersion getVersion()
+    {
+        return version;
+    }
+
+    @Override
+    public Architecture getArchitecture()
+    {
+        return catalogJdk.getArchitecture();
+    }
+
+    @Override
+    public OperatingSystem getOperatingSystem()
+    {
+        return catalogJdk.getOperatingSystem();
+    }
+
+    @Override
+    public ArchiveType getArchiveType()
+    {
+        return catalogJdk.getArchiveType();
+    }
+
+    @Override
+    public ReleaseType getReleaseType()
+    {
+        //Same default as local JDK metadata
+        return catalogJdk.getReleaseType() == null ? ReleaseType.GA : catalogJdk.getReleaseType();
+    }
+
+    @Override
+    public String getArchiveId()
+    {
+        //Catalogs exported without IDs still have a distinct download URL for each archive
+        return catalogJdk.getId() != null ? catalogJdk.getId() : catalogJdk.getDownloadUrl();
+    }
+
+    @Override
+    public String toString()
+    {
+        return "Catalog JDK:" + catalogJdk;
+    }
+}
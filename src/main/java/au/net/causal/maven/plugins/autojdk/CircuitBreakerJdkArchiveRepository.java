@@ -0,0 +1,95 @@
+package au.net.causal.maven.plugins.autojdk;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.StringJoiner;
+
+/**
+ * Skips searching a repository while its {@linkplain RepositoryCircuitBreaker circuit breaker} is open, so a repository that is down does not
+ * slow down every build.  Search results from a skipped repository are empty, so AutoJDK falls back to the best matching local JDK.
+ * <p>
+ *
+ * Only searches go through the circuit breaker.  Archives are only resolved for artifacts that a search has just found, and failed downloads
+ * are already reported as errors.
+ *
+ * @param <A> JDK artifact type.
+ */
+public class CircuitBreakerJdkArchiveRepository<A extends JdkArtifact> implements JdkArchiveRepository<A>
+{
+    private static final Logger log = LoggerFactory.getLogger(CircuitBreakerJdkArchiveRepository.class);
+
+    private final JdkArchiveRepository<A> repository;
+    private final RepositoryCircuitBreaker circuitBreaker;
+
+    /**
+     * Creates a circuit breaking archive repository from an existing repository.
+     *
+     * @param repository the repository.
+     * @param circuitBreaker tracks failures of the repository.
+     */
+    public CircuitBreakerJdkArchiveRepository(JdkArchiveRepository<A> repository, RepositoryCircuitBreaker circuitBreaker)
+    {
+        this.repository = Objects.requireNonNull(repository);
+        this.circuitBreaker = Objects.requireNonNull(circuitBreaker);
+    }
+
+    @Override
+    public Collection<? extends A> search(JdkSearchRequest searchRequest)
+    throws JdkRepositoryException
+    {
+        if (!circuitBreaker.allowRequest())
+        {
+            log.info("Skipping repository " + circuitBreaker.getRepositoryName() + " which recently failed, will try again after " +
+                     circuitBreaker.getOpenUntil());
+            return List.of();
+        }
+
+        Collection<? extends A> results;
+        try
+        {
+            results = repository.search(searchRequest);
+        }
+        catch (JdkRepositoryException | RuntimeException e)
+        {
+            circuitBreaker.recordFailure(e);
+            throw e;
+        }
+
+        circuitBreaker.recordSuccess();
+        return results;
+    }
+
+    @Override
+    public JdkArchive<A> resolveArchive(A jdkArtifact)
+    throws JdkRepositoryException
+    {
+        return repository.resolveArchive(jdkArtifact);
+    }
+
+    @Override
+    public void cleanUpAfterArchiveUse(JdkArchive<A> archive)
+    throws JdkRepositoryException
+    {
+        repository.cleanUpAfterArchiveUse(archive);
+    }
+
+    @Override
+    public Collection<? extends JdkArchive<A>> purge(JdkSearchRequest jdkMatchSearchRequest)
+    throws JdkRepositoryException
+    {
+        return repository.purge(jdkMatchSearchRequest);
+    }
+
+    @Override
+    public String toString()
+    {
+        return new StringJoiner(", ", CircuitBreakerJdkArchiveRepository.class.getSimpleName() + "[", "]")
+                .add("repository=" + repository)
+                .add("circuitBreaker=" + circuitBreaker)
+                .toString();
+    }
+}
@@ -180,6 +180,12 @@ public class CompositeJdkArchiveRepository implements JdkArchiveRepository<Compo
             return getWrappedArtifact().getReleaseType();
         }
 
+        @Override
+        public String getArchiveId()
+        {
+            return getWrappedArtifact().getArchiveId();
+        }
+
         @Override
         public boolean equals(Object o)
         {
@@ -0,0 +1,43 @@
+package au.net.causal.maven.plugins.autojdk;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creates executors for background work that never keep a JVM alive.
+ */
+public final class DaemonExecutors
+{
+    /**
+     * How long idle threads are kept before they are stopped.
+     */
+    private static final long KEEP_ALIVE_SECONDS = 30L;
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private DaemonExecutors()
+    {
+    }
+
+    /**
+     * Creates a fixed-size executor that runs tasks on daemon threads.  Idle threads time out, so an executor that is never shut down, such as
+     * one shared across builds, does not hold on to threads.
+     *
+     * @param nameFormat format for thread names, where {@code %d} is replaced with the thread number, e.g. {@code autojdk-search-%d}.
+     * @param threadCount maximum number of threads, which bounds how many tasks run at the same time.
+     *
+     * @return the executor.
+     */
+    public static ExecutorService newFixedDaemonThreadPool(String nameFormat, int threadCount)
+    {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threadCount, threadCount, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                                                             new ThreadFactoryBuilder().setNameFormat(nameFormat).setDaemon(true).build());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+}
@@ -0,0 +1,172 @@
+package au.net.causal.maven.plugins.autojdk;
+
+import org.apache.maven.execution.ExecutionEvent;
+import org.apache.maven.execution.ExecutionListener;
+
+/**
+ * Passes all events through to the listener that was previously registered, so that subclasses can be registered on the Maven session to react
+ * to some events without taking over the session's existing listener.
+ */
+public abstract class DelegatingExecutionListener implements ExecutionListener
+{
+    private final ExecutionListener delegate;
+
+    /**
+     * @param delegate the listener to pass events through to.  May be null.
+     */
+    protected DelegatingExecutionListener(ExecutionListener delegate)
+    {
+        this.delegate = delegate;
+    }
+
+    /**
+     * @return the listener events are passed through to, or null if there is none.
+     */
+    public ExecutionListener getDelegate()
+    {
+        return delegate;
+    }
+
+    /**
+     * Checks whether a listener of a particular type is already registered in a chain of delegating listeners.
+     *
+     * @param listener the registered listener, which may delegate to others.  May be null.
+     * @param listenerType the type of listener to look for.
+     *
+     * @return true if the listener or any of the listeners it delegates to is of the given type.
+     */
+    public static boolean isRegistered(ExecutionListener listener, Class<? extends ExecutionListener> listenerType)
+    {
+        while (listener != null)
+        {
+            if (listenerType.isInstance(listener))
+                return true;
+
+            if (!(listener instanceof DelegatingExecutionListener))
+                return false;
+
+            listener = ((DelegatingExecutionListener)listener).getDelegate();
+        }
+
+        return false;
+    }
+
+    @Override
+    public void sessionEnded(ExecutionEvent event)
+    {
+        if (delegate != null)
+            delegate.sessionEnded(event);
+    }
+
+    @Override
+    public void projectDiscoveryStarted(ExecutionEvent event)
+    {
+        if (delegate != null)
+            delegate.projectDiscoveryStarted(event);
+    }
+
+    @Override
+    public void sessionStarted(ExecutionEvent event)
+    {
+        if (delegate != null)
+            delegate.sessionStarted(event);
+    }
+
+    @Override
+    public void projectSkipped(ExecutionEvent event)
+    {
+        if (delegate != null)
+            delegate.projectSkipped(event);
+    }
+
+    @Override
+    public void projectStarted(ExecutionEvent event)
+    {
+        if (delegate != null)
+            delegate.projectStarted(event);
+    }
+
+    @Override
+    public void projectSucceeded(ExecutionEvent event)
+    {
+        if (delegate != null)
+            delegate.projectSucceeded(event);
+    }
+
+    @Override
+    public void projectFailed(ExecutionEvent event)
+    {
+        if (delegate != null)
+            delegate.projectFailed(event);
+    }
+
+    @Override
+    public void mojoSkipped(ExecutionEvent event)
+    {
+        if (delegate != null)
+            delegate.mojoSkipped(event);
+    }
+
+    @Override
+    public void mojoStarted(ExecutionEvent event)
+    {
+        if (delegate != null)
+            delegate.mojoStarted(event);
+    }
+
+    @Override
+    public void mojoSucceeded(ExecutionEvent event)
+    {
+        if (delegate != null)
+            delegate.mojoSucceeded(event);
+    }
+
+    @Override
+    public void mojoFailed(ExecutionEvent event)
+    {
+        if (delegate != null)
+            delegate.mojoFailed(event);
+    }
+
+    @Override
+    public void forkStarted(ExecutionEvent event)
+    {
+        if (delegate != null)
+            delegate.forkStarted(event);
+    }
+
+    @Override
+    public void forkSucceeded(ExecutionEvent event)
+    {
+        if (delegate != null)
+            delegate.forkSucceeded(event);
+    }
+
+    @Override
+    public void forkFailed(ExecutionEvent event)
+    {
+        if (delegate != null)
+            delegate.forkFailed(event);
+    }
+
+    @Override
+    public void forkedProjectStarted(ExecutionEvent event)
+    {
+        if (delegate != null)
+            delegate.forkedProjectStarted(event);
+    }
+
+    @Override
+    public void forkedProjectSucceeded(ExecutionEvent event)
+    {
+        if (delegate != null)
+            delegate.forkedProjectSucceeded(event);
+    }
+
+    @Override
+    public void forkedProjectFailed(ExecutionEvent event)
+    {
+        if (delegate != null)
+            delegate.forkedProjectFailed(event);
+    }
+}
@@ -0,0 +1,117 @@
+package au.net.causal.maven.plugins.autojdk;
+
+import au.net.causal.maven.plugins.autojdk.foojay.FoojayCatalogExporter;
+import au.net.causal.maven.plugins.autojdk.foojay.FoojayClient;
+import au.net.causal.maven.plugins.autojdk.foojay.FoojayMetadataMemo;
+import au.net.causal.maven.plugins.autojdk.foojay.openapi.handler.ApiClient;
+import au.net.causal.maven.plugins.autojdk.foojay.openapi.handler.ApiException;
+import au.net.causal.maven.plugins.autojdk.xml.metadata.JdkCatalog;
+import org.apache.maven.artifact.versioning.InvalidVersionSpecificationException;
+import org.apache.maven.artifact.versioning.VersionRange;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.util.List;
+
+/**
+ * Exports a snapshot of the Foojay JDK catalog to a file, so that JDKs can be searched for on machines that cannot reach Foojay.
+ * The snapshot can be used by configuring a {@code catalog} JDK repository in the AutoJDK configuration file.
+ */
+@Mojo(name="export-catalog", requiresProject = false)
+public class ExportCatalogMojo extends AbstractAutoJdkMojo
+{
+    /**
+     * The file the catalog is written to.
+     */
+    @Parameter(property = "autojdk.catalog.file", defaultValue = "${basedir}/autojdk-catalog.xml", required = true)
+    private File catalogFile;
+
+    /**
+     * Platforms to export JDKs for, each in the form 'os-architecture', e.g. 'linux-x64', 'macos-aarch64'.  Use a value of 'all' for all
+     * well-known platforms.  Defaults to the current platform.
+     */
+    @Parameter(property = "autojdk.catalog.platforms")
+    private List<String> catalogPlatforms;
+
+    /**
+     * Vendors to export JDKs for.  Defaults to all vendors.
+     */
+    @Parameter(property = "autojdk.catalog.vendors")
+    private List<String> catalogVendors;
+
+    /**
+     * The version range of JDKs to export.  e.g. "[17,)"
+     */
+    @Parameter(property = "autojdk.catalog.version", defaultValue = "[1,)", required = true)
+    private String catalogJdkVersion;
+
+    /**
+     * If true, download details and checksums are exported for every JDK.  This makes an additional request to Foojay for each JDK.
+     */
+    @Parameter(property = "autojdk.catalog.checksums", defaultValue = "true", required = true)
+    private boolean includeChecksums;
+
+    @Override
+    protected void executeImpl()
+    throws MojoExecutionException, MojoFailureException
+    {
+        if (session.isOffline())
+            throw new MojoExecutionException("Cannot export JDK catalog in offline mode");
+
+        VersionRange versionRange;
+        try
+        {
+            versionRange = VersionRange.createFromVersionSpec(catalogJdkVersion);
+        }
+        catch (InvalidVersionSpecificationException e)
+        {
+            throw new MojoExecutionException("Invalid JDK version/range: " + catalogJdkVersion, e);
+        }
+
+        List<String> vendors = catalogVendors == null ? List.of() : catalogVendors;
+        List<Platform> platforms = parsePlatforms(catalogPlatforms);
+
+        HttpClient.Builder httpClientBuilder = HttpClient.newBuilder();
+        MavenJdkProxySelector proxySelector = new MavenJdkProxySelector(getRepositorySystemSession());
+        httpClientBuilder.proxy(proxySelector).authenticator(proxySelector.authenticator());
+        ApiClient apiClient = FoojayClient.createDefaultApiClient();
+        apiClient.setHttpClientBuilder(httpClientBuilder);
+        FoojayClient foojayClient = new FoojayClient(apiClient);
+
+        getLog().info("Exporting JDK catalog for " + platforms + " from " + foojayClient.getBaseUri());
+
+        JdkCatalog catalog;
+        try
+        {
+            FoojayCatalogExporter exporter = new FoojayCatalogExporter(foojayClient, FoojayMetadataMemo.shared(), Clock.systemDefaultZone());
+            catalog = exporter.exportCatalog(platforms, vendors, versionRange, getJdkReleaseType(), includeChecksums);
+        }
+        catch (ApiException e)
+        {
+            throw new MojoExecutionException("Error reading JDK catalog from Foojay: " + e.getMessage(), e);
+        }
+
+        Path catalogPath = catalogFile.toPath();
+        try
+        {
+            if (catalogPath.getParent() != null)
+                Files.createDirectories(catalogPath.getParent());
+
+            new AutoJdkXmlManager().writeFile(catalog, catalogPath);
+        }
+        catch (IOException | AutoJdkXmlManager.XmlWriteException e)
+        {
+            throw new MojoExecutionException("Error writing JDK catalog " + catalogPath + ": " + e.getMessage(), e);
+        }
+
+        getLog().info("Exported " + catalog.getJdks().size() + " JDK(s) to " + catalogPath);
+    }
+}
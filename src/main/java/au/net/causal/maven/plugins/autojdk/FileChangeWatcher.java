@@ -0,0 +1,180 @@
+package au.net.causal.maven.plugins.autojdk;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Watches files and directories for changes using a {@link WatchService}, exposing a generation number that increases whenever anything watched
+ * may have changed.  Anything computed from watched files can be stamped with the generation it was computed at and reused for as long as the
+ * generation stays the same.
+ * <p>
+ *
+ * Pending events are drained whenever the generation is read, so no background thread is needed and reads never block.
+ * Watch services may deliver events shortly after a change is made, and on some platforms (macOS) they are implemented by polling, so changes
+ * made by other processes may take a few seconds to be noticed.  Changes made by this process should be followed by a call to
+ * {@link #invalidate()}.
+ */
+class FileChangeWatcher
+{
+    private static final Logger log = LoggerFactory.getLogger(FileChangeWatcher.class);
+
+    private final WatchService watchService;
+    private final AtomicLong generation = new AtomicLong();
+
+    private final Map<Path, WatchedDirectory> watchedDirectories = new ConcurrentHashMap<>();
+    private final Map<WatchKey, WatchedDirectory> watchedDirectoriesByKey = new ConcurrentHashMap<>();
+
+    public FileChangeWatcher(WatchService watchService)
+    {
+        this.watchService = Objects.requireNonNull(watchService);
+    }
+
+    /**
+     * Watches a single file for creation, modification or deletion.  The file's directory must exist for changes to be detected.
+     *
+     * @param file the file to watch.
+     *
+     * @return true if the file is being watched, false if it could not be because its directory does not exist.
+     *
+     * @throws IOException if an error occurs registering the watch.
+     */
+    public boolean watchFile(Path file)
+    throws IOException
+    {
+        file = file.toAbsolutePath();
+        Path directory = file.getParent();
+        if (directory == null || !Files.isDirectory(directory))
+            return false;
+
+        register(directory).fileNames.add(file.getFileName());
+        return true;
+    }
+
+    /**
+     * Watches a directory for any of its immediate children being created, modified or deleted, as well as for the directory itself being
+     * created or deleted.
+     *
+     * @param directory the directory to watch.
+     *
+     * @return true if the directory is being watched, false if it could not be because neither it nor its parent exist.
+     *
+     * @throws IOException if an error occurs registering the watch.
+     */
+    public boolean watchDirectoryContents(Path directory)
+    throws IOException
+    {
+        directory = directory.toAbsolutePath();
+        if (!watchFile(directory))
+            return false;
+
+        //Creation of the directory will be picked up by watching the parent
+        if (Files.isDirectory(directory))
+            register(directory).allContents = true;
+
+        return true;
+    }
+
+    private WatchedDirectory register(Path directory)
+    throws IOException
+    {
+        WatchedDirectory watched = watchedDirectories.get(directory);
+        if (watched != null)
+            return watched;
+
+        //Registering the same directory twice returns the same key, so it does not matter if another thread races us here
+        WatchKey key = directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+        watched = watchedDirectoriesByKey.computeIfAbsent(key, k -> new WatchedDirectory(directory));
+        watchedDirectories.put(directory, watched);
+        return watched;
+    }
+
+    /**
+     * Marks everything computed from watched files as stale.
+     */
+    public void invalidate()
+    {
+        generation.incrementAndGet();
+    }
+
+    /**
+     * Processes any pending change events and returns the current generation.
+     *
+     * @return the current generation.  If this is the same as a value returned previously, nothing watched has been detected as changed in between.
+     */
+    public long currentGeneration()
+    {
+        try
+        {
+            WatchKey key;
+            while ((key = watchService.poll()) != null)
+            {
+                processKey(key);
+            }
+        }
+        catch (ClosedWatchServiceException e)
+        {
+            //Can't tell what changed any more, so nothing can be trusted
+            invalidate();
+        }
+
+        return generation.get();
+    }
+
+    private void processKey(WatchKey key)
+    {
+        WatchedDirectory watched = watchedDirectoriesByKey.get(key);
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents())
+        {
+            if (watched == null || event.kind() == StandardWatchEventKinds.OVERFLOW || watched.isWatching((Path)event.context()))
+                changed = true;
+        }
+
+        //Directory was deleted or is otherwise no longer watchable - it will be registered again next time it is watched
+        if (!key.reset())
+        {
+            watchedDirectoriesByKey.remove(key);
+            if (watched != null)
+            {
+                log.debug("No longer watching " + watched.directory);
+                watchedDirectories.remove(watched.directory, watched);
+            }
+
+            changed = true;
+        }
+
+        if (changed)
+            invalidate();
+    }
+
+    private static class WatchedDirectory
+    {
+        private final Path directory;
+        private final Set<Path> fileNames = ConcurrentHashMap.newKeySet();
+        private volatile boolean allContents;
+
+        public WatchedDirectory(Path directory)
+        {
+            this.directory = directory;
+        }
+
+        public boolean isWatching(Path fileName)
+        {
+            return allContents || fileNames.contains(fileName);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package au.net.causal.maven.plugins.autojdk;
+
+import au.net.causal.maven.plugins.autojdk.foojay.FoojayQueryPlanner;
+import org.apache.maven.execution.ExecutionEvent;
+import org.apache.maven.execution.ExecutionListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Objects;
+
+/**
+ * Logs a summary of how Foojay searches were planned once a Maven session has ended.  All events are passed through to the listener that was
+ * previously registered.
+ */
+public class FoojayQuerySummaryExecutionListener extends DelegatingExecutionListener
+{
+    private static final Logger log = LoggerFactory.getLogger(FoojayQuerySummaryExecutionListener.class);
+
+    private final FoojayQueryPlanner queryPlanner;
+
+    /**
+     * @param delegate the listener to pass events through to.  May be null.
+     * @param queryPlanner the session's query planner whose statistics are summarized.
+     */
+    public FoojayQuerySummaryExecutionListener(ExecutionListener delegate, FoojayQueryPlanner queryPlanner)
+    {
+        super(delegate);
+        this.queryPlanner = Objects.requireNonNull(queryPlanner);
+    }
+
+    @Override
+    public void sessionEnded(ExecutionEvent event)
+    {
+        super.sessionEnded(event);
+
+        //Most builds reuse cached results and never search Foojay, no need to say anything then
+        if (queryPlanner.hasSearched())
+            log.info(queryPlanner.summary());
+    }
+}
@@ -0,0 +1,124 @@
+package au.net.causal.maven.plugins.autojdk;
+
+import au.net.causal.maven.plugins.autojdk.foojay.OfflineDistributionsVendorService;
+import au.net.causal.maven.plugins.autojdk.xml.config.AutoJdkConfiguration;
+import au.net.causal.maven.plugins.autojdk.xml.metadata.JdkCatalog;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.util.List;
+
+/**
+ * Generates a catalog index of all JDKs in a Maven JDK repository.  When the index is deployed to the repository under the JDK group ID,
+ * searches only need to download the index rather than metadata for every vendor, platform and version.
+ * <p>
+ *
+ * By default, JDK versions already in the repository's current index are not read again.
+ */
+@Mojo(name="generate-catalog-index", requiresProject = false)
+public class GenerateCatalogIndexMojo extends AbstractAutoJdkMojo
+{
+    /**
+     * URL of the Maven repository holding the JDKs.
+     */
+    @Parameter(property = "autojdk.index.repositoryUrl", required = true)
+    private String repositoryUrl;
+
+    /**
+     * ID of the Maven repository, used for finding credentials in Maven settings.
+     */
+    @Parameter(property = "autojdk.index.repositoryId", defaultValue = "autojdk-jdks", required = true)
+    private String repositoryId;
+
+    /**
+     * The group ID of the JDK artifacts in the repository.
+     */
+    @Parameter(property = "autojdk.index.jdkGroupId", required = true)
+    private String jdkGroupId;
+
+    /**
+     * The file the index is written to.
+     */
+    @Parameter(property = "autojdk.index.file", defaultValue = "${basedir}/autojdk-catalog-index.xml", required = true)
+    private File indexFile;
+
+    /**
+     * The version of the generated index.  Defaults to the current date and time so that the newest index is always the highest version.
+     */
+    @Parameter(property = "autojdk.index.version")
+    private String indexVersion;
+
+    /**
+     * If true, metadata of every JDK is read again instead of reusing JDKs from the repository's current index.
+     */
+    @Parameter(property = "autojdk.index.full", defaultValue = "false", required = true)
+    private boolean fullIndex;
+
+    /**
+     * If true, SHA-1 checksums of JDK archives are included in the index.  This makes an additional request for each new JDK archive.
+     */
+    @Parameter(property = "autojdk.index.checksums", defaultValue = "false", required = true)
+    private boolean includeChecksums;
+
+    @Override
+    protected void executeImpl()
+    throws MojoExecutionException, MojoFailureException
+    {
+        if (session.isOffline())
+            throw new MojoExecutionException("Cannot generate JDK catalog index in offline mode");
+
+        AutoJdkXmlManager xmlManager = new AutoJdkXmlManager();
+
+        AutoJdkConfiguration.JdkMavenRepository jdkRepository = new AutoJdkConfiguration.JdkMavenRepository();
+        jdkRepository.setId(repositoryId);
+        jdkRepository.setUrl(repositoryUrl);
+        jdkRepository.setJdkGroupId(jdkGroupId);
+
+        MavenArtifactJdkArchiveRepository repository = new MavenArtifactJdkArchiveRepository(
+                getRepositorySystem(), getRepositorySystemSession(), List.of(jdkRepository.jdkRemoteRepository(getRepositorySystemSession())),
+                jdkGroupId, new OfflineDistributionsVendorService(), xmlManager);
+        MavenJdkCatalogIndexer indexer = new MavenJdkCatalogIndexer(repository, Clock.systemDefaultZone());
+
+        JdkCatalog previousIndex = fullIndex ? null : indexer.readCurrentIndex();
+        if (previousIndex == null)
+            getLog().info("Generating full JDK catalog index of " + repositoryUrl);
+        else
+            getLog().info("Updating JDK catalog index of " + repositoryUrl + " created " + previousIndex.getCreated());
+
+        JdkCatalog index;
+        try
+        {
+            index = indexer.generateIndex(previousIndex, includeChecksums);
+        }
+        catch (JdkRepositoryException e)
+        {
+            throw new MojoExecutionException("Error reading JDKs from " + repositoryUrl + ": " + e.getMessage(), e);
+        }
+
+        Path indexPath = indexFile.toPath();
+        try
+        {
+            if (indexPath.getParent() != null)
+                Files.createDirectories(indexPath.getParent());
+
+            xmlManager.writeFile(index, indexPath);
+        }
+        catch (IOException | AutoJdkXmlManager.XmlWriteException e)
+        {
+            throw new MojoExecutionException("Error writing JDK catalog index " + indexPath + ": " + e.getMessage(), e);
+        }
+
+        String version = indexVersion == null ? indexer.newIndexVersion() : indexVersion;
+        getLog().info("Wrote " + index.getJdks().size() + " JDK(s) to " + indexPath + ", deploy it to the repository with:");
+        getLog().info("mvn deploy:deploy-file -Dfile=" + indexPath + " -DgroupId=" + jdkGroupId +
+                      " -DartifactId=" + MavenArtifactJdkArchiveRepository.CATALOG_INDEX_ARTIFACT_ID + " -Dversion=" + version +
+                      " -Dpackaging=" + MavenArtifactJdkArchiveRepository.CATALOG_INDEX_EXTENSION + " -Durl=" + repositoryUrl + " -DrepositoryId=" + repositoryId);
+    }
+}
@@ -16,4 +16,13 @@ public interface JdkArtifact
     public OperatingSystem getOperatingSystem();
     public ArchiveType getArchiveType();
     public ReleaseType getReleaseType();
+
+    /**
+     * @return an ID that identifies the exact archive within the repository the artifact came from, such as a catalog package ID or Maven
+     *         coordinates.  Null if the archive is only identified by the other properties.
+     */
+    public default String getArchiveId()
+    {
+        return null;
+    }
 }
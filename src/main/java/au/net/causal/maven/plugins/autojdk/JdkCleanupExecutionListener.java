@@ -0,0 +1,45 @@
+package au.net.causal.maven.plugins.autojdk;
+
+import org.apache.maven.execution.ExecutionEvent;
+import org.apache.maven.execution.ExecutionListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Objects;
+
+/**
+ * Runs JDK cleanup once a Maven session has ended, after the build result has been reported, so that cleanup never delays or fails the build
+ * itself.  All events are passed through to the listener that was previously registered.
+ */
+public class JdkCleanupExecutionListener extends DelegatingExecutionListener
+{
+    private static final Logger log = LoggerFactory.getLogger(JdkCleanupExecutionListener.class);
+
+    private final Runnable cleanup;
+
+    /**
+     * @param delegate the listener to pass events through to.  May be null.
+     * @param cleanup cleanup to run when the session ends.
+     */
+    public JdkCleanupExecutionListener(ExecutionListener delegate, Runnable cleanup)
+    {
+        super(delegate);
+        this.cleanup = Objects.requireNonNull(cleanup);
+    }
+
+    @Override
+    public void sessionEnded(ExecutionEvent event)
+    {
+        super.sessionEnded(event);
+
+        try
+        {
+            cleanup.run();
+        }
+        catch (RuntimeException e)
+        {
+            log.warn("Failed to clean up JDKs: " + e.getMessage());
+            log.debug("Failed to clean up JDKs: " + e.getMessage(), e);
+        }
+    }
+}
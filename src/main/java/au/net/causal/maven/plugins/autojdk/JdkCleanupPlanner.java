@@ -0,0 +1,241 @@
+package au.net.causal.maven.plugins.autojdk;
+
+import au.net.causal.maven.plugins.autojdk.xml.config.AutoJdkConfiguration;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.stream.Collectors;
+
+/**
+ * Decides which installed JDKs should be removed to satisfy a {@linkplain AutoJdkConfiguration.JdkCleanupPolicy cleanup policy}.
+ * <p>
+ *
+ * JDKs used within the in-use period are never selected for removal, since other builds running at the same time may still be using them.
+ * Apart from that, JDKs are selected when:
+ * <ul>
+ *     <li>they have not been used for longer than the maximum unused age</li>
+ *     <li>there are more recent versions of the same vendor's JDK with the same major version, more than the number of versions to keep</li>
+ *     <li>the total size of installed JDKs exceeds the maximum size, least recently used first</li>
+ * </ul>
+ * <p>
+ *
+ * Archives in the local repository of JDKs that are no longer installed are cleaned up in the same way, using the time they were downloaded
+ * as their last use.  Archives of installed JDKs are removed along with their JDK, so their size is counted as part of the JDK's size.
+ */
+public class JdkCleanupPlanner
+{
+    private static final long BYTES_PER_MB = 1024L * 1024L;
+
+    private final AutoJdkConfiguration.JdkCleanupPolicy policy;
+    private final Duration inUsePeriod;
+
+    /**
+     * @param policy the cleanup policy.
+     */
+    public JdkCleanupPlanner(AutoJdkConfiguration.JdkCleanupPolicy policy)
+    {
+        this.policy = Objects.requireNonNull(policy);
+        this.inUsePeriod = policy.getInUsePeriodAsDuration();
+    }
+
+    /**
+     * @return true if the size of JDKs needs to be known for planning.  If false, sizes of candidates are ignored.
+     */
+    public boolean isSizeRequired()
+    {
+        return policy.getMaxTotalSizeMb() != null;
+    }
+
+    /**
+     * Selects JDKs to remove.
+     *
+     * @param candidates all installed JDKs that could be removed.
+     * @param now the current time.
+     *
+     * @return JDKs to remove.
+     */
+    public List<Candidate> selectJdksToRemove(Collection<? extends Candidate> candidates, Instant now)
+    {
+        Instant inUseSince = now.minus(inUsePeriod);
+        Set<Candidate> toRemove = new LinkedHashSet<>();
+
+        //Old unused JDKs
+        Duration maxUnusedAge = policy.getMaxUnusedAgeAsDuration();
+        if (maxUnusedAge != null)
+        {
+            Instant unusedSince = now.minus(maxUnusedAge);
+            for (Candidate candidate : candidates)
+            {
+                if (candidate.lastUsedBefore(unusedSince) && candidate.lastUsedBefore(inUseSince))
+                    toRemove.add(candidate);
+            }
+        }
+
+        //Superseded versions
+        Integer keepVersionsPerMajor = policy.getKeepVersionsPerMajor();
+        if (keepVersionsPerMajor != null && keepVersionsPerMajor > 0)
+        {
+            Map<String, List<Candidate>> byMajorVersion = new LinkedHashMap<>();
+            for (Candidate candidate : candidates)
+            {
+                byMajorVersion.computeIfAbsent(candidate.majorVersionGroup(), k -> new ArrayList<>()).add(candidate);
+            }
+            for (List<Candidate> group : byMajorVersion.values())
+            {
+                group.sort(Comparator.comparing((Candidate c) -> c.getJdk().getVersion()).reversed());
+                for (Candidate candidate : group.subList(Math.min(keepVersionsPerMajor, group.size()), group.size()))
+                {
+                    if (candidate.lastUsedBefore(inUseSince))
+                        toRemove.add(candidate);
+                }
+            }
+        }
+
+        //Over quota, remove least recently used
+        Long maxTotalSizeMb = policy.getMaxTotalSizeMb();
+        if (maxTotalSizeMb != null)
+        {
+            long maxTotalSize = maxTotalSizeMb * BYTES_PER_MB;
+            List<Candidate> remaining = candidates.stream()
+                                                  .filter(c -> !toRemove.contains(c))
+                                                  .collect(Collectors.toList());
+            long totalSize = remaining.stream().mapToLong(Candidate::getSize).sum();
+
+            remaining.sort(Comparator.comparing(Candidate::getLastUsed, Comparator.nullsFirst(Comparator.naturalOrder())));
+            for (Candidate candidate : remaining)
+            {
+                if (totalSize <= maxTotalSize)
+                    break;
+
+                if (candidate.lastUsedBefore(inUseSince))
+                {
+                    toRemove.add(candidate);
+                    totalSize -= candidate.getSize();
+                }
+            }
+        }
+
+        return new ArrayList<>(toRemove);
+    }
+
+    /**
+     * Selects archives in the local repository of JDKs that are no longer installed to remove.
+     *
+     * @param archives archives whose JDKs are not installed.
+     * @param installedJdkSize total size in bytes of JDKs that are kept, and their archives.  This counts towards the maximum size.
+     * @param now the current time.
+     *
+     * @return archives to remove.
+     */
+    public List<LocalRepositoryJdkArchives.CachedArchive> selectArchivesToRemove(Collection<? extends LocalRepositoryJdkArchives.CachedArchive> archives,
+                                                                                 long installedJdkSize, Instant now)
+    {
+        Instant inUseSince = now.minus(inUsePeriod);
+        Set<LocalRepositoryJdkArchives.CachedArchive> toRemove = new LinkedHashSet<>();
+
+        //Old unused archives
+        Duration maxUnusedAge = policy.getMaxUnusedAgeAsDuration();
+        if (maxUnusedAge != null)
+        {
+            Instant unusedSince = now.minus(maxUnusedAge);
+            for (LocalRepositoryJdkArchives.CachedArchive archive : archives)
+            {
+                if (archive.getLastModified().isBefore(unusedSince) && archive.getLastModified().isBefore(inUseSince))
+                    toRemove.add(archive);
+            }
+        }
+
+        //Over quota, remove oldest first
+        Long maxTotalSizeMb = policy.getMaxTotalSizeMb();
+        if (maxTotalSizeMb != null)
+        {
+            long maxTotalSize = maxTotalSizeMb * BYTES_PER_MB;
+            List<LocalRepositoryJdkArchives.CachedArchive> remaining = archives.stream()
+                                                                               .filter(a -> !toRemove.contains(a))
+                                                                               .collect(Collectors.toList());
+            long totalSize = installedJdkSize + remaining.stream().mapToLong(LocalRepositoryJdkArchives.CachedArchive::getSize).sum();
+
+            remaining.sort(Comparator.comparing(LocalRepositoryJdkArchives.CachedArchive::getLastModified));
+            for (LocalRepositoryJdkArchives.CachedArchive archive : remaining)
+            {
+                if (totalSize <= maxTotalSize)
+                    break;
+
+                if (archive.getLastModified().isBefore(inUseSince))
+                {
+                    toRemove.add(archive);
+                    totalSize -= archive.getSize();
+                }
+            }
+        }
+
+        return new ArrayList<>(toRemove);
+    }
+
+    /**
+     * An installed JDK that could be removed.
+     */
+    public static class Candidate
+    {
+        private final LocalJdk jdk;
+        private final Instant lastUsed;
+        private final long size;
+
+        /**
+         * @param jdk the installed JDK.
+         * @param lastUsed when the JDK was last used, or null if not known.
+         * @param size size of the JDK on disk in bytes, including any of its archives in the local repository.
+         */
+        public Candidate(LocalJdk jdk, Instant lastUsed, long size)
+        {
+            this.jdk = Objects.requireNonNull(jdk);
+            this.lastUsed = lastUsed;
+            this.size = size;
+        }
+
+        public LocalJdk getJdk()
+        {
+            return jdk;
+        }
+
+        public Instant getLastUsed()
+        {
+            return lastUsed;
+        }
+
+        public long getSize()
+        {
+            return size;
+        }
+
+        private boolean lastUsedBefore(Instant time)
+        {
+            return lastUsed == null || lastUsed.isBefore(time);
+        }
+
+        private String majorVersionGroup()
+        {
+            return jdk.getVendor() + ":" + jdk.getVersion().getMajorVersion() + ":" + jdk.getOperatingSystem() + ":" + jdk.getArchitecture() + ":" + jdk.getReleaseType();
+        }
+
+        @Override
+        public String toString()
+        {
+            return new StringJoiner(", ", Candidate.class.getSimpleName() + "[", "]")
+                    .add("jdk=" + jdk.getJdkDirectory())
+                    .add("lastUsed=" + lastUsed)
+                    .add("size=" + size)
+                    .toString();
+        }
+    }
+}
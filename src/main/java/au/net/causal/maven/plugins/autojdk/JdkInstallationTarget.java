@@ -4,6 +4,7 @@ import au.net.causal.maven.plugins.autojdk.xml.metadata.LocalJdkMetadata;
 
 import java.io.IOException;
 import java.nio.file.Path;
+import java.time.Instant;
 
 /**
  * A place where JDK archives can be extracted and installed on the local system.
@@ -33,4 +34,31 @@ public interface JdkInstallationTarget
      */
     public void deleteJdk(Path jdkDirectory)
     throws IOException;
+
+    /**
+     * Records that a JDK has just been used, so that JDKs that are no longer used can be found and cleaned up.  By default, usage is not tracked.
+     *
+     * @param jdkDirectory the directory of an installed JDK.  JDKs that were not installed into this target are ignored.
+     *
+     * @throws IOException if an error occurs recording usage.
+     */
+    public default void recordJdkUsage(Path jdkDirectory)
+    throws IOException
+    {
+    }
+
+    /**
+     * Reads when a JDK was last used.
+     *
+     * @param jdkDirectory the directory of an installed JDK.
+     *
+     * @return the time the JDK was last {@linkplain #recordJdkUsage(Path) recorded as used}, or null if it is not known.
+     *
+     * @throws IOException if an error occurs reading usage.
+     */
+    public default Instant getLastJdkUsage(Path jdkDirectory)
+    throws IOException
+    {
+        return null;
+    }
 }
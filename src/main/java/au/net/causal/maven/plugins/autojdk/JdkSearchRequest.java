@@ -14,14 +14,30 @@ public class JdkSearchRequest
     private final OperatingSystem operatingSystem;
     private final String vendor;
     private final ReleaseType releaseType;
+    private final boolean preferredVendorsOnly;
+    private final boolean latestOnly;
 
     public JdkSearchRequest(VersionRange versionRange, Architecture architecture, OperatingSystem operatingSystem, String vendor, ReleaseType releaseType)
+    {
+        this(versionRange, architecture, operatingSystem, vendor, releaseType, false);
+    }
+
+    public JdkSearchRequest(VersionRange versionRange, Architecture architecture, OperatingSystem operatingSystem, String vendor, ReleaseType releaseType,
+                            boolean preferredVendorsOnly)
+    {
+        this(versionRange, architecture, operatingSystem, vendor, releaseType, preferredVendorsOnly, false);
+    }
+
+    public JdkSearchRequest(VersionRange versionRange, Architecture architecture, OperatingSystem operatingSystem, String vendor, ReleaseType releaseType,
+                            boolean preferredVendorsOnly, boolean latestOnly)
     {
         this.versionRange = Objects.requireNonNull(versionRange);
         this.architecture = architecture;
         this.operatingSystem = operatingSystem;
         this.vendor = vendor;
         this.releaseType = releaseType;
+        this.preferredVendorsOnly = preferredVendorsOnly;
+        this.latestOnly = latestOnly;
     }
 
     public VersionRange getVersionRange()
@@ -49,8 +65,60 @@ public class JdkSearchRequest
         return releaseType;
     }
 
+    /**
+     * @return true if only JDKs from the most preferred vendors with any matching JDK are needed, such as when only the best JDK is selected from the
+     *         results.  Repositories that support it may then skip searching less preferred vendors.  When false, JDKs from all vendors are returned.
+     */
+    public boolean isPreferredVendorsOnly()
+    {
+        return preferredVendorsOnly;
+    }
+
+    /**
+     * @return true if only the latest matching JDKs are needed, such as when only the best JDK is selected to install or to check for updates.
+     *         Repositories that support it may then query only the most recent packages instead of every one.  When false, all matching JDKs
+     *         are returned, such as when listing or mirroring JDKs.
+     */
+    public boolean isLatestOnly()
+    {
+        return latestOnly;
+    }
+
     public JdkSearchRequest withVersionRange(VersionRange versionRange)
     {
-        return new JdkSearchRequest(versionRange, getArchitecture(), getOperatingSystem(), getVendor(), getReleaseType());
+        return new JdkSearchRequest(versionRange, getArchitecture(), getOperatingSystem(), getVendor(), getReleaseType(), isPreferredVendorsOnly(),
+                                    isLatestOnly());
+    }
+
+    public JdkSearchRequest withPreferredVendorsOnly(boolean preferredVendorsOnly)
+    {
+        return new JdkSearchRequest(getVersionRange(), getArchitecture(), getOperatingSystem(), getVendor(), getReleaseType(), preferredVendorsOnly,
+                                    isLatestOnly());
+    }
+
+    public JdkSearchRequest withLatestOnly(boolean latestOnly)
+    {
+        return new JdkSearchRequest(getVersionRange(), getArchitecture(), getOperatingSystem(), getVendor(), getReleaseType(), isPreferredVendorsOnly(),
+                                    latestOnly);
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o)
+            return true;
+        if (!(o instanceof JdkSearchRequest))
+            return false;
+        JdkSearchRequest that = (JdkSearchRequest)o;
+        return getVersionRange().equals(that.getVersionRange()) && getArchitecture() == that.getArchitecture() &&
+               getOperatingSystem() == that.getOperatingSystem() && Objects.equals(getVendor(), that.getVendor()) &&
+               getReleaseType() == that.getReleaseType() && isPreferredVendorsOnly() == that.isPreferredVendorsOnly() &&
+               isLatestOnly() == that.isLatestOnly();
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash(getVersionRange(), getArchitecture(), getOperatingSystem(), getVendor(), getReleaseType(), isPreferredVendorsOnly(), isLatestOnly());
     }
 }
@@ -0,0 +1,195 @@
+package au.net.causal.maven.plugins.autojdk;
+
+import au.net.causal.maven.plugins.autojdk.xml.metadata.ArchiveType;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.StringJoiner;
+
+/**
+ * Finds JDK archives that have been downloaded into the local Maven repository under JDK group IDs, either cached from Foojay or resolved from
+ * JDK Maven repositories.  The local repository is read directly from the filesystem since there is no API for listing its contents.
+ */
+public class LocalRepositoryJdkArchives
+{
+    private final Path localRepositoryDirectory;
+    private final Collection<String> jdkGroupIds;
+
+    /**
+     * @param localRepositoryDirectory base directory of the local Maven repository.
+     * @param jdkGroupIds group IDs JDK archives are stored under.
+     */
+    public LocalRepositoryJdkArchives(Path localRepositoryDirectory, Collection<String> jdkGroupIds)
+    {
+        this.localRepositoryDirectory = Objects.requireNonNull(localRepositoryDirectory);
+        this.jdkGroupIds = new LinkedHashSet<>(jdkGroupIds);
+    }
+
+    /**
+     * @return all JDK archives in the local repository under the JDK group IDs.
+     *
+     * @throws IOException if an error occurs reading the local repository.
+     */
+    public List<CachedArchive> findArchives()
+    throws IOException
+    {
+        List<CachedArchive> archives = new ArrayList<>();
+        for (String jdkGroupId : jdkGroupIds)
+        {
+            Path groupDirectory = localRepositoryDirectory.resolve(jdkGroupId.replace('.', '/'));
+            for (Path artifactDirectory : listDirectories(groupDirectory))
+            {
+                for (Path versionDirectory : listDirectories(artifactDirectory))
+                {
+                    findArchivesInVersionDirectory(artifactDirectory.getFileName().toString(), versionDirectory, archives);
+                }
+            }
+        }
+        return archives;
+    }
+
+    private void findArchivesInVersionDirectory(String artifactId, Path versionDirectory, List<CachedArchive> archives)
+    throws IOException
+    {
+        String version = versionDirectory.getFileName().toString();
+        String prefix = artifactId + "-" + version + "-";
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(versionDirectory, Files::isRegularFile))
+        {
+            for (Path file : files)
+            {
+                String fileName = file.getFileName().toString();
+                if (!fileName.startsWith(prefix))
+                    continue;
+
+                for (ArchiveType archiveType : ArchiveType.values())
+                {
+                    String suffix = "." + archiveType.getFileExtension();
+                    if (fileName.endsWith(suffix) && fileName.length() > prefix.length() + suffix.length())
+                    {
+                        String classifier = fileName.substring(prefix.length(), fileName.length() - suffix.length());
+                        archives.add(new CachedArchive(file, artifactId, version, classifier, Files.getLastModifiedTime(file).toInstant(), Files.size(file)));
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    private static List<Path> listDirectories(Path directory)
+    throws IOException
+    {
+        if (!Files.isDirectory(directory))
+            return List.of();
+
+        List<Path> children = new ArrayList<>();
+        try (DirectoryStream<Path> dirStream = Files.newDirectoryStream(directory, Files::isDirectory))
+        {
+            for (Path child : dirStream)
+            {
+                children.add(child);
+            }
+        }
+        return children;
+    }
+
+    /**
+     * Deletes an archive from the local repository, along with its AutoJDK metadata.
+     *
+     * @param archive the archive to delete.
+     *
+     * @throws IOException if an error occurs.
+     */
+    public void delete(CachedArchive archive)
+    throws IOException
+    {
+        Files.deleteIfExists(archive.getFile());
+        Path metadataFile = archive.getFile().resolveSibling(archive.getArtifactId() + "-" + archive.getVersion() + "-" + archive.getClassifier() + "." +
+                                                             MavenArtifactJdkArchiveRepository.AUTOJDK_METADATA_EXTENSION);
+        Files.deleteIfExists(metadataFile);
+    }
+
+    /**
+     * A JDK archive in the local repository.
+     */
+    public static class CachedArchive
+    {
+        private final Path file;
+        private final String artifactId;
+        private final String version;
+        private final String classifier;
+        private final Instant lastModified;
+        private final long size;
+
+        public CachedArchive(Path file, String artifactId, String version, String classifier, Instant lastModified, long size)
+        {
+            this.file = Objects.requireNonNull(file);
+            this.artifactId = Objects.requireNonNull(artifactId);
+            this.version = Objects.requireNonNull(version);
+            this.classifier = Objects.requireNonNull(classifier);
+            this.lastModified = Objects.requireNonNull(lastModified);
+            this.size = size;
+        }
+
+        public Path getFile()
+        {
+            return file;
+        }
+
+        public String getArtifactId()
+        {
+            return artifactId;
+        }
+
+        public String getVersion()
+        {
+            return version;
+        }
+
+        public String getClassifier()
+        {
+            return classifier;
+        }
+
+        /**
+         * @return when the archive was downloaded.  Archives are not touched when they are used, so this is the closest thing to a last used time.
+         */
+        public Instant getLastModified()
+        {
+            return lastModified;
+        }
+
+        public long getSize()
+        {
+            return size;
+        }
+
+        /**
+         * @return true if this is an archive of the specified installed JDK.
+         */
+        public boolean isFor(LocalJdk jdk)
+        {
+            return artifactId.equals(MavenJdkArtifact.vendorToArtifactId(jdk.getVendor())) &&
+                   version.equals(jdk.getVersion().toString()) &&
+                   classifier.equals(MavenJdkArtifact.makeClassifier(jdk.getOperatingSystem(), jdk.getArchitecture()));
+        }
+
+        @Override
+        public String toString()
+        {
+            return new StringJoiner(", ", CachedArchive.class.getSimpleName() + "[", "]")
+                    .add("file=" + file)
+                    .add("lastModified=" + lastModified)
+                    .add("size=" + size)
+                    .toString();
+        }
+    }
+}
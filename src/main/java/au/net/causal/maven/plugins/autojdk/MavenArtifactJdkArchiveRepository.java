@@ -1,7 +1,14 @@
 package au.net.causal.maven.plugins.autojdk;
 
 import au.net.causal.maven.plugins.autojdk.xml.metadata.ArchiveType;
+import au.net.causal.maven.plugins.autojdk.xml.metadata.JdkCatalog;
 import au.net.causal.maven.plugins.autojdk.xml.metadata.MavenJdkArtifactMetadata;
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import org.apache.maven.artifact.versioning.ArtifactVersion;
+import org.apache.maven.artifact.versioning.DefaultArtifactVersion;
 import org.eclipse.aether.RepositorySystem;
 import org.eclipse.aether.RepositorySystemSession;
 import org.eclipse.aether.artifact.Artifact;
@@ -15,26 +22,77 @@ import org.eclipse.aether.resolution.ArtifactResult;
 import org.eclipse.aether.resolution.VersionRangeRequest;
 import org.eclipse.aether.resolution.VersionRangeResolutionException;
 import org.eclipse.aether.resolution.VersionRangeResult;
+import org.eclipse.aether.transfer.ArtifactNotFoundException;
+import org.eclipse.aether.transfer.MetadataNotFoundException;
+import org.eclipse.aether.transfer.MetadataTransferException;
+import org.eclipse.aether.transfer.RepositoryOfflineException;
 import org.eclipse.aether.version.Version;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
 import java.util.stream.Collectors;
 
+/**
+ * Searches for JDKs published as Maven artifacts.
+ * <p>
+ *
+ * A search with no vendor or platform needs a version search for every vendor and a metadata lookup for every vendor, platform and version.
+ * Version searches are run concurrently and all metadata is then resolved in a single batch.  Results are always in the same order as they
+ * would be when making the requests one at a time.
+ * <p>
+ *
+ * If the repository has a {@linkplain #CATALOG_INDEX_ARTIFACT_ID catalog index} listing all its JDKs, searches use that instead, which needs
+ * only a single download.  The index is generated by the {@code generate-catalog-index} goal and should be regenerated when JDKs are added.
+ * Searches that find nothing in the index still search the JDK artifacts individually in case matching JDKs were added after the index.
+ * <p>
+ *
+ * Searches that {@linkplain JdkSearchRequest#isPreferredVendorsOnly() only need preferred vendors} search vendors in preference order and
+ * stop at the first vendors that have a matching JDK.
+ */
 public class MavenArtifactJdkArchiveRepository implements JdkArchiveRepository<MavenJdkArtifact>
 {
     private static final Logger log = LoggerFactory.getLogger(MavenArtifactJdkArchiveRepository.class);
 
     static final String AUTOJDK_METADATA_EXTENSION = "autojdk-metadata.xml";
 
+    /**
+     * Artifact ID of the catalog index that lists every JDK in a repository, published under the JDK group ID.
+     */
+    public static final String CATALOG_INDEX_ARTIFACT_ID = "autojdk-catalog";
+
+    static final String CATALOG_INDEX_EXTENSION = "xml";
+
+    /**
+     * Maximum number of version searches run at the same time across all Maven JDK repositories.
+     */
+    public static final int SEARCH_PARALLELISM = 8;
+
+    /**
+     * Default maximum number of version searches a single repository has running at the same time.
+     */
+    public static final int DEFAULT_MAX_CONCURRENT_REQUESTS = 4;
+
+    private static final ExecutorService sharedSearchExecutor = DaemonExecutors.newFixedDaemonThreadPool("autojdk-maven-search-%d", SEARCH_PARALLELISM);
+
     private final RepositorySystem repositorySystem;
     private final RepositorySystemSession repositorySystemSession;
     private final String mavenArtifactGroupId;
@@ -42,12 +100,93 @@ public class MavenArtifactJdkArchiveRepository implements JdkArchiveRepository<M
     private final List<RemoteRepository> remoteRepositories;
     private final VendorService vendorService;
     private final AutoJdkXmlManager xmlManager;
+    private final ListeningExecutorService searchExecutor;
+    private final Semaphore requestPermits;
+    private final Comparator<String> vendorPreference;
+    private final MissingMetadataCache missingMetadataCache;
+
+    private boolean catalogIndexRead;
+    private JdkCatalog catalogIndex;
 
     public MavenArtifactJdkArchiveRepository(RepositorySystem repositorySystem, RepositorySystemSession repositorySystemSession,
                                              Collection<? extends RemoteRepository> remoteRepositories, String mavenArtifactGroupId,
                                              VendorService vendorService,
                                              AutoJdkXmlManager xmlManager)
     {
+        this(repositorySystem, repositorySystemSession, remoteRepositories, mavenArtifactGroupId, vendorService, xmlManager,
+             sharedSearchExecutor, DEFAULT_MAX_CONCURRENT_REQUESTS);
+    }
+
+    /**
+     * @param repositorySystem Maven repository system.
+     * @param repositorySystemSession Maven repository session.
+     * @param remoteRepositories remote repositories to search and download from.
+     * @param mavenArtifactGroupId group ID of JDK artifacts.
+     * @param vendorService lists the vendors to search when a search does not have one.
+     * @param xmlManager reads JDK metadata.
+     * @param vendorPreference orders vendors from most to least preferred, with equally preferred vendors comparing equal, or null if there
+     *                         is no preference.  Used for {@linkplain JdkSearchRequest#isPreferredVendorsOnly() preferred vendor searches}.
+     * @param missingMetadataCache remembers JDK metadata the remote repositories do not have so it is not requested again, or null to
+     *                             always request all metadata.
+     */
+    public MavenArtifactJdkArchiveRepository(RepositorySystem repositorySystem, RepositorySystemSession repositorySystemSession,
+                                             Collection<? extends RemoteRepository> remoteRepositories, String mavenArtifactGroupId,
+                                             VendorService vendorService,
+                                             AutoJdkXmlManager xmlManager,
+                                             Comparator<String> vendorPreference,
+                                             MissingMetadataCache missingMetadataCache)
+    {
+        this(repositorySystem, repositorySystemSession, remoteRepositories, mavenArtifactGroupId, vendorService, xmlManager,
+             sharedSearchExecutor, DEFAULT_MAX_CONCURRENT_REQUESTS, vendorPreference, missingMetadataCache);
+    }
+
+    /**
+     * @param repositorySystem Maven repository system.
+     * @param repositorySystemSession Maven repository session.
+     * @param remoteRepositories remote repositories to search and download from.
+     * @param mavenArtifactGroupId group ID of JDK artifacts.
+     * @param vendorService lists the vendors to search when a search does not have one.
+     * @param xmlManager reads JDK metadata.
+     * @param searchExecutor runs search requests concurrently.  Its number of threads bounds how many run at once across all repositories
+     *                       sharing it.
+     * @param maxConcurrentRequests maximum number of search requests this repository has running or queued at the same time.
+     */
+    public MavenArtifactJdkArchiveRepository(RepositorySystem repositorySystem, RepositorySystemSession repositorySystemSession,
+                                             Collection<? extends RemoteRepository> remoteRepositories, String mavenArtifactGroupId,
+                                             VendorService vendorService,
+                                             AutoJdkXmlManager xmlManager,
+                                             ExecutorService searchExecutor, int maxConcurrentRequests)
+    {
+        this(repositorySystem, repositorySystemSession, remoteRepositories, mavenArtifactGroupId, vendorService, xmlManager,
+             searchExecutor, maxConcurrentRequests, null, null);
+    }
+
+    /**
+     * @param repositorySystem Maven repository system.
+     * @param repositorySystemSession Maven repository session.
+     * @param remoteRepositories remote repositories to search and download from.
+     * @param mavenArtifactGroupId group ID of JDK artifacts.
+     * @param vendorService lists the vendors to search when a search does not have one.
+     * @param xmlManager reads JDK metadata.
+     * @param searchExecutor runs search requests concurrently.  Its number of threads bounds how many run at once across all repositories
+     *                       sharing it.
+     * @param maxConcurrentRequests maximum number of search requests this repository has running or queued at the same time.
+     * @param vendorPreference orders vendors from most to least preferred, with equally preferred vendors comparing equal, or null if there
+     *                         is no preference.  Used for {@linkplain JdkSearchRequest#isPreferredVendorsOnly() preferred vendor searches}.
+     * @param missingMetadataCache remembers JDK metadata the remote repositories do not have so it is not requested again, or null to
+     *                             always request all metadata.
+     */
+    public MavenArtifactJdkArchiveRepository(RepositorySystem repositorySystem, RepositorySystemSession repositorySystemSession,
+                                             Collection<? extends RemoteRepository> remoteRepositories, String mavenArtifactGroupId,
+                                             VendorService vendorService,
+                                             AutoJdkXmlManager xmlManager,
+                                             ExecutorService searchExecutor, int maxConcurrentRequests,
+                                             Comparator<String> vendorPreference,
+                                             MissingMetadataCache missingMetadataCache)
+    {
+        if (maxConcurrentRequests < 1)
+            throw new IllegalArgumentException("Maximum concurrent requests must be at least 1: " + maxConcurrentRequests);
+
         this.repositorySystem = Objects.requireNonNull(repositorySystem);
         this.repositorySystemSession = Objects.requireNonNull(repositorySystemSession);
         this.mavenArtifactGroupId = Objects.requireNonNull(mavenArtifactGroupId);
@@ -55,125 +194,551 @@ public class MavenArtifactJdkArchiveRepository implements JdkArchiveRepository<M
         this.remoteRepositories = List.copyOf(remoteRepositories);
         this.vendorService = Objects.requireNonNull(vendorService);
         this.xmlManager = Objects.requireNonNull(xmlManager);
+        this.searchExecutor = MoreExecutors.listeningDecorator(Objects.requireNonNull(searchExecutor));
+        this.requestPermits = new Semaphore(maxConcurrentRequests);
+        this.vendorPreference = vendorPreference;
+        this.missingMetadataCache = missingMetadataCache;
+    }
+
+    /**
+     * Runs a search request on the search executor once this repository has fewer than its maximum number of requests in progress.  Waiting
+     * happens in the calling thread so that requests waiting for this repository never hold up other repositories' requests.
+     */
+    private <T> ListenableFuture<T> submitRequest(Callable<T> request)
+    throws InterruptedException
+    {
+        requestPermits.acquire();
+        ListenableFuture<T> future;
+        try
+        {
+            future = searchExecutor.submit(request);
+        }
+        catch (RejectedExecutionException e)
+        {
+            requestPermits.release();
+            throw e;
+        }
+
+        //Also runs when cancelled
+        future.addListener(requestPermits::release, MoreExecutors.directExecutor());
+        return future;
     }
 
     @Override
     public Collection<? extends MavenJdkArtifact> search(JdkSearchRequest searchRequest)
     throws JdkRepositoryException
     {
+        //A single catalog index download is much cheaper than reading metadata for every vendor, platform and version
+        JdkCatalog catalogIndex = catalogIndex();
+        if (catalogIndex != null)
+        {
+            Collection<? extends MavenJdkArtifact> indexResults = searchCatalogIndex(catalogIndex, searchRequest);
+            if (!indexResults.isEmpty())
+                return indexResults;
+
+            //Matching JDKs may have been published since the index was generated
+            log.debug("No matching JDKs in catalog index of " + remoteRepositories + ", searching JDK artifacts individually");
+        }
+
         return search(searchRequest, remoteRepositories);
     }
 
     private Collection<? extends MavenJdkArtifact> search(JdkSearchRequest searchRequest, List<RemoteRepository> remoteRepositoriesToSearch)
     throws JdkRepositoryException
+    {
+        if (searchRequest.isPreferredVendorsOnly() && searchRequest.getVendor() == null && vendorPreference != null)
+            return searchPreferredVendors(searchRequest, remoteRepositoriesToSearch);
+
+        return search(searchRequest, artifactIdsToSearch(searchRequest), remoteRepositoriesToSearch);
+    }
+
+    /**
+     * Searches vendors from most to least preferred, stopping at the first vendors with any matching JDK.  JDKs from less preferred vendors
+     * would never be selected over these, so there is no need to search for them.  Equally preferred vendors are searched together since
+     * the best JDK could come from any of them.
+     */
+    private Collection<? extends MavenJdkArtifact> searchPreferredVendors(JdkSearchRequest searchRequest, List<RemoteRepository> remoteRepositoriesToSearch)
+    throws JdkRepositoryException
+    {
+        //TreeMap puts equally preferred vendors together, keeping vendor service order within each group
+        Map<String, List<String>> vendorPreferenceGroups = new TreeMap<>(vendorPreference);
+        for (String artifactId : allVendorArtifactIds())
+        {
+            vendorPreferenceGroups.computeIfAbsent(artifactId, k -> new ArrayList<>()).add(artifactId);
+        }
+
+        for (List<String> artifactIds : vendorPreferenceGroups.values())
+        {
+            Collection<? extends MavenJdkArtifact> results = search(searchRequest, artifactIds, remoteRepositoriesToSearch);
+            if (!results.isEmpty())
+                return results;
+
+            log.debug("No matching JDKs from " + artifactIds + ", searching less preferred vendors");
+        }
+
+        return List.of();
+    }
+
+    private Collection<? extends MavenJdkArtifact> search(JdkSearchRequest searchRequest, List<String> artifactIds, List<RemoteRepository> remoteRepositoriesToSearch)
+    throws JdkRepositoryException
+    {
+        Map<String, List<Version>> foundVersions = searchVersions(artifactIds, searchRequest.getVersionRange().toString(), remoteRepositoriesToSearch);
+        List<JdkVersionMetadata> foundMetadata = readMetadata(foundVersions, searchPlatforms(searchRequest), remoteRepositoriesToSearch);
+
+        List<MavenJdkArtifact> matchingArtifacts = new ArrayList<>();
+        for (JdkVersionMetadata jdkVersionMetadata : foundMetadata)
+        {
+            MavenJdkArtifactMetadata mavenMetadata = jdkVersionMetadata.getMetadata();
+
+            //Only include result release type (EA/GA) matches search request (if specified)
+            if (searchRequest.getReleaseType() == null || searchRequest.getReleaseType().equals(mavenMetadata.getReleaseType()))
+            {
+                for (ArchiveType curArchiveType : mavenMetadata.getArchiveTypes())
+                {
+                    MavenJdkArtifact curMavenJdkArtifact = new MavenJdkArtifact(mavenArtifactGroupId, jdkVersionMetadata.getArtifactId(), jdkVersionMetadata.getVersion(),
+                            jdkVersionMetadata.getPlatform().getArchitecture(), jdkVersionMetadata.getPlatform().getOperatingSystem(), curArchiveType);
+                    matchingArtifacts.add(curMavenJdkArtifact);
+                }
+            }
+        }
+
+        return matchingArtifacts;
+    }
+
+    private List<? extends Platform> searchPlatforms(JdkSearchRequest searchRequest)
     {
         //If os and arch is not specified, use all platforms as the search
-        List<? extends Platform> searchPlatforms;
         if (searchRequest.getOperatingSystem() == null && searchRequest.getArchitecture() == null)
-            searchPlatforms = PlatformTools.WELL_KNOWN_PLATFORMS;
+            return PlatformTools.WELL_KNOWN_PLATFORMS;
         else if (searchRequest.getOperatingSystem() == null)
         {
-            searchPlatforms = PlatformTools.WELL_KNOWN_PLATFORMS.stream()
+            return PlatformTools.WELL_KNOWN_PLATFORMS.stream()
                     .filter(p -> p.getArchitecture() == searchRequest.getArchitecture())
                     .collect(Collectors.toList());
         }
         else if (searchRequest.getArchitecture() == null)
         {
-            searchPlatforms = PlatformTools.WELL_KNOWN_PLATFORMS.stream()
+            return PlatformTools.WELL_KNOWN_PLATFORMS.stream()
                     .filter(p -> p.getOperatingSystem() == searchRequest.getOperatingSystem())
                     .collect(Collectors.toList());
         }
         else
-            searchPlatforms = List.of(new Platform(searchRequest.getOperatingSystem(), searchRequest.getArchitecture()));
-
-        List<String> artifactIdsToSearch;
+            return List.of(new Platform(searchRequest.getOperatingSystem(), searchRequest.getArchitecture()));
+    }
 
+    private List<String> artifactIdsToSearch(JdkSearchRequest searchRequest)
+    throws JdkRepositoryException
+    {
         //Do we know the artifact ID?
         if (searchRequest.getVendor() == null)
         {
             //If not, need to search all known vendors
-            try
+            return allVendorArtifactIds();
+        }
+        else
+            return Collections.singletonList(MavenJdkArtifact.vendorToArtifactId(searchRequest.getVendor()));
+    }
+
+    /**
+     * @return artifact IDs of all vendors known to the vendor service.
+     */
+    List<String> allVendorArtifactIds()
+    throws JdkRepositoryException
+    {
+        try
+        {
+            return vendorService.getAllVendors()
+                                .stream()
+                                .map(MavenJdkArtifact::vendorToArtifactId)
+                                .collect(Collectors.toUnmodifiableList());
+        }
+        catch (VendorServiceException e)
+        {
+            throw new JdkRepositoryException("Error retrieving vendor list: " + e.getMessage(), e);
+        }
+    }
+
+    String getMavenArtifactGroupId()
+    {
+        return mavenArtifactGroupId;
+    }
+
+    List<RemoteRepository> getRemoteRepositories()
+    {
+        return remoteRepositories;
+    }
+
+    /**
+     * Searches the versions of multiple JDK artifacts concurrently.
+     *
+     * @param artifactIdsToSearch artifact IDs of the JDKs to search.
+     * @param versionRange Maven version range to search.
+     *
+     * @return found versions of each artifact, in the order of the artifact IDs.
+     *
+     * @throws JdkRepositoryException if an error occurs talking to the repository.
+     */
+    Map<String, List<Version>> searchVersions(Collection<String> artifactIdsToSearch, String versionRange)
+    throws JdkRepositoryException
+    {
+        return searchVersions(artifactIdsToSearch, versionRange, remoteRepositories);
+    }
+
+    private Map<String, List<Version>> searchVersions(Collection<String> artifactIdsToSearch, String versionRange, List<RemoteRepository> remoteRepositoriesToSearch)
+    throws JdkRepositoryException
+    {
+        Map<String, Future<List<Version>>> versionSearches = new LinkedHashMap<>();
+        try
+        {
+            for (String artifactIdToSearch : artifactIdsToSearch)
             {
-                artifactIdsToSearch = vendorService.getAllVendors()
-                                                   .stream()
-                                                   .map(MavenJdkArtifact::vendorToArtifactId)
-                                                   .collect(Collectors.toUnmodifiableList());
+                versionSearches.put(artifactIdToSearch, submitRequest(() -> searchVersions(artifactIdToSearch, versionRange, remoteRepositoriesToSearch)));
             }
-            catch (VendorServiceException e)
+
+            //Collect in order, so the first error in order is the one reported, same as searching one at a time
+            Map<String, List<Version>> foundVersions = new LinkedHashMap<>();
+            for (Map.Entry<String, Future<List<Version>>> versionSearch : versionSearches.entrySet())
             {
-                throw new JdkRepositoryException("Error retrieving vendor list: " + e.getMessage(), e);
+                foundVersions.put(versionSearch.getKey(), versionSearch.getValue().get());
             }
+
+            return foundVersions;
         }
-        else
-            artifactIdsToSearch = Collections.singletonList(MavenJdkArtifact.vendorToArtifactId(searchRequest.getVendor()));
+        catch (ExecutionException e)
+        {
+            Throwables.throwIfInstanceOf(e.getCause(), JdkRepositoryException.class);
+            Throwables.throwIfUnchecked(e.getCause());
+            throw new JdkRepositoryException(e.getCause());
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new JdkRepositoryException("Interrupted while searching for JDKs", e);
+        }
+        finally
+        {
+            //Nothing left to do after an error
+            for (Future<?> versionSearch : versionSearches.values())
+            {
+                versionSearch.cancel(false);
+            }
+        }
+    }
 
-        //Find known artifacts without versions
+    private List<Version> searchVersions(String artifactIdToSearch, String versionRange, List<RemoteRepository> remoteRepositoriesToSearch)
+    throws JdkRepositoryException
+    {
+        //Only need groupId/artifactId, it searches all extensions / classifiers
+        //TODO or does it???
+        Artifact searchArtifact = new DefaultArtifact(mavenArtifactGroupId, artifactIdToSearch, null, versionRange);
+        VersionRangeRequest versionSearchRequest = new VersionRangeRequest(searchArtifact, remoteRepositoriesToSearch, null);
 
-        //Resolve all known versions
-        List<MavenJdkArtifact> matchingArtifacts = new ArrayList<>();
-        for (String artifactIdToSearch : artifactIdsToSearch)
+        try
         {
-            //Only need groupId/artifactId, it searches all extensions / classifiers
-            //TODO or does it???
-            Artifact searchArtifact = new DefaultArtifact(mavenArtifactGroupId, artifactIdToSearch, null, searchRequest.getVersionRange().toString());
-            VersionRangeRequest versionSearchRequest = new VersionRangeRequest(searchArtifact, remoteRepositoriesToSearch, null);
+            VersionRangeResult versionSearchResult = repositorySystem.resolveVersionRange(repositorySystemSession, versionSearchRequest);
+            for (Exception warningException : versionSearchResult.getExceptions())
+            {
+                log.debug("Problem performing version search: " + warningException.getMessage(), warningException);
+            }
+            List<Version> foundVersions = versionSearchResult.getVersions();
 
-            try
+            //Not finding metadata is normal, but failing to talk to the repository at all is an error and should be reported as such
+            if (foundVersions.isEmpty())
             {
-                VersionRangeResult versionSearchResult = repositorySystem.resolveVersionRange(repositorySystemSession, versionSearchRequest);
                 for (Exception warningException : versionSearchResult.getExceptions())
                 {
-                    log.debug("Problem performing version search: " + warningException.getMessage(), warningException);
+                    if (warningException instanceof MetadataTransferException && !(warningException instanceof MetadataNotFoundException) &&
+                        !(warningException.getCause() instanceof RepositoryOfflineException))
+                        throw new JdkRepositoryException("Error performing version search in Maven repository: " + warningException.getMessage(), warningException);
                 }
-                List<Version> foundVersions = versionSearchResult.getVersions();
+            }
+
+            return foundVersions;
+        }
+        catch (VersionRangeResolutionException e)
+        {
+            throw new JdkRepositoryException("Error performing version search in Maven repository: " + e.getMessage(), e);
+        }
+    }
 
-                for (Platform searchPlatform : searchPlatforms)
+    /**
+     * Reads the metadata of JDK versions for multiple platforms.
+     *
+     * @param versions versions of each JDK artifact ID.
+     * @param platforms platforms to read metadata for.
+     *
+     * @return metadata of each artifact, platform and version in that order.  Platforms without metadata have no archive types.
+     */
+    List<JdkVersionMetadata> readMetadata(Map<String, List<Version>> versions, List<? extends Platform> platforms)
+    {
+        return readMetadata(versions, platforms, remoteRepositories);
+    }
+
+    private List<JdkVersionMetadata> readMetadata(Map<String, List<Version>> versions, List<? extends Platform> platforms, List<RemoteRepository> remoteRepositoriesToSearch)
+    {
+        //Collect metadata of every vendor, platform and version
+        List<JdkVersionMetadata> results = new ArrayList<>();
+        List<ArtifactRequest> metadataRequests = new ArrayList<>();
+        for (Map.Entry<String, List<Version>> artifactVersions : versions.entrySet())
+        {
+            for (Platform platform : platforms)
+            {
+                for (Version version : artifactVersions.getValue())
                 {
-                    for (Version foundVersion : foundVersions)
-                    {
-                        String classifier = MavenJdkArtifact.makeClassifier(searchPlatform.getOperatingSystem(), searchPlatform.getArchitecture());
-                        Artifact searchArtifactWithClassifier = new DefaultArtifact(searchArtifact.getGroupId(), searchArtifact.getArtifactId(), classifier, searchArtifact.getExtension(), foundVersion.toString());
-                        MavenJdkArtifactMetadata mavenMetadata = readMavenJdkArtifactMetadata(searchArtifactWithClassifier, remoteRepositoriesToSearch);
-
-                        //Only include result release type (EA/GA) matches search request (if specified)
-                        if (searchRequest.getReleaseType() == null || searchRequest.getReleaseType().equals(mavenMetadata.getReleaseType()))
-                        {
-                            for (ArchiveType curArchiveType : mavenMetadata.getArchiveTypes())
-                            {
-                                MavenJdkArtifact curMavenJdkArtifact = new MavenJdkArtifact(mavenArtifactGroupId, artifactIdToSearch, foundVersion.toString(),
-                                        searchPlatform.getArchitecture(), searchPlatform.getOperatingSystem(), curArchiveType);
-                                matchingArtifacts.add(curMavenJdkArtifact);
-                            }
-                        }
-                    }
+                    String classifier = MavenJdkArtifact.makeClassifier(platform.getOperatingSystem(), platform.getArchitecture());
+                    Artifact searchArtifactWithClassifier = new DefaultArtifact(mavenArtifactGroupId, artifactVersions.getKey(), classifier, null, version.toString());
+                    metadataRequests.add(new ArtifactRequest(autoJdkMetadataArtifactForArchive(searchArtifactWithClassifier), remoteRepositoriesToSearch, null));
+                    results.add(new JdkVersionMetadata(artifactVersions.getKey(), platform, version.toString()));
                 }
             }
-            catch (VersionRangeResolutionException e)
+        }
+
+        //Metadata recently found to be missing is not requested again, searches would otherwise request it for every build
+        List<ArtifactRequest> requestsToResolve = new ArrayList<>();
+        List<Integer> resolvedIndexes = new ArrayList<>();
+        boolean useMissingMetadataCache = missingMetadataCache != null && !remoteRepositoriesToSearch.isEmpty();
+        for (int i = 0; i < metadataRequests.size(); i++)
+        {
+            ArtifactRequest metadataRequest = metadataRequests.get(i);
+            if (useMissingMetadataCache && missingMetadataCache.isKnownMissing(metadataRequest.getArtifact().toString()))
+                results.get(i).metadata = new MavenJdkArtifactMetadata(); //No archive types is like an empty result
+            else
             {
-                throw new JdkRepositoryException("Error performing version search in Maven repository: " + e.getMessage(), e);
+                requestsToResolve.add(metadataRequest);
+                resolvedIndexes.add(i);
             }
         }
 
-        return matchingArtifacts;
+        //Resolve all metadata in one go so Maven can download it in parallel reusing connections
+        List<ArtifactResult> metadataResults = resolveArtifacts(requestsToResolve);
+        for (int i = 0; i < metadataResults.size(); i++)
+        {
+            results.get(resolvedIndexes.get(i)).metadata = readMavenJdkArtifactMetadata(metadataResults.get(i));
+        }
+
+        if (useMissingMetadataCache)
+            updateMissingMetadataCache(metadataResults);
+
+        return results;
     }
 
-    private MavenJdkArtifactMetadata readMavenJdkArtifactMetadata(Artifact archiveArtifact, List<RemoteRepository> remoteRepositoriesToSearch)
+    /**
+     * Reads checksums of JDK archives published alongside them in the repository.
+     *
+     * @param artifacts the JDK archive artifacts.
+     * @param checksumType the type of checksum, which is also the extension of the checksum files, such as 'sha1'.
+     *
+     * @return the checksum of each artifact in order, with null for any that have no checksum.
+     */
+    List<String> readChecksums(List<? extends MavenJdkArtifact> artifacts, String checksumType)
     {
-        Artifact metadataArtifact = autoJdkMetadataArtifactForArchive(archiveArtifact);
-        ArtifactRequest metadataRequest = new ArtifactRequest(metadataArtifact, remoteRepositoriesToSearch, null);
+        List<ArtifactRequest> checksumRequests = new ArrayList<>(artifacts.size());
+        for (MavenJdkArtifact artifact : artifacts)
+        {
+            Artifact archiveArtifact = artifact.getArtifact();
+            Artifact checksumArtifact = new DefaultArtifact(archiveArtifact.getGroupId(), archiveArtifact.getArtifactId(), archiveArtifact.getClassifier(),
+                                                            archiveArtifact.getExtension() + "." + checksumType, archiveArtifact.getVersion());
+            checksumRequests.add(new ArtifactRequest(checksumArtifact, remoteRepositories, null));
+        }
+
+        List<ArtifactResult> checksumResults = resolveArtifacts(checksumRequests);
+        List<String> checksums = new ArrayList<>(checksumResults.size());
+        for (ArtifactResult checksumResult : checksumResults)
+        {
+            checksums.add(readChecksum(checksumResult));
+        }
+        return checksums;
+    }
+
+    private String readChecksum(ArtifactResult checksumResult)
+    {
+        if (!checksumResult.isResolved())
+            return null;
+
         try
         {
-            ArtifactResult metadataResult = repositorySystem.resolveArtifact(repositorySystemSession, metadataRequest);
-            return xmlManager.parseFile(metadataResult.getArtifact().getFile(), MavenJdkArtifactMetadata.class);
+            //Checksum files may have the file name after the checksum
+            String content = Files.readString(checksumResult.getArtifact().getFile().toPath(), StandardCharsets.US_ASCII).trim();
+            String[] tokens = content.split("\\s+", 2);
+            return tokens[0].isEmpty() ? null : tokens[0];
+        }
+        catch (IOException e)
+        {
+            log.warn("Error reading checksum " + checksumResult.getArtifact() + ": " + e.getMessage(), e);
+            return null;
+        }
+    }
+
+    /**
+     * @return the catalog index of this repository, or null if it does not have one.  The index is only read once.
+     */
+    private synchronized JdkCatalog catalogIndex()
+    {
+        if (!catalogIndexRead)
+        {
+            catalogIndex = readCatalogIndex();
+            catalogIndexRead = true;
+        }
+
+        return catalogIndex;
+    }
+
+    /**
+     * Reads the latest version of the catalog index published to the repository.
+     *
+     * @return the catalog index, or null if the repository does not have one or it could not be read.
+     */
+    JdkCatalog readCatalogIndex()
+    {
+        //Local-only repositories are only used for looking at what is in the local repository, which the index knows nothing about
+        if (remoteRepositories.isEmpty())
+            return null;
+
+        Artifact catalogIndexArtifact = new DefaultArtifact(mavenArtifactGroupId, CATALOG_INDEX_ARTIFACT_ID, CATALOG_INDEX_EXTENSION, "[0,)");
+        try
+        {
+            VersionRangeResult versionResult = repositorySystem.resolveVersionRange(repositorySystemSession, new VersionRangeRequest(catalogIndexArtifact, remoteRepositories, null));
+            Version latestVersion = versionResult.getHighestVersion();
+            if (latestVersion == null)
+            {
+                log.debug("No JDK catalog index in " + remoteRepositories + ", searching JDK artifacts individually");
+                return null;
+            }
+
+            ArtifactRequest catalogIndexRequest = new ArtifactRequest(catalogIndexArtifact.setVersion(latestVersion.toString()), remoteRepositories, null);
+            ArtifactResult catalogIndexResult = repositorySystem.resolveArtifact(repositorySystemSession, catalogIndexRequest);
+            JdkCatalog catalogIndex = xmlManager.parseFile(catalogIndexResult.getArtifact().getFile(), JdkCatalog.class);
+            if (catalogIndex.getFormatVersion() > JdkCatalog.CURRENT_FORMAT_VERSION)
+            {
+                log.warn("JDK catalog index " + catalogIndexResult.getArtifact() + " has unsupported format version " + catalogIndex.getFormatVersion() +
+                         ", searching JDK artifacts individually");
+                return null;
+            }
+
+            log.debug("Using JDK catalog index " + catalogIndexResult.getArtifact());
+            return catalogIndex;
+        }
+        catch (VersionRangeResolutionException | ArtifactResolutionException | AutoJdkXmlManager.XmlParseException e)
+        {
+            log.warn("Error reading JDK catalog index from " + remoteRepositories + ", searching JDK artifacts individually: " + e.getMessage(), e);
+            return null;
+        }
+    }
+
+    private Collection<? extends MavenJdkArtifact> searchCatalogIndex(JdkCatalog catalogIndex, JdkSearchRequest searchRequest)
+    throws JdkRepositoryException
+    {
+        List<String> artifactIdsToSearch = artifactIdsToSearch(searchRequest);
+        List<String> classifiersToSearch = searchPlatforms(searchRequest).stream()
+                                                                         .map(p -> MavenJdkArtifact.makeClassifier(p.getOperatingSystem(), p.getArchitecture()))
+                                                                         .collect(Collectors.toList());
+
+        List<CatalogIndexMatch> matches = new ArrayList<>();
+        for (JdkCatalog.Jdk jdk : catalogIndex.getJdks())
+        {
+            if (jdk.getVendor() == null || jdk.getVersion() == null || jdk.getOperatingSystem() == null || jdk.getArchitecture() == null ||
+                jdk.getArchiveType() == null)
+            {
+                log.debug("Skipping incomplete catalog index JDK " + jdk);
+                continue;
+            }
+
+            int artifactIdIndex = artifactIdsToSearch.indexOf(MavenJdkArtifact.vendorToArtifactId(jdk.getVendor()));
+            int classifierIndex = classifiersToSearch.indexOf(MavenJdkArtifact.makeClassifier(jdk.getOperatingSystem(), jdk.getArchitecture()));
+            if (artifactIdIndex < 0 || classifierIndex < 0)
+                continue;
+
+            //Only include result release type (EA/GA) matches search request (if specified)
+            if (searchRequest.getReleaseType() != null && !searchRequest.getReleaseType().equals(jdk.getReleaseType()))
+                continue;
+
+            DefaultArtifactVersion version = new DefaultArtifactVersion(jdk.getVersion());
+            if (!searchRequest.getVersionRange().containsVersion(version))
+                continue;
+
+            matches.add(new CatalogIndexMatch(jdk, artifactIdIndex, classifierIndex, version));
+        }
+
+        //Same order as searching the artifacts individually
+        matches.sort(Comparator.comparingInt((CatalogIndexMatch m) -> m.artifactIdIndex)
+                               .thenComparingInt(m -> m.classifierIndex)
+                               .thenComparing(m -> m.version)
+                               .thenComparing(m -> m.jdk.getArchiveType()));
+
+        List<MavenJdkArtifact> results = new ArrayList<>(matches.size());
+        for (CatalogIndexMatch match : matches)
+        {
+            results.add(new MavenJdkArtifact(mavenArtifactGroupId, MavenJdkArtifact.vendorToArtifactId(match.jdk.getVendor()), match.jdk.getVersion(),
+                                             match.jdk.getArchitecture(), match.jdk.getOperatingSystem(), match.jdk.getArchiveType()));
+        }
+        return results;
+    }
+
+    private List<ArtifactResult> resolveArtifacts(List<ArtifactRequest> requests)
+    {
+        if (requests.isEmpty())
+            return List.of();
+
+        try
+        {
+            return repositorySystem.resolveArtifacts(repositorySystemSession, requests);
         }
         catch (ArtifactResolutionException e)
+        {
+            //Thrown if anything could not be resolved, but results still have everything that was resolved
+            return e.getResults();
+        }
+    }
+
+    /**
+     * Records which metadata artifacts the remote repositories do not have.  Only artifacts that were definitely not found are recorded,
+     * not ones that failed to download for other reasons such as network errors.
+     */
+    private void updateMissingMetadataCache(Collection<ArtifactResult> metadataResults)
+    {
+        List<String> missingArtifactKeys = new ArrayList<>();
+        List<String> foundArtifactKeys = new ArrayList<>();
+        for (ArtifactResult metadataResult : metadataResults)
+        {
+            String artifactKey = metadataResult.getRequest().getArtifact().toString();
+            if (metadataResult.isResolved())
+                foundArtifactKeys.add(artifactKey);
+            else if (isNotFound(metadataResult))
+                missingArtifactKeys.add(artifactKey);
+        }
+
+        missingMetadataCache.update(missingArtifactKeys, foundArtifactKeys);
+    }
+
+    private static boolean isNotFound(ArtifactResult result)
+    {
+        return !result.getExceptions().isEmpty() && result.getExceptions().stream().allMatch(e -> e instanceof ArtifactNotFoundException);
+    }
+
+    private MavenJdkArtifactMetadata readMavenJdkArtifactMetadata(ArtifactResult metadataResult)
+    {
+        Artifact metadataArtifact = metadataResult.getRequest().getArtifact();
+        if (!metadataResult.isResolved())
         {
             //Could not find metadata, so just ignore this search result
-            //TODO probably should turn this down because it's reasonable that Maven found artifacts for different OS/architecture
-            log.warn("Could not find JDK metadata for " + metadataArtifact, e);
+            //Vendors don't publish every version for every platform, so metadata not existing is normal
+            if (isNotFound(metadataResult))
+                log.debug("No JDK metadata for " + metadataArtifact);
+            else
+            {
+                //Same error as resolving it on its own
+                ArtifactResolutionException e = new ArtifactResolutionException(List.of(metadataResult));
+                log.warn("Could not read JDK metadata for " + metadataArtifact + ": " + e.getMessage());
+                log.debug("Could not read JDK metadata for " + metadataArtifact, e);
+            }
 
             return new MavenJdkArtifactMetadata(); //No archive types is like an empty result
         }
+
+        try
+        {
+            return xmlManager.parseFile(metadataResult.getArtifact().getFile(), MavenJdkArtifactMetadata.class);
+        }
         catch (AutoJdkXmlManager.XmlParseException e)
         {
             log.warn("Error parsing JDK metadata for " + metadataArtifact, e);
@@ -273,4 +838,58 @@ public class MavenArtifactJdkArchiveRepository implements JdkArchiveRepository<M
 
         return purgedArchives;
     }
+
+    /**
+     * Metadata of a JDK version on a single platform.
+     */
+    static class JdkVersionMetadata
+    {
+        private final String artifactId;
+        private final Platform platform;
+        private final String version;
+        private MavenJdkArtifactMetadata metadata;
+
+        public JdkVersionMetadata(String artifactId, Platform platform, String version)
+        {
+            this.artifactId = artifactId;
+            this.platform = platform;
+            this.version = version;
+        }
+
+        public String getArtifactId()
+        {
+            return artifactId;
+        }
+
+        public Platform getPlatform()
+        {
+            return platform;
+        }
+
+        public String getVersion()
+        {
+            return version;
+        }
+
+        public MavenJdkArtifactMetadata getMetadata()
+        {
+            return metadata;
+        }
+    }
+
+    private static class CatalogIndexMatch
+    {
+        private final JdkCatalog.Jdk jdk;
+        private final int artifactIdIndex;
+        private final int classifierIndex;
+        private final ArtifactVersion version;
+
+        public CatalogIndexMatch(JdkCatalog.Jdk jdk, int artifactIdIndex, int classifierIndex, ArtifactVersion version)
+        {
+            this.jdk = jdk;
+            this.artifactIdIndex = artifactIdIndex;
+            this.classifierIndex = classifierIndex;
+            this.version = version;
+        }
+    }
 }
@@ -105,6 +105,14 @@ public class MavenJdkArtifact implements JdkArtifact
             return ReleaseType.GA;
     }
 
+    @Override
+    public String getArchiveId()
+    {
+        //Full coordinates including classifier and extension
+        return artifact.getGroupId() + ":" + artifact.getArtifactId() + ":" + artifact.getExtension() + ":" + artifact.getClassifier() + ":" +
+               artifact.getVersion();
+    }
+
     @Override
     public String toString()
     {
@@ -0,0 +1,286 @@
+package au.net.causal.maven.plugins.autojdk;
+
+import au.net.causal.maven.plugins.autojdk.xml.metadata.ArchiveType;
+import au.net.causal.maven.plugins.autojdk.xml.metadata.JdkCatalog;
+import au.net.causal.maven.plugins.autojdk.xml.metadata.ReleaseType;
+import eu.hansolo.jdktools.Architecture;
+import eu.hansolo.jdktools.OperatingSystem;
+import org.apache.maven.artifact.versioning.DefaultArtifactVersion;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.version.Version;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.xml.datatype.DatatypeFactory;
+import java.time.Clock;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.GregorianCalendar;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Generates a catalog index listing every JDK in a Maven JDK repository, so that searching the repository only needs to download the index.
+ * Generation is incremental: JDKs already in a previous index are taken from it rather than reading their metadata again.  Metadata is still
+ * read for platforms a previous index has no JDK for, since archives for more platforms can be published for an existing version.
+ */
+public class MavenJdkCatalogIndexer
+{
+    private static final Logger log = LoggerFactory.getLogger(MavenJdkCatalogIndexer.class);
+
+    /**
+     * Maven repositories always publish SHA-1 checksums alongside artifacts.
+     */
+    private static final String CHECKSUM_TYPE = "sha1";
+
+    private static final DateTimeFormatter INDEX_VERSION_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd.HHmmss");
+
+    private final MavenArtifactJdkArchiveRepository repository;
+    private final Clock clock;
+
+    /**
+     * @param repository the repository to index.
+     * @param clock clock used for the creation time of indexes.
+     */
+    public MavenJdkCatalogIndexer(MavenArtifactJdkArchiveRepository repository, Clock clock)
+    {
+        this.repository = Objects.requireNonNull(repository);
+        this.clock = Objects.requireNonNull(clock);
+    }
+
+    /**
+     * @return the repository's current catalog index, or null if it does not have one.
+     */
+    public JdkCatalog readCurrentIndex()
+    {
+        return repository.readCatalogIndex();
+    }
+
+    /**
+     * Generates a catalog index of all JDKs in the repository.
+     *
+     * @param previousIndex a previous index of the repository whose JDKs are reused if their versions are still in the repository, or null
+     *                      to read metadata of every JDK.  Platforms without JDKs in the previous index are always checked.
+     * @param includeChecksums if true, checksums of new JDK archives are read from the repository.  This is an additional request for each
+     *                         archive.
+     *
+     * @return the generated index.
+     *
+     * @throws JdkRepositoryException if an error occurs reading from the repository.
+     */
+    public JdkCatalog generateIndex(JdkCatalog previousIndex, boolean includeChecksums)
+    throws JdkRepositoryException
+    {
+        //Vendors only in the previous index are still checked so their JDKs are kept even if they are no longer well-known
+        Set<String> artifactIds = new LinkedHashSet<>(repository.allVendorArtifactIds());
+        Map<String, List<JdkCatalog.Jdk>> previousJdks = new HashMap<>();
+        if (previousIndex != null)
+        {
+            for (JdkCatalog.Jdk jdk : previousIndex.getJdks())
+            {
+                if (jdk.getVendor() == null || jdk.getVersion() == null)
+                    continue;
+
+                String artifactId = MavenJdkArtifact.vendorToArtifactId(jdk.getVendor());
+                artifactIds.add(artifactId);
+                previousJdks.computeIfAbsent(versionKey(artifactId, jdk.getVersion()), k -> new ArrayList<>()).add(jdk);
+            }
+        }
+
+        //Versions no longer in the repository are dropped, only platforms not already indexed for each version need their metadata read
+        //since archives for more platforms may be published for a version after it was indexed
+        Map<String, List<Version>> allVersions = repository.searchVersions(artifactIds, "[0,)");
+        List<JdkCatalog.Jdk> jdks = new ArrayList<>();
+        Map<Platform, Map<String, List<Version>>> unindexedVersionsByPlatform = new LinkedHashMap<>();
+        for (Map.Entry<String, List<Version>> artifactVersions : allVersions.entrySet())
+        {
+            for (Version version : artifactVersions.getValue())
+            {
+                List<JdkCatalog.Jdk> previousVersionJdks = previousJdks.getOrDefault(versionKey(artifactVersions.getKey(), version.toString()), List.of());
+                jdks.addAll(previousVersionJdks);
+
+                Set<String> indexedClassifiers = previousVersionJdks.stream()
+                                                                    .filter(jdk -> jdk.getOperatingSystem() != null && jdk.getArchitecture() != null)
+                                                                    .map(jdk -> MavenJdkArtifact.makeClassifier(jdk.getOperatingSystem(), jdk.getArchitecture()))
+                                                                    .collect(Collectors.toSet());
+                for (Platform platform : PlatformTools.WELL_KNOWN_PLATFORMS)
+                {
+                    if (!indexedClassifiers.contains(MavenJdkArtifact.makeClassifier(platform.getOperatingSystem(), platform.getArchitecture())))
+                    {
+                        unindexedVersionsByPlatform.computeIfAbsent(platform, k -> new LinkedHashMap<>())
+                                                   .computeIfAbsent(artifactVersions.getKey(), k -> new ArrayList<>())
+                                                   .add(version);
+                    }
+                }
+            }
+        }
+
+        int unindexedCount = unindexedVersionsByPlatform.values().stream().flatMap(versions -> versions.values().stream()).mapToInt(List::size).sum();
+        log.info("Reading metadata for " + unindexedCount + " JDK version platform(s) not in the previous index, reusing " + jdks.size() +
+                 " JDK(s) from the previous index");
+
+        List<MavenArtifactJdkArchiveRepository.JdkVersionMetadata> unindexedMetadata = new ArrayList<>();
+        for (Map.Entry<Platform, Map<String, List<Version>>> platformVersions : unindexedVersionsByPlatform.entrySet())
+        {
+            unindexedMetadata.addAll(repository.readMetadata(platformVersions.getValue(), List.of(platformVersions.getKey())));
+        }
+        jdks.addAll(readNewJdks(unindexedMetadata, includeChecksums));
+
+        return createIndex(jdks, artifactIds);
+    }
+
+    /**
+     * Adds JDKs that have just been deployed to the repository to an existing index, without reading anything from the repository.  Entries of
+     * the previous index for the same artifact IDs, versions and platforms are replaced.
+     *
+     * @param previousIndex the repository's current index.
+     * @param jdks the deployed JDKs.
+     *
+     * @return the updated index.
+     *
+     * @throws JdkRepositoryException if an error occurs reading the vendor list.
+     */
+    public JdkCatalog addJdks(JdkCatalog previousIndex, Collection<? extends MavenJdkMirrorSynchronizer.MirrorJdk<?>> jdks)
+    throws JdkRepositoryException
+    {
+        Set<String> addedKeys = new HashSet<>();
+        List<JdkCatalog.Jdk> addedJdks = new ArrayList<>();
+        for (MavenJdkMirrorSynchronizer.MirrorJdk<?> jdk : jdks)
+        {
+            Platform platform = jdk.getPlatform();
+            addedKeys.add(platformVersionKey(jdk.getArtifactId(), jdk.getVersion(), platform.getOperatingSystem(), platform.getArchitecture()));
+            for (ArchiveType archiveType : jdk.getArchiveTypes())
+            {
+                MavenJdkArtifact artifact = new MavenJdkArtifact(repository.getMavenArtifactGroupId(), jdk.getArtifactId(), jdk.getVersion(),
+                                                                 platform.getArchitecture(), platform.getOperatingSystem(), archiveType);
+                addedJdks.add(catalogJdk(artifact, jdk.getReleaseType()));
+            }
+        }
+
+        Set<String> artifactIds = new LinkedHashSet<>(repository.allVendorArtifactIds());
+        List<JdkCatalog.Jdk> allJdks = new ArrayList<>();
+        for (JdkCatalog.Jdk jdk : previousIndex.getJdks())
+        {
+            if (jdk.getVendor() == null || jdk.getVersion() == null || jdk.getOperatingSystem() == null || jdk.getArchitecture() == null)
+                continue;
+
+            String artifactId = MavenJdkArtifact.vendorToArtifactId(jdk.getVendor());
+            artifactIds.add(artifactId);
+            if (!addedKeys.contains(platformVersionKey(artifactId, jdk.getVersion(), jdk.getOperatingSystem(), jdk.getArchitecture())))
+                allJdks.add(jdk);
+        }
+        for (JdkCatalog.Jdk jdk : addedJdks)
+        {
+            artifactIds.add(jdk.getVendor());
+            allJdks.add(jdk);
+        }
+
+        return createIndex(allJdks, artifactIds);
+    }
+
+    private JdkCatalog createIndex(List<JdkCatalog.Jdk> jdks, Collection<String> artifactIds)
+    {
+        //Same order every time so indexes are easy to compare
+        List<String> artifactIdOrder = new ArrayList<>(artifactIds);
+        jdks.sort(Comparator.comparingInt((JdkCatalog.Jdk jdk) -> artifactIdOrder.indexOf(MavenJdkArtifact.vendorToArtifactId(jdk.getVendor())))
+                            .thenComparing(jdk -> jdk.getOperatingSystem().getApiString())
+                            .thenComparing(jdk -> jdk.getArchitecture().getApiString())
+                            .thenComparing(jdk -> new DefaultArtifactVersion(jdk.getVersion()))
+                            .thenComparing(JdkCatalog.Jdk::getArchiveType));
+
+        JdkCatalog index = new JdkCatalog();
+        index.setSource(repository.getRemoteRepositories().stream().map(RemoteRepository::getUrl).collect(Collectors.joining(" ")));
+        index.setCreated(DatatypeFactory.newDefaultInstance().newXMLGregorianCalendar(GregorianCalendar.from(ZonedDateTime.now(clock))));
+        index.setJdks(jdks);
+        return index;
+    }
+
+    /**
+     * @return a version for a new index, based on the current time so that the newest index is always the highest version.
+     */
+    public String newIndexVersion()
+    {
+        return INDEX_VERSION_FORMAT.format(ZonedDateTime.now(clock.withZone(ZoneOffset.UTC)));
+    }
+
+    private List<JdkCatalog.Jdk> readNewJdks(List<MavenArtifactJdkArchiveRepository.JdkVersionMetadata> newMetadata, boolean includeChecksums)
+    {
+        List<MavenJdkArtifact> artifacts = new ArrayList<>();
+        List<JdkCatalog.Jdk> jdks = new ArrayList<>();
+        for (MavenArtifactJdkArchiveRepository.JdkVersionMetadata versionMetadata : newMetadata)
+        {
+            for (ArchiveType archiveType : versionMetadata.getMetadata().getArchiveTypes())
+            {
+                Platform platform = versionMetadata.getPlatform();
+                MavenJdkArtifact artifact = new MavenJdkArtifact(repository.getMavenArtifactGroupId(), versionMetadata.getArtifactId(), versionMetadata.getVersion(),
+                                                                 platform.getArchitecture(), platform.getOperatingSystem(), archiveType);
+                artifacts.add(artifact);
+                jdks.add(catalogJdk(artifact, versionMetadata.getMetadata().getReleaseType()));
+            }
+        }
+
+        if (includeChecksums)
+        {
+            List<String> checksums = repository.readChecksums(artifacts, CHECKSUM_TYPE);
+            for (int i = 0; i < jdks.size(); i++)
+            {
+                String checksum = checksums.get(i);
+                if (checksum != null)
+                {
+                    jdks.get(i).setChecksum(checksum);
+                    jdks.get(i).setChecksumType(CHECKSUM_TYPE);
+                }
+            }
+        }
+
+        return jdks;
+    }
+
+    private static JdkCatalog.Jdk catalogJdk(MavenJdkArtifact artifact, ReleaseType releaseType)
+    {
+        JdkCatalog.Jdk jdk = new JdkCatalog.Jdk();
+        jdk.setId(artifact.getArtifact().toString());
+        jdk.setVendor(artifact.getArtifact().getArtifactId());
+        jdk.setVersion(artifact.getArtifact().getVersion());
+        jdk.setReleaseType(releaseType);
+        jdk.setOperatingSystem(artifact.getOperatingSystem());
+        jdk.setArchitecture(artifact.getArchitecture());
+        jdk.setArchiveType(artifact.getArchiveType());
+        jdk.setFileName(fileName(artifact.getArtifact()));
+        return jdk;
+    }
+
+    private static String versionKey(String artifactId, String version)
+    {
+        return artifactId + ":" + version;
+    }
+
+    private static String platformVersionKey(String artifactId, String version, OperatingSystem operatingSystem, Architecture architecture)
+    {
+        return versionKey(artifactId, version) + ":" + MavenJdkArtifact.makeClassifier(operatingSystem, architecture);
+    }
+
+    /**
+     * @return the file name of an artifact in a Maven repository.
+     */
+    private static String fileName(Artifact artifact)
+    {
+        StringBuilder buf = new StringBuilder(artifact.getArtifactId()).append('-').append(artifact.getVersion());
+        if (!artifact.getClassifier().isEmpty())
+            buf.append('-').append(artifact.getClassifier());
+
+        return buf.append('.').append(artifact.getExtension()).toString();
+    }
+}
@@ -0,0 +1,506 @@
+package au.net.causal.maven.plugins.autojdk;
+
+import au.net.causal.maven.plugins.autojdk.xml.metadata.ArchiveType;
+import au.net.causal.maven.plugins.autojdk.xml.metadata.JdkCatalog;
+import au.net.causal.maven.plugins.autojdk.xml.metadata.MavenJdkArtifactMetadata;
+import au.net.causal.maven.plugins.autojdk.xml.metadata.ReleaseType;
+import com.google.common.base.Throwables;
+import org.apache.maven.artifact.versioning.ArtifactVersion;
+import org.apache.maven.artifact.versioning.InvalidVersionSpecificationException;
+import org.apache.maven.artifact.versioning.VersionRange;
+import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.deployment.DeployRequest;
+import org.eclipse.aether.deployment.DeploymentException;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.version.Version;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+/**
+ * Copies JDK archives from other JDK repositories into a Maven JDK repository, along with the metadata that
+ * {@link MavenArtifactJdkArchiveRepository} needs to find them.
+ * <p>
+ *
+ * Only JDKs the target repository does not already have are copied.  A JDK's metadata is deployed after its archives, so a JDK only
+ * counts as mirrored once everything has been deployed.  Archives already in the target repository are not deployed again, so an
+ * interrupted synchronization can simply be run again.
+ */
+public class MavenJdkMirrorSynchronizer
+{
+    private static final Logger log = LoggerFactory.getLogger(MavenJdkMirrorSynchronizer.class);
+
+    /**
+     * Maven repositories always publish SHA-1 checksums alongside artifacts, so their presence shows an archive was deployed.
+     */
+    private static final String CHECKSUM_TYPE = "sha1";
+
+    private final RepositorySystem repositorySystem;
+    private final RepositorySystemSession repositorySystemSession;
+    private final MavenArtifactJdkArchiveRepository targetRepository;
+    private final AutoJdkXmlManager xmlManager;
+    private final ExceptionalSupplier<Path, IOException> tempDirectory;
+    private final ExecutorService executor;
+
+    /**
+     * @param repositorySystem Maven repository system.
+     * @param repositorySystemSession Maven repository session.
+     * @param targetRepository the Maven JDK repository to copy JDKs into.  It must have exactly one remote repository which is deployed to.
+     * @param xmlManager writes JDK metadata.
+     * @param tempDirectory directory where metadata files are written before being deployed.
+     * @param executor runs the copying of JDKs concurrently.
+     */
+    public MavenJdkMirrorSynchronizer(RepositorySystem repositorySystem, RepositorySystemSession repositorySystemSession,
+                                      MavenArtifactJdkArchiveRepository targetRepository, AutoJdkXmlManager xmlManager,
+                                      ExceptionalSupplier<Path, IOException> tempDirectory, ExecutorService executor)
+    {
+        if (targetRepository.getRemoteRepositories().size() != 1)
+            throw new IllegalArgumentException("Target repository must have a single remote repository: " + targetRepository.getRemoteRepositories());
+
+        this.repositorySystem = Objects.requireNonNull(repositorySystem);
+        this.repositorySystemSession = Objects.requireNonNull(repositorySystemSession);
+        this.targetRepository = targetRepository;
+        this.xmlManager = Objects.requireNonNull(xmlManager);
+        this.tempDirectory = Objects.requireNonNull(tempDirectory);
+        this.executor = Objects.requireNonNull(executor);
+    }
+
+    /**
+     * Works out which JDKs need to be copied to the target repository.
+     *
+     * @param sourceRepository repository to copy JDKs from.
+     * @param searchRequests searches for the JDKs to copy from the source repository.
+     * @param <A> source JDK artifact type.
+     *
+     * @return JDKs the target repository does not have, along with any of their archives it does not have.
+     *
+     * @throws JdkRepositoryException if an error occurs searching either repository.
+     */
+    public <A extends JdkArtifact> List<MirrorJdk<A>> planSync(JdkArchiveRepository<A> sourceRepository, Collection<? extends JdkSearchRequest> searchRequests)
+    throws JdkRepositoryException
+    {
+        //Group source archives by the metadata they share in a Maven repository
+        Map<String, MirrorJdk<A>> sourceJdks = new LinkedHashMap<>();
+        for (JdkSearchRequest searchRequest : searchRequests)
+        {
+            for (A sourceArtifact : listJdks(sourceRepository, searchRequest))
+            {
+                MavenJdkArtifact targetArtifact = new MavenJdkArtifact(targetRepository.getMavenArtifactGroupId(), sourceArtifact);
+                MirrorJdk<A> jdk = sourceJdks.computeIfAbsent(metadataKey(targetArtifact.getArtifact()),
+                                                              k -> new MirrorJdk<>(sourceRepository, targetArtifact.getArtifact().getArtifactId(),
+                                                                                   targetArtifact.getArtifact().getVersion(),
+                                                                                   new Platform(sourceArtifact.getOperatingSystem(), sourceArtifact.getArchitecture()),
+                                                                                   sourceArtifact.getReleaseType()));
+
+                //Several source repositories might have the same archive, any of them will do
+                if (jdk.getArchiveTypes().add(sourceArtifact.getArchiveType()))
+                    jdk.missingArchives.add(sourceArtifact);
+            }
+        }
+
+        if (sourceJdks.isEmpty())
+            return List.of();
+
+        //JDKs whose metadata is already in the target repository have been mirrored
+        Set<String> mirroredJdks = readTargetMetadataKeys(sourceJdks.values());
+        List<MirrorJdk<A>> jdksToMirror = new ArrayList<>();
+        for (Map.Entry<String, MirrorJdk<A>> sourceJdk : sourceJdks.entrySet())
+        {
+            if (mirroredJdks.contains(sourceJdk.getKey()))
+                log.debug("Target repository already has " + sourceJdk.getValue());
+            else
+                jdksToMirror.add(sourceJdk.getValue());
+        }
+
+        //Archives of a previous interrupted synchronization don't need to be deployed again
+        List<A> missingArchives = jdksToMirror.stream().flatMap(jdk -> jdk.missingArchives.stream()).collect(Collectors.toList());
+        List<MavenJdkArtifact> targetArchives = missingArchives.stream()
+                                                               .map(a -> new MavenJdkArtifact(targetRepository.getMavenArtifactGroupId(), a))
+                                                               .collect(Collectors.toList());
+        List<String> targetChecksums = targetRepository.readChecksums(targetArchives, CHECKSUM_TYPE);
+        Set<A> deployedArchives = new LinkedHashSet<>();
+        for (int i = 0; i < missingArchives.size(); i++)
+        {
+            if (targetChecksums.get(i) != null)
+                deployedArchives.add(missingArchives.get(i));
+        }
+        for (MirrorJdk<A> jdk : jdksToMirror)
+        {
+            jdk.missingArchives.removeAll(deployedArchives);
+        }
+
+        return jdksToMirror;
+    }
+
+    /**
+     * Lists every JDK in a repository that matches a search.
+     * <p>
+     *
+     * Repository searches are designed for selecting a JDK, so a search over a range covering several major versions might only return
+     * JDKs of the highest major version that has any match.  So after finding the highest major version, each lower major version in the
+     * range is searched on its own.  The searches are never {@linkplain JdkSearchRequest#isLatestOnly() limited to the latest JDKs}, so
+     * every matching version of each major version is listed, not just the most recent one of each vendor.
+     *
+     * @param sourceRepository repository to search.
+     * @param searchRequest the search.
+     * @param <A> JDK artifact type.
+     *
+     * @return all matching JDKs.
+     *
+     * @throws JdkRepositoryException if an error occurs searching the repository.
+     */
+    private <A extends JdkArtifact> List<A> listJdks(JdkArchiveRepository<A> sourceRepository, JdkSearchRequest searchRequest)
+    throws JdkRepositoryException
+    {
+        searchRequest = searchRequest.withLatestOnly(false).withPreferredVendorsOnly(false);
+        List<A> jdks = new ArrayList<>(sourceRepository.search(searchRequest));
+
+        //An exact version only ever has one major version
+        VersionRange versionRange = searchRequest.getVersionRange();
+        if (jdks.isEmpty() || !versionRange.hasRestrictions())
+            return jdks;
+
+        //Only the highest major version is known to be complete, lower ones might be missing or only partially found
+        int highestMajorVersion = jdks.stream().mapToInt(jdk -> jdk.getVersion().getMajorVersion()).max().getAsInt();
+        jdks.removeIf(jdk -> jdk.getVersion().getMajorVersion() != highestMajorVersion);
+
+        //Ranges are in ascending order so the first has the lowest bound, with no lower bound search from the first major version
+        ArtifactVersion lowerBound = versionRange.getRestrictions().get(0).getLowerBound();
+        int lowestMajorVersion = lowerBound == null ? 1 : lowerBound.getMajorVersion();
+        for (int majorVersion = highestMajorVersion - 1; majorVersion >= lowestMajorVersion; majorVersion--)
+        {
+            VersionRange majorVersionRange = versionRange.restrict(majorVersionRange(majorVersion));
+            if (!majorVersionRange.getRestrictions().isEmpty())
+                jdks.addAll(sourceRepository.search(searchRequest.withVersionRange(majorVersionRange)));
+        }
+
+        return jdks;
+    }
+
+    private static VersionRange majorVersionRange(int majorVersion)
+    {
+        try
+        {
+            return VersionRange.createFromVersionSpec("[" + majorVersion + "," + (majorVersion + 1) + ")");
+        }
+        catch (InvalidVersionSpecificationException e)
+        {
+            //Should not happen since we are constructing from integers
+            throw new RuntimeException(e);
+        }
+    }
+
+    private Set<String> readTargetMetadataKeys(Collection<? extends MirrorJdk<?>> jdks)
+    throws JdkRepositoryException
+    {
+        Map<String, Set<String>> sourceVersions = new LinkedHashMap<>();
+        Set<Platform> platforms = new LinkedHashSet<>();
+        for (MirrorJdk<?> jdk : jdks)
+        {
+            sourceVersions.computeIfAbsent(jdk.getArtifactId(), k -> new LinkedHashSet<>()).add(jdk.getVersion());
+            platforms.add(jdk.getPlatform());
+        }
+
+        //Only read metadata for versions that both repositories have
+        Map<String, List<Version>> targetVersions = targetRepository.searchVersions(sourceVersions.keySet(), "[0,)");
+        Map<String, List<Version>> sharedVersions = new HashMap<>();
+        for (Map.Entry<String, List<Version>> artifactVersions : targetVersions.entrySet())
+        {
+            Set<String> artifactSourceVersions = sourceVersions.get(artifactVersions.getKey());
+            List<Version> versions = artifactVersions.getValue().stream()
+                                                     .filter(version -> artifactSourceVersions.contains(version.toString()))
+                                                     .collect(Collectors.toList());
+            if (!versions.isEmpty())
+                sharedVersions.put(artifactVersions.getKey(), versions);
+        }
+
+        Set<String> metadataKeys = new LinkedHashSet<>();
+        for (MavenArtifactJdkArchiveRepository.JdkVersionMetadata versionMetadata : targetRepository.readMetadata(sharedVersions, List.copyOf(platforms)))
+        {
+            //Missing metadata has no archive types
+            if (!versionMetadata.getMetadata().getArchiveTypes().isEmpty())
+            {
+                Platform platform = versionMetadata.getPlatform();
+                metadataKeys.add(metadataKey(versionMetadata.getArtifactId(), versionMetadata.getVersion(),
+                                             MavenJdkArtifact.makeClassifier(platform.getOperatingSystem(), platform.getArchitecture())));
+            }
+        }
+        return metadataKeys;
+    }
+
+    /**
+     * Copies JDKs to the target repository.  All JDKs are attempted even if some fail, and those that were copied are
+     * {@linkplain MirrorJdk#isMirrored() marked as mirrored}.
+     * <p>
+     *
+     * Deploying any version of an artifact updates the artifact's shared {@code maven-metadata.xml} in the target repository, so JDKs of the
+     * same artifact are copied one at a time.  Different artifacts are copied concurrently.
+     *
+     * @param jdks JDKs to copy, from {@link #planSync(JdkArchiveRepository, Collection)}.
+     * @param <A> source JDK artifact type.
+     *
+     * @throws JdkRepositoryException if any JDK could not be copied.  JDKs that were copied successfully stay in the target repository.
+     */
+    public <A extends JdkArtifact> void sync(List<MirrorJdk<A>> jdks)
+    throws JdkRepositoryException
+    {
+        Map<String, List<MirrorJdk<A>>> artifactJdks = new LinkedHashMap<>();
+        for (MirrorJdk<A> jdk : jdks)
+        {
+            artifactJdks.computeIfAbsent(jdk.getArtifactId(), k -> new ArrayList<>()).add(jdk);
+        }
+
+        List<Future<List<Throwable>>> futures = new ArrayList<>(artifactJdks.size());
+        for (List<MirrorJdk<A>> jdksOfArtifact : artifactJdks.values())
+        {
+            futures.add(executor.submit(() -> mirrorJdks(jdksOfArtifact)));
+        }
+
+        List<Throwable> failures = new ArrayList<>();
+        for (Future<List<Throwable>> future : futures)
+        {
+            try
+            {
+                failures.addAll(future.get());
+            }
+            catch (ExecutionException e)
+            {
+                failures.add(e.getCause());
+            }
+            catch (InterruptedException e)
+            {
+                futures.forEach(f -> f.cancel(true));
+                Thread.currentThread().interrupt();
+                throw new JdkRepositoryException("Interrupted mirroring JDKs", e);
+            }
+        }
+
+        if (!failures.isEmpty())
+        {
+            JdkRepositoryException e = new JdkRepositoryException("Failed to mirror " + failures.size() + " of " + jdks.size() + " JDK(s): " +
+                                                                  Throwables.getRootCause(failures.get(0)).getMessage(), failures.get(0));
+            failures.stream().skip(1).forEach(e::addSuppressed);
+            throw e;
+        }
+    }
+
+    /**
+     * Copies JDKs one at a time, carrying on after failures.
+     *
+     * @return failures of JDKs that could not be copied.
+     */
+    private <A extends JdkArtifact> List<Throwable> mirrorJdks(List<MirrorJdk<A>> jdks)
+    {
+        List<Throwable> failures = new ArrayList<>();
+        for (MirrorJdk<A> jdk : jdks)
+        {
+            //Cancelled
+            if (Thread.currentThread().isInterrupted())
+                break;
+
+            try
+            {
+                mirrorJdk(jdk);
+                jdk.mirrored = true;
+            }
+            catch (Exception e)
+            {
+                log.warn("Failed to mirror " + jdk + ": " + e.getMessage());
+                log.debug("Failed to mirror " + jdk + ": " + e.getMessage(), e);
+                failures.add(e);
+            }
+        }
+        return failures;
+    }
+
+    private <A extends JdkArtifact> void mirrorJdk(MirrorJdk<A> jdk)
+    throws JdkRepositoryException, IOException, DeploymentException, AutoJdkXmlManager.XmlWriteException
+    {
+        RemoteRepository deploymentRepository = targetRepository.getRemoteRepositories().get(0);
+
+        for (A sourceArtifact : jdk.getMissingArchives())
+        {
+            log.info("Mirroring " + sourceArtifact);
+            JdkArchive<A> archive = jdk.getSourceRepository().resolveArchive(sourceArtifact);
+            try
+            {
+                Artifact targetArtifact = new MavenJdkArtifact(targetRepository.getMavenArtifactGroupId(), sourceArtifact).getArtifact()
+                                                                                                                        .setFile(archive.getFile().toFile());
+                //Checksums are generated and deployed along with the archive
+                repositorySystem.deploy(repositorySystemSession, new DeployRequest().setRepository(deploymentRepository).addArtifact(targetArtifact));
+            }
+            finally
+            {
+                jdk.getSourceRepository().cleanUpAfterArchiveUse(archive);
+            }
+        }
+
+        //Metadata last so the JDK is only found once all its archives are there
+        Path metadataFile = Files.createTempFile(tempDirectory.get(), jdk.getArtifactId() + "-" + jdk.getVersion(), "." + MavenArtifactJdkArchiveRepository.AUTOJDK_METADATA_EXTENSION);
+        try
+        {
+            xmlManager.writeFile(new MavenJdkArtifactMetadata(jdk.getArchiveTypes(), jdk.getReleaseType()), metadataFile);
+            Artifact metadataArtifact = new DefaultArtifact(targetRepository.getMavenArtifactGroupId(), jdk.getArtifactId(),
+                                                            MavenJdkArtifact.makeClassifier(jdk.getPlatform().getOperatingSystem(), jdk.getPlatform().getArchitecture()),
+                                                            MavenArtifactJdkArchiveRepository.AUTOJDK_METADATA_EXTENSION, jdk.getVersion())
+                                                .setFile(metadataFile.toFile());
+            repositorySystem.deploy(repositorySystemSession, new DeployRequest().setRepository(deploymentRepository).addArtifact(metadataArtifact));
+        }
+        finally
+        {
+            Files.deleteIfExists(metadataFile);
+        }
+    }
+
+    /**
+     * Deploys a catalog index to the target repository.
+     *
+     * @param index the index to deploy.
+     * @param version the version of the index, which should be higher than any existing index version.
+     *
+     * @throws JdkRepositoryException if an error occurs deploying the index.
+     */
+    public void deployCatalogIndex(JdkCatalog index, String version)
+    throws JdkRepositoryException
+    {
+        RemoteRepository deploymentRepository = targetRepository.getRemoteRepositories().get(0);
+        try
+        {
+            Path indexFile = Files.createTempFile(tempDirectory.get(), MavenArtifactJdkArchiveRepository.CATALOG_INDEX_ARTIFACT_ID + "-" + version,
+                                                  "." + MavenArtifactJdkArchiveRepository.CATALOG_INDEX_EXTENSION);
+            try
+            {
+                xmlManager.writeFile(index, indexFile);
+                Artifact indexArtifact = new DefaultArtifact(targetRepository.getMavenArtifactGroupId(), MavenArtifactJdkArchiveRepository.CATALOG_INDEX_ARTIFACT_ID,
+                                                             MavenArtifactJdkArchiveRepository.CATALOG_INDEX_EXTENSION, version)
+                                                 .setFile(indexFile.toFile());
+                repositorySystem.deploy(repositorySystemSession, new DeployRequest().setRepository(deploymentRepository).addArtifact(indexArtifact));
+            }
+            finally
+            {
+                Files.deleteIfExists(indexFile);
+            }
+        }
+        catch (IOException | AutoJdkXmlManager.XmlWriteException | DeploymentException e)
+        {
+            throw new JdkRepositoryException("Error deploying catalog index: " + e.getMessage(), e);
+        }
+    }
+
+    private static String metadataKey(Artifact artifact)
+    {
+        return metadataKey(artifact.getArtifactId(), artifact.getVersion(), artifact.getClassifier());
+    }
+
+    private static String metadataKey(String artifactId, String version, String classifier)
+    {
+        return artifactId + ":" + version + ":" + classifier;
+    }
+
+    /**
+     * A JDK version for a single platform that is copied to the target repository.  All its archives share the same metadata.
+     *
+     * @param <A> source JDK artifact type.
+     */
+    public static class MirrorJdk<A extends JdkArtifact>
+    {
+        private final JdkArchiveRepository<A> sourceRepository;
+        private final String artifactId;
+        private final String version;
+        private final Platform platform;
+        private final ReleaseType releaseType;
+        private final Set<ArchiveType> archiveTypes = new LinkedHashSet<>();
+        private final List<A> missingArchives = new ArrayList<>();
+        private volatile boolean mirrored;
+
+        MirrorJdk(JdkArchiveRepository<A> sourceRepository, String artifactId, String version, Platform platform, ReleaseType releaseType)
+        {
+            this.sourceRepository = Objects.requireNonNull(sourceRepository);
+            this.artifactId = Objects.requireNonNull(artifactId);
+            this.version = Objects.requireNonNull(version);
+            this.platform = Objects.requireNonNull(platform);
+            this.releaseType = releaseType;
+        }
+
+        public JdkArchiveRepository<A> getSourceRepository()
+        {
+            return sourceRepository;
+        }
+
+        public String getArtifactId()
+        {
+            return artifactId;
+        }
+
+        public String getVersion()
+        {
+            return version;
+        }
+
+        public Platform getPlatform()
+        {
+            return platform;
+        }
+
+        public ReleaseType getReleaseType()
+        {
+            return releaseType;
+        }
+
+        /**
+         * @return all archive types of the JDK, which are listed in its metadata.
+         */
+        public Set<ArchiveType> getArchiveTypes()
+        {
+            return archiveTypes;
+        }
+
+        /**
+         * @return source archives that are not yet in the target repository.
+         */
+        public List<A> getMissingArchives()
+        {
+            return missingArchives;
+        }
+
+        /**
+         * @return true if the JDK has been copied to the target repository.
+         */
+        public boolean isMirrored()
+        {
+            return mirrored;
+        }
+
+        @Override
+        public String toString()
+        {
+            return new StringJoiner(", ", MirrorJdk.class.getSimpleName() + "[", "]")
+                    .add("artifactId='" + artifactId + "'")
+                    .add("version='" + version + "'")
+                    .add("platform=" + platform)
+                    .add("archiveTypes=" + archiveTypes)
+                    .add("missingArchives=" + missingArchives.size())
+                    .toString();
+        }
+    }
+}
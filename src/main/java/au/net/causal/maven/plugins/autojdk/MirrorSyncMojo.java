@@ -0,0 +1,219 @@
+package au.net.causal.maven.plugins.autojdk;
+
+import au.net.causal.maven.plugins.autojdk.foojay.OfflineDistributionsVendorService;
+import au.net.causal.maven.plugins.autojdk.xml.config.AutoJdkConfiguration;
+import au.net.causal.maven.plugins.autojdk.xml.metadata.JdkCatalog;
+import org.apache.maven.artifact.versioning.InvalidVersionSpecificationException;
+import org.apache.maven.artifact.versioning.VersionRange;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.repository.RepositoryPolicy;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.Collectors;
+
+/**
+ * Copies JDKs from the configured JDK repositories, such as Foojay, into a Maven repository so they can be served from an internal repository
+ * manager.  Archives are deployed along with the JDK metadata that a {@code jdk-maven-repository} needs to find them.
+ * <p>
+ *
+ * Only JDKs that are not already in the target repository are copied, so running it again only copies new JDKs.  If a previous run was
+ * interrupted, archives it already deployed are not deployed again.  If the target repository has a catalog index, copied JDKs are added to
+ * it and a new version of the index is deployed.
+ */
+@Mojo(name="mirror-sync", requiresProject = false)
+public class MirrorSyncMojo extends AbstractAutoJdkMojo
+{
+    /**
+     * URL of the Maven repository JDKs are deployed to.
+     */
+    @Parameter(property = "autojdk.mirror.repositoryUrl", required = true)
+    private String repositoryUrl;
+
+    /**
+     * ID of the Maven repository, used for finding credentials in Maven settings.
+     */
+    @Parameter(property = "autojdk.mirror.repositoryId", defaultValue = "autojdk-jdks", required = true)
+    private String repositoryId;
+
+    /**
+     * The group ID JDK artifacts are deployed under.
+     */
+    @Parameter(property = "autojdk.mirror.jdkGroupId", required = true)
+    private String jdkGroupId;
+
+    /**
+     * Version ranges of JDKs to copy.  e.g. "[17,18)"  Every matching version is copied, not just the latest of each vendor, and a range
+     * covering several major versions such as "[17,)" copies all of them.
+     */
+    @Parameter(property = "autojdk.mirror.versions", required = true)
+    private List<String> mirrorVersions;
+
+    /**
+     * Vendors to copy JDKs for.  Defaults to all vendors.
+     */
+    @Parameter(property = "autojdk.mirror.vendors")
+    private List<String> mirrorVendors;
+
+    /**
+     * Platforms to copy JDKs for, each in the form 'os-architecture', e.g. 'linux-x64', 'macos-aarch64'.  Use a value of 'all' for all
+     * well-known platforms.  Defaults to the current platform.
+     */
+    @Parameter(property = "autojdk.mirror.platforms")
+    private List<String> mirrorPlatforms;
+
+    /**
+     * Number of JDKs downloaded and deployed at the same time.  JDKs of the same vendor are always copied one at a time, so this is at most
+     * the number of vendors being copied.
+     */
+    @Parameter(property = "autojdk.mirror.threads", defaultValue = "4", required = true)
+    private int threads;
+
+    /**
+     * If true, only lists the JDKs that would be copied.
+     */
+    @Parameter(property = "autojdk.mirror.dryRun", defaultValue = "false", required = true)
+    private boolean dryRun;
+
+    @Override
+    protected void executeImpl()
+    throws MojoExecutionException, MojoFailureException
+    {
+        if (session.isOffline())
+            throw new MojoExecutionException("Cannot mirror JDKs in offline mode");
+        if (threads < 1)
+            throw new MojoExecutionException("Number of threads must be at least 1: " + threads);
+
+        List<JdkSearchRequest> searchRequests = searchRequests();
+
+        super.executeImpl();
+
+        AutoJdkXmlManager xmlManager = new AutoJdkXmlManager();
+
+        //Always check the target repository, it's the whole point and previous runs may have cached that JDKs were not there
+        DefaultRepositorySystemSession mirrorSession = new DefaultRepositorySystemSession(getRepositorySystemSession());
+        mirrorSession.setUpdatePolicy(RepositoryPolicy.UPDATE_POLICY_ALWAYS);
+
+        AutoJdkConfiguration.JdkMavenRepository jdkRepository = new AutoJdkConfiguration.JdkMavenRepository();
+        jdkRepository.setId(repositoryId);
+        jdkRepository.setUrl(repositoryUrl);
+        jdkRepository.setJdkGroupId(jdkGroupId);
+
+        MavenArtifactJdkArchiveRepository targetRepository = new MavenArtifactJdkArchiveRepository(
+                getRepositorySystem(), mirrorSession, List.of(jdkRepository.jdkRemoteRepository(mirrorSession)),
+                jdkGroupId, new OfflineDistributionsVendorService(), xmlManager);
+
+        ExecutorService executor = DaemonExecutors.newFixedDaemonThreadPool("autojdk-mirror-%d", threads);
+        try
+        {
+            MavenJdkMirrorSynchronizer synchronizer = new MavenJdkMirrorSynchronizer(getRepositorySystem(), mirrorSession, targetRepository, xmlManager,
+                                                                                     this::tempDownloadDirectory, executor);
+
+            List<MavenJdkMirrorSynchronizer.MirrorJdk<CompositeJdkArchiveRepository.WrappedJdkArtifact<?>>> jdksToMirror =
+                    synchronizer.planSync(autoJdk().allRepositories(), searchRequests);
+
+            if (jdksToMirror.isEmpty())
+            {
+                getLog().info("All matching JDKs are already in " + repositoryUrl);
+                return;
+            }
+
+            int archiveCount = jdksToMirror.stream().mapToInt(jdk -> jdk.getMissingArchives().size()).sum();
+            getLog().info((dryRun ? "Would mirror " : "Mirroring ") + jdksToMirror.size() + " JDK(s) with " + archiveCount + " archive(s) to " + repositoryUrl);
+            for (MavenJdkMirrorSynchronizer.MirrorJdk<?> jdk : jdksToMirror)
+            {
+                getLog().info("  " + jdk.getArtifactId() + ":" + jdk.getVersion() + " " + jdk.getPlatform() + " " + jdk.getArchiveTypes());
+            }
+
+            if (dryRun)
+                return;
+
+            //JDKs that were mirrored are added to the index even if others failed, since later runs won't mirror them again
+            JdkRepositoryException syncFailure = null;
+            try
+            {
+                synchronizer.sync(jdksToMirror);
+                getLog().info("Mirrored " + jdksToMirror.size() + " JDK(s) to " + repositoryUrl);
+            }
+            catch (JdkRepositoryException e)
+            {
+                syncFailure = e;
+            }
+
+            updateCatalogIndex(synchronizer, targetRepository,
+                               jdksToMirror.stream().filter(MavenJdkMirrorSynchronizer.MirrorJdk::isMirrored).collect(Collectors.toList()));
+
+            if (syncFailure != null)
+                throw syncFailure;
+        }
+        catch (JdkRepositoryException e)
+        {
+            throw new MojoExecutionException("Error mirroring JDKs to " + repositoryUrl + ": " + e.getMessage(), e);
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Adds mirrored JDKs to the target repository's catalog index, if it has one, so searches using the index find them.
+     */
+    private void updateCatalogIndex(MavenJdkMirrorSynchronizer synchronizer, MavenArtifactJdkArchiveRepository targetRepository,
+                                    List<? extends MavenJdkMirrorSynchronizer.MirrorJdk<?>> mirroredJdks)
+    throws JdkRepositoryException
+    {
+        if (mirroredJdks.isEmpty())
+            return;
+
+        MavenJdkCatalogIndexer indexer = new MavenJdkCatalogIndexer(targetRepository, Clock.systemDefaultZone());
+        JdkCatalog previousIndex = indexer.readCurrentIndex();
+        if (previousIndex == null)
+            return;
+
+        JdkCatalog index = indexer.addJdks(previousIndex, mirroredJdks);
+        String version = indexer.newIndexVersion();
+        synchronizer.deployCatalogIndex(index, version);
+        getLog().info("Added " + mirroredJdks.size() + " JDK(s) to catalog index " + version + " of " + repositoryUrl);
+    }
+
+    private List<JdkSearchRequest> searchRequests()
+    throws MojoExecutionException
+    {
+        List<VersionRange> versionRanges = new ArrayList<>(mirrorVersions.size());
+        for (String mirrorVersion : mirrorVersions)
+        {
+            try
+            {
+                versionRanges.add(VersionRange.createFromVersionSpec(mirrorVersion));
+            }
+            catch (InvalidVersionSpecificationException e)
+            {
+                throw new MojoExecutionException("Invalid JDK version/range: " + mirrorVersion, e);
+            }
+        }
+
+        //Null vendor searches all vendors
+        List<String> vendors = mirrorVendors == null || mirrorVendors.isEmpty() ? Collections.singletonList(null) : mirrorVendors;
+
+        List<JdkSearchRequest> searchRequests = new ArrayList<>();
+        for (VersionRange versionRange : versionRanges)
+        {
+            for (Platform platform : parsePlatforms(mirrorPlatforms))
+            {
+                for (String vendor : vendors)
+                {
+                    searchRequests.add(new JdkSearchRequest(versionRange, platform.getArchitecture(), platform.getOperatingSystem(), vendor, getJdkReleaseType()));
+                }
+            }
+        }
+        return searchRequests;
+    }
+}
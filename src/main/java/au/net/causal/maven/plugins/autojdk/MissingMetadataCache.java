@@ -0,0 +1,185 @@
+package au.net.causal.maven.plugins.autojdk;
+
+import au.net.causal.maven.plugins.autojdk.xml.config.JdkUpdatePolicy;
+import com.google.common.hash.Hashing;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.StringJoiner;
+
+/**
+ * Remembers JDK metadata artifacts that a repository does not have, so they are not requested again on every build.  Most vendors do not
+ * publish JDKs for every platform, so most metadata requests of a wide search are for artifacts that do not exist.
+ * <p>
+ *
+ * Missing artifacts are remembered for as long as the JDK update policy would not check for new JDKs, so newly published JDKs are still
+ * found when an update check would find them.  They are never remembered for longer than {@linkplain #MAX_MISSING_AGE a day}, so policies
+ * that rarely or never check for updates, which only expect to keep using JDKs that were already found, still find archives that are published
+ * later.
+ * <p>
+ *
+ * Entries are stored in a small properties file per repository so that they are shared between Maven processes.  Files are written to a
+ * temporary file and then renamed atomically, so half-written files are never read.  Two processes writing at the same time may lose some
+ * entries, which only means those artifacts are requested again.
+ */
+public class MissingMetadataCache
+{
+    private static final Logger log = LoggerFactory.getLogger(MissingMetadataCache.class);
+
+    /**
+     * The longest time an artifact is remembered as missing regardless of update policy.  The same as Maven's default daily update interval.
+     */
+    static final Duration MAX_MISSING_AGE = Duration.ofDays(1L);
+
+    private final String repositoryName;
+    private final Path cacheFile;
+    private final JdkUpdatePolicy updatePolicy;
+    private final Clock clock;
+
+    /**
+     * Missing artifacts and the time they were found to be missing.
+     */
+    private Map<String, Instant> missing;
+
+    /**
+     * @param repositoryName a stable name for the repository, such as its URL.
+     * @param cacheDirectory directory where cache files are stored.
+     * @param updatePolicy JDK update policy that controls how long missing artifacts are remembered.
+     * @param clock clock for recording when artifacts were found to be missing.
+     */
+    public MissingMetadataCache(String repositoryName, Path cacheDirectory, JdkUpdatePolicy updatePolicy, Clock clock)
+    {
+        this.repositoryName = Objects.requireNonNull(repositoryName);
+        this.cacheFile = cacheDirectory.resolve(Hashing.sha256().hashString(repositoryName, StandardCharsets.UTF_8).toString() + ".properties");
+        this.updatePolicy = Objects.requireNonNull(updatePolicy);
+        this.clock = Objects.requireNonNull(clock);
+    }
+
+    /**
+     * @param artifactKey coordinates of the metadata artifact.
+     *
+     * @return true if the artifact was recently found to be missing from the repository and does not need to be requested.
+     */
+    public synchronized boolean isKnownMissing(String artifactKey)
+    {
+        if (missing == null)
+            missing = readEntries();
+
+        Instant missingSince = missing.get(artifactKey);
+        return missingSince != null && !isExpired(missingSince, Instant.now(clock));
+    }
+
+    private boolean isExpired(Instant missingSince, Instant now)
+    {
+        return updatePolicy.isUpdateCheckRequired(missingSince, now) || !now.isBefore(missingSince.plus(MAX_MISSING_AGE));
+    }
+
+    /**
+     * Records the results of requesting metadata artifacts from the repository.
+     *
+     * @param missingArtifactKeys coordinates of artifacts the repository does not have.
+     * @param foundArtifactKeys coordinates of artifacts the repository has, which might have previously been missing.
+     */
+    public synchronized void update(Collection<String> missingArtifactKeys, Collection<String> foundArtifactKeys)
+    {
+        //Nothing to write if nothing changed
+        if (missingArtifactKeys.isEmpty() && (missing == null || foundArtifactKeys.stream().noneMatch(missing::containsKey)))
+            return;
+
+        //Re-read so entries written by other processes are kept
+        Instant now = Instant.now(clock);
+        Map<String, Instant> entries = readEntries();
+        entries.values().removeIf(missingSince -> isExpired(missingSince, now));
+        foundArtifactKeys.forEach(entries::remove);
+        for (String missingArtifactKey : missingArtifactKeys)
+        {
+            entries.put(missingArtifactKey, now);
+        }
+
+        missing = entries;
+        writeEntries(entries);
+    }
+
+    private Map<String, Instant> readEntries()
+    {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(cacheFile, StandardCharsets.UTF_8))
+        {
+            properties.load(reader);
+        }
+        catch (NoSuchFileException e)
+        {
+            return new HashMap<>();
+        }
+        catch (IOException e)
+        {
+            //Can't read the cache, so everything is requested again
+            log.debug("Error reading missing metadata cache " + cacheFile + ": " + e.getMessage(), e);
+            return new HashMap<>();
+        }
+
+        Map<String, Instant> entries = new HashMap<>();
+        for (String artifactKey : properties.stringPropertyNames())
+        {
+            try
+            {
+                entries.put(artifactKey, Instant.parse(properties.getProperty(artifactKey)));
+            }
+            catch (DateTimeParseException e)
+            {
+                //Corrupt or written by something else
+                log.debug("Invalid missing metadata cache entry " + artifactKey + " in " + cacheFile + ": " + e.getMessage(), e);
+            }
+        }
+        return entries;
+    }
+
+    private void writeEntries(Map<String, Instant> entries)
+    {
+        Properties properties = new Properties();
+        entries.forEach((artifactKey, missingSince) -> properties.setProperty(artifactKey, missingSince.toString()));
+
+        try
+        {
+            Path cacheDirectory = cacheFile.getParent();
+            Files.createDirectories(cacheDirectory);
+            Path tempFile = Files.createTempFile(cacheDirectory, "missing", ".properties");
+            try (Writer writer = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8))
+            {
+                properties.store(writer, repositoryName);
+            }
+            Files.move(tempFile, cacheFile, StandardCopyOption.REPLACE_EXISTING);
+        }
+        catch (IOException e)
+        {
+            //Only means missing artifacts will be requested again
+            log.debug("Error writing missing metadata cache " + cacheFile + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return new StringJoiner(", ", MissingMetadataCache.class.getSimpleName() + "[", "]")
+                .add("repositoryName='" + repositoryName + "'")
+                .add("updatePolicy=" + updatePolicy)
+                .toString();
+    }
+}
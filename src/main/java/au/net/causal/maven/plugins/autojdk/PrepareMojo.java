@@ -1,47 +1,82 @@
 package au.net.causal.maven.plugins.autojdk;
 
+import au.net.causal.maven.plugins.autojdk.xml.config.AutoJdkConfiguration;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.toolchain.model.ToolchainModel;
 
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Mojo(name="prepare", defaultPhase = LifecyclePhase.VALIDATE)
 public class PrepareMojo extends AbstractProjectBasedAutoJdkMojo
 {
+    /**
+     * If true, remember the result of preparing a JDK and reuse it in later builds that request the same JDK with the same configuration,
+     * skipping the setup of JDK repositories and the scan of local JDKs.  Remembered results are discarded when the JDK update policy
+     * requires a new check, when the AutoJDK configuration changes or when local JDKs are installed or removed.
+     */
+    @Parameter(property = "autojdk.prepare.fastPath", defaultValue = "true")
+    private boolean fastPath;
+
+    /**
+     * How often cleanup of unused JDKs, as configured in the AutoJDK configuration, is performed.
+     */
+    private static final Duration JDK_CLEANUP_INTERVAL = Duration.ofDays(1);
+
     @Override
     protected void executeImpl()
     throws MojoExecutionException, MojoFailureException
     {
+        resolveRequiredJdk();
+
+        //Ensure we have an available JDK to work with
+        JdkSearchRequest jdkSearchRequest =  new JdkSearchRequest(getRequiredJdkVersionRange(),
+                                                                  platformTools.getCurrentArchitecture(),
+                                                                  platformTools.getCurrentOperatingSystem(),
+                                                                  getRequiredJdkVendor(),
+                                                                  getJdkReleaseType());
+
+        AutoJdkHome autoJdkHome = AutoJdkHome.defaultHome();
+        PrepareResultCache prepareResultCache = new PrepareResultCache(autoJdkHome.getPrepareCacheDirectory());
+
+        //When cleanup is due, go the slow way since cleanup needs the full configuration and engine
+        boolean jdkCleanupDue = isJdkCleanupDue(autoJdkHome);
+        if (fastPath && !jdkCleanupDue && prepareFromCache(prepareResultCache, jdkSearchRequest, autoJdkHome))
+            return;
+
         super.executeImpl();
 
+        if (jdkCleanupDue)
+            scheduleJdkCleanup(autoJdkHome);
+
         try
         {
-            //Ensure we have an available JDK to work with
-            JdkSearchRequest jdkSearchRequest =  new JdkSearchRequest(getRequiredJdkVersionRange(),
-                                                                      platformTools.getCurrentArchitecture(),
-                                                                      platformTools.getCurrentOperatingSystem(),
-                                                                      getRequiredJdkVendor(),
-                                                                      getJdkReleaseType());
             LocalJdk localJdk = autoJdk().prepareJdk(jdkSearchRequest);
 
             getLog().info("Prepared local JDK: " + localJdk.getJdkDirectory());
 
             List<? extends ToolchainModel> jdkToolchains = autoJdk().generateToolchainsFromLocalJdks(getJdkReleaseType());
-            getLog().info(jdkToolchains.size() + " toolchains made from local JDKs");
-            for (ToolchainModel jdkToolchain : jdkToolchains)
-            {
-                getLog().info("Registered JDK toolchain: " + jdkToolchain.getProvides());
-            }
-            Map<String, List<ToolchainModel>> toolchains = new HashMap<>();
-            toolchains.put("jdk", new ArrayList<>(jdkToolchains));
-            session.getRequest().setToolchains(toolchains);
+            registerToolchains(jdkToolchains);
+
+            if (fastPath)
+                saveToCache(prepareResultCache, jdkSearchRequest, autoJdkHome, localJdk, jdkToolchains);
         }
         catch (JdkNotFoundException e)
         {
@@ -60,4 +95,193 @@ public class PrepareMojo extends AbstractProjectBasedAutoJdkMojo
             throw new MojoExecutionException("I/O error preparing JDK: " + e, e);
         }
     }
+
+    private void registerToolchains(List<? extends ToolchainModel> jdkToolchains)
+    {
+        getLog().info(jdkToolchains.size() + " toolchains made from local JDKs");
+        for (ToolchainModel jdkToolchain : jdkToolchains)
+        {
+            getLog().info("Registered JDK toolchain: " + jdkToolchain.getProvides());
+        }
+        Map<String, List<ToolchainModel>> toolchains = new HashMap<>();
+        toolchains.put("jdk", new ArrayList<>(jdkToolchains));
+        session.getRequest().setToolchains(toolchains);
+    }
+
+    /**
+     * Everything that affects the outcome of a prepare, apart from the contents of included configuration files which are tracked separately.
+     * Local JDK installs and removals modify the JDK directory, so its stamp acts as a generation number for the set of installed JDKs.
+     */
+    private PrepareResultCache.Fingerprint fingerprint(JdkSearchRequest jdkSearchRequest, AutoJdkHome autoJdkHome)
+    throws IOException, MojoExecutionException
+    {
+        PrepareResultCache.Fingerprint fingerprint = new PrepareResultCache.Fingerprint()
+                .add("pluginVersion", getAutoJdkPluginVersion())
+                .add("versionRange", jdkSearchRequest.getVersionRange())
+                .add("vendor", jdkSearchRequest.getVendor())
+                .add("architecture", jdkSearchRequest.getArchitecture())
+                .add("operatingSystem", jdkSearchRequest.getOperatingSystem())
+                .add("releaseType", jdkSearchRequest.getReleaseType())
+                .add("versionTranslationScheme", getVersionTranslationScheme())
+                .add("updatePolicy", getUpdatePolicyOverride())
+                .add("configurationFile", getAutoJdkConfigurationFile().toAbsolutePath())
+                .add("configurationFileStamp", PrepareResultCache.fileStamp(getAutoJdkConfigurationFile()))
+                .add("jdksDirectory", autoJdkHome.getLocalJdksDirectory().toAbsolutePath())
+                .add("jdksDirectoryStamp", PrepareResultCache.fileStamp(autoJdkHome.getLocalJdksDirectory()))
+                .add("systemJdks", isUseSystemJdks());
+
+        for (Path sharedJdksDirectory : autoJdkHome.getSharedJdksDirectories())
+        {
+            fingerprint.add("sharedJdksDirectory", sharedJdksDirectory.toAbsolutePath())
+                       .add("sharedJdksDirectoryStamp", PrepareResultCache.fileStamp(sharedJdksDirectory));
+        }
+
+        if (isUseSystemJdks())
+        {
+            for (Path systemJdkLocation : getSystemJdkResolver().getSearchLocations())
+            {
+                fingerprint.add("systemJdkLocation", systemJdkLocation.toAbsolutePath())
+                           .add("systemJdkLocationStamp", PrepareResultCache.fileStamp(systemJdkLocation));
+            }
+        }
+
+        return fingerprint;
+    }
+
+    private boolean prepareFromCache(PrepareResultCache prepareResultCache, JdkSearchRequest jdkSearchRequest, AutoJdkHome autoJdkHome)
+    throws MojoExecutionException
+    {
+        PrepareResultCache.Result result;
+        try
+        {
+            result = prepareResultCache.lookup(fingerprint(jdkSearchRequest, autoJdkHome), Instant.now());
+        }
+        catch (IOException e)
+        {
+            getLog().warn("Failed to read cached prepare result, will prepare JDK normally: " + e);
+            getLog().debug("Failed to read cached prepare result: " + e, e);
+            return false;
+        }
+
+        if (result == null)
+            return false;
+
+        getLog().info("Prepared local JDK: " + result.getSelectedJdk() + " (up to date)");
+        registerToolchains(result.getToolchains());
+        recordJdkUsage(autoJdkHome, result.getSelectedJdk());
+        return true;
+    }
+
+    private void recordJdkUsage(AutoJdkHome autoJdkHome, Path jdkDirectory)
+    {
+        try
+        {
+            //Only touches a marker file, so a cache hit never needs any XML handling
+            AutoJdkInstalledJdkSystem.recordJdkUsage(autoJdkHome.getLocalJdksDirectory(), autoJdkHome.getJdkUsageDirectory(), jdkDirectory);
+        }
+        catch (IOException e)
+        {
+            getLog().warn("Failed to record usage of JDK " + jdkDirectory + ": " + e);
+            getLog().debug("Failed to record usage of JDK " + jdkDirectory + ": " + e, e);
+        }
+    }
+
+    private boolean isJdkCleanupDue(AutoJdkHome autoJdkHome)
+    {
+        try
+        {
+            Path markerFile = autoJdkHome.getJdkCleanupMarkerFile();
+            return Files.notExists(markerFile) ||
+                   Files.getLastModifiedTime(markerFile).toInstant().plus(JDK_CLEANUP_INTERVAL).isBefore(Instant.now());
+        }
+        catch (IOException e)
+        {
+            getLog().debug("Failed to read JDK cleanup marker: " + e, e);
+            return false;
+        }
+    }
+
+    /**
+     * Arranges for unused JDKs to be cleaned up after the build, if cleanup is configured.  Cleanup runs at most once per session.
+     */
+    private void scheduleJdkCleanup(AutoJdkHome autoJdkHome)
+    {
+        //Mark as done first so concurrent builds don't all try to clean up
+        try
+        {
+            Path markerFile = autoJdkHome.getJdkCleanupMarkerFile();
+            Files.createDirectories(markerFile.getParent());
+            if (Files.notExists(markerFile))
+                Files.createFile(markerFile);
+            Files.setLastModifiedTime(markerFile, FileTime.from(Instant.now()));
+        }
+        catch (IOException e)
+        {
+            getLog().debug("Failed to write JDK cleanup marker: " + e, e);
+        }
+
+        AutoJdkConfiguration.JdkCleanupPolicy cleanupPolicy = autoJdk().getAutoJdkConfiguration().getJdkCleanup();
+        if (cleanupPolicy == null || DelegatingExecutionListener.isRegistered(session.getRequest().getExecutionListener(), JdkCleanupExecutionListener.class))
+            return;
+
+        AutoJdk autoJdk = autoJdk();
+        Set<String> jdkGroupIds = autoJdk.getAutoJdkConfiguration().getJdkRepositories().stream()
+                                         .map(AutoJdkConfiguration.JdkRepository::localRepositoryJdkGroupId)
+                                         .filter(Objects::nonNull)
+                                         .collect(Collectors.toCollection(LinkedHashSet::new));
+        LocalRepositoryJdkArchives localRepositoryArchives = new LocalRepositoryJdkArchives(getRepositorySystemSession().getLocalRepository().getBasedir().toPath(),
+                                                                                            jdkGroupIds);
+        session.getRequest().setExecutionListener(new JdkCleanupExecutionListener(session.getRequest().getExecutionListener(), () ->
+        {
+            try
+            {
+                int removedCount = autoJdk.cleanUpLocalJdks(cleanupPolicy, localRepositoryArchives);
+                if (removedCount > 0)
+                    getLog().info("Cleaned up " + removedCount + " unused JDK(s)");
+            }
+            catch (LocalJdkResolutionException e)
+            {
+                getLog().warn("Failed to clean up unused JDKs: " + e);
+                getLog().debug("Failed to clean up unused JDKs: " + e, e);
+            }
+        }));
+    }
+
+    private void saveToCache(PrepareResultCache prepareResultCache, JdkSearchRequest jdkSearchRequest, AutoJdkHome autoJdkHome,
+                             LocalJdk localJdk, List<? extends ToolchainModel> jdkToolchains)
+    throws JdkSearchUpdateCheckException, MojoExecutionException
+    {
+        Instant validUntil = autoJdk().getSearchUpToDateUntil(jdkSearchRequest);
+
+        //Policy requires checking every time so nothing can be reused
+        if (validUntil == null)
+            return;
+
+        try
+        {
+            Map<Path, String> dependencies = new LinkedHashMap<>();
+            AutoJdkConfiguration.ConfigurationFileReader configurationFileReader = ResidentJdkRegistry.shared().configurationFileReader(new AutoJdkXmlManager());
+            Map<Path, AutoJdkConfiguration> configurationFiles = AutoJdkConfiguration.readAllConfigurationFiles(getAutoJdkConfigurationFile(), configurationFileReader);
+            for (Map.Entry<Path, AutoJdkConfiguration> configurationFile : configurationFiles.entrySet())
+            {
+                //Activations can depend on anything in the environment, so results from conditional configuration can't be reused
+                if (configurationFile.getValue() != null && configurationFile.getValue().getActivation() != null)
+                {
+                    getLog().debug("Not caching prepare result since configuration file " + configurationFile.getKey() + " uses activation");
+                    return;
+                }
+
+                dependencies.put(configurationFile.getKey().toAbsolutePath(), PrepareResultCache.fileStamp(configurationFile.getKey()));
+            }
+
+            prepareResultCache.store(fingerprint(jdkSearchRequest, autoJdkHome),
+                                     new PrepareResultCache.Result(localJdk.getJdkDirectory().toAbsolutePath(), jdkToolchains, validUntil, dependencies));
+        }
+        catch (IOException | AutoJdkXmlManager.XmlParseException e)
+        {
+            //Not critical, the next build will just need to do a full prepare
+            getLog().warn("Failed to save prepare result: " + e);
+            getLog().debug("Failed to save prepare result: " + e, e);
+        }
+    }
 }
@@ -0,0 +1,327 @@
+package au.net.causal.maven.plugins.autojdk;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import org.apache.maven.toolchain.model.ToolchainModel;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.StringJoiner;
+
+/**
+ * Remembers the outcome of the prepare goal - the selected JDK and the toolchains generated from local JDKs - so that a later build asking for
+ * exactly the same thing can skip building repositories, reading XML and scanning JDKs entirely.
+ * <p>
+ *
+ * Results are keyed by a {@linkplain Fingerprint fingerprint} of everything that goes into a prepare, and each result also records the
+ * configuration files it depended on and a time it is valid until (from the JDK update policy).  If any of these no longer hold, the result
+ * is not used.
+ * <p>
+ *
+ * Results are stored as small properties files that are written to a temporary file and then renamed atomically, so half-written
+ * files are never read.
+ */
+public class PrepareResultCache
+{
+    private static final String SELECTED_JDK = "selectedJdk";
+    private static final String VALID_UNTIL = "validUntil";
+    private static final String DEPENDENCY_PREFIX = "dependency.";
+    private static final String TOOLCHAIN_PREFIX = "toolchain.";
+    private static final String JDK_HOME = "jdkHome";
+    private static final String PROVIDES_PREFIX = "provides.";
+
+    private final Path cacheDirectory;
+
+    public PrepareResultCache(Path cacheDirectory)
+    {
+        this.cacheDirectory = Objects.requireNonNull(cacheDirectory);
+    }
+
+    /**
+     * Looks up a previously stored prepare result.
+     *
+     * @param fingerprint fingerprint of the prepare inputs.
+     * @param now the current time.
+     *
+     * @return the stored result, or null if there is none or it is no longer valid.
+     *
+     * @throws IOException if an error occurs reading the cache.
+     */
+    public Result lookup(Fingerprint fingerprint, Instant now)
+    throws IOException
+    {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(cacheFile(fingerprint), StandardCharsets.UTF_8))
+        {
+            properties.load(reader);
+        }
+        catch (NoSuchFileException e)
+        {
+            return null;
+        }
+
+        Result result = fromProperties(properties);
+
+        //Corrupt or written by something else
+        if (result == null)
+            return null;
+
+        //Update policy says it is time to check for newer JDKs
+        if (now.isAfter(result.getValidUntil()))
+            return null;
+
+        //Configuration has changed
+        for (Map.Entry<Path, String> dependency : result.getDependencies().entrySet())
+        {
+            if (!dependency.getValue().equals(fileStamp(dependency.getKey())))
+                return null;
+        }
+
+        //JDK was deleted out from under us
+        if (!Files.isDirectory(result.getSelectedJdk()))
+            return null;
+
+        return result;
+    }
+
+    /**
+     * Stores a prepare result, replacing any previous result with the same fingerprint.
+     *
+     * @param fingerprint fingerprint of the prepare inputs.
+     * @param result the result to store.
+     *
+     * @throws IOException if an error occurs writing the cache.
+     */
+    public void store(Fingerprint fingerprint, Result result)
+    throws IOException
+    {
+        Files.createDirectories(cacheDirectory);
+
+        Path tempFile = Files.createTempFile(cacheDirectory, "prepare", ".properties");
+        try (Writer writer = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8))
+        {
+            toProperties(result).store(writer, null);
+        }
+        Files.move(tempFile, cacheFile(fingerprint), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private Path cacheFile(Fingerprint fingerprint)
+    {
+        return cacheDirectory.resolve(fingerprint.getValue() + ".properties");
+    }
+
+    /**
+     * Generates a stamp for a file that changes whenever the file is created, deleted or modified.
+     *
+     * @param file the file.
+     *
+     * @return the stamp.
+     *
+     * @throws IOException if an error occurs reading file attributes.
+     */
+    public static String fileStamp(Path file)
+    throws IOException
+    {
+        if (Files.notExists(file))
+            return "missing";
+
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        return attributes.size() + ":" + attributes.lastModifiedTime().toMillis();
+    }
+
+    private static Properties toProperties(Result result)
+    {
+        Properties properties = new Properties();
+        properties.setProperty(SELECTED_JDK, result.getSelectedJdk().toString());
+        properties.setProperty(VALID_UNTIL, result.getValidUntil().toString());
+
+        int dependencyIndex = 0;
+        for (Map.Entry<Path, String> dependency : result.getDependencies().entrySet())
+        {
+            properties.setProperty(DEPENDENCY_PREFIX + dependencyIndex + ".path", dependency.getKey().toString());
+            properties.setProperty(DEPENDENCY_PREFIX + dependencyIndex + ".stamp", dependency.getValue());
+            dependencyIndex++;
+        }
+
+        int toolchainIndex = 0;
+        for (ToolchainModel toolchain : result.getToolchains())
+        {
+            String prefix = TOOLCHAIN_PREFIX + toolchainIndex + ".";
+            Xpp3Dom configuration = (Xpp3Dom)toolchain.getConfiguration();
+            properties.setProperty(prefix + JDK_HOME, configuration.getChild(JDK_HOME).getValue());
+            for (String key : toolchain.getProvides().stringPropertyNames())
+            {
+                properties.setProperty(prefix + PROVIDES_PREFIX + key, toolchain.getProvides().getProperty(key));
+            }
+            toolchainIndex++;
+        }
+
+        return properties;
+    }
+
+    private static Result fromProperties(Properties properties)
+    {
+        String selectedJdk = properties.getProperty(SELECTED_JDK);
+        String validUntil = properties.getProperty(VALID_UNTIL);
+        if (selectedJdk == null || validUntil == null)
+            return null;
+
+        Instant validUntilTime;
+        try
+        {
+            validUntilTime = Instant.parse(validUntil);
+        }
+        catch (DateTimeParseException e)
+        {
+            return null;
+        }
+
+        Map<Path, String> dependencies = new LinkedHashMap<>();
+        for (int i = 0; properties.containsKey(DEPENDENCY_PREFIX + i + ".path"); i++)
+        {
+            String stamp = properties.getProperty(DEPENDENCY_PREFIX + i + ".stamp");
+            if (stamp == null)
+                return null;
+
+            dependencies.put(Path.of(properties.getProperty(DEPENDENCY_PREFIX + i + ".path")), stamp);
+        }
+
+        List<ToolchainModel> toolchains = new ArrayList<>();
+        for (int i = 0; properties.containsKey(TOOLCHAIN_PREFIX + i + "." + JDK_HOME); i++)
+        {
+            String prefix = TOOLCHAIN_PREFIX + i + ".";
+            ToolchainModel tcm = new ToolchainModel();
+            tcm.setType("jdk");
+            for (String key : properties.stringPropertyNames())
+            {
+                if (key.startsWith(prefix + PROVIDES_PREFIX))
+                    tcm.addProvide(key.substring(prefix.length() + PROVIDES_PREFIX.length()), properties.getProperty(key));
+            }
+            Xpp3Dom conf = new Xpp3Dom("configuration");
+            Xpp3Dom jdkHomeElement = new Xpp3Dom(JDK_HOME);
+            jdkHomeElement.setValue(properties.getProperty(prefix + JDK_HOME));
+            conf.addChild(jdkHomeElement);
+            tcm.setConfiguration(conf);
+            toolchains.add(tcm);
+        }
+
+        return new Result(Path.of(selectedJdk), toolchains, validUntilTime, dependencies);
+    }
+
+    /**
+     * The stored outcome of a prepare.
+     */
+    public static class Result
+    {
+        private final Path selectedJdk;
+        private final List<ToolchainModel> toolchains;
+        private final Instant validUntil;
+        private final Map<Path, String> dependencies;
+
+        /**
+         * @param selectedJdk the directory of the JDK that was prepared.
+         * @param toolchains JDK toolchains that were generated from local JDKs.
+         * @param validUntil the result will not be used after this time.
+         * @param dependencies files the result depends on, mapped to their {@linkplain #fileStamp(Path) stamps} at the time of the prepare.
+         */
+        public Result(Path selectedJdk, List<? extends ToolchainModel> toolchains, Instant validUntil, Map<Path, String> dependencies)
+        {
+            this.selectedJdk = Objects.requireNonNull(selectedJdk);
+            this.toolchains = List.copyOf(toolchains);
+            this.validUntil = Objects.requireNonNull(validUntil);
+            this.dependencies = Map.copyOf(dependencies);
+        }
+
+        public Path getSelectedJdk()
+        {
+            return selectedJdk;
+        }
+
+        public List<ToolchainModel> getToolchains()
+        {
+            return toolchains;
+        }
+
+        public Instant getValidUntil()
+        {
+            return validUntil;
+        }
+
+        public Map<Path, String> getDependencies()
+        {
+            return dependencies;
+        }
+
+        @Override
+        public String toString()
+        {
+            return new StringJoiner(", ", Result.class.getSimpleName() + "[", "]")
+                    .add("selectedJdk=" + selectedJdk)
+                    .add("toolchains=" + toolchains.size())
+                    .add("validUntil=" + validUntil)
+                    .toString();
+        }
+    }
+
+    /**
+     * A hash of the inputs of a prepare.  Components are added in order, each with a name, and the same components always produce the same fingerprint.
+     */
+    public static class Fingerprint
+    {
+        private final Hasher hasher = Hashing.sha256().newHasher();
+        private String value;
+
+        /**
+         * Adds a component to the fingerprint.
+         *
+         * @param name the name of the component.
+         * @param componentValue the value of the component, may be null.
+         *
+         * @return this fingerprint.
+         */
+        public Fingerprint add(String name, Object componentValue)
+        {
+            if (value != null)
+                throw new IllegalStateException("Fingerprint value already computed");
+
+            hasher.putString(name, StandardCharsets.UTF_8);
+            hasher.putByte((byte)0);
+            hasher.putString(String.valueOf(componentValue), StandardCharsets.UTF_8);
+            hasher.putByte((byte)0);
+            return this;
+        }
+
+        /**
+         * @return the fingerprint as a hex string.  No more components may be added after this is called.
+         */
+        public String getValue()
+        {
+            if (value == null)
+                value = hasher.hash().toString();
+
+            return value;
+        }
+
+        @Override
+        public String toString()
+        {
+            return getValue();
+        }
+    }
+}
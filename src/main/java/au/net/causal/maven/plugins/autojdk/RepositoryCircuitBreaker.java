@@ -0,0 +1,259 @@
+package au.net.causal.maven.plugins.autojdk;
+
+import com.google.common.hash.Hashing;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.StringJoiner;
+
+/**
+ * Tracks failures talking to a remote repository so that a repository that is down can be skipped instead of every build waiting for it to
+ * time out.
+ * <p>
+ *
+ * After a number of consecutive failures the circuit is opened and requests are not allowed for a while.  Once that time has passed, a single
+ * probe request is allowed through (the circuit is half-open).  If the probe succeeds the circuit is closed again, otherwise it is re-opened.
+ * <p>
+ *
+ * State is stored in a small properties file per repository so that it is shared between Maven processes.  Files are written to a temporary
+ * file and then renamed atomically, so half-written files are never read.  Two processes may occasionally both decide to probe at the same time
+ * or lose a failure count, which only means a little more or less waiting than ideal.
+ */
+public class RepositoryCircuitBreaker
+{
+    private static final Logger log = LoggerFactory.getLogger(RepositoryCircuitBreaker.class);
+
+    private static final String REPOSITORY = "repository";
+    private static final String CONSECUTIVE_FAILURES = "consecutiveFailures";
+    private static final String OPENED_AT = "openedAt";
+    private static final String PROBE_STARTED_AT = "probeStartedAt";
+
+    /**
+     * Default number of consecutive failures that open the circuit.
+     */
+    public static final int DEFAULT_FAILURE_THRESHOLD = 3;
+
+    /**
+     * Default time the circuit stays open before a probe is allowed.
+     */
+    public static final Duration DEFAULT_OPEN_DURATION = Duration.ofMinutes(10);
+
+    private final String repositoryName;
+    private final Path stateFile;
+    private final int failureThreshold;
+    private final Duration openDuration;
+    private final Clock clock;
+
+    /**
+     * Creates a circuit breaker with default settings.
+     *
+     * @param repositoryName a stable name for the repository, such as its URL.
+     * @param stateDirectory directory where circuit breaker state is stored.
+     * @param clock clock for measuring how long circuits are open.
+     */
+    public RepositoryCircuitBreaker(String repositoryName, Path stateDirectory, Clock clock)
+    {
+        this(repositoryName, stateDirectory, DEFAULT_FAILURE_THRESHOLD, DEFAULT_OPEN_DURATION, clock);
+    }
+
+    /**
+     * @param repositoryName a stable name for the repository, such as its URL.
+     * @param stateDirectory directory where circuit breaker state is stored.
+     * @param failureThreshold number of consecutive failures that open the circuit.
+     * @param openDuration how long the circuit stays open before a probe is allowed.  Probes that have not finished after this time are
+     *                     assumed to have been abandoned, and another probe is allowed.
+     * @param clock clock for measuring how long circuits are open.
+     */
+    public RepositoryCircuitBreaker(String repositoryName, Path stateDirectory, int failureThreshold, Duration openDuration, Clock clock)
+    {
+        if (failureThreshold < 1)
+            throw new IllegalArgumentException("Failure threshold must be at least 1: " + failureThreshold);
+
+        this.repositoryName = Objects.requireNonNull(repositoryName);
+        this.stateFile = stateDirectory.resolve(Hashing.sha256().hashString(repositoryName, StandardCharsets.UTF_8).toString() + ".properties");
+        this.failureThreshold = failureThreshold;
+        this.openDuration = Objects.requireNonNull(openDuration);
+        this.clock = Objects.requireNonNull(clock);
+    }
+
+    public String getRepositoryName()
+    {
+        return repositoryName;
+    }
+
+    /**
+     * Determines whether a request may be made to the repository.  If the circuit is half-open, calling this claims the probe, so the caller
+     * must follow up with {@link #recordSuccess()} or {@link #recordFailure(Exception)}.
+     *
+     * @return true if a request may be made, false if the repository should be skipped.
+     */
+    public synchronized boolean allowRequest()
+    {
+        State state = readState();
+
+        //Closed
+        if (state.openedAt == null)
+            return true;
+
+        Instant now = Instant.now(clock);
+        if (now.isBefore(state.openedAt.plus(openDuration)))
+            return false;
+
+        //Half-open, someone else is already probing
+        if (state.probeStartedAt != null && now.isBefore(state.probeStartedAt.plus(openDuration)))
+            return false;
+
+        state.probeStartedAt = now;
+        writeState(state);
+        log.debug("Probing repository " + repositoryName + " after it previously failed");
+        return true;
+    }
+
+    /**
+     * @return the time after which the repository may be probed again, or null if the circuit is not open.
+     */
+    public synchronized Instant getOpenUntil()
+    {
+        State state = readState();
+        if (state.openedAt == null)
+            return null;
+
+        return state.openedAt.plus(openDuration);
+    }
+
+    /**
+     * Records a successful request, closing the circuit.
+     */
+    public synchronized void recordSuccess()
+    {
+        try
+        {
+            if (Files.deleteIfExists(stateFile))
+                log.debug("Repository " + repositoryName + " is working again");
+        }
+        catch (IOException e)
+        {
+            log.debug("Error deleting circuit breaker state " + stateFile + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Records a failed request.  Enough consecutive failures, or a failed probe, opens the circuit.
+     *
+     * @param failure the failure.
+     */
+    public synchronized void recordFailure(Exception failure)
+    {
+        State state = readState();
+        state.consecutiveFailures++;
+
+        if (state.openedAt != null || state.consecutiveFailures >= failureThreshold)
+        {
+            state.openedAt = Instant.now(clock);
+            state.probeStartedAt = null;
+            log.warn("Repository " + repositoryName + " failed " + state.consecutiveFailures + " time(s) in a row, skipping it until " +
+                     state.openedAt.plus(openDuration) + ": " + failure.getMessage());
+        }
+
+        writeState(state);
+    }
+
+    private State readState()
+    {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(stateFile, StandardCharsets.UTF_8))
+        {
+            properties.load(reader);
+        }
+        catch (NoSuchFileException e)
+        {
+            return new State();
+        }
+        catch (IOException e)
+        {
+            //Can't read state, so behave as if everything is fine
+            log.debug("Error reading circuit breaker state " + stateFile + ": " + e.getMessage(), e);
+            return new State();
+        }
+
+        State state = new State();
+        try
+        {
+            state.consecutiveFailures = Integer.parseInt(properties.getProperty(CONSECUTIVE_FAILURES, "0"));
+            state.openedAt = parseInstant(properties.getProperty(OPENED_AT));
+            state.probeStartedAt = parseInstant(properties.getProperty(PROBE_STARTED_AT));
+        }
+        catch (NumberFormatException | DateTimeParseException e)
+        {
+            //Corrupt or written by something else
+            log.debug("Invalid circuit breaker state " + stateFile + ": " + e.getMessage(), e);
+            return new State();
+        }
+
+        return state;
+    }
+
+    private static Instant parseInstant(String value)
+    {
+        return value == null ? null : Instant.parse(value);
+    }
+
+    private void writeState(State state)
+    {
+        Properties properties = new Properties();
+        properties.setProperty(REPOSITORY, repositoryName);
+        properties.setProperty(CONSECUTIVE_FAILURES, String.valueOf(state.consecutiveFailures));
+        if (state.openedAt != null)
+            properties.setProperty(OPENED_AT, state.openedAt.toString());
+        if (state.probeStartedAt != null)
+            properties.setProperty(PROBE_STARTED_AT, state.probeStartedAt.toString());
+
+        try
+        {
+            Path stateDirectory = stateFile.getParent();
+            Files.createDirectories(stateDirectory);
+            Path tempFile = Files.createTempFile(stateDirectory, "circuit", ".properties");
+            try (Writer writer = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8))
+            {
+                properties.store(writer, null);
+            }
+            Files.move(tempFile, stateFile, StandardCopyOption.REPLACE_EXISTING);
+        }
+        catch (IOException e)
+        {
+            //Only means the repository might be tried again sooner than it should be
+            log.debug("Error writing circuit breaker state " + stateFile + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return new StringJoiner(", ", RepositoryCircuitBreaker.class.getSimpleName() + "[", "]")
+                .add("repositoryName='" + repositoryName + "'")
+                .add("failureThreshold=" + failureThreshold)
+                .add("openDuration=" + openDuration)
+                .toString();
+    }
+
+    private static class State
+    {
+        private int consecutiveFailures;
+        private Instant openedAt;
+        private Instant probeStartedAt;
+    }
+}
@@ -0,0 +1,276 @@
+package au.net.causal.maven.plugins.autojdk;
+
+import au.net.causal.maven.plugins.autojdk.xml.config.AutoJdkConfiguration;
+import au.net.causal.maven.plugins.autojdk.xml.metadata.LocalJdkMetadata;
+import au.net.causal.maven.plugins.autojdk.xml.metadata.ReleaseType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps installed JDKs and parsed configuration files in memory for as long as the JVM is running, so that long-lived Maven processes such as
+ * the Maven daemon or an IDE's embedded Maven do not need to scan the JDK directory or parse configuration on every build.
+ * <p>
+ *
+ * Cached values are invalidated when a {@link java.nio.file.WatchService} reports that the files they were read from have changed.  Reads of
+ * values that are still valid do not touch the filesystem or take any locks.  If file watching is not available, nothing is cached and every
+ * read goes to the filesystem.
+ */
+public class ResidentJdkRegistry
+{
+    private static final Logger log = LoggerFactory.getLogger(ResidentJdkRegistry.class);
+
+    private static volatile ResidentJdkRegistry shared;
+
+    private final FileChangeWatcher watcher;
+
+    private final Map<Path, Snapshot<List<AutoJdkInstalledJdkSystem.AutoJdkInstallation>>> installedJdks = new ConcurrentHashMap<>();
+    private final Map<Path, Snapshot<AutoJdkConfiguration>> configurationFiles = new ConcurrentHashMap<>();
+    private final Map<List<Path>, SystemJdkResolver> systemJdkResolvers = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a registry.
+     *
+     * @param watcher watches files for changes.  If null, nothing is cached.
+     */
+    ResidentJdkRegistry(FileChangeWatcher watcher)
+    {
+        this.watcher = watcher;
+    }
+
+    /**
+     * @return the registry shared by everything in this JVM.
+     */
+    public static ResidentJdkRegistry shared()
+    {
+        ResidentJdkRegistry registry = shared;
+        if (registry != null)
+            return registry;
+
+        synchronized (ResidentJdkRegistry.class)
+        {
+            if (shared == null)
+                shared = new ResidentJdkRegistry(createDefaultWatcher());
+
+            return shared;
+        }
+    }
+
+    private static FileChangeWatcher createDefaultWatcher()
+    {
+        try
+        {
+            return new FileChangeWatcher(FileSystems.getDefault().newWatchService());
+        }
+        catch (IOException | UnsupportedOperationException e)
+        {
+            log.warn("File watching is not available, installed JDKs and configuration will not be cached: " + e.getMessage());
+            log.debug("File watching is not available, installed JDKs and configuration will not be cached: " + e.getMessage(), e);
+            return null;
+        }
+    }
+
+    /**
+     * Creates a JDK system for JDKs installed by AutoJDK whose installed JDKs are cached by this registry.
+     *
+     * @param autoJdkInstallationDirectory the directory AutoJDK installs JDKs into.
+     * @param xmlManager XML manager for reading and writing JDK metadata.
+     *
+     * @return the JDK system.
+     */
+    public InstalledJdkSystem installedJdkSystem(Path autoJdkInstallationDirectory, AutoJdkXmlManager xmlManager)
+    {
+        return installedJdkSystem(autoJdkInstallationDirectory, null, xmlManager);
+    }
+
+    /**
+     * Creates a JDK system for JDKs installed by AutoJDK whose installed JDKs are cached by this registry.
+     *
+     * @param autoJdkInstallationDirectory the directory AutoJDK installs JDKs into.
+     * @param jdkUsageDirectory the directory JDK usage is recorded in, or null to not track usage.
+     * @param xmlManager XML manager for reading and writing JDK metadata.
+     *
+     * @return the JDK system.
+     */
+    public InstalledJdkSystem installedJdkSystem(Path autoJdkInstallationDirectory, Path jdkUsageDirectory, AutoJdkXmlManager xmlManager)
+    {
+        return new InstalledJdkSystem(autoJdkInstallationDirectory, new AutoJdkInstalledJdkSystem(autoJdkInstallationDirectory, jdkUsageDirectory, xmlManager));
+    }
+
+    /**
+     * Returns a resolver for JDKs installed on the system outside of AutoJDK in the default locations.  One resolver is shared for each set of
+     * search locations, so the JDKs it has already probed are only read again when the directory they are in is modified.  This does not
+     * rely on file watching, so resolvers are shared even when nothing else is cached.
+     *
+     * @param userHome the user's home directory.
+     * @param toolchainsFile the user's Maven toolchains file.  May be null.
+     *
+     * @return the shared resolver.
+     *
+     * @see SystemJdkResolver#withDefaultLocations(Path, Path)
+     */
+    public SystemJdkResolver systemJdkResolver(Path userHome, Path toolchainsFile)
+    {
+        SystemJdkResolver resolver = SystemJdkResolver.withDefaultLocations(userHome, toolchainsFile);
+        return systemJdkResolvers.computeIfAbsent(resolver.getSearchLocations(), locations -> resolver);
+    }
+
+    /**
+     * Creates a reader for configuration files whose results are cached by this registry.
+     *
+     * @param xmlManager XML manager for parsing configuration files.
+     *
+     * @return the configuration file reader.
+     */
+    public AutoJdkConfiguration.ConfigurationFileReader configurationFileReader(AutoJdkXmlManager xmlManager)
+    {
+        Objects.requireNonNull(xmlManager);
+        return file -> cached(configurationFiles, file.toAbsolutePath(), () -> watcher.watchFile(file),
+                              () -> xmlManager.parseFile(file, AutoJdkConfiguration.class));
+    }
+
+    /**
+     * Returns a cached value if nothing it was read from has changed, otherwise loads it and caches it.
+     *
+     * @param cache the cache holding the value.
+     * @param key key of the value in the cache.
+     * @param watchRegistration registers watches for all files the value is read from, returning false if they can't all be watched.
+     * @param loader loads the value from the filesystem.
+     */
+    private <T, E extends Exception> T cached(Map<Path, Snapshot<T>> cache, Path key, ExceptionalSupplier<Boolean, IOException> watchRegistration,
+                                              ExceptionalSupplier<T, E> loader)
+    throws E
+    {
+        if (watcher == null)
+            return loader.get();
+
+        long generation = watcher.currentGeneration();
+        Snapshot<T> snapshot = cache.get(key);
+        if (snapshot != null && snapshot.generation == generation)
+            return snapshot.value;
+
+        //Watch before loading so that any change made while loading invalidates what was loaded
+        boolean watched;
+        try
+        {
+            watched = watchRegistration.get();
+        }
+        catch (IOException e)
+        {
+            log.debug("Failed to watch " + key + " for changes: " + e.getMessage(), e);
+            watched = false;
+        }
+
+        T value = loader.get();
+
+        //Without a watch there's no way of knowing when the value becomes stale
+        if (watched)
+            cache.put(key, new Snapshot<>(generation, value));
+        else
+            cache.remove(key);
+
+        return value;
+    }
+
+    private void invalidate()
+    {
+        if (watcher != null)
+            watcher.invalidate();
+    }
+
+    private static class Snapshot<T>
+    {
+        private final long generation;
+        private final T value;
+
+        public Snapshot(long generation, T value)
+        {
+            this.generation = generation;
+            this.value = value;
+        }
+    }
+
+    /**
+     * JDKs installed by AutoJDK, cached by the registry.  Installing or deleting JDKs through this system takes effect immediately.
+     */
+    public class InstalledJdkSystem implements LocalJdkResolver, JdkInstallationTarget
+    {
+        private final Path autoJdkInstallationDirectory;
+        private final AutoJdkInstalledJdkSystem delegate;
+
+        private InstalledJdkSystem(Path autoJdkInstallationDirectory, AutoJdkInstalledJdkSystem delegate)
+        {
+            this.autoJdkInstallationDirectory = autoJdkInstallationDirectory.toAbsolutePath();
+            this.delegate = Objects.requireNonNull(delegate);
+        }
+
+        @Override
+        public Collection<? extends AutoJdkInstalledJdkSystem.AutoJdkInstallation> getInstalledJdks(ReleaseType releaseType)
+        throws LocalJdkResolutionException
+        {
+            List<AutoJdkInstalledJdkSystem.AutoJdkInstallation> allJdks =
+                    cached(installedJdks, autoJdkInstallationDirectory, () -> watcher.watchDirectoryContents(autoJdkInstallationDirectory),
+                           () -> List.copyOf(delegate.getInstalledJdks(null)));
+
+            if (releaseType == null)
+                return allJdks;
+
+            return allJdks.stream()
+                          .filter(jdk -> releaseType.equals(jdk.getReleaseType()))
+                          .collect(Collectors.toList());
+        }
+
+        @Override
+        public Path installJdkFromArchive(Path jdkArchive, LocalJdkMetadata metadata)
+        throws IOException
+        {
+            try
+            {
+                return delegate.installJdkFromArchive(jdkArchive, metadata);
+            }
+            finally
+            {
+                //Watch events might not arrive immediately
+                invalidate();
+            }
+        }
+
+        @Override
+        public void deleteJdk(Path jdkDirectory)
+        throws IOException
+        {
+            try
+            {
+                delegate.deleteJdk(jdkDirectory);
+            }
+            finally
+            {
+                invalidate();
+            }
+        }
+
+        @Override
+        public void recordJdkUsage(Path jdkDirectory)
+        throws IOException
+        {
+            delegate.recordJdkUsage(jdkDirectory);
+        }
+
+        @Override
+        public Instant getLastJdkUsage(Path jdkDirectory)
+        throws IOException
+        {
+            return delegate.getLastJdkUsage(jdkDirectory);
+        }
+    }
+}
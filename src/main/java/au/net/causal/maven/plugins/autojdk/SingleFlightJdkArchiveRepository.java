@@ -0,0 +1,269 @@
+package au.net.causal.maven.plugins.autojdk;
+
+import au.net.causal.maven.plugins.autojdk.xml.metadata.ArchiveType;
+import au.net.causal.maven.plugins.autojdk.xml.metadata.ReleaseType;
+import eu.hansolo.jdktools.Architecture;
+import eu.hansolo.jdktools.OperatingSystem;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.StringJoiner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+/**
+ * Coalesces identical concurrent searches and archive resolutions into a single call to the delegate repository.  In parallel builds many
+ * modules typically need the same JDK at the same time, and without this each one would search remote repositories and download the same
+ * archive independently.
+ * <p>
+ *
+ * Searches are shared only while they are in flight, results are not cached afterwards.  A resolved archive is shared for as long as any caller
+ * is still using it, and the delegate is only asked to clean it up once every caller has called {@link #cleanUpAfterArchiveUse(JdkArchive)}.
+ *
+ * @param <A> JDK artifact type.
+ */
+public class SingleFlightJdkArchiveRepository<A extends JdkArtifact> implements JdkArchiveRepository<A>
+{
+    private final JdkArchiveRepository<A> repository;
+
+    private final Map<JdkSearchRequest, CompletableFuture<Collection<? extends A>>> inFlightSearches = new ConcurrentHashMap<>();
+
+    /**
+     * Guarded by itself.
+     */
+    private final Map<ArtifactKey, SharedArchive<A>> sharedArchives = new HashMap<>();
+
+    /**
+     * Wraps each element in a list of JDK archive repositories with a single-flight repository wrapper.
+     *
+     * @param repositories repositories to wrap.
+     *
+     * @return a list of repositories that are wrapped.
+     */
+    public static List<? extends SingleFlightJdkArchiveRepository<?>> wrapRepositories(Collection<? extends JdkArchiveRepository<?>> repositories)
+    {
+        return repositories.stream()
+                           .map(SingleFlightJdkArchiveRepository::wrapRepository)
+                           .collect(Collectors.toUnmodifiableList());
+    }
+
+    private static SingleFlightJdkArchiveRepository<?> wrapRepository(JdkArchiveRepository<?> repository)
+    {
+        if (repository instanceof SingleFlightJdkArchiveRepository<?>)
+            return (SingleFlightJdkArchiveRepository<?>)repository;
+
+        return new SingleFlightJdkArchiveRepository<>(repository);
+    }
+
+    /**
+     * Creates a single-flight archive repository from an existing repository.
+     *
+     * @param repository the repository.
+     */
+    public SingleFlightJdkArchiveRepository(JdkArchiveRepository<A> repository)
+    {
+        this.repository = Objects.requireNonNull(repository);
+    }
+
+    @Override
+    public Collection<? extends A> search(JdkSearchRequest searchRequest)
+    throws JdkRepositoryException
+    {
+        CompletableFuture<Collection<? extends A>> ourSearch = new CompletableFuture<>();
+        CompletableFuture<Collection<? extends A>> existingSearch = inFlightSearches.putIfAbsent(searchRequest, ourSearch);
+
+        //Someone else is already doing this search, wait for their results
+        if (existingSearch != null)
+            return await(existingSearch);
+
+        try
+        {
+            Collection<? extends A> results = repository.search(searchRequest);
+            ourSearch.complete(results);
+            return results;
+        }
+        catch (JdkRepositoryException | RuntimeException | Error e)
+        {
+            ourSearch.completeExceptionally(e);
+            throw e;
+        }
+        finally
+        {
+            inFlightSearches.remove(searchRequest, ourSearch);
+        }
+    }
+
+    @Override
+    public JdkArchive<A> resolveArchive(A jdkArtifact)
+    throws JdkRepositoryException
+    {
+        ArtifactKey key = new ArtifactKey(jdkArtifact);
+        SharedArchive<A> shared;
+        boolean leader;
+        synchronized (sharedArchives)
+        {
+            shared = sharedArchives.get(key);
+            leader = (shared == null);
+            if (leader)
+            {
+                shared = new SharedArchive<>();
+                sharedArchives.put(key, shared);
+            }
+            shared.users++;
+        }
+
+        if (leader)
+        {
+            try
+            {
+                JdkArchive<A> archive = repository.resolveArchive(jdkArtifact);
+                shared.archive.complete(archive);
+                return archive;
+            }
+            catch (JdkRepositoryException | RuntimeException | Error e)
+            {
+                //Remove before completing so nobody else joins a failed resolution
+                synchronized (sharedArchives)
+                {
+                    sharedArchives.remove(key, shared);
+                }
+                shared.archive.completeExceptionally(e);
+                throw e;
+            }
+        }
+
+        JdkArchive<A> archive = await(shared.archive);
+
+        //Hand back the caller's own artifact, they may be different instances describing the same JDK
+        return new JdkArchive<>(jdkArtifact, archive.getFile());
+    }
+
+    @Override
+    public void cleanUpAfterArchiveUse(JdkArchive<A> archive)
+    throws JdkRepositoryException
+    {
+        ArtifactKey key = new ArtifactKey(archive.getArtifact());
+        JdkArchive<A> archiveToCleanUp;
+        synchronized (sharedArchives)
+        {
+            SharedArchive<A> shared = sharedArchives.get(key);
+
+            //Not one of ours, so just pass through
+            if (shared == null || !shared.archive.isDone())
+                archiveToCleanUp = archive;
+            else
+            {
+                shared.users--;
+                if (shared.users > 0)
+                    return;
+
+                //Last user, so the archive resolved by the delegate can finally be cleaned up
+                sharedArchives.remove(key);
+                archiveToCleanUp = shared.archive.getNow(archive);
+            }
+        }
+
+        repository.cleanUpAfterArchiveUse(archiveToCleanUp);
+    }
+
+    @Override
+    public Collection<? extends JdkArchive<A>> purge(JdkSearchRequest jdkMatchSearchRequest)
+    throws JdkRepositoryException
+    {
+        return repository.purge(jdkMatchSearchRequest);
+    }
+
+    private static <T> T await(Future<T> future)
+    throws JdkRepositoryException
+    {
+        try
+        {
+            return future.get();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new JdkRepositoryException("Interrupted waiting for concurrent repository operation", e);
+        }
+        catch (ExecutionException e)
+        {
+            Throwable cause = e.getCause();
+            if (cause instanceof JdkRepositoryException)
+                throw (JdkRepositoryException)cause;
+            else if (cause instanceof RuntimeException)
+                throw (RuntimeException)cause;
+            else if (cause instanceof Error)
+                throw (Error)cause;
+            else
+                throw new JdkRepositoryException(cause.getMessage(), cause);
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return new StringJoiner(", ", SingleFlightJdkArchiveRepository.class.getSimpleName() + "[", "]")
+                .add("repository=" + repository)
+                .toString();
+    }
+
+    /**
+     * An archive resolved once and shared by everyone that asked for it.
+     */
+    private static class SharedArchive<A extends JdkArtifact>
+    {
+        private final CompletableFuture<JdkArchive<A>> archive = new CompletableFuture<>();
+        private int users;
+    }
+
+    /**
+     * Identifies a JDK artifact by its archive ID and properties, since artifacts from different searches are different instances even when they
+     * describe the same JDK.  The archive ID distinguishes archives with the same properties that still differ, such as builds for different
+     * C libraries or with JavaFX bundled.
+     */
+    private static class ArtifactKey
+    {
+        private final String archiveId;
+        private final String vendor;
+        private final String version;
+        private final Architecture architecture;
+        private final OperatingSystem operatingSystem;
+        private final ArchiveType archiveType;
+        private final ReleaseType releaseType;
+
+        public ArtifactKey(JdkArtifact artifact)
+        {
+            this.archiveId = artifact.getArchiveId();
+            this.vendor = artifact.getVendor();
+            this.version = artifact.getVersion() == null ? null : artifact.getVersion().toString();
+            this.architecture = artifact.getArchitecture();
+            this.operatingSystem = artifact.getOperatingSystem();
+            this.archiveType = artifact.getArchiveType();
+            this.releaseType = artifact.getReleaseType();
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o)
+                return true;
+            if (!(o instanceof ArtifactKey))
+                return false;
+            ArtifactKey that = (ArtifactKey)o;
+            return Objects.equals(archiveId, that.archiveId) && Objects.equals(vendor, that.vendor) && Objects.equals(version, that.version) &&
+                   architecture == that.architecture && operatingSystem == that.operatingSystem && archiveType == that.archiveType && releaseType == that.releaseType;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(archiveId, vendor, version, architecture, operatingSystem, archiveType, releaseType);
+        }
+    }
+}
@@ -0,0 +1,302 @@
+package au.net.causal.maven.plugins.autojdk;
+
+import au.net.causal.maven.plugins.autojdk.xml.metadata.JdkSearchUpToDateMetadata;
+import au.net.causal.maven.plugins.autojdk.xml.metadata.LocalJdkMetadata;
+import au.net.causal.maven.plugins.autojdk.xml.metadata.ReleaseType;
+import eu.hansolo.jdktools.Architecture;
+import eu.hansolo.jdktools.OperatingSystem;
+
+import javax.xml.datatype.DatatypeFactory;
+import javax.xml.datatype.XMLGregorianCalendar;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hand-written StAX reader and writer for the small metadata files AutoJDK reads and writes on every build:
+ * {@link LocalJdkMetadata} and {@link JdkSearchUpToDateMetadata}.  These are read far more often than any other XML so skipping JAXB
+ * for them saves a noticeable amount of start-up time.
+ * <p>
+ *
+ * The format is identical to what JAXB produces and consumes for these classes, so files written by either can be read by the other.
+ * As with JAXB, unknown elements are ignored and unrecognized enum values are read as null.
+ */
+class StaxMetadataCodec
+{
+    static final String METADATA_NAMESPACE = "https://autojdk.causal.net.au/metadata/1.0";
+
+    private static final String LOCAL_JDK_METADATA_ELEMENT = "local-jdk-metadata";
+    private static final String SEARCH_UP_TO_DATE_METADATA_ELEMENT = "autojdk-search-update-checks";
+    private static final String SEARCH_ELEMENT = "search";
+
+    private static final XMLInputFactory inputFactory = createInputFactory();
+    private static final XMLOutputFactory outputFactory = XMLOutputFactory.newFactory();
+    private static final DatatypeFactory datatypeFactory = DatatypeFactory.newDefaultInstance();
+
+    private static XMLInputFactory createInputFactory()
+    {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    }
+
+    /**
+     * @return true if this codec can read and write the given type.
+     */
+    public boolean supports(Class<?> type)
+    {
+        return type == LocalJdkMetadata.class || type == JdkSearchUpToDateMetadata.class;
+    }
+
+    public <T> T parseFile(Path file, Class<T> type)
+    throws IOException, XMLStreamException
+    {
+        try (InputStream is = Files.newInputStream(file))
+        {
+            XMLStreamReader reader = inputFactory.createXMLStreamReader(is);
+            try
+            {
+                reader.nextTag();
+                if (type == LocalJdkMetadata.class)
+                {
+                    requireRootElement(reader, LOCAL_JDK_METADATA_ELEMENT);
+                    return type.cast(readLocalJdkMetadata(reader));
+                }
+                else if (type == JdkSearchUpToDateMetadata.class)
+                {
+                    requireRootElement(reader, SEARCH_UP_TO_DATE_METADATA_ELEMENT);
+                    return type.cast(readSearchUpToDateMetadata(reader));
+                }
+                else
+                    throw new IllegalArgumentException("Unsupported type: " + type.getName());
+            }
+            finally
+            {
+                reader.close();
+            }
+        }
+    }
+
+    public void writeFile(Object data, Path file)
+    throws IOException, XMLStreamException
+    {
+        try (OutputStream os = Files.newOutputStream(file))
+        {
+            XMLStreamWriter writer = outputFactory.createXMLStreamWriter(os, "UTF-8");
+            try
+            {
+                writer.writeStartDocument("UTF-8", "1.0");
+                if (data instanceof LocalJdkMetadata)
+                    writeLocalJdkMetadata((LocalJdkMetadata)data, writer);
+                else if (data instanceof JdkSearchUpToDateMetadata)
+                    writeSearchUpToDateMetadata((JdkSearchUpToDateMetadata)data, writer);
+                else
+                    throw new IllegalArgumentException("Unsupported type: " + data.getClass().getName());
+                writer.writeEndDocument();
+            }
+            finally
+            {
+                writer.close();
+            }
+        }
+    }
+
+    private static void requireRootElement(XMLStreamReader reader, String expectedName)
+    throws XMLStreamException
+    {
+        if (!METADATA_NAMESPACE.equals(reader.getNamespaceURI()) || !expectedName.equals(reader.getLocalName()))
+            throw new XMLStreamException("Unexpected root element " + reader.getName() + ", expected " + expectedName, reader.getLocation());
+    }
+
+    private LocalJdkMetadata readLocalJdkMetadata(XMLStreamReader reader)
+    throws XMLStreamException
+    {
+        LocalJdkMetadata metadata = new LocalJdkMetadata();
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT)
+        {
+            switch (metadataElementName(reader))
+            {
+                case "vendor":
+                    metadata.setVendor(reader.getElementText());
+                    break;
+                case "version":
+                    metadata.setVersion(reader.getElementText());
+                    break;
+                case "releaseType":
+                    metadata.setReleaseType(parseEnum(ReleaseType.class, reader.getElementText()));
+                    break;
+                case "architecture":
+                    metadata.setArchitecture(parseEnum(Architecture.class, reader.getElementText()));
+                    break;
+                case "operatingSystem":
+                    metadata.setOperatingSystem(parseEnum(OperatingSystem.class, reader.getElementText()));
+                    break;
+                default:
+                    skipElement(reader);
+            }
+        }
+        return metadata;
+    }
+
+    private JdkSearchUpToDateMetadata readSearchUpToDateMetadata(XMLStreamReader reader)
+    throws XMLStreamException
+    {
+        List<JdkSearchUpToDateMetadata.Search> searches = new ArrayList<>();
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT)
+        {
+            if (SEARCH_ELEMENT.equals(metadataElementName(reader)))
+                searches.add(readSearch(reader));
+            else
+                skipElement(reader);
+        }
+
+        JdkSearchUpToDateMetadata metadata = new JdkSearchUpToDateMetadata();
+        metadata.setSearches(searches);
+        return metadata;
+    }
+
+    private JdkSearchUpToDateMetadata.Search readSearch(XMLStreamReader reader)
+    throws XMLStreamException
+    {
+        JdkSearchUpToDateMetadata.Search search = new JdkSearchUpToDateMetadata.Search();
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT)
+        {
+            switch (metadataElementName(reader))
+            {
+                case "versionRange":
+                    search.setVersionRange(reader.getElementText());
+                    break;
+                case "architecture":
+                    search.setArchitecture(parseEnum(Architecture.class, reader.getElementText()));
+                    break;
+                case "operatingSystem":
+                    search.setOperatingSystem(parseEnum(OperatingSystem.class, reader.getElementText()));
+                    break;
+                case "vendor":
+                    search.setVendor(reader.getElementText());
+                    break;
+                case "releaseType":
+                    search.setReleaseType(parseEnum(ReleaseType.class, reader.getElementText()));
+                    break;
+                case "lastUpdated":
+                    search.setLastUpdated(parseDateTime(reader.getElementText()));
+                    break;
+                default:
+                    skipElement(reader);
+            }
+        }
+        return search;
+    }
+
+    /**
+     * @return the local name of the current element if it is in the metadata namespace, or an empty string if it is from some other namespace.
+     */
+    private static String metadataElementName(XMLStreamReader reader)
+    {
+        if (METADATA_NAMESPACE.equals(reader.getNamespaceURI()))
+            return reader.getLocalName();
+        else
+            return "";
+    }
+
+    private static void skipElement(XMLStreamReader reader)
+    throws XMLStreamException
+    {
+        int depth = 1;
+        while (depth > 0)
+        {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT)
+                depth++;
+            else if (event == XMLStreamConstants.END_ELEMENT)
+                depth--;
+        }
+    }
+
+    private static <E extends Enum<E>> E parseEnum(Class<E> enumType, String value)
+    {
+        try
+        {
+            return Enum.valueOf(enumType, value.trim());
+        }
+        catch (IllegalArgumentException e)
+        {
+            //Same as JAXB, unknown values are just ignored
+            return null;
+        }
+    }
+
+    private static XMLGregorianCalendar parseDateTime(String value)
+    {
+        try
+        {
+            return datatypeFactory.newXMLGregorianCalendar(value.trim());
+        }
+        catch (IllegalArgumentException e)
+        {
+            return null;
+        }
+    }
+
+    private void writeLocalJdkMetadata(LocalJdkMetadata metadata, XMLStreamWriter writer)
+    throws XMLStreamException
+    {
+        writeRootElement(LOCAL_JDK_METADATA_ELEMENT, writer);
+        writeElement("architecture", metadata.getArchitecture(), writer);
+        writeElement("operatingSystem", metadata.getOperatingSystem(), writer);
+        writeElement("releaseType", metadata.getReleaseType(), writer);
+        writeElement("vendor", metadata.getVendor(), writer);
+        writeElement("version", metadata.getVersion(), writer);
+        writer.writeEndElement();
+    }
+
+    private void writeSearchUpToDateMetadata(JdkSearchUpToDateMetadata metadata, XMLStreamWriter writer)
+    throws XMLStreamException
+    {
+        writeRootElement(SEARCH_UP_TO_DATE_METADATA_ELEMENT, writer);
+        for (JdkSearchUpToDateMetadata.Search search : metadata.getSearches())
+        {
+            writer.writeStartElement(METADATA_NAMESPACE, SEARCH_ELEMENT);
+            writeElement("architecture", search.getArchitecture(), writer);
+            writeElement("lastUpdated", search.getLastUpdated() == null ? null : search.getLastUpdated().toXMLFormat(), writer);
+            writeElement("operatingSystem", search.getOperatingSystem(), writer);
+            writeElement("releaseType", search.getReleaseType(), writer);
+            writeElement("vendor", search.getVendor(), writer);
+            writeElement("versionRange", search.getVersionRange(), writer);
+            writer.writeEndElement();
+        }
+        writer.writeEndElement();
+    }
+
+    private static void writeRootElement(String name, XMLStreamWriter writer)
+    throws XMLStreamException
+    {
+        writer.setDefaultNamespace(METADATA_NAMESPACE);
+        writer.writeStartElement(METADATA_NAMESPACE, name);
+        writer.writeDefaultNamespace(METADATA_NAMESPACE);
+    }
+
+    private static void writeElement(String name, Object value, XMLStreamWriter writer)
+    throws XMLStreamException
+    {
+        //Null values are omitted entirely, same as JAXB
+        if (value == null)
+            return;
+
+        String text = (value instanceof Enum<?>) ? ((Enum<?>)value).name() : value.toString();
+        writer.writeStartElement(METADATA_NAMESPACE, name);
+        writer.writeCharacters(text);
+        writer.writeEndElement();
+    }
+}
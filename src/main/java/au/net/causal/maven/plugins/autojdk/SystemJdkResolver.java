@@ -0,0 +1,463 @@
+package au.net.causal.maven.plugins.autojdk;
+
+import au.net.causal.maven.plugins.autojdk.xml.metadata.ReleaseType;
+import eu.hansolo.jdktools.Architecture;
+import eu.hansolo.jdktools.OperatingSystem;
+import org.apache.maven.artifact.versioning.ArtifactVersion;
+import org.apache.maven.artifact.versioning.DefaultArtifactVersion;
+import org.apache.maven.toolchain.model.PersistedToolchains;
+import org.apache.maven.toolchain.model.ToolchainModel;
+import org.apache.maven.toolchain.model.io.xpp3.MavenToolchainsXpp3Reader;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Finds JDKs that were installed on the system by something other than AutoJDK, such as the operating system's package manager, SDKMAN or
+ * ones that the user has registered in their Maven toolchains file.
+ * <p>
+ *
+ * JDKs are identified by reading the {@code release} file in their home directory rather than by running them, and what was read is cached
+ * against the modification time of the directories and files involved so repeated scans only need to check timestamps.  The cache belongs to
+ * the resolver, so {@link ResidentJdkRegistry#systemJdkResolver(Path, Path)} shares one across builds.
+ * <p>
+ *
+ * These JDKs are read-only as far as AutoJDK is concerned - they can be used but never installed or deleted.
+ */
+public class SystemJdkResolver implements LocalJdkResolver
+{
+    private static final Logger log = LoggerFactory.getLogger(SystemJdkResolver.class);
+
+    /**
+     * Maps the {@code IMPLEMENTOR} of a JDK's release file to the vendor/distribution name used by AutoJDK and Foojay, so that JDKs found on the
+     * system are treated the same as the equivalent JDK downloaded by AutoJDK.
+     */
+    private static final Map<String, String> IMPLEMENTOR_VENDORS = Map.ofEntries(
+            Map.entry("azul systems, inc.", "zulu"),
+            Map.entry("eclipse adoptium", "temurin"),
+            Map.entry("adoptopenjdk", "aoj"),
+            Map.entry("amazon.com inc.", "corretto"),
+            Map.entry("bellsoft", "liberica"),
+            Map.entry("oracle corporation", "oracle_open_jdk"),
+            Map.entry("microsoft", "microsoft"),
+            Map.entry("sap se", "sap_machine"),
+            Map.entry("ibm corporation", "semeru"),
+            Map.entry("international business machines corporation", "semeru"),
+            Map.entry("red hat, inc.", "redhat"),
+            Map.entry("alibaba", "dragonwell"),
+            Map.entry("graalvm community", "graalvm_community")
+    );
+
+    private static final String UNKNOWN_VENDOR = "unknown";
+
+    private final List<Path> jdkParentDirectories;
+    private final List<Path> jdkHomeDirectories;
+    private final Path toolchainsFile;
+    private final PlatformTools platformTools = new PlatformTools();
+
+    private final Map<Path, CachedEntry<List<Path>>> directoryListingCache = new ConcurrentHashMap<>();
+    private final Map<Path, CachedEntry<SystemJdk>> jdkCache = new ConcurrentHashMap<>();
+    private volatile CachedEntry<List<Path>> toolchainsFileCache;
+
+    /**
+     * Creates a system JDK resolver.
+     *
+     * @param jdkParentDirectories directories whose subdirectories are JDK home directories, such as {@code /usr/lib/jvm}.  Directories that don't exist are ignored.
+     * @param jdkHomeDirectories individual JDK home directories.
+     * @param toolchainsFile a Maven toolchains file whose JDK toolchains will also be used.  May be null or a file that does not exist.
+     */
+    public SystemJdkResolver(Collection<? extends Path> jdkParentDirectories, Collection<? extends Path> jdkHomeDirectories, Path toolchainsFile)
+    {
+        this.jdkParentDirectories = List.copyOf(jdkParentDirectories);
+        this.jdkHomeDirectories = List.copyOf(jdkHomeDirectories);
+        this.toolchainsFile = toolchainsFile;
+    }
+
+    /**
+     * Creates a resolver that looks in the well-known locations JDKs are installed into on Linux and macOS, as well as SDKMAN's Java candidates directory.
+     *
+     * @param userHome the user's home directory.
+     * @param toolchainsFile the user's Maven toolchains file.  May be null.
+     *
+     * @return the resolver.
+     */
+    public static SystemJdkResolver withDefaultLocations(Path userHome, Path toolchainsFile)
+    {
+        List<Path> parentDirectories = new ArrayList<>();
+        parentDirectories.add(Path.of("/usr/lib/jvm"));
+        parentDirectories.add(Path.of("/Library/Java/JavaVirtualMachines"));
+
+        String sdkmanDir = System.getenv("SDKMAN_DIR");
+        Path sdkmanHome = (sdkmanDir == null) ? userHome.resolve(".sdkman") : Path.of(sdkmanDir);
+        parentDirectories.add(sdkmanHome.resolve("candidates").resolve("java"));
+
+        return new SystemJdkResolver(parentDirectories, List.of(), toolchainsFile);
+    }
+
+    /**
+     * @return all the files and directories this resolver reads from to find JDKs.  If none of these are modified, the set of JDKs found
+     *         will not change.
+     */
+    public List<Path> getSearchLocations()
+    {
+        List<Path> locations = new ArrayList<>(jdkParentDirectories);
+        locations.addAll(jdkHomeDirectories);
+        if (toolchainsFile != null)
+            locations.add(toolchainsFile);
+
+        return locations;
+    }
+
+    @Override
+    public Collection<? extends SystemJdk> getInstalledJdks(ReleaseType releaseType)
+    throws LocalJdkResolutionException
+    {
+        //Several locations may point to the same JDK through symlinks, e.g. SDKMAN's 'current'
+        //One unreadable location or broken JDK should not prevent the others from being used, so errors only skip that location
+        Set<Path> candidateDirectories = new LinkedHashSet<>();
+        for (Path parentDirectory : jdkParentDirectories)
+        {
+            List<Path> candidates;
+            try
+            {
+                candidates = listDirectory(parentDirectory);
+            }
+            catch (IOException e)
+            {
+                log.debug("Skipping unreadable JDK directory " + parentDirectory + ": " + e, e);
+                continue;
+            }
+
+            for (Path candidate : candidates)
+            {
+                addCandidateDirectory(candidate, candidateDirectories);
+            }
+        }
+        for (Path homeDirectory : jdkHomeDirectories)
+        {
+            if (Files.isDirectory(homeDirectory))
+                addCandidateDirectory(homeDirectory, candidateDirectories);
+        }
+        for (Path homeDirectory : readToolchainsFileJdkHomes())
+        {
+            if (Files.isDirectory(homeDirectory))
+                addCandidateDirectory(homeDirectory, candidateDirectories);
+        }
+
+        List<SystemJdk> jdks = new ArrayList<>();
+        for (Path candidateDirectory : candidateDirectories)
+        {
+            try
+            {
+                SystemJdk jdk = probeJdk(candidateDirectory);
+                if (jdk != null && (releaseType == null || releaseType == jdk.getReleaseType()))
+                    jdks.add(jdk);
+            }
+            catch (IOException e)
+            {
+                log.debug("Skipping system JDK candidate " + candidateDirectory + ": " + e, e);
+            }
+        }
+        return jdks;
+    }
+
+    private static void addCandidateDirectory(Path candidate, Set<Path> candidateDirectories)
+    {
+        try
+        {
+            candidateDirectories.add(candidate.toRealPath());
+        }
+        catch (IOException e)
+        {
+            //e.g. a dangling symlink
+            log.debug("Skipping system JDK candidate " + candidate + ": " + e, e);
+        }
+    }
+
+    private List<Path> listDirectory(Path directory)
+    throws IOException
+    {
+        if (!Files.isDirectory(directory))
+            return List.of();
+
+        FileTime lastModified = Files.getLastModifiedTime(directory);
+        CachedEntry<List<Path>> cached = directoryListingCache.get(directory);
+        if (cached != null && cached.isValidFor(lastModified))
+            return cached.getValue();
+
+        List<Path> children = new ArrayList<>();
+        try (DirectoryStream<Path> dirStream = Files.newDirectoryStream(directory, Files::isDirectory))
+        {
+            for (Path child : dirStream)
+            {
+                children.add(child);
+            }
+        }
+
+        directoryListingCache.put(directory, new CachedEntry<>(lastModified, children));
+        return children;
+    }
+
+    private List<Path> readToolchainsFileJdkHomes()
+    {
+        if (toolchainsFile == null || !Files.isRegularFile(toolchainsFile))
+            return List.of();
+
+        try
+        {
+            FileTime lastModified = Files.getLastModifiedTime(toolchainsFile);
+            CachedEntry<List<Path>> cached = toolchainsFileCache;
+            if (cached != null && cached.isValidFor(lastModified))
+                return cached.getValue();
+
+            List<Path> jdkHomes = new ArrayList<>();
+            try (InputStream is = Files.newInputStream(toolchainsFile))
+            {
+                PersistedToolchains toolchains = new MavenToolchainsXpp3Reader().read(is, false);
+                for (ToolchainModel toolchain : toolchains.getToolchains())
+                {
+                    if (!"jdk".equals(toolchain.getType()) || !(toolchain.getConfiguration() instanceof Xpp3Dom))
+                        continue;
+
+                    Xpp3Dom jdkHome = ((Xpp3Dom)toolchain.getConfiguration()).getChild("jdkHome");
+
+                    //Homes using expressions can only be resolved by Maven itself
+                    if (jdkHome != null && jdkHome.getValue() != null && !jdkHome.getValue().contains("${"))
+                        jdkHomes.add(Path.of(jdkHome.getValue().trim()));
+                }
+            }
+
+            toolchainsFileCache = new CachedEntry<>(lastModified, List.copyOf(jdkHomes));
+            return jdkHomes;
+        }
+        catch (IOException | XmlPullParserException | RuntimeException e)
+        {
+            log.warn("Failed to read toolchains file " + toolchainsFile + ": " + e.getMessage());
+            log.debug("Failed to read toolchains file " + toolchainsFile + ": " + e.getMessage(), e);
+            return List.of();
+        }
+    }
+
+    /**
+     * Reads JDK details from its release file.
+     *
+     * @param directory a potential JDK home directory.
+     *
+     * @return the JDK, or null if the directory does not contain a recognizable JDK.
+     */
+    private SystemJdk probeJdk(Path directory)
+    throws IOException
+    {
+        //macOS bundles have the actual home directory nested inside
+        Path jdkHome = directory;
+        if (Files.notExists(jdkHome.resolve("release")) && Files.exists(jdkHome.resolve("Contents").resolve("Home").resolve("release")))
+            jdkHome = jdkHome.resolve("Contents").resolve("Home");
+
+        Path releaseFile = jdkHome.resolve("release");
+        if (!Files.isRegularFile(releaseFile))
+            return null;
+
+        FileTime lastModified = Files.getLastModifiedTime(releaseFile);
+        CachedEntry<SystemJdk> cached = jdkCache.get(releaseFile);
+        if (cached != null && cached.isValidFor(lastModified))
+            return cached.getValue();
+
+        SystemJdk jdk = readReleaseFile(jdkHome, releaseFile);
+        jdkCache.put(releaseFile, new CachedEntry<>(lastModified, jdk));
+        return jdk;
+    }
+
+    private SystemJdk readReleaseFile(Path jdkHome, Path releaseFile)
+    throws IOException
+    {
+        Properties release = new Properties();
+        try (InputStream is = Files.newInputStream(releaseFile))
+        {
+            release.load(is);
+        }
+
+        String javaVersion = releaseValue(release, "JAVA_VERSION");
+
+        //A JRE has no compiler, and isn't useful for toolchains
+        if (javaVersion == null || (Files.notExists(jdkHome.resolve("bin").resolve("javac")) && Files.notExists(jdkHome.resolve("bin").resolve("javac.exe"))))
+        {
+            log.debug("Ignoring " + jdkHome + " which is not a JDK");
+            return null;
+        }
+
+        ReleaseType releaseType = javaVersion.contains("-ea") ? ReleaseType.EA : ReleaseType.GA;
+
+        OperatingSystem operatingSystem = platformTools.getCurrentOperatingSystem();
+        String osName = releaseValue(release, "OS_NAME");
+        if (osName != null && OperatingSystem.fromText(osName) != OperatingSystem.NOT_FOUND)
+            operatingSystem = OperatingSystem.fromText(osName);
+
+        Architecture architecture = platformTools.getCurrentArchitecture();
+        String osArch = releaseValue(release, "OS_ARCH");
+        if (osArch != null && Architecture.fromText(osArch) != Architecture.NOT_FOUND)
+            architecture = platformTools.canonicalArchitecture(Architecture.fromText(osArch));
+
+        return new SystemJdk(jdkHome, vendorForImplementor(releaseValue(release, "IMPLEMENTOR")), new DefaultArtifactVersion(normalizeJavaVersion(javaVersion)),
+                             operatingSystem, architecture, releaseType);
+    }
+
+    /**
+     * Reads a value from a release file, which are shell variable assignments usually with quoted values.
+     */
+    private static String releaseValue(Properties release, String name)
+    {
+        String value = release.getProperty(name);
+        if (value == null)
+            return null;
+
+        value = value.trim();
+        if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\""))
+            value = value.substring(1, value.length() - 1);
+
+        if (value.isEmpty())
+            return null;
+
+        return value;
+    }
+
+    /**
+     * Converts old-style '1.8.0_302' versions into the '8.0.302' form AutoJDK uses for downloaded JDKs.
+     */
+    static String normalizeJavaVersion(String javaVersion)
+    {
+        if (javaVersion.startsWith("1."))
+            javaVersion = javaVersion.substring(2).replace('_', '.');
+
+        return javaVersion;
+    }
+
+    static String vendorForImplementor(String implementor)
+    {
+        if (implementor == null)
+            return UNKNOWN_VENDOR;
+
+        String normalizedImplementor = implementor.trim().toLowerCase(Locale.ENGLISH);
+        String vendor = IMPLEMENTOR_VENDORS.get(normalizedImplementor);
+        if (vendor != null)
+            return vendor;
+
+        //Not a well-known vendor, use something readable
+        return normalizedImplementor.replaceAll("[^a-z0-9]+", "_").replaceAll("^_|_$", "");
+    }
+
+    /**
+     * A JDK installed on the system outside of AutoJDK.
+     */
+    public static class SystemJdk implements LocalJdk
+    {
+        private final Path jdkDirectory;
+        private final String vendor;
+        private final ArtifactVersion version;
+        private final OperatingSystem operatingSystem;
+        private final Architecture architecture;
+        private final ReleaseType releaseType;
+
+        public SystemJdk(Path jdkDirectory, String vendor, ArtifactVersion version, OperatingSystem operatingSystem, Architecture architecture, ReleaseType releaseType)
+        {
+            this.jdkDirectory = Objects.requireNonNull(jdkDirectory);
+            this.vendor = Objects.requireNonNull(vendor);
+            this.version = Objects.requireNonNull(version);
+            this.operatingSystem = Objects.requireNonNull(operatingSystem);
+            this.architecture = Objects.requireNonNull(architecture);
+            this.releaseType = Objects.requireNonNull(releaseType);
+        }
+
+        @Override
+        public String getVendor()
+        {
+            return vendor;
+        }
+
+        @Override
+        public ArtifactVersion getVersion()
+        {
+            return version;
+        }
+
+        @Override
+        public OperatingSystem getOperatingSystem()
+        {
+            return operatingSystem;
+        }
+
+        @Override
+        public Architecture getArchitecture()
+        {
+            return architecture;
+        }
+
+        @Override
+        public Path getJdkDirectory()
+        {
+            return jdkDirectory;
+        }
+
+        @Override
+        public ReleaseType getReleaseType()
+        {
+            return releaseType;
+        }
+
+        @Override
+        public String toString()
+        {
+            return new StringJoiner(", ", SystemJdk.class.getSimpleName() + "[", "]")
+                    .add("jdkDirectory=" + jdkDirectory)
+                    .add("vendor='" + vendor + "'")
+                    .add("version=" + version)
+                    .add("operatingSystem=" + operatingSystem)
+                    .add("architecture=" + architecture)
+                    .add("releaseType=" + releaseType)
+                    .toString();
+        }
+    }
+
+    /**
+     * A cached value that is valid as long as the file it was read from has not been modified.
+     */
+    private static class CachedEntry<T>
+    {
+        private final FileTime lastModified;
+        private final T value;
+
+        public CachedEntry(FileTime lastModified, T value)
+        {
+            this.lastModified = lastModified;
+            this.value = value;
+        }
+
+        public boolean isValidFor(FileTime currentLastModified)
+        {
+            return lastModified.equals(currentLastModified);
+        }
+
+        public T getValue()
+        {
+            return value;
+        }
+    }
+}
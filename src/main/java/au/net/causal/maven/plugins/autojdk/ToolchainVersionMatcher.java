@@ -0,0 +1,103 @@
+package au.net.causal.maven.plugins.autojdk;
+
+import org.apache.maven.artifact.versioning.ArtifactVersion;
+import org.apache.maven.artifact.versioning.DefaultArtifactVersion;
+import org.apache.maven.artifact.versioning.InvalidVersionSpecificationException;
+import org.apache.maven.artifact.versioning.Restriction;
+import org.apache.maven.artifact.versioning.VersionRange;
+
+import java.util.Objects;
+
+/**
+ * Matches JDK versions against a version range requirement using exactly the same rules as Maven toolchains
+ * (see {@code RequirementMatcherFactory.VersionMatcher}), but with the requirement parsed only once up-front instead of once for every
+ * version that is checked.
+ * <p>
+ *
+ * Toolchains re-parses the string form of the requirement, so the same is done here once at construction time so that any quirks of that
+ * round-trip are preserved.
+ */
+public class ToolchainVersionMatcher
+{
+    private final VersionRange requirement;
+
+    /**
+     * Creates a matcher for a version range.
+     *
+     * @param versionRange the version range requirement, as would be used for a toolchain requirement.
+     */
+    public ToolchainVersionMatcher(VersionRange versionRange)
+    {
+        this(versionRange.toString());
+    }
+
+    /**
+     * Creates a matcher for a version range specification string.
+     *
+     * @param versionSpec a version or version range specification.
+     */
+    public ToolchainVersionMatcher(String versionSpec)
+    {
+        Objects.requireNonNull(versionSpec);
+        VersionRange parsed;
+        try
+        {
+            parsed = VersionRange.createFromVersionSpec(versionSpec);
+        }
+        catch (InvalidVersionSpecificationException e)
+        {
+            //Toolchains treats unparseable requirements as never matching
+            parsed = null;
+        }
+        this.requirement = parsed;
+    }
+
+    /**
+     * @return true if the given JDK version satisfies the requirement.
+     */
+    public boolean matches(ArtifactVersion version)
+    {
+        if (requirement == null)
+            return false;
+
+        //Toolchains always works with the default implementation so make sure comparisons are done with that
+        if (!(version instanceof DefaultArtifactVersion))
+            version = new DefaultArtifactVersion(version.toString());
+
+        if (requirement.hasRestrictions())
+            return requirement.containsVersion(version);
+        else
+            return requirement.getRecommendedVersion().compareTo(version) == 0;
+    }
+
+    /**
+     * Checks whether a version is lower than any version the requirement could match, so that no older version can match either.
+     *
+     * @return true if the given JDK version and all versions older than it fail to satisfy the requirement.
+     */
+    public boolean isBelowRequirement(ArtifactVersion version)
+    {
+        if (requirement == null)
+            return true;
+
+        if (!(version instanceof DefaultArtifactVersion))
+            version = new DefaultArtifactVersion(version.toString());
+
+        if (!requirement.hasRestrictions())
+            return version.compareTo(requirement.getRecommendedVersion()) < 0;
+
+        //Restrictions are always in ascending order, so only the lowest one matters
+        Restriction lowest = requirement.getRestrictions().get(0);
+        if (lowest.getLowerBound() == null)
+            return false;
+
+        int comparison = version.compareTo(lowest.getLowerBound());
+        return comparison < 0 || (comparison == 0 && !lowest.isLowerBoundInclusive());
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.valueOf(requirement);
+    }
+}
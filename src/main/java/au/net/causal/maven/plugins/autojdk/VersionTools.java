@@ -3,6 +3,8 @@ package au.net.causal.maven.plugins.autojdk;
 import com.google.common.annotations.VisibleForTesting;
 import org.apache.maven.artifact.versioning.ArtifactVersion;
 import org.apache.maven.artifact.versioning.DefaultArtifactVersion;
+import org.apache.maven.artifact.versioning.Restriction;
+import org.apache.maven.artifact.versioning.VersionRange;
 
 /**
  * Utility methods for dealing with versions.
@@ -31,4 +33,35 @@ public final class VersionTools
         //Do not use the following - it can not tell difference between "8.0" and "8" - Maven internal version comparison is seriously convoluted!
         //return version.equals(majorOnly);
     }
+
+    /**
+     * Returns whether any version with the specified major version could be in a version range.  e.g. "[17.0.2,18)" overlaps 17 but not 16 or 18.
+     *
+     * @param versionRange the version range to check.
+     * @param majorVersion the major version.
+     *
+     * @return true if some version of the major version might be in the range, false if none are.
+     */
+    public static boolean rangeOverlapsMajorVersion(VersionRange versionRange, int majorVersion)
+    {
+        if (versionRange.getRecommendedVersion() != null)
+            return versionRange.getRecommendedVersion().getMajorVersion() == majorVersion;
+
+        ArtifactVersion start = new DefaultArtifactVersion(String.valueOf(majorVersion));
+        ArtifactVersion end = new DefaultArtifactVersion(String.valueOf(majorVersion + 1));
+
+        for (Restriction restriction : versionRange.getRestrictions())
+        {
+            ArtifactVersion lower = restriction.getLowerBound();
+            ArtifactVersion upper = restriction.getUpperBound();
+
+            boolean lowerOverlaps = lower == null || lower.compareTo(end) < 0;
+            boolean upperOverlaps = upper == null || upper.compareTo(start) >= 0;
+
+            if (lowerOverlaps && upperOverlaps)
+                return true;
+        }
+
+        return false;
+    }
 }
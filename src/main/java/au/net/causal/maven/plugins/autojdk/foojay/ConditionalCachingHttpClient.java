@@ -0,0 +1,502 @@
+package au.net.causal.maven.plugins.autojdk.foojay;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLSession;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.Authenticator;
+import java.net.CookieHandler;
+import java.net.ProxySelector;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * HTTP client that caches responses to GET requests in a {@link FoojayResponseCache} and revalidates them with conditional requests.
+ * <p>
+ *
+ * Cached responses that the cache considers {@linkplain FoojayResponseCache#isFresh(FoojayResponseCache.Entry) fresh} are returned without
+ * contacting the server at all.  When an older response is cached, the request is sent with <code>If-None-Match</code> and <code>If-Modified-Since</code> headers.  If the server
+ * responds with <code>304 Not Modified</code>, the cached body is returned as if the server had sent it again.  Asynchronous requests and
+ * requests other than GET are passed through without caching.
+ * <p>
+ *
+ * Bodies of responses from the server are streamed to the caller as they arrive, and a copy is collected on the side that is written to the
+ * cache once the whole body has been received.  Bodies that are too big for the cache are not cached.
+ */
+class ConditionalCachingHttpClient extends HttpClient
+{
+    private static final int HTTP_OK = 200;
+    private static final int HTTP_NOT_MODIFIED = 304;
+
+    private final HttpClient delegate;
+    private final FoojayResponseCache cache;
+
+    public ConditionalCachingHttpClient(HttpClient delegate, FoojayResponseCache cache)
+    {
+        this.delegate = Objects.requireNonNull(delegate);
+        this.cache = Objects.requireNonNull(cache);
+    }
+
+    @Override
+    public <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> responseBodyHandler)
+    throws IOException, InterruptedException
+    {
+        if (!"GET".equals(request.method()))
+            return delegate.send(request, responseBodyHandler);
+
+        FoojayResponseCache.Entry cached = cache.get(request.uri());
+        if (cached != null && cache.isFresh(cached))
+        {
+            HttpHeaders headers = cachedHeaders(cached);
+            return new BufferedResponse<>(request, HTTP_OK, headers, Version.HTTP_1_1,
+                                          applyBodyHandler(responseBodyHandler, HTTP_OK, headers, Version.HTTP_1_1, cached.getBody()));
+        }
+
+        HttpRequest actualRequest = (cached == null ? request : conditionalRequest(request, cached));
+        HttpResponse<T> response = delegate.send(actualRequest, responseInfo ->
+        {
+            //Not modified has no body, the cached one is used instead
+            if (cached != null && responseInfo.statusCode() == HTTP_NOT_MODIFIED)
+                return HttpResponse.BodySubscribers.replacing(null);
+
+            HttpResponse.BodySubscriber<T> subscriber = responseBodyHandler.apply(responseInfo);
+            HttpHeaders headers = responseInfo.headers();
+            String eTag = headers.firstValue("ETag").orElse(null);
+            String lastModified = headers.firstValue("Last-Modified").orElse(null);
+
+            //Without validators the response could never be revalidated so there is no point keeping a copy of it
+            if (responseInfo.statusCode() != HTTP_OK || (eTag == null && lastModified == null))
+                return subscriber;
+
+            return new CopyingBodySubscriber<>(subscriber, cache.getMaxSize(), body ->
+                    cache.put(new FoojayResponseCache.Entry(request.uri(), eTag, lastModified, headers.firstValue("Content-Type").orElse(null), body)));
+        });
+
+        if (cached != null && response.statusCode() == HTTP_NOT_MODIFIED)
+        {
+            cache.markValidated(request.uri());
+            HttpHeaders headers = cachedHeaders(cached);
+            return new BufferedResponse<>(request, HTTP_OK, headers, response.version(),
+                                          applyBodyHandler(responseBodyHandler, HTTP_OK, headers, response.version(), cached.getBody()));
+        }
+
+        return response;
+    }
+
+    /**
+     * Copies a request, adding headers that make it conditional on the cached response being out of date.
+     */
+    private static HttpRequest conditionalRequest(HttpRequest request, FoojayResponseCache.Entry cached)
+    {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(request.uri())
+                                                 .expectContinue(request.expectContinue())
+                                                 .GET();
+        request.headers().map().forEach((name, values) -> values.forEach(value -> builder.header(name, value)));
+        request.timeout().ifPresent(builder::timeout);
+        request.version().ifPresent(builder::version);
+
+        if (cached.getETag() != null)
+            builder.header("If-None-Match", cached.getETag());
+        if (cached.getLastModified() != null)
+            builder.header("If-Modified-Since", cached.getLastModified());
+
+        return builder.build();
+    }
+
+    private static HttpHeaders cachedHeaders(FoojayResponseCache.Entry cached)
+    {
+        Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        if (cached.getContentType() != null)
+            headers.put("Content-Type", List.of(cached.getContentType()));
+        if (cached.getETag() != null)
+            headers.put("ETag", List.of(cached.getETag()));
+        if (cached.getLastModified() != null)
+            headers.put("Last-Modified", List.of(cached.getLastModified()));
+
+        return HttpHeaders.of(headers, (name, value) -> true);
+    }
+
+    /**
+     * Converts an already-read body into whatever form the caller's body handler produces.
+     */
+    private static <T> T applyBodyHandler(HttpResponse.BodyHandler<T> bodyHandler, int statusCode, HttpHeaders headers, Version version, byte[] body)
+    throws IOException
+    {
+        HttpResponse.BodySubscriber<T> subscriber = bodyHandler.apply(new HttpResponse.ResponseInfo()
+        {
+            @Override
+            public int statusCode()
+            {
+                return statusCode;
+            }
+
+            @Override
+            public HttpHeaders headers()
+            {
+                return headers;
+            }
+
+            @Override
+            public Version version()
+            {
+                return version;
+            }
+        });
+
+        AtomicBoolean published = new AtomicBoolean();
+        subscriber.onSubscribe(new Flow.Subscription()
+        {
+            @Override
+            public void request(long n)
+            {
+                if (n > 0 && published.compareAndSet(false, true))
+                {
+                    subscriber.onNext(List.of(ByteBuffer.wrap(body)));
+                    subscriber.onComplete();
+                }
+            }
+
+            @Override
+            public void cancel()
+            {
+                published.set(true);
+            }
+        });
+
+        try
+        {
+            return subscriber.getBody().toCompletableFuture().get();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(e.getMessage());
+        }
+        catch (ExecutionException e)
+        {
+            throw new IOException(e.getCause());
+        }
+    }
+
+    @Override
+    public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request, HttpResponse.BodyHandler<T> responseBodyHandler)
+    {
+        return delegate.sendAsync(request, responseBodyHandler);
+    }
+
+    @Override
+    public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request, HttpResponse.BodyHandler<T> responseBodyHandler,
+                                                            HttpResponse.PushPromiseHandler<T> pushPromiseHandler)
+    {
+        return delegate.sendAsync(request, responseBodyHandler, pushPromiseHandler);
+    }
+
+    @Override
+    public Optional<CookieHandler> cookieHandler()
+    {
+        return delegate.cookieHandler();
+    }
+
+    @Override
+    public Optional<Duration> connectTimeout()
+    {
+        return delegate.connectTimeout();
+    }
+
+    @Override
+    public Redirect followRedirects()
+    {
+        return delegate.followRedirects();
+    }
+
+    @Override
+    public Optional<ProxySelector> proxy()
+    {
+        return delegate.proxy();
+    }
+
+    @Override
+    public SSLContext sslContext()
+    {
+        return delegate.sslContext();
+    }
+
+    @Override
+    public SSLParameters sslParameters()
+    {
+        return delegate.sslParameters();
+    }
+
+    @Override
+    public Optional<Authenticator> authenticator()
+    {
+        return delegate.authenticator();
+    }
+
+    @Override
+    public Version version()
+    {
+        return delegate.version();
+    }
+
+    @Override
+    public Optional<Executor> executor()
+    {
+        return delegate.executor();
+    }
+
+    /**
+     * Passes a body through to another subscriber while keeping a copy of it, which is handed over once the whole body has been received.
+     * <p>
+     *
+     * Readers often stop as soon as they have parsed the JSON they wanted and close the body without reading to its end.  When this happens,
+     * the rest of the body is still read for the copy before closing returns, so that the response is cached by the time the reader carries on.
+     * Bodies too large to copy are cancelled straight away.
+     */
+    private static class CopyingBodySubscriber<T> implements HttpResponse.BodySubscriber<T>
+    {
+        /**
+         * How long closing a partially read body waits for the rest of it to arrive.
+         */
+        private static final Duration MAX_DRAIN_TIME = Duration.ofSeconds(10L);
+
+        private final HttpResponse.BodySubscriber<T> delegate;
+        private final long maxCopySize;
+        private final Consumer<byte[]> completedCopyConsumer;
+        private final CompletableFuture<Void> finished = new CompletableFuture<>();
+
+        private volatile ByteArrayOutputStream copy = new ByteArrayOutputStream();
+        private volatile boolean delegateCancelled;
+        private volatile Flow.Subscription upstream;
+        private volatile Thread deliveringThread;
+
+        /**
+         * @param delegate subscriber that the body is passed through to.
+         * @param maxCopySize if the body is larger than this many bytes, the copy is abandoned.
+         * @param completedCopyConsumer receives the copy of the body once it is complete.
+         */
+        public CopyingBodySubscriber(HttpResponse.BodySubscriber<T> delegate, long maxCopySize, Consumer<byte[]> completedCopyConsumer)
+        {
+            this.delegate = Objects.requireNonNull(delegate);
+            this.maxCopySize = maxCopySize;
+            this.completedCopyConsumer = Objects.requireNonNull(completedCopyConsumer);
+        }
+
+        @Override
+        public CompletionStage<T> getBody()
+        {
+            return delegate.getBody();
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription)
+        {
+            upstream = subscription;
+            delegate.onSubscribe(new Flow.Subscription()
+            {
+                @Override
+                public void request(long n)
+                {
+                    subscription.request(n);
+                }
+
+                @Override
+                public void cancel()
+                {
+                    cancelFromDelegate();
+                }
+            });
+        }
+
+        /**
+         * Called when the delegate no longer wants the body.  Reads the rest of it for the copy if the copy is still wanted.
+         */
+        private void cancelFromDelegate()
+        {
+            delegateCancelled = true;
+            if (copy == null)
+            {
+                upstream.cancel();
+                return;
+            }
+
+            upstream.request(Long.MAX_VALUE);
+
+            //Cancelled while being handed a buffer - waiting here would hold up delivery of the rest of the body, so let it finish in the background
+            if (deliveringThread == Thread.currentThread())
+                return;
+
+            try
+            {
+                finished.get(MAX_DRAIN_TIME.toMillis(), TimeUnit.MILLISECONDS);
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                abandonCopy();
+            }
+            catch (ExecutionException | TimeoutException e)
+            {
+                abandonCopy();
+            }
+        }
+
+        private void abandonCopy()
+        {
+            copy = null;
+            finished.complete(null);
+            if (delegateCancelled)
+                upstream.cancel();
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> items)
+        {
+            //Copy before passing on since the delegate consumes the buffers
+            ByteArrayOutputStream currentCopy = copy;
+            if (currentCopy != null)
+            {
+                for (ByteBuffer item : items)
+                {
+                    ByteBuffer view = item.duplicate();
+                    if (currentCopy.size() + (long)view.remaining() > maxCopySize)
+                    {
+                        abandonCopy();
+                        break;
+                    }
+                    byte[] bytes = new byte[view.remaining()];
+                    view.get(bytes);
+                    currentCopy.writeBytes(bytes);
+                }
+            }
+
+            if (!delegateCancelled)
+            {
+                deliveringThread = Thread.currentThread();
+                try
+                {
+                    delegate.onNext(items);
+                }
+                finally
+                {
+                    deliveringThread = null;
+                }
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable)
+        {
+            copy = null;
+            finished.complete(null);
+            if (!delegateCancelled)
+                delegate.onError(throwable);
+        }
+
+        @Override
+        public void onComplete()
+        {
+            //Hand over the copy first so it is cached by the time the caller sees the end of the body
+            try
+            {
+                ByteArrayOutputStream currentCopy = copy;
+                if (currentCopy != null)
+                    completedCopyConsumer.accept(currentCopy.toByteArray());
+            }
+            finally
+            {
+                copy = null;
+                finished.complete(null);
+                if (!delegateCancelled)
+                    delegate.onComplete();
+            }
+        }
+    }
+
+    private static class BufferedResponse<T> implements HttpResponse<T>
+    {
+        private final HttpRequest request;
+        private final int statusCode;
+        private final HttpHeaders headers;
+        private final Version version;
+        private final T body;
+
+        public BufferedResponse(HttpRequest request, int statusCode, HttpHeaders headers, Version version, T body)
+        {
+            this.request = request;
+            this.statusCode = statusCode;
+            this.headers = headers;
+            this.version = version;
+            this.body = body;
+        }
+
+        @Override
+        public int statusCode()
+        {
+            return statusCode;
+        }
+
+        @Override
+        public HttpRequest request()
+        {
+            return request;
+        }
+
+        @Override
+        public Optional<HttpResponse<T>> previousResponse()
+        {
+            return Optional.empty();
+        }
+
+        @Override
+        public HttpHeaders headers()
+        {
+            return headers;
+        }
+
+        @Override
+        public T body()
+        {
+            return body;
+        }
+
+        @Override
+        public Optional<SSLSession> sslSession()
+        {
+            return Optional.empty();
+        }
+
+        @Override
+        public URI uri()
+        {
+            return request.uri();
+        }
+
+        @Override
+        public Version version()
+        {
+            return version;
+        }
+    }
+}
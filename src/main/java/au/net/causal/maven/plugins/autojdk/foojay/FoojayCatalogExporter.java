@@ -0,0 +1,221 @@
+package au.net.causal.maven.plugins.autojdk.foojay;
+
+import au.net.causal.maven.plugins.autojdk.Platform;
+import au.net.causal.maven.plugins.autojdk.ToolchainVersionMatcher;
+import au.net.causal.maven.plugins.autojdk.VersionTools;
+import au.net.causal.maven.plugins.autojdk.foojay.openapi.handler.ApiException;
+import au.net.causal.maven.plugins.autojdk.xml.metadata.JdkCatalog;
+import au.net.causal.maven.plugins.autojdk.xml.metadata.ReleaseType;
+import eu.hansolo.jdktools.ArchiveType;
+import eu.hansolo.jdktools.Latest;
+import eu.hansolo.jdktools.ReleaseStatus;
+import org.apache.maven.artifact.versioning.VersionRange;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.xml.datatype.DatatypeFactory;
+import java.net.URI;
+import java.time.Clock;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.GregorianCalendar;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * Exports a snapshot of the Foojay catalog for a set of platforms and vendors, so that JDKs can be found without access to Foojay.
+ */
+public class FoojayCatalogExporter
+{
+    private static final Logger log = LoggerFactory.getLogger(FoojayCatalogExporter.class);
+
+    private static final List<ArchiveType> ARCHIVE_TYPES = List.of(ArchiveType.ZIP, ArchiveType.TAR_GZ);
+
+    private final FoojayClient foojayClient;
+    private final FoojayMetadataMemo metadataMemo;
+    private final Clock clock;
+
+    /**
+     * @param foojayClient client for talking to the Foojay server.
+     * @param metadataMemo remembers distributions and major versions.
+     * @param clock clock used for the creation time of catalogs.
+     */
+    public FoojayCatalogExporter(FoojayClient foojayClient, FoojayMetadataMemo metadataMemo, Clock clock)
+    {
+        this.foojayClient = Objects.requireNonNull(foojayClient);
+        this.metadataMemo = Objects.requireNonNull(metadataMemo);
+        this.clock = Objects.requireNonNull(clock);
+    }
+
+    /**
+     * Exports JDKs from Foojay into a catalog.
+     *
+     * @param platforms platforms to export JDKs for.
+     * @param vendors vendors to export JDKs for, or an empty collection to export JDKs from all vendors.
+     * @param versionRange only JDKs with versions in this range are exported.
+     * @param releaseType release type of JDKs to export, or null to export both GA and EA JDKs.
+     * @param includeChecksums if true, download details and checksums are read for every exported JDK.  This needs an additional request
+     *                         per JDK.
+     *
+     * @return the exported catalog.
+     *
+     * @throws ApiException if an error occurs reading from Foojay.
+     */
+    public JdkCatalog exportCatalog(Collection<? extends Platform> platforms, Collection<String> vendors, VersionRange versionRange,
+                                    ReleaseType releaseType, boolean includeChecksums)
+    throws ApiException
+    {
+        List<? extends JdkDistribution> distributions = metadataMemo.getDistributionsWithSynonyms(foojayClient);
+        Set<String> vendorAndSynonyms;
+        if (vendors.isEmpty())
+            vendorAndSynonyms = null;
+        else
+        {
+            vendorAndSynonyms = new HashSet<>();
+            for (String vendor : vendors)
+            {
+                vendorAndSynonyms.add(vendor);
+                vendorAndSynonyms.addAll(FoojayOpenApiJdkRepository.vendorSynonyms(vendor, distributions));
+            }
+        }
+
+        List<ReleaseStatus> releaseStatuses;
+        if (releaseType == null)
+            releaseStatuses = null;
+        else if (releaseType == ReleaseType.EA)
+            releaseStatuses = List.of(ReleaseStatus.EA);
+        else
+            releaseStatuses = List.of(ReleaseStatus.GA);
+
+        List<Integer> majorVersions = new ArrayList<>();
+        for (MajorVersion majorVersion : metadataMemo.getAllMajorVersions(foojayClient))
+        {
+            if (majorVersion.getMajorVersion() != null && VersionTools.rangeOverlapsMajorVersion(versionRange, majorVersion.getMajorVersion()))
+                majorVersions.add(majorVersion.getMajorVersion());
+        }
+
+        ToolchainVersionMatcher versionMatcher = new ToolchainVersionMatcher(versionRange);
+        List<FoojayOpenApiArtifact> artifacts = new ArrayList<>();
+        for (Platform platform : platforms)
+        {
+            JdkPackageFilter packageFilter = new JdkPackageFilter(vendorAndSynonyms, platform.getOperatingSystem().getLibCType(), ARCHIVE_TYPES);
+            for (Integer majorVersion : majorVersions)
+            {
+                List<? extends JdkPackage> packages = foojayClient.getJdkPackages(
+                        String.valueOf(majorVersion),
+                        null,
+                        vendors.isEmpty() ? null : List.copyOf(vendors),
+                        vendors.isEmpty() ? null : List.copyOf(vendors),
+                        List.of(platform.getArchitecture()),
+                        null,
+                        ARCHIVE_TYPES,
+                        List.of(platform.getOperatingSystem()),
+                        null,
+                        null,
+                        releaseStatuses,
+                        null,
+                        null,
+                        Latest.ALL_OF_VERSION,
+                        null,
+                        true,
+                        null,
+                        null,
+                        null,
+                        packageFilter);
+
+                for (JdkPackage pkg : packages)
+                {
+                    if (FoojayOpenApiJdkRepository.isGraalMismatchedVersioning(pkg))
+                        continue;
+
+                    FoojayOpenApiArtifact artifact = new FoojayOpenApiArtifact(pkg);
+                    if (artifact.getArchiveType() != null && versionMatcher.matches(artifact.getVersion()))
+                        artifacts.add(artifact);
+                }
+
+                log.debug("Exported " + packages.size() + " Foojay packages for " + platform + " JDK " + majorVersion);
+            }
+        }
+
+        artifacts.sort(Comparator.comparing((FoojayOpenApiArtifact a) -> a.getOperatingSystem().getApiString())
+                                 .thenComparing(a -> a.getArchitecture().getApiString())
+                                 .thenComparing(FoojayOpenApiArtifact::getVendor)
+                                 .thenComparing(FoojayOpenApiArtifact::getVersion, Comparator.reverseOrder()));
+
+        JdkCatalog catalog = new JdkCatalog();
+        catalog.setSource(foojayClient.getBaseUri());
+        catalog.setCreated(DatatypeFactory.newDefaultInstance().newXMLGregorianCalendar(GregorianCalendar.from(ZonedDateTime.now(clock))));
+        for (FoojayOpenApiArtifact artifact : artifacts)
+        {
+            catalog.getJdks().add(catalogJdk(artifact, includeChecksums));
+        }
+
+        //Record synonyms so the catalog can be searched with any vendor name Foojay would accept
+        Set<String> catalogVendors = artifacts.stream().map(FoojayOpenApiArtifact::getVendor).filter(Objects::nonNull).collect(Collectors.toCollection(TreeSet::new));
+        for (String catalogVendor : catalogVendors)
+        {
+            Set<String> synonyms = new TreeSet<>(FoojayOpenApiJdkRepository.vendorSynonyms(catalogVendor, distributions));
+            synonyms.remove(catalogVendor);
+            if (!synonyms.isEmpty())
+                catalog.getVendors().add(new JdkCatalog.Vendor(catalogVendor, synonyms));
+        }
+
+        return catalog;
+    }
+
+    private JdkCatalog.Jdk catalogJdk(FoojayOpenApiArtifact artifact, boolean includeChecksums)
+    throws ApiException
+    {
+        JdkCatalog.Jdk jdk = new JdkCatalog.Jdk();
+        jdk.setId(artifact.getId());
+        jdk.setVendor(artifact.getVendor());
+        jdk.setVersion(artifact.getVersion().toString());
+        jdk.setReleaseType(artifact.getReleaseType());
+        jdk.setOperatingSystem(artifact.getOperatingSystem());
+        jdk.setArchitecture(artifact.getArchitecture());
+        jdk.setLibCType(artifact.getLibCType());
+        jdk.setArchiveType(artifact.getArchiveType());
+
+        URI downloadUri;
+        try
+        {
+            downloadUri = artifact.getDownloadUri();
+        }
+        catch (IllegalArgumentException e)
+        {
+            log.debug("Ignoring invalid download link of Foojay package " + artifact.getId() + ": " + e.getMessage(), e);
+            downloadUri = null;
+        }
+
+        if (includeChecksums && artifact.getId() != null)
+        {
+            JdkPackageInfo info = foojayClient.getPackageInfo(artifact.getId());
+            if (info != null)
+            {
+                jdk.setFileName(info.getFilename());
+                jdk.setChecksum(emptyToNull(info.getChecksum()));
+                jdk.setChecksumType(emptyToNull(info.getChecksumType()));
+
+                //Prefer the direct link so mirrors and air-gapped networks don't need to reach Foojay's redirector
+                if (info.getDirectDownloadUri() != null)
+                    downloadUri = info.getDirectDownloadUri();
+            }
+        }
+
+        if (downloadUri != null)
+            jdk.setDownloadUrl(downloadUri.toString());
+
+        return jdk;
+    }
+
+    private static String emptyToNull(String s)
+    {
+        return s == null || s.isEmpty() ? null : s;
+    }
+}
@@ -3,7 +3,9 @@ package au.net.causal.maven.plugins.autojdk.foojay;
 import au.net.causal.maven.plugins.autojdk.foojay.openapi.DefaultApi;
 import au.net.causal.maven.plugins.autojdk.foojay.openapi.handler.ApiClient;
 import au.net.causal.maven.plugins.autojdk.foojay.openapi.handler.ApiException;
+import au.net.causal.maven.plugins.autojdk.foojay.openapi.handler.Pair;
 import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.json.JsonReadFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.json.JsonMapper;
@@ -18,9 +20,18 @@ import eu.hansolo.jdktools.LibCType;
 import eu.hansolo.jdktools.OperatingSystem;
 import eu.hansolo.jdktools.ReleaseStatus;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
+import java.util.StringJoiner;
 import java.util.stream.Collectors;
 
 /**
@@ -31,6 +42,7 @@ public class FoojayClient
 {
     private final ApiClient apiClient;
     private final DefaultApi api;
+    private final HttpClient httpClient;
 
     private final boolean useMajorVersionsFallbackOnly = true;
 
@@ -38,6 +50,7 @@ public class FoojayClient
     {
         this.apiClient = Objects.requireNonNull(apiClient);
         this.api = new DefaultApi(apiClient);
+        this.httpClient = apiClient.getHttpClient();
     }
 
     public FoojayClient()
@@ -57,9 +70,42 @@ public class FoojayClient
         return apiClient;
     }
 
+    /**
+     * @return the base URI of the Foojay server this client talks to.
+     */
+    public String getBaseUri()
+    {
+        return apiClient.getBaseUri();
+    }
+
     public static ApiClient createDefaultApiClient()
     {
-        ApiClient apiClient = new ApiClient();
+        return configureApiClient(new ApiClient());
+    }
+
+    /**
+     * Creates an API client that caches responses on disk and revalidates them with conditional requests, so that repeated requests for data that
+     * has not changed only cost a small round-trip.
+     *
+     * @param responseCache the cache to store responses in.
+     *
+     * @return the API client.
+     */
+    public static ApiClient createCachingApiClient(FoojayResponseCache responseCache)
+    {
+        Objects.requireNonNull(responseCache);
+        return configureApiClient(new ApiClient()
+        {
+            @Override
+            public HttpClient getHttpClient()
+            {
+                return new ConditionalCachingHttpClient(super.getHttpClient(), responseCache);
+            }
+        });
+    }
+
+    private static ApiClient configureApiClient(ApiClient apiClient)
+    {
         ObjectMapper om = apiClient.getObjectMapper().registerModule(new SimpleModule()
                         .addDeserializer(OperatingSystem.class, new ApiEnumDeserializer<>(OperatingSystem::fromText))
                         .addDeserializer(Architecture.class, new ApiEnumDeserializer<>(Architecture::fromText))
@@ -107,6 +153,28 @@ public class FoojayClient
             return typedResponse.getResult();
     }
 
+    /**
+     * Reads download details of a single package.
+     *
+     * @param packageId the ID of the package.
+     *
+     * @return package download details, or null if the server returned none.
+     *
+     * @throws ApiException if an error occurs.
+     */
+    public JdkPackageInfo getPackageInfo(String packageId)
+    throws ApiException
+    {
+        Object rawResponse = api.getPackageV3(packageId);
+
+        JdkPackageInfoResponse typedResponse = apiClient.getObjectMapper().convertValue(rawResponse, JdkPackageInfoResponse.class);
+
+        if (typedResponse.getResult() == null || typedResponse.getResult().isEmpty())
+            return null;
+        else
+            return typedResponse.getResult().get(0);
+    }
+
     private List<? extends MajorVersion> getAllMajorVersionsUsingFallback()
     throws ApiException
     {
@@ -209,34 +277,125 @@ public class FoojayClient
     )
     throws ApiException
     {
-        Object rawResponse = api.getJDKPackagesV3(
-                version,
-                jdkVersion,
-                distro,
-                distribution,
-                apiValuesToString(architecture),
-                apiValuesToString(fpu),
-                apiValuesToString(archiveType),
-                apiValuesToString(operatingSystem),
-                apiValuesToString(libcType),
-                apiValuesToString(libCType),
-                apiValuesToString(releaseStatus),
-                javafxBundled,
-                withJavafxIfAvailable,
-                latest == null ? null : latest.getApiString(),
-                signatureAvailable,
-                freeToUseInProduction,
-                tckTested,
-                aqavitCertified,
-                match
-        );
-
-        JdkPackagesResponse typedResponse = apiClient.getObjectMapper().convertValue(rawResponse, JdkPackagesResponse.class);
+        return getJdkPackages(version, jdkVersion, distro, distribution, architecture, fpu, archiveType, operatingSystem, libcType, libCType,
+                              releaseStatus, javafxBundled, withJavafxIfAvailable, latest, signatureAvailable, freeToUseInProduction, tckTested,
+                              aqavitCertified, match, null);
+    }
 
-        if (typedResponse.getResult() == null)
-            return List.of();
-        else
-            return typedResponse.getResult();
+    /**
+     * Searches for JDK packages.  The response is read as a stream and packages that don't pass the filter are discarded as they are read.
+     *
+     * @param packageFilter client-side filter for packages, or null to return all packages.
+     *
+     * @return packages that were found and passed the filter.
+     *
+     * @throws ApiException if an error occurs.
+     */
+    public List<? extends JdkPackage> getJdkPackages(
+            String version,
+            Integer jdkVersion,
+            List<String> distro,
+            List<String> distribution,
+            Collection<Architecture> architecture,
+            Collection<FPU> fpu,
+            Collection<ArchiveType> archiveType,
+            Collection<OperatingSystem> operatingSystem,
+            Collection<LibCType> libcType,
+            Collection<LibCType> libCType,
+            Collection<ReleaseStatus> releaseStatus,
+            Boolean javafxBundled,
+            Boolean withJavafxIfAvailable,
+            Latest latest,
+            Boolean signatureAvailable,
+            Boolean freeToUseInProduction,
+            String tckTested,
+            String aqavitCertified,
+            String match,
+            JdkPackageFilter packageFilter
+    )
+    throws ApiException
+    {
+        //Same query parameters in the same order as the generated client would use
+        List<Pair> queryParams = new ArrayList<>();
+        queryParams.addAll(ApiClient.parameterToPairs("version", version));
+        queryParams.addAll(ApiClient.parameterToPairs("jdk_version", jdkVersion));
+        queryParams.addAll(ApiClient.parameterToPairs("multi", "distro", distro));
+        queryParams.addAll(ApiClient.parameterToPairs("multi", "distribution", distribution));
+        queryParams.addAll(ApiClient.parameterToPairs("multi", "architecture", apiValuesToString(architecture)));
+        queryParams.addAll(ApiClient.parameterToPairs("multi", "fpu", apiValuesToString(fpu)));
+        queryParams.addAll(ApiClient.parameterToPairs("multi", "archive_type", apiValuesToString(archiveType)));
+        queryParams.addAll(ApiClient.parameterToPairs("multi", "operating_system", apiValuesToString(operatingSystem)));
+        queryParams.addAll(ApiClient.parameterToPairs("multi", "libc_type", apiValuesToString(libcType)));
+        queryParams.addAll(ApiClient.parameterToPairs("multi", "lib_c_type", apiValuesToString(libCType)));
+        queryParams.addAll(ApiClient.parameterToPairs("multi", "release_status", apiValuesToString(releaseStatus)));
+        queryParams.addAll(ApiClient.parameterToPairs("javafx_bundled", javafxBundled));
+        queryParams.addAll(ApiClient.parameterToPairs("with_javafx_if_available", withJavafxIfAvailable));
+        queryParams.addAll(ApiClient.parameterToPairs("latest", latest == null ? null : latest.getApiString()));
+        queryParams.addAll(ApiClient.parameterToPairs("signature_available", signatureAvailable));
+        queryParams.addAll(ApiClient.parameterToPairs("free_to_use_in_production", freeToUseInProduction));
+        queryParams.addAll(ApiClient.parameterToPairs("tck_tested", tckTested));
+        queryParams.addAll(ApiClient.parameterToPairs("aqavit_certified", aqavitCertified));
+        queryParams.addAll(ApiClient.parameterToPairs("match", match));
+
+        return readStreaming("getJDKPackagesV3", "/disco/v3.0/packages/jdks", queryParams, new JdkPackagesStreamReader(packageFilter)::readPackages);
+    }
+
+    /**
+     * Performs a GET request against the API, reading the response with a streaming parser rather than binding it as a whole.
+     */
+    private <T> T readStreaming(String operationId, String path, List<Pair> queryParams, StreamingResponseReader<T> reader)
+    throws ApiException
+    {
+        StringJoiner queryJoiner = new StringJoiner("&");
+        queryParams.forEach(p -> queryJoiner.add(p.getName() + '=' + p.getValue()));
+        String query = queryJoiner.toString();
+        URI uri = URI.create(apiClient.getBaseUri() + path + (query.isEmpty() ? "" : "?" + query));
+
+        HttpRequest.Builder requestBuilder = HttpRequest.newBuilder(uri)
+                                                        .header("Accept", "application/json")
+                                                        .GET();
+        if (apiClient.getReadTimeout() != null)
+            requestBuilder.timeout(apiClient.getReadTimeout());
+        if (apiClient.getRequestInterceptor() != null)
+            apiClient.getRequestInterceptor().accept(requestBuilder);
+
+        try
+        {
+            HttpResponse<InputStream> response = httpClient.send(requestBuilder.build(), HttpResponse.BodyHandlers.ofInputStream());
+            if (apiClient.getResponseInterceptor() != null)
+                apiClient.getResponseInterceptor().accept(response);
+
+            try (InputStream body = response.body())
+            {
+                if (response.statusCode() / 100 != 2)
+                {
+                    String errorBody = body == null ? null : new String(body.readAllBytes(), StandardCharsets.UTF_8);
+                    throw new ApiException(response.statusCode(), operationId + " call failed with: " + response.statusCode() + " - " + errorBody,
+                                           response.headers(), errorBody);
+                }
+
+                try (JsonParser parser = apiClient.getObjectMapper().createParser(body))
+                {
+                    return reader.read(parser);
+                }
+            }
+        }
+        catch (IOException e)
+        {
+            throw new ApiException(e);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new ApiException(e);
+        }
+    }
+
+    @FunctionalInterface
+    private static interface StreamingResponseReader<T>
+    {
+        public T read(JsonParser parser)
+        throws IOException;
     }
 
     private <T extends Api> List<String> apiValuesToString(Collection<T> apiValues)
@@ -0,0 +1,117 @@
+package au.net.causal.maven.plugins.autojdk.foojay;
+
+import au.net.causal.maven.plugins.autojdk.ExceptionalSupplier;
+import au.net.causal.maven.plugins.autojdk.foojay.openapi.handler.ApiException;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers Foojay metadata that hardly ever changes, such as distributions and their synonyms and the available major versions, so that it is
+ * only requested from the server once rather than on every search.
+ * <p>
+ *
+ * A single {@linkplain #shared() shared memo} is used by all Foojay repositories in the JVM, so long-lived Maven processes reuse metadata
+ * across builds.  Metadata is forgotten after a time-to-live so that these processes still eventually see new distributions and versions.
+ * Values are remembered separately for each Foojay server.  Failed requests are not remembered.
+ */
+public class FoojayMetadataMemo
+{
+    public static final Duration DEFAULT_TIME_TO_LIVE = Duration.ofHours(1);
+
+    private static final FoojayMetadataMemo shared = new FoojayMetadataMemo(DEFAULT_TIME_TO_LIVE, Clock.systemUTC());
+
+    private final Duration timeToLive;
+    private final Clock clock;
+    private final Map<String, Memo<?>> memos = new ConcurrentHashMap<>();
+
+    /**
+     * @param timeToLive how long values are remembered for.
+     * @param clock clock used for expiring values.
+     */
+    public FoojayMetadataMemo(Duration timeToLive, Clock clock)
+    {
+        this.timeToLive = Objects.requireNonNull(timeToLive);
+        this.clock = Objects.requireNonNull(clock);
+    }
+
+    /**
+     * @return the memo shared by everything in this JVM.
+     */
+    public static FoojayMetadataMemo shared()
+    {
+        return shared;
+    }
+
+    /**
+     * Reads all distributions along with their synonyms.  Versions of the distributions are not included.
+     *
+     * @param foojayClient client used to read distributions if they are not already known.
+     *
+     * @return an unmodifiable list of distributions.
+     *
+     * @throws ApiException if an error occurs reading distributions.
+     */
+    public List<? extends JdkDistribution> getDistributionsWithSynonyms(FoojayClient foojayClient)
+    throws ApiException
+    {
+        return memoized(foojayClient, "distributionsWithSynonyms", () -> List.copyOf(foojayClient.getDistributions(false, true, null)));
+    }
+
+    /**
+     * Reads all available major versions.
+     *
+     * @param foojayClient client used to read major versions if they are not already known.
+     *
+     * @return an unmodifiable list of major versions.
+     *
+     * @throws ApiException if an error occurs reading major versions.
+     */
+    public List<? extends MajorVersion> getAllMajorVersions(FoojayClient foojayClient)
+    throws ApiException
+    {
+        return memoized(foojayClient, "majorVersions", () -> List.copyOf(foojayClient.getAllMajorVersions()));
+    }
+
+    /**
+     * Forgets everything remembered so far.
+     */
+    public void clear()
+    {
+        memos.clear();
+    }
+
+    private <T> T memoized(FoojayClient foojayClient, String query, ExceptionalSupplier<T, ApiException> loader)
+    throws ApiException
+    {
+        String key = foojayClient.getBaseUri() + " " + query;
+        Instant now = clock.instant();
+
+        @SuppressWarnings("unchecked")
+        Memo<T> memo = (Memo<T>)memos.get(key);
+        if (memo != null && now.isBefore(memo.expiresAt))
+            return memo.value;
+
+        //Concurrent loads of the same value may both go to the server, which is harmless
+        T value = loader.get();
+        memos.put(key, new Memo<>(value, now.plus(timeToLive)));
+        return value;
+    }
+
+    private static class Memo<T>
+    {
+        private final T value;
+        private final Instant expiresAt;
+
+        public Memo(T value, Instant expiresAt)
+        {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -4,109 +4,295 @@ import au.net.causal.maven.plugins.autojdk.xml.metadata.ArchiveType;
 import au.net.causal.maven.plugins.autojdk.JdkArtifact;
 import au.net.causal.maven.plugins.autojdk.xml.metadata.ReleaseType;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 import eu.hansolo.jdktools.Architecture;
+import eu.hansolo.jdktools.LibCType;
 import eu.hansolo.jdktools.OperatingSystem;
 import eu.hansolo.jdktools.ReleaseStatus;
 import org.apache.maven.artifact.versioning.ArtifactVersion;
 import org.apache.maven.artifact.versioning.DefaultArtifactVersion;
 
-import java.util.Objects;
+import java.net.URI;
+import java.util.StringJoiner;
 
+/**
+ * A JDK package found in Foojay.
+ * <p>
+ *
+ * Wide searches can produce thousands of these, so only the package properties AutoJDK uses are kept rather than the whole package.
+ * Distribution names and Java versions repeat across many packages and are shared, parsed versions are shared between all packages with the
+ * same Java version, and the download link is only turned into a URI when it is actually downloaded.
+ */
 public class FoojayOpenApiArtifact implements JdkArtifact
 {
-    private final JdkPackage jdkPackage;
+    private static final Interner<String> strings = Interners.newWeakInterner();
+
+    //The same versions are translated over and over for every package and distribution, so only do it once per raw version string
+    private static final LoadingCache<String, ArtifactVersion> versions = CacheBuilder.newBuilder()
+                                                                                      .maximumSize(4096)
+                                                                                      .build(CacheLoader.from(v -> new DefaultArtifactVersion(mavenSafeVersionString(v))));
+
+    private final String id;
+    private final String distribution;
+    private final String javaVersion;
+    private final ArtifactVersion version;
+    private final Architecture architecture;
+    private final OperatingSystem operatingSystem;
+    private final ArchiveType archiveType;
+    private final ReleaseType releaseType;
+    private final LibCType libCType;
+    private final Boolean javafxBundled;
+    private final String downloadRedirect;
 
     public FoojayOpenApiArtifact(JdkPackage jdkPackage)
     {
-        this.jdkPackage = Objects.requireNonNull(jdkPackage);
+        this.id = jdkPackage.getId();
+        this.distribution = intern(jdkPackage.getDistribution());
+        this.javaVersion = intern(jdkPackage.getJavaVersion());
+        this.version = javaVersion == null ? null : mavenSafeVersionFromPkgVersion(javaVersion);
+        this.architecture = jdkPackage.getArchitecture();
+        this.operatingSystem = jdkPackage.getOperatingSystem();
+        this.archiveType = archiveType(jdkPackage.getArchiveType());
+        this.releaseType = jdkPackage.getReleaseStatus() == ReleaseStatus.EA ? ReleaseType.EA : ReleaseType.GA;
+        this.libCType = jdkPackage.getLibCType();
+        this.javafxBundled = jdkPackage.getJavafxBundled();
+        this.downloadRedirect = jdkPackage.getLinks() == null ? null : jdkPackage.getLinks().getPkgDownloadRedirectText();
+    }
+
+    private static String intern(String s)
+    {
+        return s == null ? null : strings.intern(s);
     }
 
-    public JdkPackage getJdkPackage()
+    private static ArchiveType archiveType(eu.hansolo.jdktools.ArchiveType foojayArchiveType)
+    {
+        if (foojayArchiveType == null)
+            return null;
+
+        switch (foojayArchiveType)
+        {
+            case ZIP:
+                return ArchiveType.ZIP;
+            case TAR_GZ:
+                return ArchiveType.TAR_GZ;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * @return the Foojay package ID.
+     */
+    public String getId()
+    {
+        return id;
+    }
+
+    /**
+     * @return the Foojay package ID, which identifies the exact archive including its C library and whether JavaFX is bundled.
+     */
+    @Override
+    public String getArchiveId()
+    {
+        return id;
+    }
+
+    /**
+     * @return the Java version as Foojay reports it, before translating it to a Maven version.
+     */
+    public String getJavaVersion()
+    {
+        return javaVersion;
+    }
+
+    public LibCType getLibCType()
+    {
+        return libCType;
+    }
+
+    public Boolean getJavafxBundled()
+    {
+        return javafxBundled;
+    }
+
+    /**
+     * @return the URI the package can be downloaded from, or null if Foojay did not provide one.
+     *
+     * @throws IllegalArgumentException if Foojay provided an invalid URI.
+     */
+    public URI getDownloadUri()
     {
-        return jdkPackage;
+        return downloadRedirect == null ? null : URI.create(downloadRedirect);
     }
 
     @Override
     public String getVendor()
     {
-        return getJdkPackage().getDistribution();
+        return distribution;
     }
 
     @Override
     public ArtifactVersion getVersion()
     {
-        return mavenSafeVersionFromPkgVersion(getJdkPackage().getJavaVersion());
+        return version;
     }
 
     /**
-     * Translate '+' to '-' because Maven really doesn't deal with '+' in version numbers well.
+     * Translates a Foojay version into a Maven version.  Results are cached, so the returned version is shared and must not be modified.
+     *
+     * @param pkgVersion the version as Foojay reports it, such as '17.0.3+7'.
+     *
+     * @return the Maven version.
+     */
+    static ArtifactVersion mavenSafeVersionFromPkgVersion(String pkgVersion)
+    {
+        return versions.getUnchecked(pkgVersion);
+    }
+
+    /**
+     * Translate '+' to '-' because Maven really doesn't deal with '+' in version numbers well, and if Maven still can't make sense of the
+     * version, translate the last '.' into '-' as well so versions with too many parts like '11.0.9.1' still get a major version.
+     * <p>
+     *
+     * Whether Maven can read the major version is worked out by scanning the string rather than parsing each candidate into a Maven version.
      * TODO duplicated in FoojayArtifact
      */
     @VisibleForTesting
-    static ArtifactVersion mavenSafeVersionFromPkgVersion(String pkgVersion)
+    static String mavenSafeVersionString(String pkgVersion)
     {
         //Maven cannot handle '+' in versions well
-        pkgVersion = pkgVersion.replace('+', '-');
+        String version = pkgVersion.replace('+', '-');
+        if (hasMavenMajorVersion(version))
+            return version;
 
-        String curVersion = pkgVersion;
+        int lastDotIndex = version.lastIndexOf('.');
+        if (lastDotIndex >= 0)
+        {
+            String dashedVersion = version.substring(0, lastDotIndex) + "-" + version.substring(lastDotIndex + 1);
+            if (hasMavenMajorVersion(dashedVersion))
+                return dashedVersion;
+        }
+
+        //Just simply failed to parse, so give up and just use original
+        return version;
+    }
 
-        //Keep translating the nth last '.' into '-' until it parses into a proper Maven version
-        int nthLastDotIndex = pkgVersion.length();
-        ArtifactVersion v;
-        do
+    /**
+     * Follows the rules of Maven's {@link DefaultArtifactVersion} to work out if it would parse a version with a non-zero major version.
+     * Maven only looks at the part before the first '-', which is split into up to 3 numeric parts and an optional non-numeric qualifier.
+     * Anything else makes Maven treat the whole version as a qualifier.
+     */
+    private static boolean hasMavenMajorVersion(String version)
+    {
+        int end = version.indexOf('-');
+        if (end < 0)
+            end = version.length();
+
+        boolean remainingPartsValid = true;
+        int partIndex = 0;
+        int partStart = 0;
+        for (int i = 0; i <= end; i++)
         {
-            v = new DefaultArtifactVersion(curVersion);
-            if (v.getMajorVersion() != 0) //It parsed OK
-                return v;
+            if (i < end && version.charAt(i) != '.')
+                continue;
+
+            //Empty parts, such as in '17..1' or '.17', are never valid
+            if (i == partStart)
+                return false;
 
-            nthLastDotIndex = pkgVersion.lastIndexOf('.', nthLastDotIndex);
-            if (nthLastDotIndex >= 0)
-                curVersion = pkgVersion.substring(0, nthLastDotIndex) + "-" + pkgVersion.substring(nthLastDotIndex + 1);
+            if (partIndex == 0)
+            {
+                if (integerPartValue(version, partStart, i) <= 0)
+                    return false;
+            }
+            else if (partIndex < 3)
+                remainingPartsValid = remainingPartsValid && integerPartValue(version, partStart, i) >= 0;
+            else if (partIndex == 3)
+                remainingPartsValid = !isDigits(version, partStart, i); //Qualifier replaces the validity of the other parts, just like Maven
+
+            partIndex++;
+            partStart = i + 1;
         }
-        while (v.getMajorVersion() == 0 && nthLastDotIndex >= 0);
 
-        //If we get here it just simply failed to parse, so give up and just use original
-        return new DefaultArtifactVersion(pkgVersion);
+        return remainingPartsValid;
+    }
+
+    /**
+     * @return the value of a numeric version part, or -1 if Maven would not accept it as a number because it is not numeric, has a leading zero
+     *         or is too large.
+     */
+    private static long integerPartValue(String version, int start, int end)
+    {
+        if (end - start > 1 && version.charAt(start) == '0')
+            return -1L;
+
+        long value = 0L;
+        for (int i = start; i < end; i++)
+        {
+            int digit = Character.digit(version.charAt(i), 10);
+            if (digit < 0)
+                return -1L;
+
+            value = value * 10L + digit;
+            if (value > Integer.MAX_VALUE)
+                return -1L;
+        }
+
+        return value;
+    }
+
+    private static boolean isDigits(String version, int start, int end)
+    {
+        for (int i = start; i < end; i++)
+        {
+            if (!Character.isDigit(version.charAt(i)))
+                return false;
+        }
+
+        return end > start;
     }
 
     @Override
     public Architecture getArchitecture()
     {
-        return getJdkPackage().getArchitecture();
+        return architecture;
     }
 
     @Override
     public OperatingSystem getOperatingSystem()
     {
-        return getJdkPackage().getOperatingSystem();
+        return operatingSystem;
     }
 
     @Override
     public ArchiveType getArchiveType()
     {
-        switch (getJdkPackage().getArchiveType())
-        {
-            case ZIP:
-                return ArchiveType.ZIP;
-            case TAR_GZ:
-                return ArchiveType.TAR_GZ;
-            default:
-                return null;
-        }
+        return archiveType;
     }
 
     @Override
     public ReleaseType getReleaseType()
     {
-        if (getJdkPackage().getReleaseStatus() == ReleaseStatus.EA)
-            return ReleaseType.EA;
-        else
-            return ReleaseType.GA;
+        return releaseType;
     }
 
     @Override
     public String toString()
     {
-        return "Foojay OpenAPI repository download:" + getJdkPackage().toString();
+        return "Foojay OpenAPI repository download:" + new StringJoiner(", ", "[", "]")
+                .add("id='" + id + "'")
+                .add("distribution='" + distribution + "'")
+                .add("javaVersion='" + javaVersion + "'")
+                .add("architecture=" + (architecture == null ? null : architecture.getApiString()))
+                .add("operatingSystem=" + (operatingSystem == null ? null : operatingSystem.getApiString()))
+                .add("archiveType=" + archiveType)
+                .add("releaseType=" + releaseType)
+                .add("libCType=" + (libCType == null ? null : libCType.getApiString()))
+                .add("javafxBundled=" + javafxBundled)
+                .toString();
     }
 }
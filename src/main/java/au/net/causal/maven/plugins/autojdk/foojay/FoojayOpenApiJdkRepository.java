@@ -1,21 +1,22 @@
 package au.net.causal.maven.plugins.autojdk.foojay;
 
+import au.net.causal.maven.plugins.autojdk.DaemonExecutors;
 import au.net.causal.maven.plugins.autojdk.FileDownloader;
 import au.net.causal.maven.plugins.autojdk.JdkArchive;
 import au.net.causal.maven.plugins.autojdk.JdkArchiveRepository;
 import au.net.causal.maven.plugins.autojdk.JdkRepositoryException;
 import au.net.causal.maven.plugins.autojdk.JdkSearchRequest;
+import au.net.causal.maven.plugins.autojdk.ToolchainVersionMatcher;
 import au.net.causal.maven.plugins.autojdk.VersionTools;
 import au.net.causal.maven.plugins.autojdk.foojay.openapi.handler.ApiException;
+import com.google.common.base.Throwables;
 import eu.hansolo.jdktools.ArchiveType;
 import eu.hansolo.jdktools.Latest;
-import eu.hansolo.jdktools.LibCType;
 import eu.hansolo.jdktools.ReleaseStatus;
 import eu.hansolo.jdktools.util.OutputFormat;
 import eu.hansolo.jdktools.versioning.VersionNumber;
 import org.apache.maven.artifact.versioning.Restriction;
 import org.apache.maven.artifact.versioning.VersionRange;
-import org.apache.maven.toolchain.RequirementMatcherFactory;
 
 import java.io.IOException;
 import java.net.MalformedURLException;
@@ -30,17 +31,64 @@ import java.util.List;
 import java.util.Objects;
 import java.util.Set;
 import java.util.StringJoiner;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class FoojayOpenApiJdkRepository implements JdkArchiveRepository<FoojayOpenApiArtifact>
 {
+    /**
+     * Maximum number of searches run against the Foojay server at the same time across all repositories.
+     */
+    public static final int SEARCH_PARALLELISM = 4;
+
+    private static final ExecutorService sharedSearchExecutor = DaemonExecutors.newFixedDaemonThreadPool("autojdk-foojay-search-%d", SEARCH_PARALLELISM);
+
     private final FoojayClient foojayClient;
     private final FileDownloader fileDownloader;
+    private final FoojayMetadataMemo metadataMemo;
+    private final ExecutorService searchExecutor;
+    private final FoojayQueryPlanner queryPlanner;
 
+    /**
+     * Creates a repository that always uses full queries.
+     */
     public FoojayOpenApiJdkRepository(FoojayClient foojayClient, FileDownloader fileDownloader)
+    {
+        this(foojayClient, fileDownloader, FoojayMetadataMemo.shared());
+    }
+
+    /**
+     * Creates a repository that always uses full queries.
+     */
+    public FoojayOpenApiJdkRepository(FoojayClient foojayClient, FileDownloader fileDownloader, FoojayMetadataMemo metadataMemo)
+    {
+        this(foojayClient, fileDownloader, metadataMemo, FoojayQueryPlanner.fullQueries());
+    }
+
+    public FoojayOpenApiJdkRepository(FoojayClient foojayClient, FileDownloader fileDownloader, FoojayMetadataMemo metadataMemo, FoojayQueryPlanner queryPlanner)
+    {
+        this(foojayClient, fileDownloader, metadataMemo, queryPlanner, sharedSearchExecutor);
+    }
+
+    /**
+     * @param foojayClient client for talking to the Foojay server.
+     * @param fileDownloader downloads JDK archives.
+     * @param metadataMemo remembers distributions and major versions so they are not re-read on every search.
+     * @param queryPlanner plans cheaper queries where they can't miss a match.
+     * @param searchExecutor runs searches for multiple major versions concurrently.  Its number of threads bounds how many run at once.
+     */
+    public FoojayOpenApiJdkRepository(FoojayClient foojayClient, FileDownloader fileDownloader, FoojayMetadataMemo metadataMemo,
+                                      FoojayQueryPlanner queryPlanner, ExecutorService searchExecutor)
     {
         this.foojayClient = Objects.requireNonNull(foojayClient);
         this.fileDownloader = Objects.requireNonNull(fileDownloader);
+        this.metadataMemo = Objects.requireNonNull(metadataMemo);
+        this.queryPlanner = Objects.requireNonNull(queryPlanner);
+        this.searchExecutor = Objects.requireNonNull(searchExecutor);
     }
 
     /**
@@ -60,8 +108,15 @@ public class FoojayOpenApiJdkRepository implements JdkArchiveRepository<FoojayOp
         if (vendorName == null)
             return null;
 
+        return vendorSynonyms(vendorName, metadataMemo.getDistributionsWithSynonyms(foojayClient));
+    }
+
+    /**
+     * @return the API names and synonyms of all distributions that have the given vendor name as their API name or a synonym.
+     */
+    static Set<String> vendorSynonyms(String vendorName, List<? extends JdkDistribution> distributions)
+    {
         Set<String> vendorAllowSet = new HashSet<>();
-        List<? extends JdkDistribution> distributions = foojayClient.getDistributions(false, true, null);
         for (JdkDistribution distribution : distributions)
         {
             if (vendorName.equals(distribution.getApiParameter()) || distribution.getSynonyms().contains(vendorName))
@@ -102,52 +157,33 @@ public class FoojayOpenApiJdkRepository implements JdkArchiveRepository<FoojayOp
         {
             //If there is a vendor restriction in the search, need to grab them and their synonyms
             Set<String> vendorAndSynonyms = vendorSynonyms(searchRequest.getVendor());
+            ToolchainVersionMatcher versionMatcher = new ToolchainVersionMatcher(searchRequest.getVersionRange());
 
-            for (VersionNumberAndLatest vlCriteria : foojaySearch)
+            //Try a cheaper search first if there is one
+            List<VersionNumberAndLatest> restrictedSearch = queryPlanner.planRestrictedSearch(searchRequest, foojaySearch);
+            if (restrictedSearch != null)
             {
-                String versionString = vlCriteria.getVersionNumber().toString(OutputFormat.REDUCED_COMPRESSED, true, true);
-                List<? extends JdkPackage> searchResults = foojayClient.getJdkPackages(
-                        versionString,
-                        null,
-                        singleItemList(searchRequest.getVendor()),
-                        singleItemList(searchRequest.getVendor()),
-                        singleItemList(searchRequest.getArchitecture()),
-                        null,
-                        List.of(ArchiveType.ZIP, ArchiveType.TAR_GZ),
-                        singleItemList(searchRequest.getOperatingSystem()),
-                        null,
-                        null,
-                        releaseStatuses,
-                        null,
-                        null,
-                        vlCriteria.getLatest(),
-                        null,
-                        true,
-                        null,
-                        null,
-                        null);
-
-                List<FoojayOpenApiArtifact> results = searchResults.stream()
-                                                                   //Unknown vendor/distribution turn into wildcard search for some strange reason so also filter client-side just in case
-                                                                   .filter(pkg -> vendorAndSynonyms == null || vendorAndSynonyms.contains(pkg.getDistribution()))
-                                                                   .filter(pkg -> pkgMatchesVersionRange(pkg, searchRequest.getVersionRange()))
-                                                                   .filter(pkg -> pkgMatchesLibCType(pkg, searchRequest.getOperatingSystem() == null ? null
-                                                                                                                                                     : searchRequest.getOperatingSystem()
-                                                                                                                                                                    .getLibCType()))
-                                                                   //Exclude GraalVM builds, their versioning is wonky
-                                                                   .filter(pkg -> !isGraalMismatchedVersioning(pkg))
-                                                                   .map(FoojayOpenApiArtifact::new)
-                                                                   .filter(artifact -> artifact.getArchiveType() != null) //Any not-understood archive type is discarded
-                                                                   .collect(Collectors.toList());
-
-                //If we have at least one result after filtering, use that
-                //Otherwise go to the next iteration / search number which might get more results
-                if (!results.isEmpty())
+                SearchStatistics restrictedStatistics = new SearchStatistics();
+                List<FoojayOpenApiArtifact> results = searchInPriorityOrder(restrictedSearch, searchRequest, releaseStatuses, vendorAndSynonyms, versionMatcher,
+                                                                            restrictedStatistics);
+
+                //Vendors whose latest packages were all removed by client-side filtering might have usable older packages
+                Set<String> emptiedDistributions = restrictedStatistics.getEmptiedDistributions();
+                if (results.isEmpty())
+                    queryPlanner.recordFallbackSearch(searchRequest, "found nothing", restrictedStatistics.getResponseBytes());
+                else if (!emptiedDistributions.isEmpty())
+                    queryPlanner.recordFallbackSearch(searchRequest, "filtered out all latest packages of " + emptiedDistributions, restrictedStatistics.getResponseBytes());
+                else
+                {
+                    queryPlanner.recordRestrictedSearch(searchRequest, restrictedSearch.size(), foojaySearch.size(), results.size(), restrictedStatistics.getResponseBytes());
                     return results;
+                }
             }
 
-            //If we get here no searches found anything
-            return Collections.emptyList();
+            SearchStatistics fullStatistics = new SearchStatistics();
+            List<FoojayOpenApiArtifact> results = searchInPriorityOrder(foojaySearch, searchRequest, releaseStatuses, vendorAndSynonyms, versionMatcher, fullStatistics);
+            queryPlanner.recordFullSearch(fullStatistics.getQueryCount(), fullStatistics.getResponseBytes());
+            return results;
         }
         catch (ApiException e)
         {
@@ -155,31 +191,171 @@ public class FoojayOpenApiJdkRepository implements JdkArchiveRepository<FoojayOp
         }
     }
 
-    private boolean isGraalMismatchedVersioning(JdkPackage p)
+    /**
+     * Performs searches for each criteria, returning the results of the first criteria in order that has any.
+     *
+     * @param statistics collects the sizes of responses and which distributions were emptied by client-side filtering.
+     */
+    private List<FoojayOpenApiArtifact> searchInPriorityOrder(List<VersionNumberAndLatest> foojaySearch, JdkSearchRequest searchRequest,
+                                                              List<ReleaseStatus> releaseStatuses, Set<String> vendorAndSynonyms,
+                                                              ToolchainVersionMatcher versionMatcher, SearchStatistics statistics)
+    throws ApiException, JdkRepositoryException
     {
-        //GraalVM JDK versioning is just broken sometimes.
-        //Sometimes the major version and the JDK version do not match - so detect this
-        return p.getMajorVersion() != null && p.getJdkVersion() != null && !p.getMajorVersion().equals(p.getJdkVersion());
-    }
+        if (foojaySearch.size() > 1)
+            return searchConcurrently(foojaySearch, searchRequest, releaseStatuses, vendorAndSynonyms, versionMatcher, statistics);
 
-    private boolean pkgMatchesVersionRange(JdkPackage pkg, VersionRange searchVersionRange)
-    {
-        FoojayOpenApiArtifact artifactForPackage = new FoojayOpenApiArtifact(pkg);
-        String javaVersionString = artifactForPackage.getVersion().toString(); //Version number translation happens in FoojayOpenApiArtifact
-        return RequirementMatcherFactory.createVersionMatcher(javaVersionString).matches(searchVersionRange.toString());
+        for (VersionNumberAndLatest vlCriteria : foojaySearch)
+        {
+            List<FoojayOpenApiArtifact> results = searchPackages(vlCriteria, searchRequest, releaseStatuses, vendorAndSynonyms, versionMatcher, statistics);
+
+            //If we have at least one result after filtering, use that
+            //Otherwise go to the next iteration / search number which might get more results
+            if (!results.isEmpty())
+                return results;
+        }
+
+        //If we get here no searches found anything
+        return Collections.emptyList();
     }
 
     /**
-     * Noticed that sometimes search results contain libc's that don't match the operating system's.  a JDK using musl on Ubuntu which is glibc won't run so
-     * these results need to be filtered out.
+     * Searches multiple version criteria at the same time, returning the results of the first criteria in order that has any.  Searches for
+     * later criteria are cancelled once an earlier one has results.
      */
-    private boolean pkgMatchesLibCType(JdkPackage pkg, LibCType requiredLibCType)
+    private List<FoojayOpenApiArtifact> searchConcurrently(List<VersionNumberAndLatest> foojaySearch, JdkSearchRequest searchRequest,
+                                                           List<ReleaseStatus> releaseStatuses, Set<String> vendorAndSynonyms,
+                                                           ToolchainVersionMatcher versionMatcher, SearchStatistics statistics)
+    throws ApiException, JdkRepositoryException
     {
-        //If there is no libc type just assume match since we can't check
-        if (requiredLibCType == null || pkg.getLibCType() == null)
-            return true;
+        List<Future<List<FoojayOpenApiArtifact>>> searches = new ArrayList<>(foojaySearch.size());
+        try
+        {
+            //Submitted in priority order so the executor's bounded threads work on the most likely matches first
+            for (VersionNumberAndLatest vlCriteria : foojaySearch)
+            {
+                searches.add(searchExecutor.submit(() -> searchPackages(vlCriteria, searchRequest, releaseStatuses, vendorAndSynonyms, versionMatcher,
+                                                                        statistics)));
+            }
 
-        return pkg.getLibCType() == requiredLibCType;
+            //Wait in priority order, same results as searching one at a time
+            for (Future<List<FoojayOpenApiArtifact>> search : searches)
+            {
+                List<FoojayOpenApiArtifact> results = search.get();
+                if (!results.isEmpty())
+                    return results;
+            }
+
+            return Collections.emptyList();
+        }
+        catch (ExecutionException e)
+        {
+            Throwables.throwIfInstanceOf(e.getCause(), ApiException.class);
+            Throwables.throwIfUnchecked(e.getCause());
+            throw new JdkRepositoryException(e.getCause());
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new JdkRepositoryException("Interrupted while searching for JDKs", e);
+        }
+        finally
+        {
+            //Anything still running is lower priority than what was returned
+            for (Future<?> search : searches)
+            {
+                search.cancel(true);
+            }
+        }
+    }
+
+    private List<FoojayOpenApiArtifact> searchPackages(VersionNumberAndLatest vlCriteria, JdkSearchRequest searchRequest, List<ReleaseStatus> releaseStatuses,
+                                                       Set<String> vendorAndSynonyms, ToolchainVersionMatcher versionMatcher, SearchStatistics statistics)
+    throws ApiException
+    {
+        //No version number means no restriction on version
+        String versionString = vlCriteria.getVersionNumber() == null ? null : vlCriteria.getVersionNumber().toString(OutputFormat.REDUCED_COMPRESSED, true, true);
+        List<ArchiveType> archiveTypes = List.of(ArchiveType.ZIP, ArchiveType.TAR_GZ);
+
+        //Unknown vendor/distribution turn into wildcard search for some strange reason so also filter client-side just in case
+        //Noticed that sometimes search results contain libc's that don't match the operating system's.  a JDK using musl on Ubuntu which is glibc
+        //won't run so these results need to be filtered out.
+        //These are filtered while the response is read so rejected packages are never fully decoded
+        JdkPackageFilter packageFilter = new JdkPackageFilter(vendorAndSynonyms,
+                                                              searchRequest.getOperatingSystem() == null ? null : searchRequest.getOperatingSystem().getLibCType(),
+                                                              archiveTypes);
+
+        List<? extends JdkPackage> searchResults = foojayClient.getJdkPackages(
+                versionString,
+                null,
+                singleItemList(searchRequest.getVendor()),
+                singleItemList(searchRequest.getVendor()),
+                singleItemList(searchRequest.getArchitecture()),
+                null,
+                archiveTypes,
+                singleItemList(searchRequest.getOperatingSystem()),
+                null,
+                null,
+                releaseStatuses,
+                null,
+                null,
+                vlCriteria.getLatest(),
+                null,
+                true,
+                null,
+                null,
+                null,
+                packageFilter);
+
+        //Distributions with packages rejected for reasons that an older package of the same distribution might not have
+        Set<String> rejectedDistributions = new HashSet<>(packageFilter.getRejectedDistributions());
+        List<FoojayOpenApiArtifact> results = new ArrayList<>(searchResults.size());
+        for (JdkPackage pkg : searchResults)
+        {
+            //Exclude GraalVM builds, their versioning is wonky
+            if (isGraalMismatchedVersioning(pkg))
+            {
+                rejectedDistributions.add(pkg.getDistribution());
+                continue;
+            }
+
+            //Version number translation happens in FoojayOpenApiArtifact
+            FoojayOpenApiArtifact artifact = new FoojayOpenApiArtifact(pkg);
+            if (!versionMatcher.matches(artifact.getVersion()))
+            {
+                //An older package can only match if this one is not already below the range
+                if (!versionMatcher.isBelowRequirement(artifact.getVersion()))
+                    rejectedDistributions.add(artifact.getVendor());
+
+                continue;
+            }
+
+            //Any not-understood archive type is discarded
+            if (artifact.getArchiveType() == null)
+            {
+                rejectedDistributions.add(artifact.getVendor());
+                continue;
+            }
+
+            results.add(artifact);
+        }
+
+        statistics.recordQuery(packageFilter, rejectedDistributions, results);
+
+        //Searching across all versions, so only keep the highest major version to be consistent with searching one major version at a time
+        if (vlCriteria.getVersionNumber() == null && !results.isEmpty())
+        {
+            int highestMajorVersion = results.stream().mapToInt(artifact -> artifact.getVersion().getMajorVersion()).max().getAsInt();
+            results.removeIf(artifact -> artifact.getVersion().getMajorVersion() != highestMajorVersion);
+        }
+
+        return results;
+    }
+
+    static boolean isGraalMismatchedVersioning(JdkPackage p)
+    {
+        //GraalVM JDK versioning is just broken sometimes.
+        //Sometimes the major version and the JDK version do not match - so detect this
+        return p.getMajorVersion() != null && p.getJdkVersion() != null && !p.getMajorVersion().equals(p.getJdkVersion());
     }
 
     /**
@@ -208,9 +384,8 @@ public class FoojayOpenApiJdkRepository implements JdkArchiveRepository<FoojayOp
             return Collections.singletonList(new VersionNumberAndLatest(new VersionNumber(versionRange.getRecommendedVersion().getMajorVersion()), latest));
         }
 
-        //TODO if we know we are searching for latest of major version (which will be a lot of the time)
-        //   e.g. [17, 18) we could optimize to use Latest.AVAILABLE and get back less stuff, considering we will be picking the highest versions anyway
         //Version range has restrictions / exclusions
+        //FoojayQueryPlanner narrows these down further when only the latest versions are needed
         //Use major version of the first lower bound for the first search, then search everything if that fails (but it's slow!)
         List<VersionNumber> lowerBounds = new ArrayList<>();
         List<VersionNumber> upperBounds = new ArrayList<>();
@@ -242,7 +417,7 @@ public class FoojayOpenApiJdkRepository implements JdkArchiveRepository<FoojayOp
             highestBound = upperBounds.get(upperBounds.size() - 1);
 
         //Now expand for all major versions above what we started with
-        List<? extends MajorVersion> availableMajorVersions = readMajorVersions();
+        List<MajorVersion> availableMajorVersions = new ArrayList<>(readMajorVersions());
         availableMajorVersions.sort(Comparator.comparing(MajorVersion::getMajorVersion));
         for (MajorVersion majorVersion : availableMajorVersions)
         {
@@ -262,7 +437,7 @@ public class FoojayOpenApiJdkRepository implements JdkArchiveRepository<FoojayOp
     {
         try
         {
-            return foojayClient.getAllMajorVersions();
+            return metadataMemo.getAllMajorVersions(foojayClient);
         }
         catch (ApiException e)
         {
@@ -275,10 +450,18 @@ public class FoojayOpenApiJdkRepository implements JdkArchiveRepository<FoojayOp
     throws JdkRepositoryException
     {
         //If we get here, could not find in the local repo so download it and save to local repo
-        if (jdkArtifact.getJdkPackage().getLinks() == null || jdkArtifact.getJdkPackage().getLinks().getPkgDownloadRedirect() == null)
-            throw new JdkRepositoryException("Download information not found for Foojay package " + jdkArtifact.getJdkPackage().getId() + ":" + jdkArtifact.getJdkPackage().getJavaVersion());
+        URI downloadUri;
+        try
+        {
+            downloadUri = jdkArtifact.getDownloadUri();
+        }
+        catch (IllegalArgumentException e)
+        {
+            throw new JdkRepositoryException("Invalid JDK download URL for Foojay package " + jdkArtifact.getId() + ": " + e.getMessage(), e);
+        }
 
-        URI downloadUri = jdkArtifact.getJdkPackage().getLinks().getPkgDownloadRedirect();
+        if (downloadUri == null)
+            throw new JdkRepositoryException("Download information not found for Foojay package " + jdkArtifact.getId() + ":" + jdkArtifact.getJavaVersion());
 
         //Download into local repository
 
@@ -366,4 +549,58 @@ public class FoojayOpenApiJdkRepository implements JdkArchiveRepository<FoojayOp
                     .toString();
         }
     }
+
+    /**
+     * Collects statistics about the package queries of a single search, which may run concurrently.
+     */
+    private static class SearchStatistics
+    {
+        private final Set<String> emptiedDistributions = ConcurrentHashMap.newKeySet();
+        private final AtomicInteger queryCount = new AtomicInteger();
+        private final AtomicLong responseBytes = new AtomicLong();
+
+        /**
+         * Records a completed query.
+         *
+         * @param packageFilter the filter used while reading the query's response.
+         * @param rejectedDistributions distributions with packages that were rejected by client-side filtering for reasons an older package
+         *                              might not have, such as C library or archive type, or a version above the range.
+         * @param results the results of the query after all client-side filtering.
+         */
+        public void recordQuery(JdkPackageFilter packageFilter, Set<String> rejectedDistributions, Collection<? extends FoojayOpenApiArtifact> results)
+        {
+            queryCount.incrementAndGet();
+            if (packageFilter.getResponseSize() > 0L)
+                responseBytes.addAndGet(packageFilter.getResponseSize());
+
+            Set<String> emptied = new HashSet<>(rejectedDistributions);
+            results.forEach(artifact -> emptied.remove(artifact.getVendor()));
+            emptiedDistributions.addAll(emptied);
+        }
+
+        /**
+         * @return distributions that had packages in a response but none left after client-side filtering, where an older package of the
+         *         distribution might have passed the filtering.
+         */
+        public Set<String> getEmptiedDistributions()
+        {
+            return Set.copyOf(emptiedDistributions);
+        }
+
+        /**
+         * @return number of queries that completed.
+         */
+        public int getQueryCount()
+        {
+            return queryCount.get();
+        }
+
+        /**
+         * @return total size in bytes of the responses of completed queries.
+         */
+        public long getResponseBytes()
+        {
+            return responseBytes.get();
+        }
+    }
 }
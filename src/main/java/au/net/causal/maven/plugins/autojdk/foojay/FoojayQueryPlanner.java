@@ -0,0 +1,336 @@
+package au.net.causal.maven.plugins.autojdk.foojay;
+
+import au.net.causal.maven.plugins.autojdk.JdkSearchRequest;
+import au.net.causal.maven.plugins.autojdk.xml.metadata.ReleaseType;
+import eu.hansolo.jdktools.Latest;
+import org.apache.maven.artifact.versioning.ArtifactVersion;
+import org.apache.maven.artifact.versioning.DefaultArtifactVersion;
+import org.apache.maven.artifact.versioning.Restriction;
+import org.apache.maven.artifact.versioning.VersionRange;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.SessionData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Plans cheaper Foojay package queries for searches where only the latest JDKs could possibly be chosen.  Only searches that are marked
+ * {@linkplain JdkSearchRequest#isLatestOnly() latest only}, such as selecting a JDK to install or checking for updates, are restricted.
+ * Other searches, such as listing or mirroring JDKs, always use the full queries since they need every matching package.
+ * <p>
+ *
+ * The full query for a search asks for every package of each candidate major version ({@link Latest#ALL_OF_VERSION}).  But when a version
+ * range covers a whole major version, the most recent package of each distribution for that major version always matches, and since AutoJDK
+ * picks the highest matching version anyway, only the latest packages are needed:
+ * <ul>
+ *     <li>{@link Latest#PER_DISTRIBUTION} for ranges with no upper bound, which gets the latest of every distribution in a single query
+ *         instead of one query per major version</li>
+ *     <li>{@link Latest#PER_VERSION} for a major version when the vendor is known</li>
+ *     <li>{@link Latest#ALL_OF_VERSION} for major versions only partially covered by the range, or when any vendor will do since
+ *         {@link Latest#AVAILABLE} only returns the newest version of any vendor, and AutoJDK prefers vendors before versions</li>
+ * </ul>
+ * The latest packages may still be filtered out on the client side, for example because of an incompatible C library, the vendor's synonyms
+ * or the version range.  If that leaves a vendor with no packages at all, its latest usable package may be one the restricted search never
+ * returned, so the restricted search is only used when every vendor it found still has packages.  A vendor whose latest packages are below the
+ * version range is the exception, since its older packages cannot match either.  Otherwise, or if it finds nothing, the full search is
+ * performed.
+ * <p>
+ *
+ * A planner also keeps statistics on how well restricted searches worked, including the measured sizes of the query responses, so it is
+ * normally shared by all repositories of a Maven session with {@link #forSession(RepositorySystemSession)} and summarized once the session ends.
+ */
+public class FoojayQueryPlanner
+{
+    private static final Logger log = LoggerFactory.getLogger(FoojayQueryPlanner.class);
+
+    private static final String SESSION_DATA_KEY = FoojayQueryPlanner.class.getName();
+
+    private final boolean restrictQueries;
+
+    private final AtomicLong restrictedSearchCount = new AtomicLong();
+    private final AtomicLong fallbackSearchCount = new AtomicLong();
+    private final AtomicLong savedQueryCount = new AtomicLong();
+    private final AtomicLong restrictedPackageCount = new AtomicLong();
+    private final AtomicLong avoidedFullQueryCount = new AtomicLong();
+    private final AtomicLong restrictedResponseBytes = new AtomicLong();
+    private final AtomicLong fallbackResponseBytes = new AtomicLong();
+    private final AtomicLong fullQueryCount = new AtomicLong();
+    private final AtomicLong fullResponseBytes = new AtomicLong();
+
+    /**
+     * Creates a planner that restricts queries where possible.
+     */
+    public FoojayQueryPlanner()
+    {
+        this(true);
+    }
+
+    private FoojayQueryPlanner(boolean restrictQueries)
+    {
+        this.restrictQueries = restrictQueries;
+    }
+
+    /**
+     * @return a planner that never restricts queries, so every search uses the full query.
+     */
+    public static FoojayQueryPlanner fullQueries()
+    {
+        return new FoojayQueryPlanner(false);
+    }
+
+    /**
+     * Retrieves the planner for a repository session, creating and registering one if it does not yet exist.
+     *
+     * @param repoSession the repository session that the planner is scoped to.
+     *
+     * @return the planner for the session, never null.
+     */
+    public static FoojayQueryPlanner forSession(RepositorySystemSession repoSession)
+    {
+        SessionData data = repoSession.getData();
+        Object existing = data.get(SESSION_DATA_KEY);
+        if (existing instanceof FoojayQueryPlanner)
+            return (FoojayQueryPlanner)existing;
+
+        FoojayQueryPlanner planner = new FoojayQueryPlanner();
+
+        //If another thread got in first, use theirs
+        if (!data.set(SESSION_DATA_KEY, existing, planner))
+            return (FoojayQueryPlanner)data.get(SESSION_DATA_KEY);
+
+        return planner;
+    }
+
+    /**
+     * Plans a restricted search.
+     *
+     * @param searchRequest the search request.
+     * @param fullSearch the criteria of the full search, in priority order.
+     *
+     * @return criteria for a restricted search in priority order, or null if there is no cheaper search than the full one.
+     */
+    List<FoojayOpenApiJdkRepository.VersionNumberAndLatest> planRestrictedSearch(JdkSearchRequest searchRequest,
+                                                                                 List<FoojayOpenApiJdkRepository.VersionNumberAndLatest> fullSearch)
+    {
+        //Searches that list JDKs, such as mirroring, need every matching package, not just the latest
+        //EA versions sort before their GA version so range coverage can't be relied on, and without a release type the latest might be EA only
+        if (!restrictQueries || !searchRequest.isLatestOnly() || searchRequest.getReleaseType() != ReleaseType.GA || fullSearch.isEmpty())
+            return null;
+
+        VersionRange versionRange = searchRequest.getVersionRange();
+
+        //Only ranges can cover whole major versions, a recommended version is an exact match
+        if (versionRange.getRecommendedVersion() != null)
+            return null;
+
+        boolean allCovered = true;
+        List<FoojayOpenApiJdkRepository.VersionNumberAndLatest> restrictedSearch = new ArrayList<>(fullSearch.size());
+        for (FoojayOpenApiJdkRepository.VersionNumberAndLatest fullCriteria : fullSearch)
+        {
+            if (fullCriteria.getVersionNumber() != null && coversWholeMajorVersion(versionRange, fullCriteria.getVersionNumber().getFeature().getAsInt()))
+            {
+                //Without a vendor there is no per-vendor latest for a single version
+                if (searchRequest.getVendor() != null)
+                    restrictedSearch.add(new FoojayOpenApiJdkRepository.VersionNumberAndLatest(fullCriteria.getVersionNumber(), Latest.PER_VERSION));
+                else
+                    restrictedSearch.add(fullCriteria);
+            }
+            else
+            {
+                allCovered = false;
+                restrictedSearch.add(fullCriteria);
+            }
+        }
+
+        //Open-ended ranges can be satisfied by the latest of every distribution in one go
+        if (allCovered && fullSearch.size() > 1 && hasUnboundedUpper(versionRange))
+            return List.of(new FoojayOpenApiJdkRepository.VersionNumberAndLatest(null, Latest.PER_DISTRIBUTION));
+
+        if (restrictedSearch.equals(fullSearch))
+            return null;
+
+        return restrictedSearch;
+    }
+
+    /**
+     * @return true if every version with the given major version is in the range.
+     */
+    static boolean coversWholeMajorVersion(VersionRange versionRange, int majorVersion)
+    {
+        ArtifactVersion start = new DefaultArtifactVersion(String.valueOf(majorVersion));
+        ArtifactVersion end = new DefaultArtifactVersion(String.valueOf(majorVersion + 1));
+
+        for (Restriction restriction : versionRange.getRestrictions())
+        {
+            ArtifactVersion lower = restriction.getLowerBound();
+            ArtifactVersion upper = restriction.getUpperBound();
+
+            boolean lowerCovered = lower == null || lower.compareTo(start) < 0 || (lower.compareTo(start) == 0 && restriction.isLowerBoundInclusive());
+            boolean upperCovered = upper == null || upper.compareTo(end) >= 0;
+
+            if (lowerCovered && upperCovered)
+                return true;
+        }
+
+        return false;
+    }
+
+    private static boolean hasUnboundedUpper(VersionRange versionRange)
+    {
+        return versionRange.getRestrictions().stream().anyMatch(r -> r.getUpperBound() == null);
+    }
+
+    /**
+     * Records that a restricted search found results, so the full search was not needed.
+     *
+     * @param searchRequest the search request.
+     * @param restrictedQueryCount number of queries performed by the restricted search.
+     * @param fullQueryCount number of queries the full search would have needed at most.
+     * @param packageCount number of matching packages found by the restricted search.
+     * @param responseBytes total size in bytes of the responses of the restricted queries.
+     */
+    void recordRestrictedSearch(JdkSearchRequest searchRequest, int restrictedQueryCount, int fullQueryCount, int packageCount, long responseBytes)
+    {
+        int saved = Math.max(0, fullQueryCount - restrictedQueryCount);
+        restrictedSearchCount.incrementAndGet();
+        savedQueryCount.addAndGet(saved);
+        restrictedPackageCount.addAndGet(packageCount);
+        avoidedFullQueryCount.addAndGet(fullQueryCount);
+        restrictedResponseBytes.addAndGet(responseBytes);
+
+        log.debug("Restricted Foojay search for " + searchRequest.getVersionRange() + " found " + packageCount + " packages using " +
+                  restrictedQueryCount + " queries (" + responseBytes + " bytes), saving up to " + saved + " full queries");
+    }
+
+    /**
+     * Records that a restricted search could not be used so the full search had to be performed.
+     *
+     * @param searchRequest the search request.
+     * @param reason why the restricted search could not be used.
+     * @param responseBytes total size in bytes of the responses of the restricted queries, which were read for nothing.
+     */
+    void recordFallbackSearch(JdkSearchRequest searchRequest, String reason, long responseBytes)
+    {
+        fallbackSearchCount.incrementAndGet();
+        fallbackResponseBytes.addAndGet(responseBytes);
+        log.debug("Restricted Foojay search for " + searchRequest.getVersionRange() + " " + reason + ", falling back to full search");
+    }
+
+    /**
+     * Records that a full search was performed, either because there was no restricted search or as a fallback.
+     *
+     * @param queryCount number of queries that completed.
+     * @param responseBytes total size in bytes of the responses of the completed queries.
+     */
+    void recordFullSearch(int queryCount, long responseBytes)
+    {
+        fullQueryCount.addAndGet(queryCount);
+        fullResponseBytes.addAndGet(responseBytes);
+    }
+
+    /**
+     * @return number of searches satisfied by a restricted search.
+     */
+    public long getRestrictedSearchCount()
+    {
+        return restrictedSearchCount.get();
+    }
+
+    /**
+     * @return number of searches where the restricted search could not be used and the full search was performed.
+     */
+    public long getFallbackSearchCount()
+    {
+        return fallbackSearchCount.get();
+    }
+
+    /**
+     * @return number of full package queries that were avoided by restricted searches.
+     */
+    public long getSavedQueryCount()
+    {
+        return savedQueryCount.get();
+    }
+
+    /**
+     * @return number of matching packages found by restricted searches.
+     */
+    public long getRestrictedPackageCount()
+    {
+        return restrictedPackageCount.get();
+    }
+
+    /**
+     * @return total size in bytes of the responses to restricted queries whose results were used.
+     */
+    public long getRestrictedResponseBytes()
+    {
+        return restrictedResponseBytes.get();
+    }
+
+    /**
+     * @return total size in bytes of the responses to restricted queries that were discarded because the full search had to be performed.
+     */
+    public long getFallbackResponseBytes()
+    {
+        return fallbackResponseBytes.get();
+    }
+
+    /**
+     * @return number of full queries that completed.
+     */
+    public long getFullQueryCount()
+    {
+        return fullQueryCount.get();
+    }
+
+    /**
+     * @return total size in bytes of the responses to full queries.
+     */
+    public long getFullResponseBytes()
+    {
+        return fullResponseBytes.get();
+    }
+
+    /**
+     * Works out how many response bytes restricted searches saved.  The full queries that restricted searches replaced were never made, so
+     * their size is taken as the average measured size of the full queries that were made, and the measured sizes of all restricted queries,
+     * including those of fallbacks, are subtracted.
+     *
+     * @return number of bytes saved, which is negative if restricted searches cost more than they saved, or empty if no full queries were
+     *         measured to compare against.
+     */
+    public OptionalLong getSavedResponseBytes()
+    {
+        long measuredFullQueryCount = getFullQueryCount();
+        if (measuredFullQueryCount == 0L)
+            return OptionalLong.empty();
+
+        long averageFullResponseBytes = getFullResponseBytes() / measuredFullQueryCount;
+        return OptionalLong.of(avoidedFullQueryCount.get() * averageFullResponseBytes - getRestrictedResponseBytes() - getFallbackResponseBytes());
+    }
+
+    /**
+     * @return true if any searches went through this planner.
+     */
+    public boolean hasSearched()
+    {
+        return getRestrictedSearchCount() > 0L || getFallbackSearchCount() > 0L || getFullQueryCount() > 0L;
+    }
+
+    /**
+     * @return a human-readable summary of the restricted searches performed by this planner.
+     */
+    public String summary()
+    {
+        OptionalLong savedResponseBytes = getSavedResponseBytes();
+        return "Foojay searches: " + getRestrictedSearchCount() + " restricted, " + getFallbackSearchCount() + " fell back to full search; " +
+               "read " + getRestrictedResponseBytes() + " bytes for restricted queries, " + getFallbackResponseBytes() + " bytes for discarded restricted queries and " +
+               getFullResponseBytes() + " bytes for " + getFullQueryCount() + " full queries; " +
+               (savedResponseBytes.isPresent() ? "saved " + savedResponseBytes.getAsLong() + " bytes" : "bytes saved unknown since no full queries were made");
+    }
+}
@@ -0,0 +1,416 @@
+package au.net.causal.maven.plugins.autojdk.foojay;
+
+import com.google.common.hash.Hashing;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * On-disk cache of Foojay API responses along with the validators (<code>ETag</code> and <code>Last-Modified</code>) needed to revalidate them
+ * with a conditional request.
+ * <p>
+ *
+ * Each response is held in its own file, written atomically so that multiple builds can share the cache.  The modification time of an entry's
+ * file is the last time it was stored or revalidated.  Entries revalidated within the fresh age are {@linkplain #isFresh(Entry) fresh} and can be
+ * used without asking the server.  Entries that have not been revalidated within the maximum age are discarded, and the least recently
+ * revalidated entries are discarded when the total size of the cache exceeds its maximum size.
+ * <p>
+ *
+ * Failures reading or writing the cache are logged and otherwise treated as a cache miss, since the cache is only an optimization.
+ */
+public class FoojayResponseCache
+{
+    private static final Logger log = LoggerFactory.getLogger(FoojayResponseCache.class);
+
+    public static final Duration DEFAULT_MAX_AGE = Duration.ofDays(30);
+    public static final Duration DEFAULT_FRESH_AGE = Duration.ofMinutes(10);
+    public static final long DEFAULT_MAX_SIZE = 50L * 1024L * 1024L;
+
+    private static final int FORMAT_VERSION = 1;
+    private static final String ENTRY_FILE_SUFFIX = ".response";
+
+    private final Path cacheDirectory;
+    private final Duration freshAge;
+    private final Duration maxAge;
+    private final long maxSize;
+    private final Clock clock;
+
+    /**
+     * Creates a cache.
+     *
+     * @param cacheDirectory directory to store cached responses in.  Created when needed.
+     * @param freshAge entries revalidated more recently than this are used without revalidating them again.
+     * @param maxAge entries not revalidated for longer than this are discarded.
+     * @param maxSize maximum total size of cached responses in bytes.
+     * @param clock clock used to determine entry ages.
+     */
+    public FoojayResponseCache(Path cacheDirectory, Duration freshAge, Duration maxAge, long maxSize, Clock clock)
+    {
+        this.cacheDirectory = Objects.requireNonNull(cacheDirectory);
+        this.freshAge = Objects.requireNonNull(freshAge);
+        this.maxAge = Objects.requireNonNull(maxAge);
+        this.maxSize = maxSize;
+        this.clock = Objects.requireNonNull(clock);
+    }
+
+    /**
+     * Creates a cache with the default fresh age.
+     *
+     * @param cacheDirectory directory to store cached responses in.  Created when needed.
+     * @param maxAge entries not revalidated for longer than this are discarded.
+     * @param maxSize maximum total size of cached responses in bytes.
+     * @param clock clock used to determine entry ages.
+     */
+    public FoojayResponseCache(Path cacheDirectory, Duration maxAge, long maxSize, Clock clock)
+    {
+        this(cacheDirectory, DEFAULT_FRESH_AGE, maxAge, maxSize, clock);
+    }
+
+    /**
+     * Creates a cache with default bounds.
+     *
+     * @param cacheDirectory directory to store cached responses in.  Created when needed.
+     * @param freshAge entries revalidated more recently than this are used without revalidating them again.
+     */
+    public FoojayResponseCache(Path cacheDirectory, Duration freshAge)
+    {
+        this(cacheDirectory, freshAge, DEFAULT_MAX_AGE, DEFAULT_MAX_SIZE, Clock.systemUTC());
+    }
+
+    /**
+     * Creates a cache with default bounds.
+     *
+     * @param cacheDirectory directory to store cached responses in.  Created when needed.
+     */
+    public FoojayResponseCache(Path cacheDirectory)
+    {
+        this(cacheDirectory, DEFAULT_FRESH_AGE);
+    }
+
+    public Path getCacheDirectory()
+    {
+        return cacheDirectory;
+    }
+
+    /**
+     * @return maximum total size of cached responses in bytes.  Responses larger than this are never cached.
+     */
+    public long getMaxSize()
+    {
+        return maxSize;
+    }
+
+    /**
+     * Reads a cached response.
+     *
+     * @param uri the URI the response was for.
+     *
+     * @return the cached response, or null if there is no cached response or it has expired.
+     */
+    public Entry get(URI uri)
+    {
+        Path entryFile = entryFile(uri);
+        try
+        {
+            Instant lastValidated = Files.getLastModifiedTime(entryFile).toInstant();
+            if (lastValidated.plus(maxAge).isBefore(clock.instant()))
+            {
+                Files.deleteIfExists(entryFile);
+                return null;
+            }
+
+            Entry entry = readEntry(entryFile, lastValidated);
+
+            //Guard against hash collisions and files from other versions
+            if (entry == null || !entry.getUri().equals(uri))
+                return null;
+
+            return entry;
+        }
+        catch (NoSuchFileException e)
+        {
+            return null;
+        }
+        catch (IOException e)
+        {
+            log.debug("Failed to read cached Foojay response for " + uri + ": " + e.getMessage(), e);
+            return null;
+        }
+    }
+
+    /**
+     * @param entry an entry read from this cache.
+     *
+     * @return true if the entry was stored or revalidated recently enough that it can be used without revalidating it.
+     */
+    public boolean isFresh(Entry entry)
+    {
+        return entry.getLastValidated() != null && entry.getLastValidated().plus(freshAge).isAfter(clock.instant());
+    }
+
+    /**
+     * Stores a response in the cache, replacing any existing response for the same URI.  Responses without validators can't be revalidated and
+     * are not stored.
+     *
+     * @param entry the response to store.
+     */
+    public void put(Entry entry)
+    {
+        if (entry.getETag() == null && entry.getLastModified() == null)
+            return;
+        if (entry.getBody().length > maxSize)
+            return;
+
+        Path entryFile = entryFile(entry.getUri());
+        try
+        {
+            Files.createDirectories(cacheDirectory);
+            Path tempFile = Files.createTempFile(cacheDirectory, entryFile.getFileName().toString(), ".tmp");
+            try
+            {
+                try (OutputStream os = Files.newOutputStream(tempFile))
+                {
+                    writeEntry(entry, os);
+                }
+                Files.setLastModifiedTime(tempFile, FileTime.from(clock.instant()));
+                moveReplacing(tempFile, entryFile);
+            }
+            finally
+            {
+                Files.deleteIfExists(tempFile);
+            }
+
+            trimToMaxSize();
+        }
+        catch (IOException e)
+        {
+            log.warn("Failed to cache Foojay response for " + entry.getUri() + ": " + e.getMessage());
+            log.debug("Failed to cache Foojay response for " + entry.getUri() + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Records that the cached response for a URI was revalidated by the server and is still current.
+     *
+     * @param uri the URI the response was for.
+     */
+    public void markValidated(URI uri)
+    {
+        try
+        {
+            Files.setLastModifiedTime(entryFile(uri), FileTime.from(clock.instant()));
+        }
+        catch (IOException e)
+        {
+            log.debug("Failed to update cached Foojay response for " + uri + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static void moveReplacing(Path source, Path target)
+    throws IOException
+    {
+        try
+        {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        }
+        catch (AtomicMoveNotSupportedException e)
+        {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Discards the least recently validated entries until the cache is within its maximum size.
+     */
+    private void trimToMaxSize()
+    throws IOException
+    {
+        List<CachedFile> cachedFiles = new ArrayList<>();
+        try (Stream<Path> files = Files.list(cacheDirectory))
+        {
+            for (Path file : files.filter(f -> f.getFileName().toString().endsWith(ENTRY_FILE_SUFFIX)).collect(Collectors.toList()))
+            {
+                try
+                {
+                    cachedFiles.add(new CachedFile(file, Files.size(file), Files.getLastModifiedTime(file).toInstant()));
+                }
+                catch (NoSuchFileException e)
+                {
+                    //Removed by another build, skip it
+                }
+            }
+        }
+
+        long totalSize = cachedFiles.stream().mapToLong(f -> f.size).sum();
+        cachedFiles.sort(Comparator.comparing(f -> f.lastValidated));
+        for (CachedFile cachedFile : cachedFiles)
+        {
+            if (totalSize <= maxSize)
+                break;
+
+            Files.deleteIfExists(cachedFile.file);
+            totalSize -= cachedFile.size;
+        }
+    }
+
+    private Path entryFile(URI uri)
+    {
+        String key = Hashing.sha256().hashString(uri.toString(), StandardCharsets.UTF_8).toString();
+        return cacheDirectory.resolve(key + ENTRY_FILE_SUFFIX);
+    }
+
+    private static void writeEntry(Entry entry, OutputStream os)
+    throws IOException
+    {
+        DataOutputStream out = new DataOutputStream(os);
+        out.writeInt(FORMAT_VERSION);
+        out.writeUTF(entry.getUri().toString());
+        writeNullableString(out, entry.getETag());
+        writeNullableString(out, entry.getLastModified());
+        writeNullableString(out, entry.getContentType());
+        out.writeInt(entry.getBody().length);
+        out.write(entry.getBody());
+        out.flush();
+    }
+
+    private static Entry readEntry(Path file, Instant lastValidated)
+    throws IOException
+    {
+        try (InputStream is = Files.newInputStream(file))
+        {
+            DataInputStream in = new DataInputStream(is);
+            if (in.readInt() != FORMAT_VERSION)
+                return null;
+
+            URI uri = URI.create(in.readUTF());
+            String eTag = readNullableString(in);
+            String lastModified = readNullableString(in);
+            String contentType = readNullableString(in);
+            byte[] body = new byte[in.readInt()];
+            in.readFully(body);
+
+            return new Entry(uri, eTag, lastModified, contentType, body, lastValidated);
+        }
+    }
+
+    private static void writeNullableString(DataOutputStream out, String s)
+    throws IOException
+    {
+        out.writeBoolean(s != null);
+        if (s != null)
+            out.writeUTF(s);
+    }
+
+    private static String readNullableString(DataInputStream in)
+    throws IOException
+    {
+        if (in.readBoolean())
+            return in.readUTF();
+        else
+            return null;
+    }
+
+    private static class CachedFile
+    {
+        private final Path file;
+        private final long size;
+        private final Instant lastValidated;
+
+        public CachedFile(Path file, long size, Instant lastValidated)
+        {
+            this.file = file;
+            this.size = size;
+            this.lastValidated = lastValidated;
+        }
+    }
+
+    /**
+     * A cached response.
+     */
+    public static class Entry
+    {
+        private final URI uri;
+        private final String eTag;
+        private final String lastModified;
+        private final String contentType;
+        private final byte[] body;
+        private final Instant lastValidated;
+
+        /**
+         * @param uri the URI the response was for.
+         * @param eTag value of the response's <code>ETag</code> header, or null if it had none.
+         * @param lastModified value of the response's <code>Last-Modified</code> header, or null if it had none.
+         * @param contentType value of the response's <code>Content-Type</code> header, or null if it had none.
+         * @param body the response body.
+         */
+        public Entry(URI uri, String eTag, String lastModified, String contentType, byte[] body)
+        {
+            this(uri, eTag, lastModified, contentType, body, null);
+        }
+
+        private Entry(URI uri, String eTag, String lastModified, String contentType, byte[] body, Instant lastValidated)
+        {
+            this.uri = Objects.requireNonNull(uri);
+            this.eTag = eTag;
+            this.lastModified = lastModified;
+            this.contentType = contentType;
+            this.body = Objects.requireNonNull(body);
+            this.lastValidated = lastValidated;
+        }
+
+        public URI getUri()
+        {
+            return uri;
+        }
+
+        public String getETag()
+        {
+            return eTag;
+        }
+
+        public String getLastModified()
+        {
+            return lastModified;
+        }
+
+        public String getContentType()
+        {
+            return contentType;
+        }
+
+        public byte[] getBody()
+        {
+            return body;
+        }
+
+        /**
+         * @return when the entry was last stored or revalidated, or null if it was not read from the cache.
+         */
+        public Instant getLastValidated()
+        {
+            return lastValidated;
+        }
+    }
+}
@@ -2,6 +2,7 @@ package au.net.causal.maven.plugins.autojdk.foojay;
 
 import com.fasterxml.jackson.annotation.JsonAnyGetter;
 import com.fasterxml.jackson.annotation.JsonAnySetter;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.PropertyNamingStrategies;
@@ -190,31 +191,53 @@ public class JdkPackage
         return api == null ? null : api.getApiString();
     }
 
+    /**
+     * Links are kept as text and only turned into URIs when asked for, since most links of most packages are never used.
+     */
     @JsonIgnoreProperties(ignoreUnknown = true)
     @JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
     public static class Links
     {
-        private URI pkgInfoUri;
-        private URI pkgDownloadRedirect;
+        private String pkgInfoUri;
+        private String pkgDownloadRedirect;
+
+        public Links()
+        {
+        }
+
+        Links(String pkgInfoUri, String pkgDownloadRedirect)
+        {
+            this.pkgInfoUri = pkgInfoUri;
+            this.pkgDownloadRedirect = pkgDownloadRedirect;
+        }
 
         public URI getPkgInfoUri()
         {
-            return pkgInfoUri;
+            return pkgInfoUri == null ? null : URI.create(pkgInfoUri);
         }
 
         public void setPkgInfoUri(URI pkgInfoUri)
         {
-            this.pkgInfoUri = pkgInfoUri;
+            this.pkgInfoUri = pkgInfoUri == null ? null : pkgInfoUri.toString();
         }
 
         public URI getPkgDownloadRedirect()
         {
-            return pkgDownloadRedirect;
+            return pkgDownloadRedirect == null ? null : URI.create(pkgDownloadRedirect);
         }
 
         public void setPkgDownloadRedirect(URI pkgDownloadRedirect)
         {
-            this.pkgDownloadRedirect = pkgDownloadRedirect;
+            this.pkgDownloadRedirect = pkgDownloadRedirect == null ? null : pkgDownloadRedirect.toString();
+        }
+
+        /**
+         * @return the download redirect link without parsing it into a URI.
+         */
+        @JsonIgnore
+        public String getPkgDownloadRedirectText()
+        {
+            return pkgDownloadRedirect;
         }
 
         @Override
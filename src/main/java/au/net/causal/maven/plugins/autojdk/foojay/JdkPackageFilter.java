@@ -0,0 +1,112 @@
+package au.net.causal.maven.plugins.autojdk.foojay;
+
+import eu.hansolo.jdktools.ArchiveType;
+import eu.hansolo.jdktools.LibCType;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Client-side filter for Foojay packages, applied while packages are being read so that rejected packages are never fully decoded.
+ * <p>
+ *
+ * The Foojay service does not always apply its own filters reliably, for example an unknown distribution is treated as a wildcard, so
+ * these are checked again on the client.
+ * <p>
+ *
+ * The filter remembers the allowed distributions of packages it rejected because of their C library or archive type, so that callers can tell
+ * when these checks removed every package of a distribution.  It also records the size of the response it filtered.
+ */
+public class JdkPackageFilter
+{
+    private final Set<String> distributions;
+    private final LibCType libCType;
+    private final Set<ArchiveType> archiveTypes;
+
+    private final Set<String> rejectedDistributions = ConcurrentHashMap.newKeySet();
+    private volatile long responseSize = -1L;
+
+    /**
+     * @param distributions allowed distribution names, or null to allow any.
+     * @param libCType required C library type, or null to allow any.  Packages that do not specify their C library type are always allowed.
+     * @param archiveTypes allowed archive types, or null to allow any.
+     */
+    public JdkPackageFilter(Collection<String> distributions, LibCType libCType, Collection<ArchiveType> archiveTypes)
+    {
+        this.distributions = distributions == null ? null : Set.copyOf(distributions);
+        this.libCType = libCType;
+        this.archiveTypes = archiveTypes == null ? null : Set.copyOf(archiveTypes);
+    }
+
+    /**
+     * Checks all properties of a package, remembering its distribution if it is allowed but the package is rejected for another reason.
+     *
+     * @return true if the package passes the filter.
+     */
+    public boolean accepts(String distribution, LibCType packageLibCType, ArchiveType archiveType)
+    {
+        if (!acceptsDistribution(distribution))
+            return false;
+
+        boolean accepted = acceptsLibCType(packageLibCType) && acceptsArchiveType(archiveType);
+        if (!accepted && distribution != null)
+            rejectedDistributions.add(distribution);
+
+        return accepted;
+    }
+
+    /**
+     * @return allowed distributions of packages checked with {@link #accepts(String, LibCType, ArchiveType)} that were rejected because of their
+     *         C library or archive type.  Other packages of these distributions might still pass.
+     */
+    public Set<String> getRejectedDistributions()
+    {
+        return Set.copyOf(rejectedDistributions);
+    }
+
+    /**
+     * Records the size of the response that was filtered.
+     *
+     * @param responseSize size of the response in bytes, or -1 if unknown.
+     */
+    void recordResponseSize(long responseSize)
+    {
+        this.responseSize = responseSize;
+    }
+
+    /**
+     * @return size in bytes of the response that was filtered, or -1 if it is not known or the response has not been read completely.
+     */
+    public long getResponseSize()
+    {
+        return responseSize;
+    }
+
+    public boolean acceptsDistribution(String distribution)
+    {
+        return distributions == null || distributions.contains(distribution);
+    }
+
+    public boolean acceptsLibCType(LibCType packageLibCType)
+    {
+        //If there is no libc type just assume match since we can't check
+        return libCType == null || packageLibCType == null || libCType == packageLibCType;
+    }
+
+    public boolean acceptsArchiveType(ArchiveType archiveType)
+    {
+        return archiveTypes == null || archiveTypes.contains(archiveType);
+    }
+
+    @Override
+    public String toString()
+    {
+        return new StringJoiner(", ", JdkPackageFilter.class.getSimpleName() + "[", "]")
+                .add("distributions=" + distributions)
+                .add("libCType=" + libCType)
+                .add("archiveTypes=" + archiveTypes)
+                .toString();
+    }
+}
@@ -0,0 +1,72 @@
+package au.net.causal.maven.plugins.autojdk.foojay;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+
+import java.net.URI;
+import java.util.StringJoiner;
+
+/**
+ * Download details for a single Foojay package, including its checksum, which are not part of package search results.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+public class JdkPackageInfo
+{
+    private String filename;
+    private URI directDownloadUri;
+    private String checksum;
+    private String checksumType;
+
+    public String getFilename()
+    {
+        return filename;
+    }
+
+    public void setFilename(String filename)
+    {
+        this.filename = filename;
+    }
+
+    public URI getDirectDownloadUri()
+    {
+        return directDownloadUri;
+    }
+
+    public void setDirectDownloadUri(URI directDownloadUri)
+    {
+        this.directDownloadUri = directDownloadUri;
+    }
+
+    public String getChecksum()
+    {
+        return checksum;
+    }
+
+    public void setChecksum(String checksum)
+    {
+        this.checksum = checksum;
+    }
+
+    public String getChecksumType()
+    {
+        return checksumType;
+    }
+
+    public void setChecksumType(String checksumType)
+    {
+        this.checksumType = checksumType;
+    }
+
+    @Override
+    public String toString()
+    {
+        return new StringJoiner(", ", JdkPackageInfo.class.getSimpleName() + "[", "]")
+                .add("filename='" + filename + "'")
+                .add("directDownloadUri=" + directDownloadUri)
+                .add("checksum='" + checksum + "'")
+                .add("checksumType='" + checksumType + "'")
+                .toString();
+    }
+}
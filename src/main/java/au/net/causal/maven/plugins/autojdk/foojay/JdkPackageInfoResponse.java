@@ -5,16 +5,16 @@ import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import java.util.List;
 
 @JsonIgnoreProperties(ignoreUnknown = true)
-public class JdkPackagesResponse
+public class JdkPackageInfoResponse
 {
-    private List<JdkPackage> result;
+    private List<JdkPackageInfo> result;
 
-    public List<JdkPackage> getResult()
+    public List<JdkPackageInfo> getResult()
     {
         return result;
     }
 
-    public void setResult(List<JdkPackage> result)
+    public void setResult(List<JdkPackageInfo> result)
     {
         this.result = result;
     }
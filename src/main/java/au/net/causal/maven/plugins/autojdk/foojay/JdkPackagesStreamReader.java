@@ -0,0 +1,222 @@
+package au.net.causal.maven.plugins.autojdk.foojay;
+
+import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import eu.hansolo.jdktools.Api;
+import eu.hansolo.jdktools.Architecture;
+import eu.hansolo.jdktools.ArchiveType;
+import eu.hansolo.jdktools.LibCType;
+import eu.hansolo.jdktools.OperatingSystem;
+import eu.hansolo.jdktools.ReleaseStatus;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Reads Foojay package query responses token by token, decoding only the package properties AutoJDK uses and skipping everything else.
+ * Packages are checked against a filter as soon as they have been read, and only packages that pass are turned into {@link JdkPackage}s.
+ * <p>
+ *
+ * Compared to binding the whole response, this avoids building an intermediate tree of the entire response and holding on to properties
+ * that are never used.
+ */
+class JdkPackagesStreamReader
+{
+    private final JdkPackageFilter filter;
+
+    /**
+     * @param filter filter for packages, or null to read all packages.
+     */
+    public JdkPackagesStreamReader(JdkPackageFilter filter)
+    {
+        this.filter = filter;
+    }
+
+    /**
+     * Reads packages from a response.
+     *
+     * @param parser parser positioned before the start of the response object.
+     *
+     * @return packages in the response that pass the filter.
+     *
+     * @throws IOException if an error occurs reading or parsing the response.
+     */
+    public List<JdkPackage> readPackages(JsonParser parser)
+    throws IOException
+    {
+        List<JdkPackage> packages = new ArrayList<>();
+
+        if (parser.nextToken() != JsonToken.START_OBJECT)
+            throw new JsonParseException(parser, "Expected JSON object for Foojay packages response");
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME)
+        {
+            String fieldName = parser.currentName();
+            JsonToken valueToken = parser.nextToken();
+            if ("result".equals(fieldName) && valueToken == JsonToken.START_ARRAY)
+            {
+                while (parser.nextToken() == JsonToken.START_OBJECT)
+                {
+                    JdkPackage pkg = readPackage(parser);
+                    if (pkg != null)
+                        packages.add(pkg);
+                }
+            }
+            else
+                parser.skipChildren();
+        }
+
+        //The whole response has been read now, character sources only know the size in characters which is close enough for JSON
+        if (filter != null)
+        {
+            JsonLocation location = parser.currentLocation();
+            filter.recordResponseSize(location.getByteOffset() >= 0L ? location.getByteOffset() : location.getCharOffset());
+        }
+
+        return packages;
+    }
+
+    /**
+     * Reads a single package.
+     *
+     * @return the package, or null if it was rejected by the filter.
+     */
+    private JdkPackage readPackage(JsonParser parser)
+    throws IOException
+    {
+        String id = null;
+        String javaVersion = null;
+        String distribution = null;
+        Architecture architecture = null;
+        OperatingSystem operatingSystem = null;
+        ArchiveType archiveType = null;
+        ReleaseStatus releaseStatus = null;
+        Integer majorVersion = null;
+        Integer jdkVersion = null;
+        LibCType libCType = null;
+        Boolean javafxBundled = null;
+        String pkgInfoUri = null;
+        String pkgDownloadRedirect = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME)
+        {
+            String fieldName = parser.currentName();
+            parser.nextToken();
+            switch (fieldName)
+            {
+                case "id":
+                    id = parser.getValueAsString();
+                    break;
+                case "java_version":
+                    javaVersion = parser.getValueAsString();
+                    break;
+                case "distribution":
+                    distribution = parser.getValueAsString();
+                    break;
+                case "architecture":
+                    architecture = readApiValue(parser, Architecture::fromText);
+                    break;
+                case "operating_system":
+                    operatingSystem = readApiValue(parser, OperatingSystem::fromText);
+                    break;
+                case "archive_type":
+                    archiveType = readApiValue(parser, ArchiveType::fromText);
+                    break;
+                case "release_status":
+                    releaseStatus = readApiValue(parser, ReleaseStatus::fromText);
+                    break;
+                case "lib_c_type":
+                    libCType = readApiValue(parser, LibCType::fromText);
+                    break;
+                case "major_version":
+                    majorVersion = readInteger(parser);
+                    break;
+                case "jdk_version":
+                    jdkVersion = readInteger(parser);
+                    break;
+                case "javafx_bundled":
+                    javafxBundled = parser.currentToken().isBoolean() ? parser.getBooleanValue() : null;
+                    break;
+                case "links":
+                    if (parser.currentToken() == JsonToken.START_OBJECT)
+                    {
+                        while (parser.nextToken() == JsonToken.FIELD_NAME)
+                        {
+                            String linkName = parser.currentName();
+                            parser.nextToken();
+                            if ("pkg_info_uri".equals(linkName))
+                                pkgInfoUri = readText(parser);
+                            else if ("pkg_download_redirect".equals(linkName))
+                                pkgDownloadRedirect = readText(parser);
+                            else
+                                parser.skipChildren();
+                        }
+                    }
+                    else
+                        parser.skipChildren();
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+
+        if (filter != null && !filter.accepts(distribution, libCType, archiveType))
+            return null;
+
+        JdkPackage pkg = new JdkPackage();
+        pkg.setId(id);
+        pkg.setJavaVersion(javaVersion);
+        pkg.setDistribution(distribution);
+        pkg.setArchitecture(architecture);
+        pkg.setOperatingSystem(operatingSystem);
+        pkg.setArchiveType(archiveType);
+        pkg.setReleaseStatus(releaseStatus);
+        pkg.setMajorVersion(majorVersion);
+        pkg.setJdkVersion(jdkVersion);
+        pkg.setLibCType(libCType);
+        pkg.setJavafxBundled(javafxBundled);
+        if (pkgInfoUri != null || pkgDownloadRedirect != null)
+            pkg.setLinks(new JdkPackage.Links(pkgInfoUri, pkgDownloadRedirect));
+        return pkg;
+    }
+
+    /**
+     * Reads an API enum value the same way as {@link ApiEnumDeserializer}.
+     */
+    private static <E extends Enum<E> & Api> E readApiValue(JsonParser parser, Function<String, E> fromTextFunction)
+    throws IOException
+    {
+        String rawValue = parser.getValueAsString();
+        if (rawValue == null || rawValue.isEmpty())
+            return null;
+
+        return fromTextFunction.apply(rawValue);
+    }
+
+    private static Integer readInteger(JsonParser parser)
+    throws IOException
+    {
+        if (parser.currentToken() == JsonToken.VALUE_NUMBER_INT)
+            return parser.getIntValue();
+
+        parser.skipChildren();
+        return null;
+    }
+
+    /**
+     * Reads a link.  These are not parsed into URIs until they are used.
+     */
+    private static String readText(JsonParser parser)
+    throws IOException
+    {
+        String rawValue = parser.getValueAsString();
+        if (rawValue == null || rawValue.isEmpty())
+            return null;
+
+        return rawValue;
+    }
+}
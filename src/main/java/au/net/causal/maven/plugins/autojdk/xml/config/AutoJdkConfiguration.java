@@ -1,34 +1,45 @@
 package au.net.causal.maven.plugins.autojdk.xml.config;
 
+import au.net.causal.maven.plugins.autojdk.AutoJdkHome;
 import au.net.causal.maven.plugins.autojdk.AutoJdkXmlManager;
+import au.net.causal.maven.plugins.autojdk.CatalogJdkArchiveRepository;
+import au.net.causal.maven.plugins.autojdk.CircuitBreakerJdkArchiveRepository;
 import au.net.causal.maven.plugins.autojdk.ExceptionalSupplier;
 import au.net.causal.maven.plugins.autojdk.FileDownloader;
 import au.net.causal.maven.plugins.autojdk.HttpClientFileDownloader;
 import au.net.causal.maven.plugins.autojdk.JdkArchiveRepository;
+import au.net.causal.maven.plugins.autojdk.JdkRepositoryException;
+import au.net.causal.maven.plugins.autojdk.KnownValueComparator;
 import au.net.causal.maven.plugins.autojdk.LocalRepositoryCachingRepository;
 import au.net.causal.maven.plugins.autojdk.MavenArtifactJdkArchiveRepository;
 import au.net.causal.maven.plugins.autojdk.MavenDownloadProgressAdapter;
 import au.net.causal.maven.plugins.autojdk.MavenJdkProxySelector;
+import au.net.causal.maven.plugins.autojdk.MissingMetadataCache;
+import au.net.causal.maven.plugins.autojdk.RepositoryCircuitBreaker;
 import au.net.causal.maven.plugins.autojdk.UserConfiguredVendorService;
 import au.net.causal.maven.plugins.autojdk.VendorService;
 import au.net.causal.maven.plugins.autojdk.config.ActivationProcessor;
 import au.net.causal.maven.plugins.autojdk.config.AutoJdkConfigurationException;
 import au.net.causal.maven.plugins.autojdk.config.CombinableConfiguration;
 import au.net.causal.maven.plugins.autojdk.foojay.FoojayClient;
+import au.net.causal.maven.plugins.autojdk.foojay.FoojayMetadataMemo;
 import au.net.causal.maven.plugins.autojdk.foojay.FoojayOpenApiJdkRepository;
+import au.net.causal.maven.plugins.autojdk.foojay.FoojayQueryPlanner;
+import au.net.causal.maven.plugins.autojdk.foojay.FoojayResponseCache;
 import au.net.causal.maven.plugins.autojdk.foojay.OfflineDistributionsVendorService;
 import au.net.causal.maven.plugins.autojdk.foojay.openapi.handler.ApiClient;
+import au.net.causal.maven.plugins.autojdk.xml.metadata.JdkCatalog;
 import jakarta.xml.bind.annotation.XmlElement;
 import jakarta.xml.bind.annotation.XmlElementWrapper;
 import jakarta.xml.bind.annotation.XmlElements;
 import jakarta.xml.bind.annotation.XmlRootElement;
+import jakarta.xml.bind.annotation.XmlTransient;
 import jakarta.xml.bind.annotation.XmlType;
 import org.apache.maven.RepositoryUtils;
 import org.apache.maven.artifact.repository.ArtifactRepositoryPolicy;
 import org.apache.maven.artifact.repository.MavenArtifactRepository;
 import org.apache.maven.artifact.repository.layout.DefaultRepositoryLayout;
 import org.apache.maven.execution.MavenSession;
-import org.apache.maven.plugin.logging.Log;
 import org.eclipse.aether.RepositorySystem;
 import org.eclipse.aether.RepositorySystemSession;
 import org.eclipse.aether.repository.Authentication;
@@ -39,13 +50,19 @@ import org.slf4j.LoggerFactory;
 
 import javax.xml.datatype.DatatypeConstants;
 import javax.xml.datatype.DatatypeFactory;
+import javax.xml.datatype.Duration;
 import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
 import java.net.http.HttpClient;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Clock;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.stream.Collectors;
 
@@ -99,6 +116,7 @@ public class AutoJdkConfiguration implements CombinableConfiguration<AutoJdkConf
     private final List<ExtensionExclusion> extensionExclusions = new ArrayList<>();
     private JdkUpdatePolicySpec jdkUpdatePolicy;
     private final List<JdkRepository> jdkRepositories = new ArrayList<>();
+    private JdkCleanupPolicy jdkCleanup;
 
     public static AutoJdkConfiguration defaultAutoJdkConfiguration()
     {
@@ -189,10 +207,25 @@ public class AutoJdkConfiguration implements CombinableConfiguration<AutoJdkConf
         this.jdkUpdatePolicy = jdkUpdatePolicy;
     }
 
+    /**
+     * Automatic removal of installed JDKs that are no longer being used.  If not specified, JDKs are only removed with the purge-jdks goal.
+     */
+    @XmlElement(name = "jdk-cleanup")
+    public JdkCleanupPolicy getJdkCleanup()
+    {
+        return jdkCleanup;
+    }
+
+    public void setJdkCleanup(JdkCleanupPolicy jdkCleanup)
+    {
+        this.jdkCleanup = jdkCleanup;
+    }
+
     @XmlElementWrapper(name = "jdk-repositories")
     @XmlElements({
             @XmlElement(name = "foojay-disco", type = FoojayDiscoRepository.class),
-            @XmlElement(name = "maven-repository", type = JdkMavenRepository.class)
+            @XmlElement(name = "maven-repository", type = JdkMavenRepository.class),
+            @XmlElement(name = "catalog", type = JdkCatalogRepository.class)
     })
     public List<JdkRepository> getJdkRepositories()
     {
@@ -232,23 +265,46 @@ public class AutoJdkConfiguration implements CombinableConfiguration<AutoJdkConf
         if (combined.getJdkRepositories().isEmpty())
             combined.setJdkRepositories(this.getJdkRepositories());
 
+        combined.setJdkCleanup(other.getJdkCleanup());
+        if (combined.getJdkCleanup() == null)
+            combined.setJdkCleanup(this.getJdkCleanup());
+
         return combined;
     }
 
     public static AutoJdkConfiguration fromFile(Path file, AutoJdkXmlManager xmlManager, ActivationProcessor activationProcessor, MavenSession session)
     throws AutoJdkXmlManager.XmlParseException, AutoJdkConfigurationException
     {
-        return fromFile(file, xmlManager, activationProcessor, session, defaultAutoJdkConfiguration());
+        return fromFile(file, xmlReader(xmlManager), activationProcessor, session);
     }
 
-    private static AutoJdkConfiguration fromFile(Path file, AutoJdkXmlManager xmlManager, ActivationProcessor activationProcessor, MavenSession session, AutoJdkConfiguration baseConfig)
+    /**
+     * Reads a configuration file, resolving includes and processing activations.
+     *
+     * @param file the top-level configuration file.
+     * @param reader reads each individual configuration file.
+     * @param activationProcessor evaluates activations.
+     * @param session the Maven session activations are evaluated against.
+     *
+     * @return the effective configuration.  If the file does not exist, the default configuration is returned.
+     *
+     * @throws AutoJdkXmlManager.XmlParseException if an error occurs parsing any of the files.
+     * @throws AutoJdkConfigurationException if an error occurs evaluating activations.
+     */
+    public static AutoJdkConfiguration fromFile(Path file, ConfigurationFileReader reader, ActivationProcessor activationProcessor, MavenSession session)
+    throws AutoJdkXmlManager.XmlParseException, AutoJdkConfigurationException
+    {
+        return fromFile(file, reader, activationProcessor, session, defaultAutoJdkConfiguration());
+    }
+
+    private static AutoJdkConfiguration fromFile(Path file, ConfigurationFileReader reader, ActivationProcessor activationProcessor, MavenSession session, AutoJdkConfiguration baseConfig)
     throws AutoJdkXmlManager.XmlParseException, AutoJdkConfigurationException
     {
         //If no config file is present just use the default settings
         if (Files.notExists(file))
             return baseConfig;
 
-        AutoJdkConfiguration configFromFile = xmlManager.parseFile(file, AutoJdkConfiguration.class);
+        AutoJdkConfiguration configFromFile = reader.read(file);
 
         //Start with base
         var fullConfig = baseConfig;
@@ -262,7 +318,7 @@ public class AutoJdkConfiguration implements CombinableConfiguration<AutoJdkConf
             for (Path includeFile : includeFiles) {
                 //Ignore files that are specified as import but do not exist
                 if (Files.exists(includeFile)) {
-                    AutoJdkConfiguration includeConfig = fromFile(includeFile, xmlManager, activationProcessor, session, new AutoJdkConfiguration());
+                    AutoJdkConfiguration includeConfig = fromFile(includeFile, reader, activationProcessor, session, new AutoJdkConfiguration());
 
                     if (includeConfig.getActivation() == null || activationProcessor.isActive(includeConfig.getActivation(), session))
                         fullConfig = fullConfig.combinedWith(includeConfig);
@@ -278,6 +334,70 @@ public class AutoJdkConfiguration implements CombinableConfiguration<AutoJdkConf
         return fullConfig;
     }
 
+    /**
+     * Reads a configuration file and every file it includes, directly or indirectly, without combining them or processing activations.
+     * Includes are followed regardless of activation.
+     *
+     * @param file the top-level configuration file.
+     * @param xmlManager XML manager for parsing configuration files.
+     *
+     * @return a map of every referenced configuration file to its parsed contents, in the order they are referenced.  Files that are referenced but
+     *         do not exist are present in the map with a null value.
+     *
+     * @throws AutoJdkXmlManager.XmlParseException if an error occurs parsing any of the files.
+     */
+    public static Map<Path, AutoJdkConfiguration> readAllConfigurationFiles(Path file, AutoJdkXmlManager xmlManager)
+    throws AutoJdkXmlManager.XmlParseException
+    {
+        return readAllConfigurationFiles(file, xmlReader(xmlManager));
+    }
+
+    /**
+     * Reads a configuration file and every file it includes, directly or indirectly, without combining them or processing activations.
+     * Includes are followed regardless of activation.
+     *
+     * @param file the top-level configuration file.
+     * @param reader reads each individual configuration file.
+     *
+     * @return a map of every referenced configuration file to its parsed contents, in the order they are referenced.  Files that are referenced but
+     *         do not exist are present in the map with a null value.
+     *
+     * @throws AutoJdkXmlManager.XmlParseException if an error occurs parsing any of the files.
+     */
+    public static Map<Path, AutoJdkConfiguration> readAllConfigurationFiles(Path file, ConfigurationFileReader reader)
+    throws AutoJdkXmlManager.XmlParseException
+    {
+        Map<Path, AutoJdkConfiguration> results = new LinkedHashMap<>();
+        readAllConfigurationFiles(file, reader, results);
+        return results;
+    }
+
+    private static void readAllConfigurationFiles(Path file, ConfigurationFileReader reader, Map<Path, AutoJdkConfiguration> results)
+    throws AutoJdkXmlManager.XmlParseException
+    {
+        //Guards against include cycles as well
+        if (results.containsKey(file))
+            return;
+
+        if (Files.notExists(file))
+        {
+            results.put(file, null);
+            return;
+        }
+
+        AutoJdkConfiguration config = reader.read(file);
+        results.put(file, config);
+        for (Path includeFile : config.resolveIncludeFiles(file))
+        {
+            readAllConfigurationFiles(includeFile, reader, results);
+        }
+    }
+
+    private static ConfigurationFileReader xmlReader(AutoJdkXmlManager xmlManager)
+    {
+        return file -> xmlManager.parseFile(file, AutoJdkConfiguration.class);
+    }
+
     private List<Path> resolveIncludeFiles(Path baseConfigFile)
     {
         return getIncludes().stream()
@@ -285,6 +405,24 @@ public class AutoJdkConfiguration implements CombinableConfiguration<AutoJdkConf
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o) return true;
+        if (!(o instanceof AutoJdkConfiguration)) return false;
+        AutoJdkConfiguration that = (AutoJdkConfiguration) o;
+        return Objects.equals(getActivation(), that.getActivation()) && Objects.equals(getIncludes(), that.getIncludes()) &&
+                Objects.equals(getVendors(), that.getVendors()) && Objects.equals(getExtensionExclusions(), that.getExtensionExclusions()) &&
+                Objects.equals(getJdkUpdatePolicy(), that.getJdkUpdatePolicy()) && Objects.equals(getJdkRepositories(), that.getJdkRepositories()) &&
+                Objects.equals(getJdkCleanup(), that.getJdkCleanup());
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash(getActivation(), getIncludes(), getVendors(), getExtensionExclusions(), getJdkUpdatePolicy(), getJdkRepositories(), getJdkCleanup());
+    }
+
     @XmlType(propOrder={})
     public static class ExtensionExclusion
     {
@@ -337,16 +475,44 @@ public class AutoJdkConfiguration implements CombinableConfiguration<AutoJdkConf
         }
     }
 
+    /**
+     * Reads a single configuration file without resolving its includes.
+     */
+    @FunctionalInterface
+    public interface ConfigurationFileReader
+    {
+        /**
+         * Reads a configuration file.  Returned configurations are not modified by callers, so implementations may return shared instances.
+         *
+         * @param file the configuration file to read.
+         *
+         * @return the parsed configuration.
+         *
+         * @throws AutoJdkXmlManager.XmlParseException if an error occurs parsing the file.
+         */
+        public AutoJdkConfiguration read(Path file)
+        throws AutoJdkXmlManager.XmlParseException;
+    }
+
     public interface JdkRepository
     {
         public abstract JdkArchiveRepository<?> createJdkArchiveRepository(
                 RepositorySystem repositorySystem, RepositorySystemSession repositorySystemSession,
                 boolean offlineMode, boolean allowHttpJdkDownloads,
                 ExceptionalSupplier<Path, IOException> tempDownloadDirectory,
+                AutoJdkHome autoJdkHome,
                 AutoJdkXmlManager xmlManager,
-                AutoJdkConfiguration autoJdkConfiguration,
-                Log log
+                AutoJdkConfiguration autoJdkConfiguration
         );
+
+        /**
+         * @return the group ID that JDK archives from this repository are stored under in the local Maven repository, or null if they are not
+         *         stored there.
+         */
+        public default String localRepositoryJdkGroupId()
+        {
+            return null;
+        }
     }
 
     @XmlType(propOrder={})
@@ -381,9 +547,9 @@ public class AutoJdkConfiguration implements CombinableConfiguration<AutoJdkConf
                 RepositorySystemSession repositorySystemSession,
                 boolean offlineMode, boolean allowHttpJdkDownloads,
                 ExceptionalSupplier<Path, IOException> tempDownloadDirectory,
+                AutoJdkHome autoJdkHome,
                 AutoJdkXmlManager xmlManager,
-                AutoJdkConfiguration autoJdkConfiguration,
-                Log log
+                AutoJdkConfiguration autoJdkConfiguration
         )
         {
             if (offlineMode)
@@ -420,14 +586,23 @@ public class AutoJdkConfiguration implements CombinableConfiguration<AutoJdkConf
                 httpClientBuilder.followRedirects(HttpClient.Redirect.NORMAL); //Allow redirect, except from HTTPS URLs to HTTP URLs.
 
 
-            ApiClient apiClient = FoojayClient.createDefaultApiClient();
+            //When the update policy asks for the latest JDKs every time, don't use cached responses without asking Foojay if they are current
+            JdkUpdatePolicySpec updatePolicy = autoJdkConfiguration.getJdkUpdatePolicy();
+            java.time.Duration responseFreshAge = (updatePolicy != null && updatePolicy.getValue() instanceof JdkUpdatePolicy.Always) ? java.time.Duration.ZERO
+                                                                                                                                      : FoojayResponseCache.DEFAULT_FRESH_AGE;
+            ApiClient apiClient = FoojayClient.createCachingApiClient(new FoojayResponseCache(autoJdkHome.getFoojayResponseCacheDirectory(), responseFreshAge));
             apiClient.setHttpClientBuilder(httpClientBuilder);
             FoojayClient foojayClient = new FoojayClient(apiClient);
 
             FileDownloader fileDownloader = new HttpClientFileDownloader(tempDownloadDirectory, httpClientBuilder);
             fileDownloader.addDownloadProgressListener(new MavenDownloadProgressAdapter(repositorySystemSession));
 
-            JdkArchiveRepository<?> repository = new FoojayOpenApiJdkRepository(foojayClient, fileDownloader);
+            JdkArchiveRepository<?> repository = new FoojayOpenApiJdkRepository(foojayClient, fileDownloader, FoojayMetadataMemo.shared(),
+                                                                               FoojayQueryPlanner.forSession(repositorySystemSession));
+
+            //Skip Foojay for a while if it is down, but keep the local repo cache below usable
+            repository = new CircuitBreakerJdkArchiveRepository<>(repository,
+                    new RepositoryCircuitBreaker("foojay:" + foojayClient.getBaseUri(), autoJdkHome.getCircuitBreakerDirectory(), Clock.systemUTC()));
 
             //If local repo cache is enabled, wrap foojay repo with a caching layer
             if (getLocalRepositoryCache() != null && getLocalRepositoryCache().getJdkGroupId() != null)
@@ -441,6 +616,12 @@ public class AutoJdkConfiguration implements CombinableConfiguration<AutoJdkConf
             return repository;
         }
 
+        @Override
+        public String localRepositoryJdkGroupId()
+        {
+            return getLocalRepositoryCache() == null ? null : getLocalRepositoryCache().getJdkGroupId();
+        }
+
         @Override
         public boolean equals(Object o)
         {
@@ -550,6 +731,12 @@ public class AutoJdkConfiguration implements CombinableConfiguration<AutoJdkConf
             this.jdkGroupId = jdkGroupId;
         }
 
+        @Override
+        public String localRepositoryJdkGroupId()
+        {
+            return getJdkGroupId();
+        }
+
         @Override
         public JdkArchiveRepository<?> createJdkArchiveRepository(
                 RepositorySystem repositorySystem,
@@ -557,9 +744,9 @@ public class AutoJdkConfiguration implements CombinableConfiguration<AutoJdkConf
                 boolean offlineMode,
                 boolean allowHttpJdkDownloads,
                 ExceptionalSupplier<Path, IOException> tempDownloadDirectory,
+                AutoJdkHome autoJdkHome,
                 AutoJdkXmlManager xmlManager,
-                AutoJdkConfiguration autoJdkConfiguration,
-                Log log)
+                AutoJdkConfiguration autoJdkConfiguration)
         {
             if (getJdkGroupId() == null)
             {
@@ -579,13 +766,33 @@ public class AutoJdkConfiguration implements CombinableConfiguration<AutoJdkConf
 
             VendorService userConfiguredVendorService = new UserConfiguredVendorService(allVendorService, autoJdkConfiguration);
 
-            return new MavenArtifactJdkArchiveRepository(
+            //Remember metadata the repository doesn't have for as long as the update policy wouldn't look for new JDKs
+            MissingMetadataCache missingMetadataCache = null;
+            if (!offlineMode && autoJdkConfiguration.getJdkUpdatePolicy() != null && autoJdkConfiguration.getJdkUpdatePolicy().getValue() != null)
+            {
+                missingMetadataCache = new MissingMetadataCache("maven:" + getUrl(), autoJdkHome.getMissingMetadataCacheDirectory(),
+                                                                autoJdkConfiguration.getJdkUpdatePolicy().getValue(), Clock.systemUTC());
+            }
+
+            JdkArchiveRepository<?> repository = new MavenArtifactJdkArchiveRepository(
                     repositorySystem, repositorySystemSession, List.of(remoteRepo),
                     getJdkGroupId(), userConfiguredVendorService,
-                    xmlManager);
+                    xmlManager, new KnownValueComparator<>(autoJdkConfiguration.getVendors(), WILDCARD_VENDOR), missingMetadataCache);
+
+            //Nothing to skip when offline since Maven will not go to the remote repository anyway
+            if (!offlineMode)
+            {
+                repository = new CircuitBreakerJdkArchiveRepository<>(repository,
+                        new RepositoryCircuitBreaker("maven:" + getUrl(), autoJdkHome.getCircuitBreakerDirectory(), Clock.systemUTC()));
+            }
+
+            return repository;
         }
 
-        private RemoteRepository jdkRemoteRepository(RepositorySystemSession repoSession)
+        /**
+         * @return the Maven remote repository for this JDK repository, with any proxy and authentication configured in Maven settings.
+         */
+        public RemoteRepository jdkRemoteRepository(RepositorySystemSession repoSession)
         {
             MavenArtifactRepository repo = new MavenArtifactRepository(
                     getId(), getUrl(), new DefaultRepositoryLayout(),
@@ -622,6 +829,121 @@ public class AutoJdkConfiguration implements CombinableConfiguration<AutoJdkConf
         }
     }
 
+    /**
+     * A JDK catalog snapshot file, as exported by the export-catalog goal, that is searched without any network access.
+     */
+    @XmlType(propOrder={})
+    public static class JdkCatalogRepository implements JdkRepository
+    {
+        private String file;
+        private String mirrorUrl;
+
+        /**
+         * @return the catalog file.  Relative paths are resolved against the AutoJDK home directory.
+         */
+        public String getFile()
+        {
+            return file;
+        }
+
+        public void setFile(String file)
+        {
+            this.file = file;
+        }
+
+        /**
+         * @return base URL of a mirror holding the JDK archives of the catalog by file name, or null to download from the original URLs
+         *         recorded in the catalog.
+         */
+        @XmlElement(name = "mirror-url")
+        public String getMirrorUrl()
+        {
+            return mirrorUrl;
+        }
+
+        public void setMirrorUrl(String mirrorUrl)
+        {
+            this.mirrorUrl = mirrorUrl;
+        }
+
+        @Override
+        public JdkArchiveRepository<?> createJdkArchiveRepository(
+                RepositorySystem repositorySystem,
+                RepositorySystemSession repositorySystemSession,
+                boolean offlineMode,
+                boolean allowHttpJdkDownloads,
+                ExceptionalSupplier<Path, IOException> tempDownloadDirectory,
+                AutoJdkHome autoJdkHome,
+                AutoJdkXmlManager xmlManager,
+                AutoJdkConfiguration autoJdkConfiguration)
+        {
+            if (getFile() == null)
+            {
+                log.warn("Ignoring autojdk configured jdk catalog, no file specified");
+                return null;
+            }
+
+            URI mirrorUri;
+            try
+            {
+                mirrorUri = getMirrorUrl() == null ? null : new URI(getMirrorUrl());
+            }
+            catch (URISyntaxException e)
+            {
+                log.warn("Ignoring autojdk configured jdk catalog " + getFile() + ", invalid mirror url: " + e.getMessage());
+                return null;
+            }
+
+            //Searching needs no network but archives can't be downloaded when offline unless they are mirrored on a local filesystem
+            if (offlineMode && (mirrorUri == null || !"file".equalsIgnoreCase(mirrorUri.getScheme())))
+            {
+                log.debug("Not using JDK catalog " + getFile() + " in offline mode since its JDK archives would need to be downloaded");
+                return null;
+            }
+
+            HttpClient.Builder httpClientBuilder = HttpClient.newBuilder();
+
+            //Proxy + other builder configuration
+            MavenJdkProxySelector proxySelector = new MavenJdkProxySelector(repositorySystemSession);
+            httpClientBuilder.proxy(proxySelector).authenticator(proxySelector.authenticator());
+            if (allowHttpJdkDownloads)
+                httpClientBuilder.followRedirects(HttpClient.Redirect.ALWAYS);
+            else
+                httpClientBuilder.followRedirects(HttpClient.Redirect.NORMAL); //Allow redirect, except from HTTPS URLs to HTTP URLs.
+
+            FileDownloader fileDownloader = new HttpClientFileDownloader(tempDownloadDirectory, httpClientBuilder);
+            fileDownloader.addDownloadProgressListener(new MavenDownloadProgressAdapter(repositorySystemSession));
+
+            Path catalogFile = autoJdkHome.getAutoJdkHomeDirectory().resolve(getFile());
+            return new CatalogJdkArchiveRepository(() ->
+            {
+                try
+                {
+                    return xmlManager.parseFile(catalogFile, JdkCatalog.class);
+                }
+                catch (AutoJdkXmlManager.XmlParseException e)
+                {
+                    throw new JdkRepositoryException("Error reading JDK catalog " + catalogFile + ": " + e.getMessage(), e);
+                }
+            }, mirrorUri, fileDownloader);
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o) return true;
+            if (!(o instanceof JdkCatalogRepository)) return false;
+            JdkCatalogRepository that = (JdkCatalogRepository) o;
+            return Objects.equals(file, that.file) && Objects.equals(mirrorUrl, that.mirrorUrl);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(file, mirrorUrl);
+        }
+    }
+
     /**
      * Holds a choice of update policy.
      */
@@ -671,4 +993,128 @@ public class AutoJdkConfiguration implements CombinableConfiguration<AutoJdkConf
             return Objects.hashCode(value);
         }
     }
+
+    /**
+     * Limits on the JDKs AutoJDK keeps installed.  When any limit is exceeded, JDKs that have been used least recently are removed along with
+     * their cached archives.  JDKs that have been used recently are never removed even if limits are exceeded, since other builds may be using them.
+     */
+    public static class JdkCleanupPolicy
+    {
+        /**
+         * In-use period used when none is configured.
+         */
+        public static final java.time.Duration DEFAULT_IN_USE_PERIOD = java.time.Duration.ofDays(1);
+
+        private Long maxTotalSizeMb;
+        private Duration maxUnusedAge;
+        private Integer keepVersionsPerMajor;
+        private Duration inUsePeriod;
+
+        public JdkCleanupPolicy()
+        {
+        }
+
+        public JdkCleanupPolicy(Long maxTotalSizeMb, Duration maxUnusedAge, Integer keepVersionsPerMajor)
+        {
+            this(maxTotalSizeMb, maxUnusedAge, keepVersionsPerMajor, null);
+        }
+
+        public JdkCleanupPolicy(Long maxTotalSizeMb, Duration maxUnusedAge, Integer keepVersionsPerMajor, Duration inUsePeriod)
+        {
+            this.maxTotalSizeMb = maxTotalSizeMb;
+            this.maxUnusedAge = maxUnusedAge;
+            this.keepVersionsPerMajor = keepVersionsPerMajor;
+            this.inUsePeriod = inUsePeriod;
+        }
+
+        /**
+         * Maximum total size of all installed JDKs, in megabytes.
+         */
+        @XmlElement(name = "max-total-size-mb")
+        public Long getMaxTotalSizeMb()
+        {
+            return maxTotalSizeMb;
+        }
+
+        public void setMaxTotalSizeMb(Long maxTotalSizeMb)
+        {
+            this.maxTotalSizeMb = maxTotalSizeMb;
+        }
+
+        /**
+         * JDKs not used for longer than this are removed.
+         */
+        @XmlElement(name = "max-unused-age")
+        public Duration getMaxUnusedAge()
+        {
+            return maxUnusedAge;
+        }
+
+        public void setMaxUnusedAge(Duration maxUnusedAge)
+        {
+            this.maxUnusedAge = maxUnusedAge;
+        }
+
+        @XmlTransient
+        public java.time.Duration getMaxUnusedAgeAsDuration()
+        {
+            return JdkUpdatePolicy.EveryDuration.toJavaDuration(maxUnusedAge);
+        }
+
+        /**
+         * How many of the most recent versions of each major version of each vendor's JDK to keep.  Older versions are removed.
+         */
+        @XmlElement(name = "keep-versions-per-major")
+        public Integer getKeepVersionsPerMajor()
+        {
+            return keepVersionsPerMajor;
+        }
+
+        public void setKeepVersionsPerMajor(Integer keepVersionsPerMajor)
+        {
+            this.keepVersionsPerMajor = keepVersionsPerMajor;
+        }
+
+        /**
+         * JDKs used more recently than this are never removed, even if limits are exceeded, since other builds may still be using them.
+         */
+        @XmlElement(name = "in-use-period")
+        public Duration getInUsePeriod()
+        {
+            return inUsePeriod;
+        }
+
+        public void setInUsePeriod(Duration inUsePeriod)
+        {
+            this.inUsePeriod = inUsePeriod;
+        }
+
+        /**
+         * @return the configured in-use period, or {@link #DEFAULT_IN_USE_PERIOD} if not configured.
+         */
+        @XmlTransient
+        public java.time.Duration getInUsePeriodAsDuration()
+        {
+            if (inUsePeriod == null)
+                return DEFAULT_IN_USE_PERIOD;
+
+            return JdkUpdatePolicy.EveryDuration.toJavaDuration(inUsePeriod);
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o) return true;
+            if (!(o instanceof JdkCleanupPolicy)) return false;
+            JdkCleanupPolicy that = (JdkCleanupPolicy) o;
+            return Objects.equals(maxTotalSizeMb, that.maxTotalSizeMb) && Objects.equals(maxUnusedAge, that.maxUnusedAge) &&
+                    Objects.equals(keepVersionsPerMajor, that.keepVersionsPerMajor) && Objects.equals(inUsePeriod, that.inUsePeriod);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(maxTotalSizeMb, maxUnusedAge, keepVersionsPerMajor, inUsePeriod);
+        }
+    }
 }
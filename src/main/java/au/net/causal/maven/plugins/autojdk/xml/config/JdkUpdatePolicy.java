@@ -23,6 +23,16 @@ public interface JdkUpdatePolicy
      */
     public boolean isUpdateCheckRequired(Instant lastCheckTime, Instant now);
 
+    /**
+     * Returns the latest time at which no update check would be required, given when the last update check was performed.
+     *
+     * @param lastCheckTime the time the last update check was performed previously.  May be null if no previous update check was performed.
+     *
+     * @return the time up until which no update check is required, {@link Instant#MAX} if an update check is never required,
+     *         or null if an update check is required right now.
+     */
+    public Instant getUpToDateUntil(Instant lastCheckTime);
+
     /**
      * Never perform update checks.
      */
@@ -34,6 +44,12 @@ public interface JdkUpdatePolicy
             return false;
         }
 
+        @Override
+        public Instant getUpToDateUntil(Instant lastCheckTime)
+        {
+            return Instant.MAX;
+        }
+
         @Override
         public boolean equals(Object obj)
         {
@@ -59,6 +75,12 @@ public interface JdkUpdatePolicy
             return true;
         }
 
+        @Override
+        public Instant getUpToDateUntil(Instant lastCheckTime)
+        {
+            return null;
+        }
+
         @Override
         public boolean equals(Object obj)
         {
@@ -105,6 +127,14 @@ public interface JdkUpdatePolicy
 
         @XmlTransient
         public java.time.Duration getValueAsDuration()
+        {
+            return toJavaDuration(value);
+        }
+
+        /**
+         * Converts an XML duration to a Java duration.  Years and months are estimated.
+         */
+        static java.time.Duration toJavaDuration(Duration value)
         {
             if (value == null)
                 return null;
@@ -137,6 +167,15 @@ public interface JdkUpdatePolicy
             return lastCheckTime.plus(getValueAsDuration()).isBefore(now);
         }
 
+        @Override
+        public Instant getUpToDateUntil(Instant lastCheckTime)
+        {
+            if (value == null || lastCheckTime == null)
+                return null;
+
+            return lastCheckTime.plus(getValueAsDuration());
+        }
+
         @Override
         public boolean equals(Object o)
         {
@@ -0,0 +1,323 @@
+package au.net.causal.maven.plugins.autojdk.xml.metadata;
+
+import eu.hansolo.jdktools.Architecture;
+import eu.hansolo.jdktools.LibCType;
+import eu.hansolo.jdktools.OperatingSystem;
+import jakarta.xml.bind.annotation.XmlAttribute;
+import jakarta.xml.bind.annotation.XmlElement;
+import jakarta.xml.bind.annotation.XmlRootElement;
+import jakarta.xml.bind.annotation.XmlType;
+
+import javax.xml.datatype.XMLGregorianCalendar;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.StringJoiner;
+
+/**
+ * A snapshot of downloadable JDKs exported from a JDK catalog such as Foojay, so that JDKs can be searched for without access to the catalog.
+ */
+@XmlRootElement(name = "jdk-catalog")
+@XmlType(propOrder = {"source", "created", "vendors", "jdks"})
+public class JdkCatalog
+{
+    /**
+     * The version of the catalog format written by this version of AutoJDK.  Catalogs with a higher format version cannot be read.
+     */
+    public static final int CURRENT_FORMAT_VERSION = 1;
+
+    private int formatVersion = CURRENT_FORMAT_VERSION;
+    private String source;
+    private XMLGregorianCalendar created;
+    private final List<Vendor> vendors = new ArrayList<>();
+    private final List<Jdk> jdks = new ArrayList<>();
+
+    @XmlAttribute(name = "format-version", required = true)
+    public int getFormatVersion()
+    {
+        return formatVersion;
+    }
+
+    public void setFormatVersion(int formatVersion)
+    {
+        this.formatVersion = formatVersion;
+    }
+
+    /**
+     * @return where the catalog was exported from.
+     */
+    public String getSource()
+    {
+        return source;
+    }
+
+    public void setSource(String source)
+    {
+        this.source = source;
+    }
+
+    public XMLGregorianCalendar getCreated()
+    {
+        return created;
+    }
+
+    public void setCreated(XMLGregorianCalendar created)
+    {
+        this.created = created;
+    }
+
+    /**
+     * @return the vendors of the catalog's JDKs that are known by other names as well.  Catalogs written by older versions of AutoJDK do not
+     *         have these.
+     */
+    @XmlElement(name = "vendor")
+    public List<Vendor> getVendors()
+    {
+        return vendors;
+    }
+
+    public void setVendors(List<Vendor> vendors)
+    {
+        this.vendors.clear();
+        this.vendors.addAll(vendors);
+    }
+
+    @XmlElement(name = "jdk")
+    public List<Jdk> getJdks()
+    {
+        return jdks;
+    }
+
+    public void setJdks(List<Jdk> jdks)
+    {
+        this.jdks.clear();
+        this.jdks.addAll(jdks);
+    }
+
+    /**
+     * A vendor along with the other names it is known by in the catalog the JDKs were exported from.
+     */
+    @XmlType(propOrder = {"synonyms"})
+    public static class Vendor
+    {
+        private String name;
+        private final List<String> synonyms = new ArrayList<>();
+
+        public Vendor()
+        {
+        }
+
+        public Vendor(String name, Collection<String> synonyms)
+        {
+            this.name = name;
+            this.synonyms.addAll(synonyms);
+        }
+
+        /**
+         * @return the vendor name as used by the catalog's JDKs.
+         */
+        @XmlAttribute(name = "name", required = true)
+        public String getName()
+        {
+            return name;
+        }
+
+        public void setName(String name)
+        {
+            this.name = name;
+        }
+
+        @XmlElement(name = "synonym")
+        public List<String> getSynonyms()
+        {
+            return synonyms;
+        }
+
+        public void setSynonyms(List<String> synonyms)
+        {
+            this.synonyms.clear();
+            this.synonyms.addAll(synonyms);
+        }
+
+        @Override
+        public String toString()
+        {
+            return new StringJoiner(", ", Vendor.class.getSimpleName() + "[", "]")
+                    .add("name='" + name + "'")
+                    .add("synonyms=" + synonyms)
+                    .toString();
+        }
+    }
+
+    @XmlType(propOrder = {"id", "vendor", "version", "releaseType", "operatingSystem", "architecture", "libCType", "archiveType", "fileName",
+                          "downloadUrl", "checksum", "checksumType"})
+    public static class Jdk
+    {
+        private String id;
+        private String vendor;
+        private String version;
+        private ReleaseType releaseType;
+        private OperatingSystem operatingSystem;
+        private Architecture architecture;
+        private LibCType libCType;
+        private ArchiveType archiveType;
+        private String fileName;
+        private String downloadUrl;
+        private String checksum;
+        private String checksumType;
+
+        /**
+         * @return the ID of the JDK in the catalog it was exported from.
+         */
+        public String getId()
+        {
+            return id;
+        }
+
+        public void setId(String id)
+        {
+            this.id = id;
+        }
+
+        public String getVendor()
+        {
+            return vendor;
+        }
+
+        public void setVendor(String vendor)
+        {
+            this.vendor = vendor;
+        }
+
+        public String getVersion()
+        {
+            return version;
+        }
+
+        public void setVersion(String version)
+        {
+            this.version = version;
+        }
+
+        public ReleaseType getReleaseType()
+        {
+            return releaseType;
+        }
+
+        public void setReleaseType(ReleaseType releaseType)
+        {
+            this.releaseType = releaseType;
+        }
+
+        public OperatingSystem getOperatingSystem()
+        {
+            return operatingSystem;
+        }
+
+        public void setOperatingSystem(OperatingSystem operatingSystem)
+        {
+            this.operatingSystem = operatingSystem;
+        }
+
+        public Architecture getArchitecture()
+        {
+            return architecture;
+        }
+
+        public void setArchitecture(Architecture architecture)
+        {
+            this.architecture = architecture;
+        }
+
+        /**
+         * @return the C library the JDK is built against, or null if unknown.
+         */
+        public LibCType getLibCType()
+        {
+            return libCType;
+        }
+
+        public void setLibCType(LibCType libCType)
+        {
+            this.libCType = libCType;
+        }
+
+        public ArchiveType getArchiveType()
+        {
+            return archiveType;
+        }
+
+        public void setArchiveType(ArchiveType archiveType)
+        {
+            this.archiveType = archiveType;
+        }
+
+        /**
+         * @return the file name of the JDK archive, used to find the archive on a mirror.
+         */
+        public String getFileName()
+        {
+            return fileName;
+        }
+
+        public void setFileName(String fileName)
+        {
+            this.fileName = fileName;
+        }
+
+        public String getDownloadUrl()
+        {
+            return downloadUrl;
+        }
+
+        public void setDownloadUrl(String downloadUrl)
+        {
+            this.downloadUrl = downloadUrl;
+        }
+
+        /**
+         * @return checksum of the JDK archive as a hex string, or null if not known.
+         */
+        public String getChecksum()
+        {
+            return checksum;
+        }
+
+        public void setChecksum(String checksum)
+        {
+            this.checksum = checksum;
+        }
+
+        /**
+         * @return the checksum algorithm, such as 'sha256'.
+         */
+        public String getChecksumType()
+        {
+            return checksumType;
+        }
+
+        public void setChecksumType(String checksumType)
+        {
+            this.checksumType = checksumType;
+        }
+
+        @Override
+        public String toString()
+        {
+            return new StringJoiner(", ", Jdk.class.getSimpleName() + "[", "]")
+                    .add("id='" + id + "'")
+                    .add("vendor='" + vendor + "'")
+                    .add("version='" + version + "'")
+                    .add("releaseType=" + releaseType)
+                    .add("operatingSystem=" + operatingSystem)
+                    .add("architecture=" + architecture)
+                    .add("libCType=" + libCType)
+                    .add("archiveType=" + archiveType)
+                    .add("fileName='" + fileName + "'")
+                    .add("downloadUrl='" + downloadUrl + "'")
+                    .add("checksum='" + checksum + "'")
+                    .add("checksumType='" + checksumType + "'")
+                    .toString();
+        }
+    }
+}
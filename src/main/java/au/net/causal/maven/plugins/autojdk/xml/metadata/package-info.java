@@ -4,11 +4,13 @@
 )
 @XmlSchemaTypes({
         @XmlSchemaType(type = Architecture.class, name = "string"),
-        @XmlSchemaType(type = OperatingSystem.class, name = "string")
+        @XmlSchemaType(type = OperatingSystem.class, name = "string"),
+        @XmlSchemaType(type = LibCType.class, name = "string")
 })
 package au.net.causal.maven.plugins.autojdk.xml.metadata;
 
 import eu.hansolo.jdktools.Architecture;
+import eu.hansolo.jdktools.LibCType;
 import eu.hansolo.jdktools.OperatingSystem;
 import jakarta.xml.bind.annotation.XmlNsForm;
 import jakarta.xml.bind.annotation.XmlSchema;
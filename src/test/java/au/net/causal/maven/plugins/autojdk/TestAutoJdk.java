@@ -8,6 +8,7 @@ import eu.hansolo.jdktools.Architecture;
 import eu.hansolo.jdktools.OperatingSystem;
 import org.apache.maven.artifact.versioning.ArtifactVersion;
 import org.apache.maven.artifact.versioning.VersionRange;
+import org.apache.maven.toolchain.model.ToolchainModel;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
@@ -169,6 +170,79 @@ class TestAutoJdk
 
             assertThat(result).isEqualTo(newJdk);
         }
+
+        /**
+         * A JDK in a shared read-only store satisfies the request, so nothing is installed into the user's own store.
+         */
+        @Test
+        void sharedJdkIsUsedWithoutInstalling()
+        throws Exception
+        {
+            AutoJdkXmlManager xmlManager = new AutoJdkXmlManager();
+            Path sharedJdksDir = Files.createDirectories(tempDir.resolve("shared"));
+            Files.createDirectories(sharedJdksDir.resolve("zulu-17"));
+            xmlManager.writeFile(new LocalJdkMetadata("zulu", "17.0.1", ReleaseType.GA, Architecture.X86_64, OperatingSystem.LINUX),
+                                 sharedJdksDir.resolve("zulu-17.xml"));
+            when(localJdkResolver.getInstalledJdks(eq(ReleaseType.GA))).thenAnswer(inv -> List.of());
+
+            AutoJdk sharedAutoJdk = new AutoJdk(localJdkResolver, List.of(new AutoJdkInstalledJdkSystem(sharedJdksDir, xmlManager)), jdkInstallationTarget,
+                                                List.of(jdkArchiveRepository),
+                                                StandardVersionTranslationScheme.UNMODIFIED,
+                                                AutoJdkConfiguration.defaultAutoJdkConfiguration(), jdkSearchUpdateChecker, clock);
+
+            JdkSearchRequest request = new JdkSearchRequest(
+                    VersionRange.createFromVersionSpec("[17, 18)"),
+                    Architecture.X86_64,
+                    OperatingSystem.LINUX,
+                    null,
+                    ReleaseType.GA);
+
+            LocalJdk result = sharedAutoJdk.prepareJdk(request);
+
+            assertThat(result.getJdkDirectory()).isEqualTo(sharedJdksDir.resolve("zulu-17"));
+            verify(jdkInstallationTarget, never()).installJdkFromArchive(any(), any());
+        }
+
+        @Test
+        void toolchainsAreReusedWhileSameJdksAreInstalled()
+        throws Exception
+        {
+            LocalJdk jdk17 = new AutoJdkInstalledJdkSystem.AutoJdkInstallation(tempDir.resolve("jdk17"), new LocalJdkMetadata(
+                    "zulu", "17.0.0", ReleaseType.GA, Architecture.X86_64, OperatingSystem.LINUX
+            ));
+            LocalJdk jdk21 = new AutoJdkInstalledJdkSystem.AutoJdkInstallation(tempDir.resolve("jdk21"), new LocalJdkMetadata(
+                    "zulu", "21.0.1", ReleaseType.GA, Architecture.X86_64, OperatingSystem.LINUX
+            ));
+            AtomicBoolean jdk21Installed = new AtomicBoolean(false);
+            when(localJdkResolver.getInstalledJdks(eq(ReleaseType.GA))).thenAnswer(inv -> jdk21Installed.get() ? List.of(jdk17, jdk21) : List.of(jdk17));
+
+            List<? extends ToolchainModel> first = autoJdk.generateToolchainsFromLocalJdks(ReleaseType.GA);
+            List<? extends ToolchainModel> second = autoJdk.generateToolchainsFromLocalJdks(ReleaseType.GA);
+
+            assertThat(second).isSameAs(first);
+            assertThat(first).extracting(tc -> tc.getProvides().getProperty("version")).containsExactly("17.0.0");
+
+            jdk21Installed.set(true);
+            List<? extends ToolchainModel> third = autoJdk.generateToolchainsFromLocalJdks(ReleaseType.GA);
+
+            assertThat(third).isNotSameAs(first);
+            assertThat(third).extracting(tc -> tc.getProvides().getProperty("version")).containsExactly("21.0.1", "17.0.0");
+        }
+
+        @Test
+        void toolchainsAreReusedWhenResolverReturnsFreshInstancesOfSameJdks()
+        throws Exception
+        {
+            when(localJdkResolver.getInstalledJdks(eq(ReleaseType.GA))).thenAnswer(inv -> List.of(
+                    new AutoJdkInstalledJdkSystem.AutoJdkInstallation(tempDir.resolve("jdk17"), new LocalJdkMetadata(
+                            "zulu", "17.0.0", ReleaseType.GA, Architecture.X86_64, OperatingSystem.LINUX
+                    ))));
+
+            List<? extends ToolchainModel> first = autoJdk.generateToolchainsFromLocalJdks(ReleaseType.GA);
+            List<? extends ToolchainModel> second = autoJdk.generateToolchainsFromLocalJdks(ReleaseType.GA);
+
+            assertThat(second).isSameAs(first);
+        }
     }
 
     @Nested
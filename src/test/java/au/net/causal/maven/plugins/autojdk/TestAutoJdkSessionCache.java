@@ -0,0 +1,85 @@
+package au.net.causal.maven.plugins.autojdk;
+
+import au.net.causal.maven.plugins.autojdk.xml.config.AutoJdkConfiguration;
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+@ExtendWith(MockitoExtension.class)
+class TestAutoJdkSessionCache
+{
+    private static final Path JDKS_DIRECTORY = Path.of("jdks");
+
+    @Mock
+    private AutoJdk engine1;
+
+    @Mock
+    private AutoJdk engine2;
+
+    @Test
+    void sameCacheIsReturnedForSameSession()
+    {
+        DefaultRepositorySystemSession session = new DefaultRepositorySystemSession();
+
+        assertThat(AutoJdkSessionCache.forSession(session)).isSameAs(AutoJdkSessionCache.forSession(session));
+    }
+
+    @Test
+    void differentSessionsHaveDifferentCaches()
+    {
+        assertThat(AutoJdkSessionCache.forSession(new DefaultRepositorySystemSession()))
+                .isNotSameAs(AutoJdkSessionCache.forSession(new DefaultRepositorySystemSession()));
+    }
+
+    @Test
+    void engineIsReusedForEqualConfiguration()
+    {
+        AutoJdkSessionCache cache = new AutoJdkSessionCache();
+
+        AutoJdk first = cache.getOrCreate(key(AutoJdkConfiguration.defaultAutoJdkConfiguration()), () -> engine1);
+        AutoJdk second = cache.getOrCreate(key(AutoJdkConfiguration.defaultAutoJdkConfiguration()), () -> engine2);
+
+        assertThat(first).isSameAs(engine1);
+        assertThat(second).isSameAs(engine1);
+    }
+
+    @Test
+    void engineIsNotReusedWhenConfigurationDiffers()
+    {
+        AutoJdkSessionCache cache = new AutoJdkSessionCache();
+
+        AutoJdkConfiguration otherConfig = AutoJdkConfiguration.defaultAutoJdkConfiguration();
+        otherConfig.setVendors(List.of("temurin"));
+
+        AutoJdk first = cache.getOrCreate(key(AutoJdkConfiguration.defaultAutoJdkConfiguration()), () -> engine1);
+        AutoJdk second = cache.getOrCreate(key(otherConfig), () -> engine2);
+
+        assertThat(first).isSameAs(engine1);
+        assertThat(second).isSameAs(engine2);
+    }
+
+    @Test
+    void engineIsNotReusedWhenOfflineModeDiffers()
+    {
+        AutoJdkSessionCache cache = new AutoJdkSessionCache();
+
+        AutoJdkConfiguration config = AutoJdkConfiguration.defaultAutoJdkConfiguration();
+        AutoJdk first = cache.getOrCreate(new AutoJdkSessionCache.Key(JDKS_DIRECTORY, config, StandardVersionTranslationScheme.UNMODIFIED, false, false, false), () -> engine1);
+        AutoJdk second = cache.getOrCreate(new AutoJdkSessionCache.Key(JDKS_DIRECTORY, config, StandardVersionTranslationScheme.UNMODIFIED, true, false, false), () -> engine2);
+
+        assertThat(first).isSameAs(engine1);
+        assertThat(second).isSameAs(engine2);
+    }
+
+    private static AutoJdkSessionCache.Key key(AutoJdkConfiguration configuration)
+    {
+        return new AutoJdkSessionCache.Key(JDKS_DIRECTORY, configuration, StandardVersionTranslationScheme.UNMODIFIED, false, false, false);
+    }
+}
@@ -0,0 +1,62 @@
+package au.net.causal.maven.plugins.autojdk;
+
+import au.net.causal.maven.plugins.autojdk.xml.metadata.ArchiveType;
+import au.net.causal.maven.plugins.autojdk.xml.metadata.LocalJdkMetadata;
+import au.net.causal.maven.plugins.autojdk.xml.metadata.MavenJdkArtifactMetadata;
+import au.net.causal.maven.plugins.autojdk.xml.metadata.ReleaseType;
+import eu.hansolo.jdktools.Architecture;
+import eu.hansolo.jdktools.OperatingSystem;
+import jakarta.xml.bind.JAXBContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+class TestAutoJdkXmlManager
+{
+    @TempDir
+    Path tempDir;
+
+    private final AtomicInteger jaxbContextsCreated = new AtomicInteger();
+
+    private AutoJdkXmlManager xmlManager()
+    {
+        return new AutoJdkXmlManager(() ->
+        {
+            jaxbContextsCreated.incrementAndGet();
+            return JAXBContext.newInstance(LocalJdkMetadata.class, MavenJdkArtifactMetadata.class);
+        });
+    }
+
+    @Test
+    void staxMetadataDoesNotCreateJaxbContext()
+    throws Exception
+    {
+        AutoJdkXmlManager xmlManager = xmlManager();
+        Path file = tempDir.resolve("jdk.xml");
+
+        xmlManager.writeFile(new LocalJdkMetadata("zulu", "17.0.2", ReleaseType.GA, Architecture.X64, OperatingSystem.LINUX), file);
+        LocalJdkMetadata result = xmlManager.parseFile(file, LocalJdkMetadata.class);
+
+        assertThat(result.getVendor()).isEqualTo("zulu");
+        assertThat(jaxbContextsCreated).hasValue(0);
+    }
+
+    @Test
+    void jaxbContextIsCreatedOnceWhenFirstNeeded()
+    throws Exception
+    {
+        AutoJdkXmlManager xmlManager = xmlManager();
+        Path file = tempDir.resolve("metadata.xml");
+
+        xmlManager.writeFile(new MavenJdkArtifactMetadata(List.of(ArchiveType.TAR_GZ), ReleaseType.GA), file);
+        MavenJdkArtifactMetadata result = xmlManager.parseFile(file, MavenJdkArtifactMetadata.class);
+
+        assertThat(result.getArchiveTypes()).containsExactly(ArchiveType.TAR_GZ);
+        assertThat(jaxbContextsCreated).hasValue(1);
+    }
+}
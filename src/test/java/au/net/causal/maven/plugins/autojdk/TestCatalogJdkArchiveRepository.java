@@ -0,0 +1,208 @@
+package au.net.causal.maven.plugins.autojdk;
+
+import au.net.causal.maven.plugins.autojdk.xml.metadata.ArchiveType;
+import au.net.causal.maven.plugins.autojdk.xml.metadata.JdkCatalog;
+import au.net.causal.maven.plugins.autojdk.xml.metadata.ReleaseType;
+import com.google.common.hash.Hashing;
+import eu.hansolo.jdktools.Architecture;
+import eu.hansolo.jdktools.LibCType;
+import eu.hansolo.jdktools.OperatingSystem;
+import org.apache.maven.artifact.versioning.VersionRange;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+class TestCatalogJdkArchiveRepository
+{
+    @TempDir
+    Path tempDir;
+
+    private static JdkCatalog.Jdk jdk(String vendor, String version, OperatingSystem os, Architecture arch, LibCType libCType)
+    {
+        JdkCatalog.Jdk jdk = new JdkCatalog.Jdk();
+        jdk.setId(vendor + "-" + version + "-" + os.getApiString() + "-" + arch.getApiString() + "-" + libCType.getApiString());
+        jdk.setVendor(vendor);
+        jdk.setVersion(version);
+        jdk.setReleaseType(ReleaseType.GA);
+        jdk.setOperatingSystem(os);
+        jdk.setArchitecture(arch);
+        jdk.setLibCType(libCType);
+        jdk.setArchiveType(ArchiveType.TAR_GZ);
+        jdk.setFileName(jdk.getId() + ".tar.gz");
+        jdk.setDownloadUrl("https://example.com/" + jdk.getFileName());
+        return jdk;
+    }
+
+    private static JdkSearchRequest searchRequest(String versionRange, OperatingSystem os, Architecture arch, String vendor)
+    throws Exception
+    {
+        return new JdkSearchRequest(VersionRange.createFromVersionSpec(versionRange), arch, os, vendor, ReleaseType.GA);
+    }
+
+    @Nested
+    class Search
+    {
+        private CatalogJdkArchiveRepository repository;
+
+        @BeforeEach
+        void setUpCatalog()
+        throws Exception
+        {
+            JdkCatalog catalog = new JdkCatalog();
+            catalog.setSource("https://api.foojay.io");
+            catalog.getJdks().add(jdk("zulu", "17.0.2", OperatingSystem.LINUX, Architecture.X64, LibCType.GLIBC));
+            catalog.getJdks().add(jdk("zulu", "17.0.5", OperatingSystem.LINUX, Architecture.X64, LibCType.GLIBC));
+            catalog.getJdks().add(jdk("zulu", "17.0.5", OperatingSystem.LINUX, Architecture.X64, LibCType.MUSL));
+            catalog.getJdks().add(jdk("zulu", "21.0.1", OperatingSystem.LINUX, Architecture.X64, LibCType.GLIBC));
+            catalog.getJdks().add(jdk("temurin", "17.0.4", OperatingSystem.LINUX, Architecture.X64, LibCType.GLIBC));
+            catalog.getJdks().add(jdk("zulu", "17.0.5", OperatingSystem.WINDOWS, Architecture.X64, LibCType.C_STD_LIB));
+            catalog.getJdks().add(jdk("zulu", "17.0.5", OperatingSystem.MACOS, Architecture.AARCH64, LibCType.LIBC));
+            catalog.getVendors().add(new JdkCatalog.Vendor("temurin", List.of("adoptium", "adoptopenjdk")));
+
+            //Round trip through the file format to make sure that works too
+            Path catalogFile = tempDir.resolve("catalog.xml");
+            AutoJdkXmlManager xmlManager = new AutoJdkXmlManager();
+            xmlManager.writeFile(catalog, catalogFile);
+            JdkCatalog readCatalog = xmlManager.parseFile(catalogFile, JdkCatalog.class);
+            repository = new CatalogJdkArchiveRepository(() -> readCatalog, null, new HttpClientFileDownloader(tempDir));
+        }
+
+        @Test
+        void highestVersionsFirst()
+        throws Exception
+        {
+            Collection<? extends CatalogJdkArtifact> results = repository.search(searchRequest("[17,18)", OperatingSystem.LINUX, Architecture.X64, "zulu"));
+
+            assertThat(results).extracting(a -> a.getVersion().toString()).containsExactly("17.0.5", "17.0.2");
+        }
+
+        @Test
+        void otherMajorVersionsAreNotReturned()
+        throws Exception
+        {
+            Collection<? extends CatalogJdkArtifact> results = repository.search(searchRequest("[21,22)", OperatingSystem.LINUX, Architecture.X64, null));
+
+            assertThat(results).extracting(a -> a.getVersion().toString()).containsExactly("21.0.1");
+        }
+
+        @Test
+        void vendorFoundBySynonym()
+        throws Exception
+        {
+            Collection<? extends CatalogJdkArtifact> results = repository.search(searchRequest("[17,18)", OperatingSystem.LINUX, Architecture.X64, "Adoptium"));
+
+            assertThat(results).extracting(CatalogJdkArtifact::getVendor).containsExactly("temurin");
+        }
+
+        @Test
+        void vendorFilter()
+        throws Exception
+        {
+            Collection<? extends CatalogJdkArtifact> results = repository.search(searchRequest("[17,18)", OperatingSystem.LINUX, Architecture.X64, "temurin"));
+
+            assertThat(results).extracting(CatalogJdkArtifact::getVendor).containsExactly("temurin");
+        }
+
+        @Test
+        void libCTypeOfOperatingSystemIsRespected()
+        throws Exception
+        {
+            Collection<? extends CatalogJdkArtifact> results = repository.search(searchRequest("17.0.5", OperatingSystem.ALPINE_LINUX, Architecture.X64, "zulu"));
+
+            assertThat(results).singleElement().satisfies(a -> assertThat(a.getCatalogJdk().getLibCType()).isEqualTo(LibCType.MUSL));
+        }
+
+        @Test
+        void allPlatforms()
+        throws Exception
+        {
+            Collection<? extends CatalogJdkArtifact> results = repository.search(searchRequest("17.0.5", null, null, "zulu"));
+
+            assertThat(results).extracting(CatalogJdkArtifact::getOperatingSystem)
+                               .containsExactlyInAnyOrder(OperatingSystem.LINUX, OperatingSystem.LINUX, OperatingSystem.WINDOWS, OperatingSystem.MACOS);
+        }
+
+        @Test
+        void architectureSynonymsMatch()
+        throws Exception
+        {
+            Collection<? extends CatalogJdkArtifact> results = repository.search(searchRequest("17.0.5", OperatingSystem.MACOS, Architecture.ARM64, "zulu"));
+
+            assertThat(results).singleElement().extracting(CatalogJdkArtifact::getArchitecture).isEqualTo(Architecture.AARCH64);
+        }
+    }
+
+    @Nested
+    class ResolveArchive
+    {
+        private Path mirrorDir;
+        private JdkCatalog.Jdk catalogJdk;
+
+        @BeforeEach
+        void setUpMirror()
+        throws Exception
+        {
+            mirrorDir = Files.createDirectories(tempDir.resolve("mirror"));
+            catalogJdk = jdk("zulu", "17.0.5", OperatingSystem.LINUX, Architecture.X64, LibCType.GLIBC);
+            Files.writeString(mirrorDir.resolve(catalogJdk.getFileName()), "my JDK", StandardCharsets.UTF_8);
+        }
+
+        private CatalogJdkArchiveRepository repository()
+        {
+            JdkCatalog catalog = new JdkCatalog();
+            catalog.getJdks().add(catalogJdk);
+            return new CatalogJdkArchiveRepository(() -> catalog, mirrorDir.toUri(), new HttpClientFileDownloader(tempDir));
+        }
+
+        @Test
+        void archiveIsReadFromMirror()
+        throws Exception
+        {
+            catalogJdk.setChecksumType("sha256");
+            catalogJdk.setChecksum(Hashing.sha256().hashString("my JDK", StandardCharsets.UTF_8).toString());
+            CatalogJdkArchiveRepository repository = repository();
+
+            CatalogJdkArtifact artifact = List.copyOf(repository.search(searchRequest("17.0.5", OperatingSystem.LINUX, Architecture.X64, "zulu"))).get(0);
+            JdkArchive<CatalogJdkArtifact> archive = repository.resolveArchive(artifact);
+
+            assertThat(archive.getFile()).hasContent("my JDK");
+
+            //Archive in mirror is not a temporary download and should not be deleted
+            repository.cleanUpAfterArchiveUse(archive);
+            assertThat(mirrorDir.resolve(catalogJdk.getFileName())).exists();
+        }
+
+        @Test
+        void checksumMismatchFails()
+        throws Exception
+        {
+            catalogJdk.setChecksumType("sha256");
+            catalogJdk.setChecksum(Hashing.sha256().hashString("another JDK", StandardCharsets.UTF_8).toString());
+            CatalogJdkArchiveRepository repository = repository();
+
+            CatalogJdkArtifact artifact = List.copyOf(repository.search(searchRequest("17.0.5", OperatingSystem.LINUX, Architecture.X64, "zulu"))).get(0);
+
+            assertThatExceptionOfType(JdkRepositoryException.class).isThrownBy(() -> repository.resolveArchive(artifact))
+                                                                   .withMessageContaining("Checksum mismatch");
+        }
+    }
+
+    @Test
+    void newerFormatVersionIsRejected()
+    {
+        JdkCatalog catalog = new JdkCatalog();
+        catalog.setFormatVersion(JdkCatalog.CURRENT_FORMAT_VERSION + 1);
+        CatalogJdkArchiveRepository repository = new CatalogJdkArchiveRepository(() -> catalog, null, new HttpClientFileDownloader(tempDir));
+
+        assertThatExceptionOfType(JdkRepositoryException.class).isThrownBy(() -> repository.search(searchRequest("17", OperatingSystem.LINUX, Architecture.X64, null)));
+    }
+}
@@ -0,0 +1,183 @@
+package au.net.causal.maven.plugins.autojdk;
+
+import au.net.causal.maven.plugins.autojdk.xml.metadata.ArchiveType;
+import au.net.causal.maven.plugins.autojdk.xml.metadata.ReleaseType;
+import eu.hansolo.jdktools.Architecture;
+import eu.hansolo.jdktools.OperatingSystem;
+import org.apache.maven.artifact.versioning.VersionRange;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TestCircuitBreakerJdkArchiveRepository
+{
+    private static final Instant START_TIME = Instant.parse("2024-01-01T10:00:00Z");
+    private static final Duration OPEN_DURATION = Duration.ofMinutes(10);
+
+    @Mock
+    private JdkArchiveRepository<SimpleJdkArtifact> repo;
+
+    @TempDir
+    Path stateDirectory;
+
+    private final MovableClock clock = new MovableClock(START_TIME);
+
+    private RepositoryCircuitBreaker circuitBreaker()
+    {
+        return new RepositoryCircuitBreaker("maven:https://repo.example.com", stateDirectory, 2, OPEN_DURATION, clock);
+    }
+
+    private void moveTimeForward(Duration duration)
+    {
+        clock.now = clock.now.plus(duration);
+    }
+
+    private static JdkSearchRequest searchRequest()
+    throws Exception
+    {
+        return new JdkSearchRequest(VersionRange.createFromVersionSpec("[17, 18)"), Architecture.X64, OperatingSystem.LINUX, null, ReleaseType.GA);
+    }
+
+    @Test
+    void failuresBelowThresholdKeepCircuitClosed()
+    throws Exception
+    {
+        SimpleJdkArtifact aSearchResult = new SimpleJdkArtifact("zulu", "17.0", ArchiveType.TAR_GZ);
+        when(repo.search(any())).thenThrow(new JdkRepositoryException("Connection refused")).thenAnswer(a -> List.of(aSearchResult));
+
+        CircuitBreakerJdkArchiveRepository<SimpleJdkArtifact> r = new CircuitBreakerJdkArchiveRepository<>(repo, circuitBreaker());
+
+        assertThatExceptionOfType(JdkRepositoryException.class).isThrownBy(() -> r.search(searchRequest()));
+        assertThat(r.search(searchRequest())).singleElement().isEqualTo(aSearchResult);
+    }
+
+    @Test
+    void openCircuitSkipsRepository()
+    throws Exception
+    {
+        when(repo.search(any())).thenThrow(new JdkRepositoryException("Connection refused"));
+
+        CircuitBreakerJdkArchiveRepository<SimpleJdkArtifact> r = new CircuitBreakerJdkArchiveRepository<>(repo, circuitBreaker());
+
+        assertThatExceptionOfType(JdkRepositoryException.class).isThrownBy(() -> r.search(searchRequest()));
+        assertThatExceptionOfType(JdkRepositoryException.class).isThrownBy(() -> r.search(searchRequest()));
+
+        //Circuit is now open so the repository is not even tried
+        assertThat(r.search(searchRequest())).isEmpty();
+        verify(repo, times(2)).search(any());
+    }
+
+    @Test
+    void openStateIsSharedThroughStateDirectory()
+    throws Exception
+    {
+        when(repo.search(any())).thenThrow(new JdkRepositoryException("Connection refused"));
+
+        CircuitBreakerJdkArchiveRepository<SimpleJdkArtifact> r = new CircuitBreakerJdkArchiveRepository<>(repo, circuitBreaker());
+        assertThatExceptionOfType(JdkRepositoryException.class).isThrownBy(() -> r.search(searchRequest()));
+        assertThatExceptionOfType(JdkRepositoryException.class).isThrownBy(() -> r.search(searchRequest()));
+
+        //Like another Maven process starting up
+        CircuitBreakerJdkArchiveRepository<SimpleJdkArtifact> r2 = new CircuitBreakerJdkArchiveRepository<>(repo, circuitBreaker());
+        assertThat(r2.search(searchRequest())).isEmpty();
+        verify(repo, times(2)).search(any());
+    }
+
+    @Test
+    void successfulProbeClosesCircuit()
+    throws Exception
+    {
+        SimpleJdkArtifact aSearchResult = new SimpleJdkArtifact("zulu", "17.0", ArchiveType.TAR_GZ);
+        when(repo.search(any())).thenThrow(new JdkRepositoryException("Connection refused"))
+                                .thenThrow(new JdkRepositoryException("Connection refused"))
+                                .thenAnswer(a -> List.of(aSearchResult));
+
+        CircuitBreakerJdkArchiveRepository<SimpleJdkArtifact> r = new CircuitBreakerJdkArchiveRepository<>(repo, circuitBreaker());
+        assertThatExceptionOfType(JdkRepositoryException.class).isThrownBy(() -> r.search(searchRequest()));
+        assertThatExceptionOfType(JdkRepositoryException.class).isThrownBy(() -> r.search(searchRequest()));
+
+        moveTimeForward(OPEN_DURATION.plusSeconds(1));
+
+        //Half-open, probe goes through and works
+        assertThat(r.search(searchRequest())).singleElement().isEqualTo(aSearchResult);
+        assertThat(r.search(searchRequest())).singleElement().isEqualTo(aSearchResult);
+        verify(repo, times(4)).search(any());
+    }
+
+    @Test
+    void failedProbeReopensCircuit()
+    throws Exception
+    {
+        when(repo.search(any())).thenThrow(new JdkRepositoryException("Connection refused"));
+
+        CircuitBreakerJdkArchiveRepository<SimpleJdkArtifact> r = new CircuitBreakerJdkArchiveRepository<>(repo, circuitBreaker());
+        assertThatExceptionOfType(JdkRepositoryException.class).isThrownBy(() -> r.search(searchRequest()));
+        assertThatExceptionOfType(JdkRepositoryException.class).isThrownBy(() -> r.search(searchRequest()));
+
+        moveTimeForward(OPEN_DURATION.plusSeconds(1));
+
+        //Probe fails, so open again straight away without needing to reach the threshold
+        assertThatExceptionOfType(JdkRepositoryException.class).isThrownBy(() -> r.search(searchRequest()));
+        assertThat(r.search(searchRequest())).isEmpty();
+        verify(repo, times(3)).search(any());
+    }
+
+    @Test
+    void onlyOneProbeAtATime()
+    throws Exception
+    {
+        when(repo.search(any())).thenThrow(new JdkRepositoryException("Connection refused"));
+
+        RepositoryCircuitBreaker circuitBreaker = circuitBreaker();
+        CircuitBreakerJdkArchiveRepository<SimpleJdkArtifact> r = new CircuitBreakerJdkArchiveRepository<>(repo, circuitBreaker);
+        assertThatExceptionOfType(JdkRepositoryException.class).isThrownBy(() -> r.search(searchRequest()));
+        assertThatExceptionOfType(JdkRepositoryException.class).isThrownBy(() -> r.search(searchRequest()));
+
+        moveTimeForward(OPEN_DURATION.plusSeconds(1));
+
+        assertThat(circuitBreaker.allowRequest()).isTrue();
+        assertThat(circuitBreaker().allowRequest()).isFalse();
+    }
+
+    private static class MovableClock extends Clock
+    {
+        private Instant now;
+
+        public MovableClock(Instant now)
+        {
+            this.now = now;
+        }
+
+        @Override
+        public ZoneId getZone()
+        {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone)
+        {
+            return this;
+        }
+
+        @Override
+        public Instant instant()
+        {
+            return now;
+        }
+    }
+}
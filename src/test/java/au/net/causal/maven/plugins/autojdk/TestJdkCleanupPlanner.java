@@ -0,0 +1,134 @@
+package au.net.causal.maven.plugins.autojdk;
+
+import au.net.causal.maven.plugins.autojdk.xml.config.AutoJdkConfiguration;
+import au.net.causal.maven.plugins.autojdk.xml.metadata.LocalJdkMetadata;
+import au.net.causal.maven.plugins.autojdk.xml.metadata.ReleaseType;
+import eu.hansolo.jdktools.Architecture;
+import eu.hansolo.jdktools.OperatingSystem;
+import org.junit.jupiter.api.Test;
+
+import javax.xml.datatype.DatatypeFactory;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+class TestJdkCleanupPlanner
+{
+    private static final Instant NOW = Instant.parse("2024-06-01T00:00:00Z");
+    private static final long MB = 1024L * 1024L;
+
+    private static JdkCleanupPlanner.Candidate candidate(String vendor, String version, Duration unusedFor, long sizeMb)
+    {
+        LocalJdk jdk = new AutoJdkInstalledJdkSystem.AutoJdkInstallation(Path.of(vendor + "-" + version),
+                new LocalJdkMetadata(vendor, version, ReleaseType.GA, Architecture.X64, OperatingSystem.LINUX));
+        return new JdkCleanupPlanner.Candidate(jdk, NOW.minus(unusedFor), sizeMb * MB);
+    }
+
+    private static JdkCleanupPlanner planner(Long maxTotalSizeMb, String maxUnusedAge, Integer keepVersionsPerMajor)
+    {
+        AutoJdkConfiguration.JdkCleanupPolicy policy = new AutoJdkConfiguration.JdkCleanupPolicy(
+                maxTotalSizeMb, maxUnusedAge == null ? null : DatatypeFactory.newDefaultInstance().newDuration(maxUnusedAge), keepVersionsPerMajor);
+        return new JdkCleanupPlanner(policy);
+    }
+
+    @Test
+    void jdksUnusedForLongerThanMaxAgeAreRemoved()
+    {
+        JdkCleanupPlanner.Candidate recent = candidate("zulu", "17.0.2", Duration.ofDays(5), 300);
+        JdkCleanupPlanner.Candidate old = candidate("zulu", "11.0.19", Duration.ofDays(100), 300);
+
+        List<JdkCleanupPlanner.Candidate> toRemove = planner(null, "P30D", null).selectJdksToRemove(List.of(recent, old), NOW);
+
+        assertThat(toRemove).containsExactly(old);
+    }
+
+    @Test
+    void olderVersionsBeyondKeepCountAreRemoved()
+    {
+        JdkCleanupPlanner.Candidate zulu17v1 = candidate("zulu", "17.0.1", Duration.ofDays(10), 300);
+        JdkCleanupPlanner.Candidate zulu17v2 = candidate("zulu", "17.0.2", Duration.ofDays(10), 300);
+        JdkCleanupPlanner.Candidate zulu17v3 = candidate("zulu", "17.0.3", Duration.ofDays(10), 300);
+        JdkCleanupPlanner.Candidate temurin17 = candidate("temurin", "17.0.1", Duration.ofDays(10), 300);
+        JdkCleanupPlanner.Candidate zulu11 = candidate("zulu", "11.0.19", Duration.ofDays(10), 300);
+
+        List<JdkCleanupPlanner.Candidate> toRemove = planner(null, null, 2).selectJdksToRemove(List.of(zulu17v1, zulu17v2, zulu17v3, temurin17, zulu11), NOW);
+
+        assertThat(toRemove).containsExactly(zulu17v1);
+    }
+
+    @Test
+    void leastRecentlyUsedAreRemovedWhenOverQuota()
+    {
+        JdkCleanupPlanner.Candidate a = candidate("zulu", "17.0.2", Duration.ofDays(2), 300);
+        JdkCleanupPlanner.Candidate b = candidate("zulu", "11.0.19", Duration.ofDays(20), 300);
+        JdkCleanupPlanner.Candidate c = candidate("zulu", "21.0.1", Duration.ofDays(10), 300);
+
+        List<JdkCleanupPlanner.Candidate> toRemove = planner(500L, null, null).selectJdksToRemove(List.of(a, b, c), NOW);
+
+        assertThat(toRemove).containsExactly(b, c);
+    }
+
+    @Test
+    void jdksInUseAreNeverRemoved()
+    {
+        JdkCleanupPlanner.Candidate inUse = candidate("zulu", "17.0.1", Duration.ofHours(2), 300);
+        JdkCleanupPlanner.Candidate newer = candidate("zulu", "17.0.2", Duration.ofDays(10), 300);
+
+        List<JdkCleanupPlanner.Candidate> toRemove = planner(100L, "PT1H", 1).selectJdksToRemove(List.of(inUse, newer), NOW);
+
+        assertThat(toRemove).containsExactly(newer);
+    }
+
+    @Test
+    void nothingRemovedWithinLimits()
+    {
+        JdkCleanupPlanner.Candidate a = candidate("zulu", "17.0.2", Duration.ofDays(2), 300);
+        JdkCleanupPlanner.Candidate b = candidate("zulu", "11.0.19", Duration.ofDays(20), 300);
+
+        List<JdkCleanupPlanner.Candidate> toRemove = planner(1000L, "P30D", 1).selectJdksToRemove(List.of(a, b), NOW);
+
+        assertThat(toRemove).isEmpty();
+    }
+
+    @Test
+    void configuredInUsePeriodProtectsRecentlyUsedJdks()
+    {
+        JdkCleanupPlanner.Candidate usedLastWeek = candidate("zulu", "17.0.1", Duration.ofDays(7), 300);
+        AutoJdkConfiguration.JdkCleanupPolicy policy = new AutoJdkConfiguration.JdkCleanupPolicy(
+                null, DatatypeFactory.newDefaultInstance().newDuration("P1D"), null, DatatypeFactory.newDefaultInstance().newDuration("P30D"));
+
+        List<JdkCleanupPlanner.Candidate> toRemove = new JdkCleanupPlanner(policy).selectJdksToRemove(List.of(usedLastWeek), NOW);
+
+        assertThat(toRemove).isEmpty();
+    }
+
+    @Test
+    void oldArchivesAreRemoved()
+    {
+        LocalRepositoryJdkArchives.CachedArchive recent = archive("17.0.2", Duration.ofDays(5), 200);
+        LocalRepositoryJdkArchives.CachedArchive old = archive("11.0.19", Duration.ofDays(100), 200);
+
+        List<LocalRepositoryJdkArchives.CachedArchive> toRemove = planner(null, "P30D", null).selectArchivesToRemove(List.of(recent, old), 0L, NOW);
+
+        assertThat(toRemove).containsExactly(old);
+    }
+
+    @Test
+    void oldestArchivesAreRemovedWhenInstalledJdksAndArchivesAreOverQuota()
+    {
+        LocalRepositoryJdkArchives.CachedArchive a = archive("17.0.2", Duration.ofDays(2), 200);
+        LocalRepositoryJdkArchives.CachedArchive b = archive("11.0.19", Duration.ofDays(20), 200);
+
+        List<LocalRepositoryJdkArchives.CachedArchive> toRemove = planner(500L, null, null).selectArchivesToRemove(List.of(a, b), 200L * MB, NOW);
+
+        assertThat(toRemove).containsExactly(b);
+    }
+
+    private static LocalRepositoryJdkArchives.CachedArchive archive(String version, Duration age, long sizeMb)
+    {
+        return new LocalRepositoryJdkArchives.CachedArchive(Path.of("zulu-" + version + "-linux-x64.zip"), "zulu", version, "linux-x64", NOW.minus(age), sizeMb * MB);
+    }
+}
@@ -0,0 +1,61 @@
+package au.net.causal.maven.plugins.autojdk;
+
+import au.net.causal.maven.plugins.autojdk.xml.metadata.LocalJdkMetadata;
+import au.net.causal.maven.plugins.autojdk.xml.metadata.ReleaseType;
+import eu.hansolo.jdktools.Architecture;
+import eu.hansolo.jdktools.OperatingSystem;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+class TestLocalRepositoryJdkArchives
+{
+    @TempDir
+    Path localRepository;
+
+    @Test
+    void archivesUnderJdkGroupAreFound()
+    throws Exception
+    {
+        Path versionDir = Files.createDirectories(localRepository.resolve("au/net/causal/autojdk/jdk/zulu/17.0.2"));
+        Path archiveFile = Files.writeString(versionDir.resolve("zulu-17.0.2-linux-x64.tar.gz"), "archive");
+        Files.writeString(versionDir.resolve("zulu-17.0.2-linux-x64.autojdk-metadata.xml"), "metadata");
+        Files.writeString(versionDir.resolve("zulu-17.0.2.pom"), "pom");
+        Files.createDirectories(localRepository.resolve("org/example/other/1.0"));
+
+        LocalRepositoryJdkArchives archives = new LocalRepositoryJdkArchives(localRepository, List.of("au.net.causal.autojdk.jdk"));
+
+        assertThat(archives.findArchives()).singleElement().satisfies(archive ->
+        {
+            assertThat(archive.getFile()).isEqualTo(archiveFile);
+            assertThat(archive.getArtifactId()).isEqualTo("zulu");
+            assertThat(archive.getVersion()).isEqualTo("17.0.2");
+            assertThat(archive.getClassifier()).isEqualTo("linux-x64");
+            assertThat(archive.getSize()).isEqualTo(7L);
+            assertThat(archive.isFor(new AutoJdkInstalledJdkSystem.AutoJdkInstallation(Path.of("zulu-17"),
+                    new LocalJdkMetadata("zulu", "17.0.2", ReleaseType.GA, Architecture.X64, OperatingSystem.LINUX)))).isTrue();
+            assertThat(archive.isFor(new AutoJdkInstalledJdkSystem.AutoJdkInstallation(Path.of("zulu-17"),
+                    new LocalJdkMetadata("zulu", "17.0.2", ReleaseType.GA, Architecture.AARCH64, OperatingSystem.LINUX)))).isFalse();
+        });
+    }
+
+    @Test
+    void deleteRemovesArchiveAndMetadata()
+    throws Exception
+    {
+        Path versionDir = Files.createDirectories(localRepository.resolve("au/net/causal/autojdk/jdk/zulu/17.0.2"));
+        Files.writeString(versionDir.resolve("zulu-17.0.2-linux-x64.zip"), "archive");
+        Path metadataFile = Files.writeString(versionDir.resolve("zulu-17.0.2-linux-x64.autojdk-metadata.xml"), "metadata");
+
+        LocalRepositoryJdkArchives archives = new LocalRepositoryJdkArchives(localRepository, List.of("au.net.causal.autojdk.jdk"));
+        archives.delete(archives.findArchives().get(0));
+
+        assertThat(archives.findArchives()).isEmpty();
+        assertThat(metadataFile).doesNotExist();
+    }
+}
@@ -0,0 +1,474 @@
+package au.net.causal.maven.plugins.autojdk;
+
+import au.net.causal.maven.plugins.autojdk.xml.config.JdkUpdatePolicy;
+import au.net.causal.maven.plugins.autojdk.xml.metadata.ArchiveType;
+import au.net.causal.maven.plugins.autojdk.xml.metadata.JdkCatalog;
+import au.net.causal.maven.plugins.autojdk.xml.metadata.MavenJdkArtifactMetadata;
+import au.net.causal.maven.plugins.autojdk.xml.metadata.ReleaseType;
+import eu.hansolo.jdktools.Architecture;
+import eu.hansolo.jdktools.OperatingSystem;
+import org.apache.maven.artifact.versioning.VersionRange;
+import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.resolution.ArtifactRequest;
+import org.eclipse.aether.resolution.ArtifactResolutionException;
+import org.eclipse.aether.resolution.ArtifactResult;
+import org.eclipse.aether.resolution.VersionRangeRequest;
+import org.eclipse.aether.resolution.VersionRangeResolutionException;
+import org.eclipse.aether.resolution.VersionRangeResult;
+import org.eclipse.aether.transfer.ArtifactNotFoundException;
+import org.eclipse.aether.util.version.GenericVersionScheme;
+import org.eclipse.aether.version.InvalidVersionSpecificationException;
+import org.eclipse.aether.version.Version;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.file.Path;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TestMavenArtifactJdkArchiveRepository
+{
+    private static final String GROUP_ID = "au.net.causal.autojdk.jdk";
+
+    @Mock
+    private RepositorySystem repositorySystem;
+
+    @Mock
+    private RepositorySystemSession repositorySystemSession;
+
+    @TempDir
+    Path tempDir;
+
+    private AutoJdkXmlManager xmlManager;
+    private final ExecutorService executor = Executors.newFixedThreadPool(8);
+    private Path gaMetadataFile;
+
+    @BeforeEach
+    void writeMetadata()
+    throws Exception
+    {
+        xmlManager = new AutoJdkXmlManager();
+        gaMetadataFile = tempDir.resolve("ga.autojdk-metadata.xml");
+        xmlManager.writeFile(new MavenJdkArtifactMetadata(List.of(ArchiveType.TAR_GZ), ReleaseType.GA), gaMetadataFile);
+    }
+
+    @AfterEach
+    void shutDownExecutor()
+    {
+        executor.shutdownNow();
+    }
+
+    private MavenArtifactJdkArchiveRepository repository(List<String> vendors, int maxConcurrentRequests)
+    {
+        return new MavenArtifactJdkArchiveRepository(repositorySystem, repositorySystemSession, List.of(), GROUP_ID, () -> vendors, xmlManager,
+                                                     executor, maxConcurrentRequests);
+    }
+
+    private MavenArtifactJdkArchiveRepository remoteRepository(List<String> vendors)
+    {
+        RemoteRepository remoteRepository = new RemoteRepository.Builder("jdks", "default", "https://repo.example.com/jdks").build();
+        return new MavenArtifactJdkArchiveRepository(repositorySystem, repositorySystemSession, List.of(remoteRepository), GROUP_ID, () -> vendors,
+                                                     xmlManager, executor, 4);
+    }
+
+    private static JdkCatalog.Jdk catalogJdk(String vendor, String version, OperatingSystem operatingSystem, Architecture architecture, ReleaseType releaseType)
+    {
+        JdkCatalog.Jdk jdk = new JdkCatalog.Jdk();
+        jdk.setVendor(vendor);
+        jdk.setVersion(version);
+        jdk.setOperatingSystem(operatingSystem);
+        jdk.setArchitecture(architecture);
+        jdk.setArchiveType(ArchiveType.TAR_GZ);
+        jdk.setReleaseType(releaseType);
+        return jdk;
+    }
+
+    private static List<Version> versions(String... versions)
+    throws InvalidVersionSpecificationException
+    {
+        GenericVersionScheme versionScheme = new GenericVersionScheme();
+        List<Version> result = new ArrayList<>(versions.length);
+        for (String version : versions)
+        {
+            result.add(versionScheme.parseVersion(version));
+        }
+        return result;
+    }
+
+    private static VersionRangeResult versionRangeResult(VersionRangeRequest request, List<Version> versions)
+    {
+        VersionRangeResult result = new VersionRangeResult(request);
+        result.setVersions(versions);
+        return result;
+    }
+
+    private ArtifactResult metadataResult(ArtifactRequest request)
+    {
+        Artifact artifact = request.getArtifact().setFile(gaMetadataFile.toFile());
+        return new ArtifactResult(request).setArtifact(artifact);
+    }
+
+    private List<ArtifactResult> metadataResults(Collection<? extends ArtifactRequest> requests)
+    {
+        return requests.stream().map(this::metadataResult).collect(Collectors.toList());
+    }
+
+    private static JdkSearchRequest searchRequest(Architecture architecture, OperatingSystem operatingSystem)
+    throws Exception
+    {
+        return new JdkSearchRequest(VersionRange.createFromVersionSpec("[17, 18)"), architecture, operatingSystem, null, ReleaseType.GA);
+    }
+
+    @Test
+    void resultsAreInVendorThenPlatformThenVersionOrder()
+    throws Exception
+    {
+        when(repositorySystem.resolveVersionRange(any(), any())).thenAnswer(a ->
+        {
+            VersionRangeRequest request = a.getArgument(1);
+
+            //First vendor finishes last
+            if (request.getArtifact().getArtifactId().equals("zulu"))
+            {
+                Thread.sleep(200L);
+                return versionRangeResult(request, versions("17.0.1", "17.0.2"));
+            }
+            else
+                return versionRangeResult(request, versions("17.0.3"));
+        });
+        when(repositorySystem.resolveArtifacts(any(), any())).thenAnswer(a -> metadataResults(a.getArgument(1)));
+
+        MavenArtifactJdkArchiveRepository r = repository(List.of("zulu", "temurin"), 4);
+        Collection<? extends MavenJdkArtifact> results = r.search(searchRequest(Architecture.X64, null));
+
+        assertThat(results).extracting(a -> a.getVendor() + ":" + a.getOperatingSystem().getApiString() + ":" + a.getVersion())
+                           .containsExactly("zulu:linux:17.0.1",
+                                            "zulu:linux:17.0.2",
+                                            "zulu:macos:17.0.1",
+                                            "zulu:macos:17.0.2",
+                                            "zulu:solaris:17.0.1",
+                                            "zulu:solaris:17.0.2",
+                                            "zulu:windows:17.0.1",
+                                            "zulu:windows:17.0.2",
+                                            "temurin:linux:17.0.3",
+                                            "temurin:macos:17.0.3",
+                                            "temurin:solaris:17.0.3",
+                                            "temurin:windows:17.0.3");
+    }
+
+    @Test
+    void concurrentVersionSearchesAreLimited()
+    throws Exception
+    {
+        AtomicInteger inProgress = new AtomicInteger();
+        AtomicInteger maxInProgress = new AtomicInteger();
+
+        when(repositorySystem.resolveVersionRange(any(), any())).thenAnswer(a ->
+        {
+            maxInProgress.accumulateAndGet(inProgress.incrementAndGet(), Math::max);
+            try
+            {
+                Thread.sleep(10L);
+                return versionRangeResult(a.getArgument(1), versions("17.0.1", "17.0.2"));
+            }
+            finally
+            {
+                inProgress.decrementAndGet();
+            }
+        });
+        when(repositorySystem.resolveArtifacts(any(), any())).thenAnswer(a -> metadataResults(a.getArgument(1)));
+
+        List<String> vendors = List.of("zulu", "temurin", "corretto", "liberica", "microsoft", "oracle", "graalvm", "semeru");
+        MavenArtifactJdkArchiveRepository r = repository(vendors, 2);
+        Collection<? extends MavenJdkArtifact> results = r.search(searchRequest(null, null));
+
+        assertThat(results).hasSize(vendors.size() * 2 * PlatformTools.WELL_KNOWN_PLATFORMS.size());
+        assertThat(maxInProgress.get()).isBetween(1, 2);
+    }
+
+    @Test
+    void allMetadataIsResolvedInOneBatch()
+    throws Exception
+    {
+        when(repositorySystem.resolveVersionRange(any(), any())).thenAnswer(a -> versionRangeResult(a.getArgument(1), versions("17.0.1", "17.0.2")));
+        when(repositorySystem.resolveArtifacts(any(), any())).thenAnswer(a -> metadataResults(a.getArgument(1)));
+
+        MavenArtifactJdkArchiveRepository r = repository(List.of("zulu", "temurin"), 4);
+        r.search(searchRequest(Architecture.X64, OperatingSystem.LINUX));
+
+        verify(repositorySystem, times(1)).resolveArtifacts(any(), argThat(requests -> requests.size() == 4));
+        verify(repositorySystem, never()).resolveArtifact(any(), any());
+    }
+
+    @Test
+    void missingMetadataOnlySkipsThatResult()
+    throws Exception
+    {
+        when(repositorySystem.resolveVersionRange(any(), any())).thenAnswer(a -> versionRangeResult(a.getArgument(1), versions("17.0.1", "17.0.2")));
+        when(repositorySystem.resolveArtifacts(any(), any())).thenAnswer(a ->
+        {
+            List<ArtifactResult> results = new ArrayList<>();
+            for (ArtifactRequest request : a.<Collection<ArtifactRequest>>getArgument(1))
+            {
+                //No metadata for 17.0.1
+                if (request.getArtifact().getVersion().equals("17.0.1"))
+                    results.add(new ArtifactResult(request).addException(new ArtifactNotFoundException(request.getArtifact(), null)));
+                else
+                    results.add(metadataResult(request));
+            }
+            throw new ArtifactResolutionException(results);
+        });
+
+        MavenArtifactJdkArchiveRepository r = repository(List.of("zulu"), 4);
+        Collection<? extends MavenJdkArtifact> results = r.search(searchRequest(Architecture.X64, OperatingSystem.LINUX));
+
+        assertThat(results).extracting(a -> a.getVendor() + ":" + a.getVersion())
+                           .containsExactly("zulu:17.0.2");
+    }
+
+    @Test
+    void versionSearchErrorsAreReported()
+    throws Exception
+    {
+        when(repositorySystem.resolveVersionRange(any(), any())).thenThrow(new VersionRangeResolutionException(new VersionRangeResult(new VersionRangeRequest()), "Broken"));
+
+        MavenArtifactJdkArchiveRepository r = repository(List.of("zulu"), 4);
+
+        assertThatExceptionOfType(JdkRepositoryException.class).isThrownBy(() -> r.search(searchRequest(Architecture.X64, OperatingSystem.LINUX)))
+                                                               .withMessageContaining("Broken");
+    }
+
+    @Test
+    void catalogIndexIsUsedWhenPresent()
+    throws Exception
+    {
+        JdkCatalog catalogIndex = new JdkCatalog();
+        catalogIndex.setJdks(List.of(catalogJdk("temurin", "17.0.2", OperatingSystem.LINUX, Architecture.X64, ReleaseType.GA),
+                                     catalogJdk("zulu", "17.0.2", OperatingSystem.LINUX, Architecture.X64, ReleaseType.GA),
+                                     catalogJdk("zulu", "17.0.1", OperatingSystem.LINUX, Architecture.X64, ReleaseType.GA),
+                                     catalogJdk("zulu", "17.0.3", OperatingSystem.LINUX, Architecture.X64, ReleaseType.EA),
+                                     catalogJdk("zulu", "17.0.1", OperatingSystem.WINDOWS, Architecture.X64, ReleaseType.GA),
+                                     catalogJdk("zulu", "11.0.1", OperatingSystem.LINUX, Architecture.X64, ReleaseType.GA),
+                                     catalogJdk("unknown", "17.0.1", OperatingSystem.LINUX, Architecture.X64, ReleaseType.GA)));
+        Path catalogIndexFile = tempDir.resolve("autojdk-catalog.xml");
+        xmlManager.writeFile(catalogIndex, catalogIndexFile);
+
+        when(repositorySystem.resolveVersionRange(any(), any())).thenAnswer(a ->
+        {
+            VersionRangeRequest request = a.getArgument(1);
+            assertThat(request.getArtifact().getArtifactId()).isEqualTo(MavenArtifactJdkArchiveRepository.CATALOG_INDEX_ARTIFACT_ID);
+            return versionRangeResult(request, versions("20240101.000000", "20240201.000000"));
+        });
+        when(repositorySystem.resolveArtifact(any(), any())).thenAnswer(a ->
+        {
+            ArtifactRequest request = a.getArgument(1);
+            assertThat(request.getArtifact().getVersion()).isEqualTo("20240201.000000");
+            return new ArtifactResult(request).setArtifact(request.getArtifact().setFile(catalogIndexFile.toFile()));
+        });
+
+        MavenArtifactJdkArchiveRepository r = remoteRepository(List.of("zulu", "temurin"));
+        Collection<? extends MavenJdkArtifact> results = r.search(searchRequest(Architecture.X64, OperatingSystem.LINUX));
+
+        //Same order as searching individually - vendor, platform then version
+        assertThat(results).extracting(a -> a.getVendor() + ":" + a.getOperatingSystem().getApiString() + ":" + a.getVersion())
+                           .containsExactly("zulu:linux:17.0.1",
+                                            "zulu:linux:17.0.2",
+                                            "temurin:linux:17.0.2");
+
+        //Index is only read once
+        r.search(searchRequest(Architecture.X64, OperatingSystem.WINDOWS));
+        verify(repositorySystem, times(1)).resolveVersionRange(any(), any());
+        verify(repositorySystem, times(1)).resolveArtifact(any(), any());
+        verify(repositorySystem, never()).resolveArtifacts(any(), any());
+    }
+
+    @Test
+    void searchesIndividuallyWhenCatalogIndexHasNoMatch()
+    throws Exception
+    {
+        //Index was generated before any JDK 17 was published
+        JdkCatalog catalogIndex = new JdkCatalog();
+        catalogIndex.setJdks(List.of(catalogJdk("zulu", "11.0.1", OperatingSystem.LINUX, Architecture.X64, ReleaseType.GA)));
+        Path catalogIndexFile = tempDir.resolve("autojdk-catalog.xml");
+        xmlManager.writeFile(catalogIndex, catalogIndexFile);
+
+        when(repositorySystem.resolveVersionRange(any(), any())).thenAnswer(a ->
+        {
+            VersionRangeRequest request = a.getArgument(1);
+            if (request.getArtifact().getArtifactId().equals(MavenArtifactJdkArchiveRepository.CATALOG_INDEX_ARTIFACT_ID))
+                return versionRangeResult(request, versions("20240101.000000"));
+            else
+                return versionRangeResult(request, versions("17.0.1"));
+        });
+        when(repositorySystem.resolveArtifact(any(), any())).thenAnswer(a ->
+        {
+            ArtifactRequest request = a.getArgument(1);
+            return new ArtifactResult(request).setArtifact(request.getArtifact().setFile(catalogIndexFile.toFile()));
+        });
+        when(repositorySystem.resolveArtifacts(any(), any())).thenAnswer(a -> metadataResults(a.getArgument(1)));
+
+        MavenArtifactJdkArchiveRepository r = remoteRepository(List.of("zulu"));
+        Collection<? extends MavenJdkArtifact> results = r.search(searchRequest(Architecture.X64, OperatingSystem.LINUX));
+
+        assertThat(results).extracting(a -> a.getVendor() + ":" + a.getVersion())
+                           .containsExactly("zulu:17.0.1");
+    }
+
+    @Test
+    void searchesIndividuallyWithoutCatalogIndex()
+    throws Exception
+    {
+        when(repositorySystem.resolveVersionRange(any(), any())).thenAnswer(a ->
+        {
+            VersionRangeRequest request = a.getArgument(1);
+            if (request.getArtifact().getArtifactId().equals(MavenArtifactJdkArchiveRepository.CATALOG_INDEX_ARTIFACT_ID))
+                return versionRangeResult(request, List.of());
+            else
+                return versionRangeResult(request, versions("17.0.1"));
+        });
+        when(repositorySystem.resolveArtifacts(any(), any())).thenAnswer(a -> metadataResults(a.getArgument(1)));
+
+        MavenArtifactJdkArchiveRepository r = remoteRepository(List.of("zulu"));
+        Collection<? extends MavenJdkArtifact> results = r.search(searchRequest(Architecture.X64, OperatingSystem.LINUX));
+
+        assertThat(results).extracting(a -> a.getVendor() + ":" + a.getVersion())
+                           .containsExactly("zulu:17.0.1");
+    }
+
+    @Test
+    void knownMissingMetadataIsNotRequestedAgain()
+    throws Exception
+    {
+        when(repositorySystem.resolveVersionRange(any(), any())).thenAnswer(a ->
+        {
+            VersionRangeRequest request = a.getArgument(1);
+            if (request.getArtifact().getArtifactId().equals(MavenArtifactJdkArchiveRepository.CATALOG_INDEX_ARTIFACT_ID))
+                return versionRangeResult(request, List.of());
+            else
+                return versionRangeResult(request, versions("17.0.1", "17.0.2"));
+        });
+        List<ArtifactRequest> resolvedRequests = new ArrayList<>();
+        when(repositorySystem.resolveArtifacts(any(), any())).thenAnswer(a ->
+        {
+            List<ArtifactResult> results = new ArrayList<>();
+            for (ArtifactRequest request : a.<Collection<ArtifactRequest>>getArgument(1))
+            {
+                resolvedRequests.add(request);
+
+                //No metadata for 17.0.1
+                if (request.getArtifact().getVersion().equals("17.0.1"))
+                    results.add(new ArtifactResult(request).addException(new ArtifactNotFoundException(request.getArtifact(), null)));
+                else
+                    results.add(metadataResult(request));
+            }
+            throw new ArtifactResolutionException(results);
+        });
+
+        RemoteRepository remoteRepository = new RemoteRepository.Builder("jdks", "default", "https://repo.example.com/jdks").build();
+        MissingMetadataCache missingMetadataCache = new MissingMetadataCache("maven:" + remoteRepository.getUrl(), tempDir.resolve("missing"),
+                                                                             new JdkUpdatePolicy.Never(), Clock.systemUTC());
+        MavenArtifactJdkArchiveRepository r = new MavenArtifactJdkArchiveRepository(repositorySystem, repositorySystemSession, List.of(remoteRepository),
+                                                                                    GROUP_ID, () -> List.of("zulu"), xmlManager, executor, 4,
+                                                                                    null, missingMetadataCache);
+        assertThat(r.search(searchRequest(Architecture.X64, OperatingSystem.LINUX))).extracting(a -> a.getVersion().toString()).containsExactly("17.0.2");
+        assertThat(resolvedRequests).extracting(request -> request.getArtifact().getVersion()).containsExactly("17.0.1", "17.0.2");
+
+        //Second search only requests the metadata that exists
+        resolvedRequests.clear();
+        assertThat(r.search(searchRequest(Architecture.X64, OperatingSystem.LINUX))).extracting(a -> a.getVersion().toString()).containsExactly("17.0.2");
+        assertThat(resolvedRequests).extracting(request -> request.getArtifact().getVersion()).containsExactly("17.0.2");
+    }
+
+    private MavenArtifactJdkArchiveRepository preferredVendorRepository(List<String> vendors, List<String> preferredVendors)
+    {
+        return new MavenArtifactJdkArchiveRepository(repositorySystem, repositorySystemSession, List.of(), GROUP_ID, () -> vendors, xmlManager,
+                                                     executor, 4, new KnownValueComparator<>(preferredVendors, "*"), null);
+    }
+
+    @Test
+    void preferredVendorSearchStopsAtFirstVendorWithMatch()
+    throws Exception
+    {
+        //No temurin JDKs at all, zulu has one
+        when(repositorySystem.resolveVersionRange(any(), any())).thenAnswer(a ->
+        {
+            VersionRangeRequest request = a.getArgument(1);
+            if (request.getArtifact().getArtifactId().equals("temurin"))
+                return versionRangeResult(request, List.of());
+            else
+                return versionRangeResult(request, versions("17.0.1"));
+        });
+        when(repositorySystem.resolveArtifacts(any(), any())).thenAnswer(a -> metadataResults(a.getArgument(1)));
+
+        MavenArtifactJdkArchiveRepository r = preferredVendorRepository(List.of("temurin", "zulu", "corretto", "liberica"), List.of("temurin", "zulu", "*"));
+        Collection<? extends MavenJdkArtifact> results = r.search(searchRequest(Architecture.X64, OperatingSystem.LINUX).withPreferredVendorsOnly(true));
+
+        assertThat(results).extracting(a -> a.getVendor() + ":" + a.getVersion())
+                           .containsExactly("zulu:17.0.1");
+        verify(repositorySystem, never()).resolveVersionRange(any(), argThat(request -> request.getArtifact().getArtifactId().equals("corretto")));
+        verify(repositorySystem, never()).resolveVersionRange(any(), argThat(request -> request.getArtifact().getArtifactId().equals("liberica")));
+    }
+
+    @Test
+    void preferredVendorSearchIncludesEquallyPreferredVendors()
+    throws Exception
+    {
+        //corretto has a higher version than liberica, but both are wildcard vendors so both must be searched
+        when(repositorySystem.resolveVersionRange(any(), any())).thenAnswer(a ->
+        {
+            VersionRangeRequest request = a.getArgument(1);
+            switch (request.getArtifact().getArtifactId())
+            {
+                case "corretto":
+                    return versionRangeResult(request, versions("17.0.2"));
+                case "liberica":
+                    return versionRangeResult(request, versions("17.0.1"));
+                default:
+                    return versionRangeResult(request, List.of());
+            }
+        });
+        when(repositorySystem.resolveArtifacts(any(), any())).thenAnswer(a -> metadataResults(a.getArgument(1)));
+
+        MavenArtifactJdkArchiveRepository r = preferredVendorRepository(List.of("temurin", "liberica", "corretto"), List.of("temurin", "*"));
+        JdkSearchRequest searchRequest = searchRequest(Architecture.X64, OperatingSystem.LINUX);
+        Collection<? extends MavenJdkArtifact> preferredResults = r.search(searchRequest.withPreferredVendorsOnly(true));
+        Collection<? extends MavenJdkArtifact> allResults = r.search(searchRequest);
+
+        assertThat(preferredResults).extracting(a -> a.getVendor() + ":" + a.getVersion())
+                                    .containsExactly("liberica:17.0.1", "corretto:17.0.2");
+        assertThat(preferredResults).extracting(MavenJdkArtifact::getArtifact)
+                                    .containsExactlyElementsOf(allResults.stream().map(MavenJdkArtifact::getArtifact).collect(Collectors.toList()));
+    }
+
+    @Test
+    void allVendorsAreSearchedWithoutPreferredVendorsOnly()
+    throws Exception
+    {
+        when(repositorySystem.resolveVersionRange(any(), any())).thenAnswer(a -> versionRangeResult(a.getArgument(1), versions("17.0.1")));
+        when(repositorySystem.resolveArtifacts(any(), any())).thenAnswer(a -> metadataResults(a.getArgument(1)));
+
+        MavenArtifactJdkArchiveRepository r = preferredVendorRepository(List.of("temurin", "zulu"), List.of("temurin", "zulu"));
+        Collection<? extends MavenJdkArtifact> results = r.search(searchRequest(Architecture.X64, OperatingSystem.LINUX));
+
+        assertThat(results).extracting(a -> a.getVendor() + ":" + a.getVersion())
+                           .containsExactly("temurin:17.0.1", "zulu:17.0.1");
+    }
+}
@@ -0,0 +1,238 @@
+package au.net.causal.maven.plugins.autojdk;
+
+import au.net.causal.maven.plugins.autojdk.xml.metadata.ArchiveType;
+import au.net.causal.maven.plugins.autojdk.xml.metadata.JdkCatalog;
+import au.net.causal.maven.plugins.autojdk.xml.metadata.MavenJdkArtifactMetadata;
+import au.net.causal.maven.plugins.autojdk.xml.metadata.ReleaseType;
+import eu.hansolo.jdktools.Architecture;
+import eu.hansolo.jdktools.OperatingSystem;
+import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.resolution.ArtifactRequest;
+import org.eclipse.aether.resolution.ArtifactResolutionException;
+import org.eclipse.aether.resolution.ArtifactResult;
+import org.eclipse.aether.resolution.VersionRangeRequest;
+import org.eclipse.aether.resolution.VersionRangeResult;
+import org.eclipse.aether.transfer.ArtifactNotFoundException;
+import org.eclipse.aether.util.version.GenericVersionScheme;
+import org.eclipse.aether.version.Version;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TestMavenJdkCatalogIndexer
+{
+    private static final String GROUP_ID = "au.net.causal.autojdk.jdk";
+
+    @Mock
+    private RepositorySystem repositorySystem;
+
+    @Mock
+    private RepositorySystemSession repositorySystemSession;
+
+    @Mock
+    private JdkArchiveRepository<SimpleJdkArtifact> sourceRepository;
+
+    @TempDir
+    Path tempDir;
+
+    private AutoJdkXmlManager xmlManager;
+    private Path gaMetadataFile;
+    private Path checksumFile;
+
+    private final List<ArtifactRequest> resolvedRequests = new ArrayList<>();
+
+    @BeforeEach
+    void setUp()
+    throws Exception
+    {
+        xmlManager = new AutoJdkXmlManager();
+        gaMetadataFile = tempDir.resolve("ga.autojdk-metadata.xml");
+        xmlManager.writeFile(new MavenJdkArtifactMetadata(List.of(ArchiveType.TAR_GZ), ReleaseType.GA), gaMetadataFile);
+        checksumFile = Files.writeString(tempDir.resolve("archive.tar.gz.sha1"), "0123456789abcdef  archive.tar.gz\n");
+    }
+
+    private MavenJdkCatalogIndexer indexer()
+    {
+        RemoteRepository remoteRepository = new RemoteRepository.Builder("jdks", "default", "https://repo.example.com/jdks").build();
+        MavenArtifactJdkArchiveRepository repository = new MavenArtifactJdkArchiveRepository(repositorySystem, repositorySystemSession,
+                                                                                             List.of(remoteRepository), GROUP_ID,
+                                                                                             () -> List.of("zulu", "temurin"), xmlManager);
+        return new MavenJdkCatalogIndexer(repository, Clock.fixed(Instant.parse("2024-01-01T10:00:00Z"), ZoneOffset.UTC));
+    }
+
+    private MavenJdkCatalogIndexer indexer(Map<String, List<String>> repositoryVersions)
+    throws Exception
+    {
+        GenericVersionScheme versionScheme = new GenericVersionScheme();
+        when(repositorySystem.resolveVersionRange(any(), any())).thenAnswer(a ->
+        {
+            VersionRangeRequest request = a.getArgument(1);
+            List<Version> versions = new ArrayList<>();
+            for (String version : repositoryVersions.getOrDefault(request.getArtifact().getArtifactId(), List.of()))
+            {
+                versions.add(versionScheme.parseVersion(version));
+            }
+            VersionRangeResult result = new VersionRangeResult(request);
+            result.setVersions(versions);
+            return result;
+        });
+
+        //Only Linux x64 JDKs are in the repository
+        when(repositorySystem.resolveArtifacts(any(), any())).thenAnswer(a ->
+        {
+            Collection<ArtifactRequest> requests = a.getArgument(1);
+            resolvedRequests.addAll(requests);
+            List<ArtifactResult> results = new ArrayList<>();
+            for (ArtifactRequest request : requests)
+            {
+                if (!request.getArtifact().getClassifier().equals("linux-x64"))
+                    results.add(new ArtifactResult(request).addException(new ArtifactNotFoundException(request.getArtifact(), null)));
+                else if (request.getArtifact().getExtension().endsWith(".sha1"))
+                    results.add(new ArtifactResult(request).setArtifact(request.getArtifact().setFile(checksumFile.toFile())));
+                else
+                    results.add(new ArtifactResult(request).setArtifact(request.getArtifact().setFile(gaMetadataFile.toFile())));
+            }
+            throw new ArtifactResolutionException(results);
+        });
+
+        return indexer();
+    }
+
+    private static JdkCatalog.Jdk catalogJdk(String vendor, String version)
+    {
+        JdkCatalog.Jdk jdk = new JdkCatalog.Jdk();
+        jdk.setVendor(vendor);
+        jdk.setVersion(version);
+        jdk.setOperatingSystem(OperatingSystem.LINUX);
+        jdk.setArchitecture(Architecture.X64);
+        jdk.setArchiveType(ArchiveType.ZIP);
+        jdk.setReleaseType(ReleaseType.GA);
+        return jdk;
+    }
+
+    @Test
+    void fullIndex()
+    throws Exception
+    {
+        MavenJdkCatalogIndexer indexer = indexer(Map.of("zulu", List.of("17.0.1", "17.0.2"), "temurin", List.of("11.0.1")));
+
+        JdkCatalog index = indexer.generateIndex(null, false);
+
+        assertThat(index.getSource()).isEqualTo("https://repo.example.com/jdks");
+        assertThat(index.getJdks()).extracting(jdk -> jdk.getVendor() + ":" + jdk.getVersion() + ":" + jdk.getOperatingSystem().getApiString() + "-" +
+                                                      jdk.getArchitecture().getApiString() + ":" + jdk.getArchiveType() + ":" + jdk.getReleaseType())
+                                   .containsExactly("zulu:17.0.1:linux-x64:TAR_GZ:GA",
+                                                    "zulu:17.0.2:linux-x64:TAR_GZ:GA",
+                                                    "temurin:11.0.1:linux-x64:TAR_GZ:GA");
+        assertThat(index.getJdks().get(0).getFileName()).isEqualTo("zulu-17.0.1-linux-x64.tar.gz");
+        assertThat(index.getJdks().get(0).getChecksum()).isNull();
+    }
+
+    @Test
+    void incrementalIndexOnlyReadsNewVersions()
+    throws Exception
+    {
+        MavenJdkCatalogIndexer indexer = indexer(Map.of("zulu", List.of("17.0.1", "17.0.2")));
+
+        //17.0.0 was removed from the repository, 17.0.1 is already indexed
+        JdkCatalog previousIndex = new JdkCatalog();
+        previousIndex.setJdks(List.of(catalogJdk("zulu", "17.0.0"), catalogJdk("zulu", "17.0.1")));
+
+        JdkCatalog index = indexer.generateIndex(previousIndex, false);
+
+        assertThat(index.getJdks()).extracting(jdk -> jdk.getVersion() + ":" + jdk.getArchiveType())
+                                   .containsExactly("17.0.1:ZIP", "17.0.2:TAR_GZ");
+
+        //Indexed platform of 17.0.1 is not read again, other platforms of it are still checked
+        assertThat(resolvedRequests).extracting(r -> r.getArtifact().getVersion() + ":" + r.getArtifact().getClassifier())
+                                    .contains("17.0.2:linux-x64", "17.0.1:windows-x64")
+                                    .doesNotContain("17.0.1:linux-x64");
+    }
+
+    @Test
+    void incrementalIndexFindsPlatformsAddedToIndexedVersions()
+    throws Exception
+    {
+        MavenJdkCatalogIndexer indexer = indexer(Map.of("zulu", List.of("17.0.1")));
+
+        //Only Windows was published when the previous index was generated, Linux has been added since
+        JdkCatalog.Jdk windowsJdk = catalogJdk("zulu", "17.0.1");
+        windowsJdk.setOperatingSystem(OperatingSystem.WINDOWS);
+        JdkCatalog previousIndex = new JdkCatalog();
+        previousIndex.setJdks(List.of(windowsJdk));
+
+        JdkCatalog index = indexer.generateIndex(previousIndex, false);
+
+        assertThat(index.getJdks()).extracting(jdk -> jdk.getVersion() + ":" + jdk.getOperatingSystem().getApiString() + ":" + jdk.getArchiveType())
+                                   .containsExactly("17.0.1:linux:TAR_GZ", "17.0.1:windows:ZIP");
+        assertThat(resolvedRequests).extracting(r -> r.getArtifact().getClassifier()).doesNotContain("windows-x64");
+    }
+
+    @Test
+    void mirroredJdksAreAddedToIndex()
+    throws Exception
+    {
+        MavenJdkCatalogIndexer indexer = indexer();
+
+        JdkCatalog previousIndex = new JdkCatalog();
+        previousIndex.setJdks(List.of(catalogJdk("zulu", "17.0.1"), catalogJdk("zulu", "17.0.2")));
+
+        //17.0.2 was mirrored again with another archive type, replacing its previous entry
+        MavenJdkMirrorSynchronizer.MirrorJdk<SimpleJdkArtifact> updatedJdk = mirrorJdk("zulu", "17.0.2", ReleaseType.GA, ArchiveType.TAR_GZ, ArchiveType.ZIP);
+        MavenJdkMirrorSynchronizer.MirrorJdk<SimpleJdkArtifact> newJdk = mirrorJdk("temurin", "17.0.3", ReleaseType.EA, ArchiveType.TAR_GZ);
+
+        JdkCatalog index = indexer.addJdks(previousIndex, List.of(updatedJdk, newJdk));
+
+        assertThat(index.getJdks()).extracting(jdk -> jdk.getVendor() + ":" + jdk.getVersion() + ":" + jdk.getArchiveType() + ":" + jdk.getReleaseType())
+                                   .containsExactly("zulu:17.0.1:ZIP:GA",
+                                                    "zulu:17.0.2:ZIP:GA",
+                                                    "zulu:17.0.2:TAR_GZ:GA",
+                                                    "temurin:17.0.3:TAR_GZ:EA");
+        assertThat(index.getJdks().get(3).getFileName()).isEqualTo("temurin-17.0.3-linux-x64.tar.gz");
+        verifyNoInteractions(repositorySystem);
+    }
+
+    private MavenJdkMirrorSynchronizer.MirrorJdk<SimpleJdkArtifact> mirrorJdk(String artifactId, String version, ReleaseType releaseType,
+                                                                                     ArchiveType... archiveTypes)
+    {
+        MavenJdkMirrorSynchronizer.MirrorJdk<SimpleJdkArtifact> jdk = new MavenJdkMirrorSynchronizer.MirrorJdk<>(
+                sourceRepository, artifactId, version, new Platform(OperatingSystem.LINUX, Architecture.X64), releaseType);
+        jdk.getArchiveTypes().addAll(List.of(archiveTypes));
+        return jdk;
+    }
+
+    @Test
+    void checksumsAreReadForNewJdks()
+    throws Exception
+    {
+        MavenJdkCatalogIndexer indexer = indexer(Map.of("zulu", List.of("17.0.1")));
+
+        JdkCatalog index = indexer.generateIndex(null, true);
+
+        assertThat(index.getJdks()).singleElement().satisfies(jdk ->
+        {
+            assertThat(jdk.getChecksum()).isEqualTo("0123456789abcdef");
+            assertThat(jdk.getChecksumType()).isEqualTo("sha1");
+        });
+        assertThat(resolvedRequests).extracting(r -> r.getArtifact().getExtension()).contains("tar.gz.sha1");
+    }
+}
@@ -0,0 +1,417 @@
+package au.net.causal.maven.plugins.autojdk;
+
+import au.net.causal.maven.plugins.autojdk.foojay.FoojayClient;
+import au.net.causal.maven.plugins.autojdk.foojay.FoojayMetadataMemo;
+import au.net.causal.maven.plugins.autojdk.foojay.FoojayOpenApiJdkRepository;
+import au.net.causal.maven.plugins.autojdk.foojay.FoojayQueryPlanner;
+import au.net.causal.maven.plugins.autojdk.foojay.JdkPackage;
+import au.net.causal.maven.plugins.autojdk.foojay.MajorVersion;
+import au.net.causal.maven.plugins.autojdk.xml.metadata.ArchiveType;
+import au.net.causal.maven.plugins.autojdk.xml.metadata.JdkCatalog;
+import au.net.causal.maven.plugins.autojdk.xml.metadata.MavenJdkArtifactMetadata;
+import au.net.causal.maven.plugins.autojdk.xml.metadata.ReleaseType;
+import eu.hansolo.jdktools.Architecture;
+import eu.hansolo.jdktools.Latest;
+import eu.hansolo.jdktools.OperatingSystem;
+import eu.hansolo.jdktools.ReleaseStatus;
+import org.apache.maven.artifact.versioning.VersionRange;
+import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.deployment.DeployRequest;
+import org.eclipse.aether.deployment.DeployResult;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.resolution.ArtifactRequest;
+import org.eclipse.aether.resolution.ArtifactResolutionException;
+import org.eclipse.aether.resolution.ArtifactResult;
+import org.eclipse.aether.resolution.VersionRangeRequest;
+import org.eclipse.aether.resolution.VersionRangeResult;
+import org.eclipse.aether.transfer.ArtifactNotFoundException;
+import org.eclipse.aether.util.version.GenericVersionScheme;
+import org.eclipse.aether.version.Version;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TestMavenJdkMirrorSynchronizer
+{
+    private static final String GROUP_ID = "au.net.causal.autojdk.jdk";
+
+    @Mock
+    private RepositorySystem repositorySystem;
+
+    @Mock
+    private RepositorySystemSession repositorySystemSession;
+
+    @Mock
+    private JdkArchiveRepository<SimpleJdkArtifact> sourceRepository;
+
+    @TempDir
+    Path tempDir;
+
+    private AutoJdkXmlManager xmlManager;
+    private Path gaMetadataFile;
+    private Path checksumFile;
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    /**
+     * Artifacts deployed to the target repository, along with metadata file contents read at the time of deployment.
+     */
+    private final List<Artifact> deployedArtifacts = new ArrayList<>();
+    private final List<MavenJdkArtifactMetadata> deployedMetadata = new ArrayList<>();
+
+    @BeforeEach
+    void setUp()
+    throws Exception
+    {
+        xmlManager = new AutoJdkXmlManager();
+        gaMetadataFile = tempDir.resolve("ga.autojdk-metadata.xml");
+        xmlManager.writeFile(new MavenJdkArtifactMetadata(List.of(ArchiveType.TAR_GZ), ReleaseType.GA), gaMetadataFile);
+        checksumFile = Files.writeString(tempDir.resolve("archive.tar.gz.sha1"), "0123456789abcdef\n");
+    }
+
+    @AfterEach
+    void shutDownExecutor()
+    {
+        executor.shutdownNow();
+    }
+
+    private MavenJdkMirrorSynchronizer synchronizer()
+    {
+        RemoteRepository remoteRepository = new RemoteRepository.Builder("jdks", "default", "https://repo.example.com/jdks").build();
+        MavenArtifactJdkArchiveRepository targetRepository = new MavenArtifactJdkArchiveRepository(repositorySystem, repositorySystemSession,
+                                                                                                   List.of(remoteRepository), GROUP_ID,
+                                                                                                   () -> List.of("zulu"), xmlManager);
+        return new MavenJdkMirrorSynchronizer(repositorySystem, repositorySystemSession, targetRepository, xmlManager, () -> tempDir, executor);
+    }
+
+    /**
+     * Sets up the target repository.
+     *
+     * @param versions versions of zulu in the target repository.
+     * @param metadataVersions versions that have metadata.
+     * @param deployedArchiveExtensions extensions of archives that have been deployed.
+     */
+    private void targetRepository(List<String> versions, Set<String> metadataVersions, Set<String> deployedArchiveExtensions)
+    throws Exception
+    {
+        GenericVersionScheme versionScheme = new GenericVersionScheme();
+        when(repositorySystem.resolveVersionRange(any(), any())).thenAnswer(a ->
+        {
+            VersionRangeRequest request = a.getArgument(1);
+            List<Version> result = new ArrayList<>();
+            for (String version : versions)
+            {
+                result.add(versionScheme.parseVersion(version));
+            }
+            return new VersionRangeResult(request).setVersions(result);
+        });
+        lenient().when(repositorySystem.resolveArtifacts(any(), any())).thenAnswer(a ->
+        {
+            List<ArtifactResult> results = new ArrayList<>();
+            for (ArtifactRequest request : a.<Collection<ArtifactRequest>>getArgument(1))
+            {
+                Artifact artifact = request.getArtifact();
+                if (artifact.getExtension().equals(MavenArtifactJdkArchiveRepository.AUTOJDK_METADATA_EXTENSION) && metadataVersions.contains(artifact.getVersion()))
+                    results.add(new ArtifactResult(request).setArtifact(artifact.setFile(gaMetadataFile.toFile())));
+                else if (artifact.getExtension().endsWith(".sha1") && deployedArchiveExtensions.contains(artifact.getExtension().replace(".sha1", "")))
+                    results.add(new ArtifactResult(request).setArtifact(artifact.setFile(checksumFile.toFile())));
+                else
+                    results.add(new ArtifactResult(request).addException(new ArtifactNotFoundException(artifact, null)));
+            }
+            throw new ArtifactResolutionException(results);
+        });
+        lenient().when(repositorySystem.deploy(any(), any())).thenAnswer(a ->
+        {
+            DeployRequest request = a.getArgument(1);
+            synchronized (deployedArtifacts)
+            {
+                for (Artifact artifact : request.getArtifacts())
+                {
+                    deployedArtifacts.add(artifact);
+                    if (artifact.getExtension().equals(MavenArtifactJdkArchiveRepository.AUTOJDK_METADATA_EXTENSION))
+                        deployedMetadata.add(xmlManager.parseFile(artifact.getFile(), MavenJdkArtifactMetadata.class));
+                }
+            }
+            return new DeployResult(request);
+        });
+    }
+
+    private void sourceRepository(SimpleJdkArtifact... artifacts)
+    throws Exception
+    {
+        when(sourceRepository.search(any())).thenAnswer(a -> List.of(artifacts));
+        lenient().when(sourceRepository.resolveArchive(any())).thenAnswer(a ->
+        {
+            SimpleJdkArtifact artifact = a.getArgument(0);
+            return new JdkArchive<>(artifact, Files.writeString(tempDir.resolve(artifact.getVersion() + "." + artifact.getArchiveType().getFileExtension()), "jdk"));
+        });
+    }
+
+    private static List<JdkSearchRequest> searchRequests()
+    throws Exception
+    {
+        return List.of(new JdkSearchRequest(VersionRange.createFromVersionSpec("[17,18)"), Architecture.X64, OperatingSystem.LINUX, "zulu", ReleaseType.GA));
+    }
+
+    @Test
+    void onlyJdksMissingFromTargetAreMirrored()
+    throws Exception
+    {
+        sourceRepository(new SimpleJdkArtifact("zulu", "17.0.1", ArchiveType.TAR_GZ),
+                         new SimpleJdkArtifact("zulu", "17.0.2", ArchiveType.TAR_GZ),
+                         new SimpleJdkArtifact("zulu", "17.0.2", ArchiveType.ZIP));
+        targetRepository(List.of("17.0.1"), Set.of("17.0.1"), Set.of());
+
+        List<MavenJdkMirrorSynchronizer.MirrorJdk<SimpleJdkArtifact>> plan = synchronizer().planSync(sourceRepository, searchRequests());
+
+        assertThat(plan).singleElement().satisfies(jdk ->
+        {
+            assertThat(jdk.getArtifactId()).isEqualTo("zulu");
+            assertThat(jdk.getVersion()).isEqualTo("17.0.2");
+            assertThat(jdk.getPlatform()).isEqualTo(new Platform(OperatingSystem.LINUX, Architecture.X64));
+            assertThat(jdk.getArchiveTypes()).containsExactly(ArchiveType.TAR_GZ, ArchiveType.ZIP);
+            assertThat(jdk.getMissingArchives()).extracting(SimpleJdkArtifact::getArchiveType).containsExactly(ArchiveType.TAR_GZ, ArchiveType.ZIP);
+        });
+    }
+
+    @Test
+    void archivesAreDeployedBeforeMetadata()
+    throws Exception
+    {
+        sourceRepository(new SimpleJdkArtifact("zulu", "17.0.2", ArchiveType.TAR_GZ),
+                         new SimpleJdkArtifact("zulu", "17.0.2", ArchiveType.ZIP));
+        targetRepository(List.of(), Set.of(), Set.of());
+
+        MavenJdkMirrorSynchronizer synchronizer = synchronizer();
+        synchronizer.sync(synchronizer.planSync(sourceRepository, searchRequests()));
+
+        assertThat(deployedArtifacts).extracting(Artifact::toString)
+                                     .containsExactly(GROUP_ID + ":zulu:tar.gz:linux-x64:17.0.2",
+                                                      GROUP_ID + ":zulu:zip:linux-x64:17.0.2",
+                                                      GROUP_ID + ":zulu:autojdk-metadata.xml:linux-x64:17.0.2");
+        assertThat(deployedMetadata).singleElement().satisfies(metadata ->
+        {
+            assertThat(metadata.getArchiveTypes()).containsExactly(ArchiveType.TAR_GZ, ArchiveType.ZIP);
+            assertThat(metadata.getReleaseType()).isEqualTo(ReleaseType.GA);
+        });
+        verify(sourceRepository, times(2)).cleanUpAfterArchiveUse(any());
+
+        //Temporary metadata file is cleaned up, only the downloaded archives and test files remain
+        assertThat(tempDir).isDirectoryNotContaining("glob:**/*17.0.2*." + MavenArtifactJdkArchiveRepository.AUTOJDK_METADATA_EXTENSION);
+    }
+
+    @Test
+    void interruptedMirrorIsResumed()
+    throws Exception
+    {
+        sourceRepository(new SimpleJdkArtifact("zulu", "17.0.2", ArchiveType.TAR_GZ),
+                         new SimpleJdkArtifact("zulu", "17.0.2", ArchiveType.ZIP));
+
+        //Previous run deployed the tar.gz but not the zip or metadata
+        targetRepository(List.of("17.0.2"), Set.of(), Set.of("tar.gz"));
+
+        MavenJdkMirrorSynchronizer synchronizer = synchronizer();
+        synchronizer.sync(synchronizer.planSync(sourceRepository, searchRequests()));
+
+        assertThat(deployedArtifacts).extracting(Artifact::toString)
+                                     .containsExactly(GROUP_ID + ":zulu:zip:linux-x64:17.0.2",
+                                                      GROUP_ID + ":zulu:autojdk-metadata.xml:linux-x64:17.0.2");
+        assertThat(deployedMetadata).singleElement().satisfies(metadata -> assertThat(metadata.getArchiveTypes()).containsExactly(ArchiveType.TAR_GZ, ArchiveType.ZIP));
+        verify(sourceRepository, never()).resolveArchive(argThat(a -> a.getArchiveType() == ArchiveType.TAR_GZ));
+    }
+
+    @Test
+    void jdksOfTheSameArtifactAreMirroredOneAtATime()
+    throws Exception
+    {
+        sourceRepository(new SimpleJdkArtifact("zulu", "17.0.1", ArchiveType.TAR_GZ),
+                         new SimpleJdkArtifact("zulu", "17.0.2", ArchiveType.TAR_GZ),
+                         new SimpleJdkArtifact("zulu", "17.0.3", ArchiveType.TAR_GZ),
+                         new SimpleJdkArtifact("temurin", "17.0.1", ArchiveType.TAR_GZ),
+                         new SimpleJdkArtifact("temurin", "17.0.2", ArchiveType.TAR_GZ));
+        targetRepository(List.of(), Set.of(), Set.of());
+
+        //Deploys of the same artifact would race updating its maven-metadata.xml
+        Map<String, AtomicInteger> artifactDeploysInProgress = new ConcurrentHashMap<>();
+        AtomicInteger maxArtifactDeploysInProgress = new AtomicInteger();
+        doAnswer(a ->
+        {
+            DeployRequest request = a.getArgument(1);
+            AtomicInteger inProgress = artifactDeploysInProgress.computeIfAbsent(request.getArtifacts().iterator().next().getArtifactId(),
+                                                                                 k -> new AtomicInteger());
+            maxArtifactDeploysInProgress.accumulateAndGet(inProgress.incrementAndGet(), Math::max);
+            Thread.sleep(20L);
+            inProgress.decrementAndGet();
+            return new DeployResult(request);
+        }).when(repositorySystem).deploy(any(), any());
+
+        MavenJdkMirrorSynchronizer synchronizer = synchronizer();
+        List<MavenJdkMirrorSynchronizer.MirrorJdk<SimpleJdkArtifact>> plan = synchronizer.planSync(sourceRepository, searchRequests());
+        synchronizer.sync(plan);
+
+        assertThat(plan).hasSize(5).allMatch(MavenJdkMirrorSynchronizer.MirrorJdk::isMirrored);
+        assertThat(maxArtifactDeploysInProgress).hasValue(1);
+    }
+
+    @Test
+    void failuresDoNotStopOtherJdks()
+    throws Exception
+    {
+        sourceRepository(new SimpleJdkArtifact("zulu", "17.0.1", ArchiveType.TAR_GZ),
+                         new SimpleJdkArtifact("zulu", "17.0.2", ArchiveType.TAR_GZ));
+        targetRepository(List.of(), Set.of(), Set.of());
+        doThrow(new JdkRepositoryException("Download failed")).when(sourceRepository).resolveArchive(argThat(a -> a.getVersion().toString().equals("17.0.1")));
+
+        MavenJdkMirrorSynchronizer synchronizer = synchronizer();
+        List<MavenJdkMirrorSynchronizer.MirrorJdk<SimpleJdkArtifact>> plan = synchronizer.planSync(sourceRepository, searchRequests());
+
+        assertThatExceptionOfType(JdkRepositoryException.class).isThrownBy(() -> synchronizer.sync(plan))
+                                                               .withMessageContaining("1 of 2")
+                                                               .withMessageContaining("Download failed");
+        assertThat(deployedArtifacts).extracting(Artifact::getVersion).containsOnly("17.0.2");
+        assertThat(plan).extracting(jdk -> jdk.getVersion() + ":" + jdk.isMirrored()).containsExactly("17.0.1:false", "17.0.2:true");
+    }
+
+    @Test
+    void catalogIndexIsDeployed()
+    throws Exception
+    {
+        List<JdkCatalog> deployedIndexes = new ArrayList<>();
+        when(repositorySystem.deploy(any(), any())).thenAnswer(a ->
+        {
+            DeployRequest request = a.getArgument(1);
+            for (Artifact artifact : request.getArtifacts())
+            {
+                deployedArtifacts.add(artifact);
+                deployedIndexes.add(xmlManager.parseFile(artifact.getFile(), JdkCatalog.class));
+            }
+            return new DeployResult(request);
+        });
+        JdkCatalog index = new JdkCatalog();
+        index.setSource("https://repo.example.com/jdks");
+
+        synchronizer().deployCatalogIndex(index, "20240101.100000");
+
+        assertThat(deployedArtifacts).extracting(Artifact::toString)
+                                     .containsExactly(GROUP_ID + ":" + MavenArtifactJdkArchiveRepository.CATALOG_INDEX_ARTIFACT_ID + ":xml:20240101.100000");
+        assertThat(deployedIndexes).singleElement().satisfies(deployed -> assertThat(deployed.getSource()).isEqualTo("https://repo.example.com/jdks"));
+
+        //Temporary index file is cleaned up
+        assertThat(tempDir).isDirectoryNotContaining("glob:**/" + MavenArtifactJdkArchiveRepository.CATALOG_INDEX_ARTIFACT_ID + "*");
+    }
+
+    /**
+     * Foojay searches select the best JDKs rather than listing them, these tests check that every matching JDK is still mirrored.
+     */
+    @Nested
+    class FoojaySource
+    {
+        @Mock
+        private FoojayClient foojayClient;
+
+        @Mock
+        private FileDownloader fileDownloader;
+
+        private final List<JdkPackage> packages = List.of(jdkPackage("zulu", "17.0.1"), jdkPackage("zulu", "17.0.2"),
+                                                          jdkPackage("zulu", "21.0.1"), jdkPackage("zulu", "21.0.2"),
+                                                          jdkPackage("temurin", "17.0.2"), jdkPackage("temurin", "21.0.2"));
+
+        private FoojayOpenApiJdkRepository foojayRepository;
+
+        @BeforeEach
+        void setUpFoojay()
+        throws Exception
+        {
+            doReturn(List.of(majorVersion(17), majorVersion(18), majorVersion(21))).when(foojayClient).getAllMajorVersions();
+
+            //Queries for anything other than all packages of a version only get the latest ones, as Foojay does
+            doAnswer(inv ->
+            {
+                String version = inv.getArgument(0);
+                List<String> distributions = inv.getArgument(2);
+                Latest latest = inv.getArgument(13);
+                return packages.stream()
+                               .filter(pkg -> distributions == null || distributions.contains(pkg.getDistribution()))
+                               .filter(pkg -> version == null || pkg.getJavaVersion().startsWith(version + "."))
+                               .filter(pkg -> latest == Latest.ALL_OF_VERSION || pkg.getJavaVersion().equals("21.0.2"))
+                               .collect(Collectors.toList());
+            }).when(foojayClient).getJdkPackages(any(), any(), any(), any(), any(), any(), any(), any(), any(), any(),
+                                                 any(), any(), any(), any(), any(), any(), any(), any(), any(), any());
+
+            //Use a planner that restricts queries where it can, to make sure listing does not use it
+            foojayRepository = new FoojayOpenApiJdkRepository(foojayClient, fileDownloader, new FoojayMetadataMemo(Duration.ofHours(1), Clock.systemUTC()),
+                                                              new FoojayQueryPlanner());
+            targetRepository(List.of(), Set.of(), Set.of());
+        }
+
+        private MajorVersion majorVersion(int version)
+        {
+            MajorVersion mv = new MajorVersion();
+            mv.setMajorVersion(version);
+            return mv;
+        }
+
+        private JdkPackage jdkPackage(String distribution, String javaVersion)
+        {
+            JdkPackage pkg = new JdkPackage();
+            pkg.setDistribution(distribution);
+            pkg.setJavaVersion(javaVersion);
+            pkg.setOperatingSystem(OperatingSystem.LINUX);
+            pkg.setArchitecture(Architecture.X64);
+            pkg.setArchiveType(eu.hansolo.jdktools.ArchiveType.TAR_GZ);
+            pkg.setReleaseStatus(ReleaseStatus.GA);
+            return pkg;
+        }
+
+        private List<JdkSearchRequest> openRangeSearch(String vendor)
+        throws Exception
+        {
+            return List.of(new JdkSearchRequest(VersionRange.createFromVersionSpec("[17,)"), Architecture.X64, OperatingSystem.LINUX, vendor, ReleaseType.GA));
+        }
+
+        @Test
+        void allVersionsOfEveryMajorVersionAreMirroredForAnyVendor()
+        throws Exception
+        {
+            List<? extends MavenJdkMirrorSynchronizer.MirrorJdk<?>> plan = synchronizer().planSync(foojayRepository, openRangeSearch(null));
+
+            assertThat(plan).extracting(jdk -> jdk.getArtifactId() + ":" + jdk.getVersion())
+                            .containsExactlyInAnyOrder("zulu:17.0.1", "zulu:17.0.2", "zulu:21.0.1", "zulu:21.0.2", "temurin:17.0.2", "temurin:21.0.2");
+        }
+
+        @Test
+        void allVersionsOfEveryMajorVersionAreMirroredForVendor()
+        throws Exception
+        {
+            List<? extends MavenJdkMirrorSynchronizer.MirrorJdk<?>> plan = synchronizer().planSync(foojayRepository, openRangeSearch("zulu"));
+
+            assertThat(plan).extracting(jdk -> jdk.getArtifactId() + ":" + jdk.getVersion())
+                            .containsExactlyInAnyOrder("zulu:17.0.1", "zulu:17.0.2", "zulu:21.0.1", "zulu:21.0.2");
+        }
+    }
+}
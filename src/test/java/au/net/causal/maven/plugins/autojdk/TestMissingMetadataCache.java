@@ -0,0 +1,74 @@
+package au.net.causal.maven.plugins.autojdk;
+
+import au.net.causal.maven.plugins.autojdk.xml.config.JdkUpdatePolicy;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.xml.datatype.DatatypeFactory;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+class TestMissingMetadataCache
+{
+    private static final String ARTIFACT = "au.net.causal.autojdk.jdk:zulu:linux-x64:autojdk-metadata.xml:17.0.1";
+
+    @TempDir
+    Path tempDir;
+
+    private MissingMetadataCache cache(JdkUpdatePolicy updatePolicy, Instant now)
+    {
+        return new MissingMetadataCache("maven:https://repo.example.com/jdks", tempDir, updatePolicy, Clock.fixed(now, ZoneOffset.UTC));
+    }
+
+    @Test
+    void missingArtifactsAreRememberedUntilUpdateCheckIsRequired()
+    {
+        JdkUpdatePolicy everyDay = new JdkUpdatePolicy.EveryDuration(DatatypeFactory.newDefaultInstance().newDuration("P1D"));
+        Instant now = Instant.parse("2024-01-01T10:00:00Z");
+        cache(everyDay, now).update(List.of(ARTIFACT), List.of());
+
+        //Read by another process later
+        assertThat(cache(everyDay, now.plus(Duration.ofHours(1))).isKnownMissing(ARTIFACT)).isTrue();
+        assertThat(cache(everyDay, now.plus(Duration.ofDays(2))).isKnownMissing(ARTIFACT)).isFalse();
+    }
+
+    @Test
+    void alwaysUpdatePolicyAlwaysRequestsArtifacts()
+    {
+        Instant now = Instant.parse("2024-01-01T10:00:00Z");
+        MissingMetadataCache cache = cache(new JdkUpdatePolicy.Always(), now);
+        cache.update(List.of(ARTIFACT), List.of());
+
+        assertThat(cache.isKnownMissing(ARTIFACT)).isFalse();
+    }
+
+    @Test
+    void neverUpdatePolicyOnlyRemembersArtifactsForLimitedTime()
+    {
+        Instant now = Instant.parse("2024-01-01T10:00:00Z");
+        cache(new JdkUpdatePolicy.Never(), now).update(List.of(ARTIFACT), List.of());
+
+        assertThat(cache(new JdkUpdatePolicy.Never(), now.plus(Duration.ofHours(1))).isKnownMissing(ARTIFACT)).isTrue();
+        assertThat(cache(new JdkUpdatePolicy.Never(), now.plus(MissingMetadataCache.MAX_MISSING_AGE)).isKnownMissing(ARTIFACT)).isFalse();
+    }
+
+    @Test
+    void foundArtifactsAreNoLongerMissing()
+    {
+        Instant now = Instant.parse("2024-01-01T10:00:00Z");
+        cache(new JdkUpdatePolicy.Never(), now).update(List.of(ARTIFACT), List.of());
+        MissingMetadataCache cache = cache(new JdkUpdatePolicy.Never(), now);
+        assertThat(cache.isKnownMissing(ARTIFACT)).isTrue();
+
+        cache.update(List.of(), List.of(ARTIFACT));
+
+        assertThat(cache.isKnownMissing(ARTIFACT)).isFalse();
+        assertThat(cache(new JdkUpdatePolicy.Never(), now).isKnownMissing(ARTIFACT)).isFalse();
+    }
+}
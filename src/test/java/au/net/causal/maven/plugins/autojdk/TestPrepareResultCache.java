@@ -0,0 +1,129 @@
+package au.net.causal.maven.plugins.autojdk;
+
+import org.apache.maven.toolchain.model.ToolchainModel;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+
+class TestPrepareResultCache
+{
+    private static final Instant NOW = Instant.parse("2024-01-01T00:00:00Z");
+
+    @TempDir
+    Path tempDir;
+
+    private PrepareResultCache cache;
+    private Path jdkDirectory;
+    private Path configFile;
+
+    @BeforeEach
+    void setUp()
+    throws Exception
+    {
+        cache = new PrepareResultCache(tempDir.resolve("cache"));
+        jdkDirectory = Files.createDirectories(tempDir.resolve("jdks").resolve("zulu-17.0.2"));
+        configFile = Files.writeString(tempDir.resolve("autojdk-configuration.xml"), "<autojdk-configuration/>");
+    }
+
+    private static PrepareResultCache.Fingerprint fingerprint(String versionRange)
+    {
+        return new PrepareResultCache.Fingerprint().add("versionRange", versionRange).add("vendor", null);
+    }
+
+    private ToolchainModel toolchain(String version)
+    {
+        ToolchainModel tcm = new ToolchainModel();
+        tcm.setType("jdk");
+        tcm.addProvide("version", version);
+        tcm.addProvide("vendor", "zulu");
+        Xpp3Dom conf = new Xpp3Dom("configuration");
+        Xpp3Dom jdkHome = new Xpp3Dom("jdkHome");
+        jdkHome.setValue(jdkDirectory.toString());
+        conf.addChild(jdkHome);
+        tcm.setConfiguration(conf);
+        return tcm;
+    }
+
+    private PrepareResultCache.Result result(Instant validUntil)
+    throws Exception
+    {
+        return new PrepareResultCache.Result(jdkDirectory, List.of(toolchain("17"), toolchain("17.0.2")), validUntil,
+                                             Map.of(configFile, PrepareResultCache.fileStamp(configFile)));
+    }
+
+    @Test
+    void storedResultIsRestored()
+    throws Exception
+    {
+        cache.store(fingerprint("[17,18)"), result(NOW.plusSeconds(60)));
+
+        PrepareResultCache.Result restored = cache.lookup(fingerprint("[17,18)"), NOW);
+
+        assertThat(restored).isNotNull();
+        assertThat(restored.getSelectedJdk()).isEqualTo(jdkDirectory);
+        assertThat(restored.getToolchains()).hasSize(2);
+        assertThat(restored.getToolchains().get(0).getProvides()).containsEntry("version", "17").containsEntry("vendor", "zulu");
+        assertThat(restored.getToolchains().get(1).getProvides()).containsEntry("version", "17.0.2");
+        assertThat(((Xpp3Dom)restored.getToolchains().get(1).getConfiguration()).getChild("jdkHome").getValue()).isEqualTo(jdkDirectory.toString());
+    }
+
+    @Test
+    void neverExpiringResultIsRestored()
+    throws Exception
+    {
+        cache.store(fingerprint("[17,18)"), result(Instant.MAX));
+
+        assertThat(cache.lookup(fingerprint("[17,18)"), NOW)).isNotNull();
+    }
+
+    @Test
+    void differentFingerprintIsMiss()
+    throws Exception
+    {
+        cache.store(fingerprint("[17,18)"), result(NOW.plusSeconds(60)));
+
+        assertThat(cache.lookup(fingerprint("[11,12)"), NOW)).isNull();
+    }
+
+    @Test
+    void expiredResultIsMiss()
+    throws Exception
+    {
+        cache.store(fingerprint("[17,18)"), result(NOW.minusSeconds(1)));
+
+        assertThat(cache.lookup(fingerprint("[17,18)"), NOW)).isNull();
+    }
+
+    @Test
+    void changedConfigurationIsMiss()
+    throws Exception
+    {
+        cache.store(fingerprint("[17,18)"), result(NOW.plusSeconds(60)));
+
+        Files.writeString(configFile, "<autojdk-configuration><vendors><vendor>temurin</vendor></vendors></autojdk-configuration>");
+        Files.setLastModifiedTime(configFile, FileTime.from(NOW));
+
+        assertThat(cache.lookup(fingerprint("[17,18)"), NOW)).isNull();
+    }
+
+    @Test
+    void deletedJdkIsMiss()
+    throws Exception
+    {
+        cache.store(fingerprint("[17,18)"), result(NOW.plusSeconds(60)));
+
+        Files.delete(jdkDirectory);
+
+        assertThat(cache.lookup(fingerprint("[17,18)"), NOW)).isNull();
+    }
+}
@@ -0,0 +1,214 @@
+package au.net.causal.maven.plugins.autojdk;
+
+import au.net.causal.maven.plugins.autojdk.xml.config.AutoJdkConfiguration;
+import au.net.causal.maven.plugins.autojdk.xml.metadata.LocalJdkMetadata;
+import au.net.causal.maven.plugins.autojdk.xml.metadata.ReleaseType;
+import eu.hansolo.jdktools.Architecture;
+import eu.hansolo.jdktools.OperatingSystem;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.*;
+
+class TestResidentJdkRegistry
+{
+    private static final String CONFIG_XML =
+            "<autojdk-configuration xmlns='https://autojdk.causal.net.au/configuration/1.0'>" +
+            "<vendors><vendor>%s</vendor></vendors>" +
+            "</autojdk-configuration>";
+
+    @TempDir
+    Path tempDir;
+
+    private AutoJdkXmlManager xmlManager;
+
+    @BeforeEach
+    void setUpXmlManager()
+    throws Exception
+    {
+        xmlManager = new AutoJdkXmlManager();
+    }
+
+    private void installFakeJdk(Path jdksDirectory, String name, String version)
+    throws Exception
+    {
+        Files.createDirectories(jdksDirectory.resolve(name));
+        xmlManager.writeFile(new LocalJdkMetadata("zulu", version, ReleaseType.GA, Architecture.X64, OperatingSystem.LINUX), jdksDirectory.resolve(name + ".xml"));
+    }
+
+    /**
+     * Watch events are delivered asynchronously, and some platforms poll, so give them time to arrive.
+     */
+    private static void waitUntil(BooleanSupplier condition)
+    throws InterruptedException
+    {
+        Instant deadline = Instant.now().plus(Duration.ofSeconds(30));
+        while (!condition.getAsBoolean())
+        {
+            if (Instant.now().isAfter(deadline))
+                fail("Timed out waiting for change to be detected");
+
+            Thread.sleep(50L);
+        }
+    }
+
+    @Nested
+    class Watching
+    {
+        private WatchService watchService;
+        private ResidentJdkRegistry registry;
+
+        @BeforeEach
+        void setUpRegistry()
+        throws Exception
+        {
+            watchService = FileSystems.getDefault().newWatchService();
+            registry = new ResidentJdkRegistry(new FileChangeWatcher(watchService));
+        }
+
+        @AfterEach
+        void closeWatchService()
+        throws Exception
+        {
+            watchService.close();
+        }
+
+        @Test
+        void configurationIsCachedUntilModified()
+        throws Exception
+        {
+            Path configFile = Files.writeString(tempDir.resolve("autojdk-configuration.xml"), String.format(CONFIG_XML, "zulu"));
+            AutoJdkConfiguration.ConfigurationFileReader reader = registry.configurationFileReader(xmlManager);
+
+            AutoJdkConfiguration first = reader.read(configFile);
+            assertThat(reader.read(configFile)).isSameAs(first);
+            assertThat(first.getVendors()).containsExactly("zulu");
+
+            Files.writeString(configFile, String.format(CONFIG_XML, "temurin"));
+
+            waitUntil(() -> readVendor(reader, configFile).equals("temurin"));
+        }
+
+        @Test
+        void unrelatedFileInConfigurationDirectoryDoesNotInvalidate()
+        throws Exception
+        {
+            Path configFile = Files.writeString(tempDir.resolve("autojdk-configuration.xml"), String.format(CONFIG_XML, "zulu"));
+            AutoJdkConfiguration.ConfigurationFileReader reader = registry.configurationFileReader(xmlManager);
+
+            AutoJdkConfiguration first = reader.read(configFile);
+            Files.writeString(tempDir.resolve("something-else.txt"), "hello");
+            Thread.sleep(200L);
+
+            assertThat(reader.read(configFile)).isSameAs(first);
+        }
+
+        @Test
+        void installedJdksAreCachedUntilJdkDirectoryChanges()
+        throws Exception
+        {
+            Path jdksDirectory = Files.createDirectories(tempDir.resolve("jdks"));
+            installFakeJdk(jdksDirectory, "zulu-17", "17.0.2");
+            ResidentJdkRegistry.InstalledJdkSystem jdkSystem = registry.installedJdkSystem(jdksDirectory, xmlManager);
+
+            assertThat(jdkSystem.getInstalledJdks(ReleaseType.GA)).hasSize(1);
+            assertThat(jdkSystem.getInstalledJdks(null)).isSameAs(jdkSystem.getInstalledJdks(null));
+
+            installFakeJdk(jdksDirectory, "zulu-21", "21.0.1");
+
+            waitUntil(() -> installedJdkCount(jdkSystem) == 2);
+        }
+
+        @Test
+        void jdkDirectoryCreatedLaterIsPickedUp()
+        throws Exception
+        {
+            Path jdksDirectory = tempDir.resolve("jdks");
+            ResidentJdkRegistry.InstalledJdkSystem jdkSystem = registry.installedJdkSystem(jdksDirectory, xmlManager);
+
+            assertThat(jdkSystem.getInstalledJdks(ReleaseType.GA)).isEmpty();
+
+            installFakeJdk(jdksDirectory, "zulu-17", "17.0.2");
+
+            waitUntil(() -> installedJdkCount(jdkSystem) == 1);
+        }
+
+        @Test
+        void deletingJdkTakesEffectImmediately()
+        throws Exception
+        {
+            Path jdksDirectory = Files.createDirectories(tempDir.resolve("jdks"));
+            installFakeJdk(jdksDirectory, "zulu-17", "17.0.2");
+            ResidentJdkRegistry.InstalledJdkSystem jdkSystem = registry.installedJdkSystem(jdksDirectory, xmlManager);
+            assertThat(jdkSystem.getInstalledJdks(ReleaseType.GA)).hasSize(1);
+
+            jdkSystem.deleteJdk(jdksDirectory.resolve("zulu-17"));
+
+            assertThat(jdkSystem.getInstalledJdks(ReleaseType.GA)).isEmpty();
+        }
+    }
+
+    @Nested
+    class NotWatching
+    {
+        @Test
+        void nothingIsCached()
+        throws Exception
+        {
+            ResidentJdkRegistry registry = new ResidentJdkRegistry(null);
+            Path configFile = Files.writeString(tempDir.resolve("autojdk-configuration.xml"), String.format(CONFIG_XML, "zulu"));
+            AutoJdkConfiguration.ConfigurationFileReader reader = registry.configurationFileReader(xmlManager);
+
+            assertThat(reader.read(configFile)).isNotSameAs(reader.read(configFile));
+        }
+
+        @Test
+        void systemJdkResolverIsSharedForSameLocations()
+        {
+            //System JDK resolvers check modification times themselves, so they are shared even without file watching
+            ResidentJdkRegistry registry = new ResidentJdkRegistry(null);
+            Path toolchainsFile = tempDir.resolve("toolchains.xml");
+
+            SystemJdkResolver resolver = registry.systemJdkResolver(tempDir, toolchainsFile);
+
+            assertThat(registry.systemJdkResolver(tempDir, toolchainsFile)).isSameAs(resolver);
+            assertThat(registry.systemJdkResolver(tempDir, tempDir.resolve("other-toolchains.xml"))).isNotSameAs(resolver);
+        }
+    }
+
+    private static String readVendor(AutoJdkConfiguration.ConfigurationFileReader reader, Path configFile)
+    {
+        try
+        {
+            return reader.read(configFile).getVendors().get(0);
+        }
+        catch (AutoJdkXmlManager.XmlParseException e)
+        {
+            //File may be caught half-written
+            return "";
+        }
+    }
+
+    private static int installedJdkCount(ResidentJdkRegistry.InstalledJdkSystem jdkSystem)
+    {
+        try
+        {
+            return jdkSystem.getInstalledJdks(ReleaseType.GA).size();
+        }
+        catch (LocalJdkResolutionException e)
+        {
+            throw new RuntimeException(e);
+        }
+    }
+}
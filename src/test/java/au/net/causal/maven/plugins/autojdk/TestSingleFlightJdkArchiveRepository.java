@@ -0,0 +1,170 @@
+package au.net.causal.maven.plugins.autojdk;
+
+import au.net.causal.maven.plugins.autojdk.xml.metadata.ArchiveType;
+import au.net.causal.maven.plugins.autojdk.xml.metadata.ReleaseType;
+import eu.hansolo.jdktools.Architecture;
+import eu.hansolo.jdktools.OperatingSystem;
+import org.apache.maven.artifact.versioning.VersionRange;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TestSingleFlightJdkArchiveRepository
+{
+    @Mock
+    private JdkArchiveRepository<SimpleJdkArtifact> repo;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    @AfterEach
+    void shutDownExecutor()
+    {
+        executor.shutdownNow();
+    }
+
+    private static JdkSearchRequest searchRequest(String versionRange)
+    throws Exception
+    {
+        return new JdkSearchRequest(VersionRange.createFromVersionSpec(versionRange), Architecture.X64, OperatingSystem.LINUX, null, ReleaseType.GA);
+    }
+
+    @Test
+    void concurrentIdenticalSearchesAreCoalesced()
+    throws Exception
+    {
+        SimpleJdkArtifact aSearchResult = new SimpleJdkArtifact("zulu", "17.0", ArchiveType.TAR_GZ);
+        CountDownLatch searchStarted = new CountDownLatch(1);
+        CountDownLatch searchCanFinish = new CountDownLatch(1);
+        when(repo.search(any())).thenAnswer(a ->
+        {
+            searchStarted.countDown();
+            searchCanFinish.await();
+            return List.of(aSearchResult);
+        });
+
+        SingleFlightJdkArchiveRepository<SimpleJdkArtifact> r = new SingleFlightJdkArchiveRepository<>(repo);
+
+        Future<Collection<? extends SimpleJdkArtifact>> search1 = executor.submit(() -> r.search(searchRequest("[17, 18)")));
+        assertThat(searchStarted.await(10, TimeUnit.SECONDS)).isTrue();
+        Future<Collection<? extends SimpleJdkArtifact>> search2 = executor.submit(() -> r.search(searchRequest("[17, 18)")));
+
+        //Give the second search a chance to start waiting on the first
+        Thread.sleep(100L);
+        searchCanFinish.countDown();
+
+        assertThat(search1.get(10, TimeUnit.SECONDS)).singleElement().isEqualTo(aSearchResult);
+        assertThat(search2.get(10, TimeUnit.SECONDS)).singleElement().isEqualTo(aSearchResult);
+        verify(repo, times(1)).search(any());
+    }
+
+    @Test
+    void sequentialSearchesAreNotCached()
+    throws Exception
+    {
+        when(repo.search(any())).thenAnswer(a -> List.of());
+
+        SingleFlightJdkArchiveRepository<SimpleJdkArtifact> r = new SingleFlightJdkArchiveRepository<>(repo);
+        r.search(searchRequest("[17, 18)"));
+        r.search(searchRequest("[17, 18)"));
+
+        verify(repo, times(2)).search(any());
+    }
+
+    @Test
+    void searchErrorsArePassedThrough()
+    throws Exception
+    {
+        when(repo.search(any())).thenThrow(new JdkRepositoryException("Broken"));
+
+        SingleFlightJdkArchiveRepository<SimpleJdkArtifact> r = new SingleFlightJdkArchiveRepository<>(repo);
+
+        assertThatExceptionOfType(JdkRepositoryException.class).isThrownBy(() -> r.search(searchRequest("[17, 18)")))
+                                                               .withMessage("Broken");
+    }
+
+    @Test
+    void sharedArchiveIsOnlyCleanedUpByLastUser()
+    throws Exception
+    {
+        SimpleJdkArtifact artifact1 = new SimpleJdkArtifact("zulu", "17.0", ArchiveType.TAR_GZ);
+        SimpleJdkArtifact artifact2 = new SimpleJdkArtifact("zulu", "17.0", ArchiveType.TAR_GZ);
+        JdkArchive<SimpleJdkArtifact> resolvedArchive = new JdkArchive<>(artifact1, Path.of("zulu-17.tar.gz"));
+        when(repo.resolveArchive(any())).thenReturn(resolvedArchive);
+
+        SingleFlightJdkArchiveRepository<SimpleJdkArtifact> r = new SingleFlightJdkArchiveRepository<>(repo);
+
+        JdkArchive<SimpleJdkArtifact> archive1 = r.resolveArchive(artifact1);
+        JdkArchive<SimpleJdkArtifact> archive2 = r.resolveArchive(artifact2);
+
+        //Second caller shares the first archive but gets their own artifact back
+        assertThat(archive2.getFile()).isEqualTo(resolvedArchive.getFile());
+        assertThat(archive2.getArtifact()).isSameAs(artifact2);
+        verify(repo, times(1)).resolveArchive(any());
+
+        r.cleanUpAfterArchiveUse(archive2);
+        verify(repo, never()).cleanUpAfterArchiveUse(any());
+
+        r.cleanUpAfterArchiveUse(archive1);
+        verify(repo).cleanUpAfterArchiveUse(resolvedArchive);
+    }
+
+    @Test
+    void archivesWithDifferentIdsAreNotShared()
+    throws Exception
+    {
+        SimpleJdkArtifact glibcArtifact = artifactWithArchiveId("zulu-17-glibc");
+        SimpleJdkArtifact muslArtifact = artifactWithArchiveId("zulu-17-musl");
+        when(repo.resolveArchive(any())).thenAnswer(inv -> new JdkArchive<>(inv.getArgument(0), Path.of(inv.<SimpleJdkArtifact>getArgument(0).getArchiveId() + ".tar.gz")));
+
+        SingleFlightJdkArchiveRepository<SimpleJdkArtifact> r = new SingleFlightJdkArchiveRepository<>(repo);
+
+        //Same vendor, version and platform but different C libraries, so these are different archives
+        assertThat(r.resolveArchive(glibcArtifact).getFile()).isEqualTo(Path.of("zulu-17-glibc.tar.gz"));
+        assertThat(r.resolveArchive(muslArtifact).getFile()).isEqualTo(Path.of("zulu-17-musl.tar.gz"));
+        verify(repo, times(2)).resolveArchive(any());
+    }
+
+    private static SimpleJdkArtifact artifactWithArchiveId(String archiveId)
+    {
+        return new SimpleJdkArtifact("zulu", "17.0", ArchiveType.TAR_GZ)
+        {
+            @Override
+            public String getArchiveId()
+            {
+                return archiveId;
+            }
+        };
+    }
+
+    @Test
+    void failedResolutionIsNotShared()
+    throws Exception
+    {
+        SimpleJdkArtifact artifact = new SimpleJdkArtifact("zulu", "17.0", ArchiveType.TAR_GZ);
+        JdkArchive<SimpleJdkArtifact> resolvedArchive = new JdkArchive<>(artifact, Path.of("zulu-17.tar.gz"));
+        when(repo.resolveArchive(any())).thenThrow(new JdkRepositoryException("Download failed")).thenReturn(resolvedArchive);
+
+        SingleFlightJdkArchiveRepository<SimpleJdkArtifact> r = new SingleFlightJdkArchiveRepository<>(repo);
+
+        assertThatExceptionOfType(JdkRepositoryException.class).isThrownBy(() -> r.resolveArchive(artifact));
+
+        //Next attempt should try again
+        assertThat(r.resolveArchive(artifact)).isSameAs(resolvedArchive);
+        verify(repo, times(2)).resolveArchive(any());
+    }
+}
@@ -0,0 +1,161 @@
+package au.net.causal.maven.plugins.autojdk;
+
+import au.net.causal.maven.plugins.autojdk.xml.metadata.JdkSearchUpToDateMetadata;
+import au.net.causal.maven.plugins.autojdk.xml.metadata.LocalJdkMetadata;
+import au.net.causal.maven.plugins.autojdk.xml.metadata.ReleaseType;
+import eu.hansolo.jdktools.Architecture;
+import eu.hansolo.jdktools.OperatingSystem;
+import jakarta.xml.bind.JAXBContext;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.xml.datatype.DatatypeFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.transform.stream.StreamSource;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+class TestStaxMetadataCodec
+{
+    private final StaxMetadataCodec codec = new StaxMetadataCodec();
+
+    @TempDir
+    Path tempDir;
+
+    private static JAXBContext jaxbContext()
+    throws Exception
+    {
+        return JAXBContext.newInstance(LocalJdkMetadata.class, JdkSearchUpToDateMetadata.class);
+    }
+
+    @Nested
+    class LocalJdk
+    {
+        @Test
+        void roundTrip()
+        throws Exception
+        {
+            Path file = tempDir.resolve("jdk.xml");
+            codec.writeFile(new LocalJdkMetadata("zulu", "17.0.2", ReleaseType.EA, Architecture.AARCH64, OperatingSystem.MACOS), file);
+
+            LocalJdkMetadata result = codec.parseFile(file, LocalJdkMetadata.class);
+
+            assertThat(result).usingRecursiveComparison()
+                              .isEqualTo(new LocalJdkMetadata("zulu", "17.0.2", ReleaseType.EA, Architecture.AARCH64, OperatingSystem.MACOS));
+        }
+
+        @Test
+        void readsJaxbWrittenFile()
+        throws Exception
+        {
+            Path file = tempDir.resolve("jdk.xml");
+            jaxbContext().createMarshaller().marshal(new LocalJdkMetadata("temurin", "11.0.19", ReleaseType.GA, Architecture.AMD64, OperatingSystem.LINUX), file.toFile());
+
+            LocalJdkMetadata result = codec.parseFile(file, LocalJdkMetadata.class);
+
+            assertThat(result).usingRecursiveComparison()
+                              .isEqualTo(new LocalJdkMetadata("temurin", "11.0.19", ReleaseType.GA, Architecture.AMD64, OperatingSystem.LINUX));
+        }
+
+        @Test
+        void writtenFileIsReadableByJaxb()
+        throws Exception
+        {
+            Path file = tempDir.resolve("jdk.xml");
+            codec.writeFile(new LocalJdkMetadata("temurin", "11.0.19", ReleaseType.GA, Architecture.AMD64, OperatingSystem.LINUX), file);
+
+            LocalJdkMetadata result = jaxbContext().createUnmarshaller().unmarshal(new StreamSource(file.toFile()), LocalJdkMetadata.class).getValue();
+
+            assertThat(result).usingRecursiveComparison()
+                              .isEqualTo(new LocalJdkMetadata("temurin", "11.0.19", ReleaseType.GA, Architecture.AMD64, OperatingSystem.LINUX));
+        }
+
+        @Test
+        void releaseTypeDefaultsToGaAndUnknownContentIsIgnored()
+        throws Exception
+        {
+            Path file = tempDir.resolve("jdk.xml");
+            Files.writeString(file,
+                    "<local-jdk-metadata xmlns='https://autojdk.causal.net.au/metadata/1.0'>" +
+                        "<vendor>zulu</vendor>" +
+                        "<somethingNew><nested>x</nested></somethingNew>" +
+                        "<architecture>NOT_AN_ARCHITECTURE</architecture>" +
+                        "<version>8.0.302</version>" +
+                    "</local-jdk-metadata>");
+
+            LocalJdkMetadata result = codec.parseFile(file, LocalJdkMetadata.class);
+
+            assertThat(result.getVendor()).isEqualTo("zulu");
+            assertThat(result.getVersion()).isEqualTo("8.0.302");
+            assertThat(result.getReleaseType()).isEqualTo(ReleaseType.GA);
+            assertThat(result.getArchitecture()).isNull();
+        }
+
+        @Test
+        void wrongRootElementFails()
+        throws Exception
+        {
+            Path file = tempDir.resolve("jdk.xml");
+            Files.writeString(file, "<autojdk-search-update-checks xmlns='https://autojdk.causal.net.au/metadata/1.0'/>");
+
+            assertThatExceptionOfType(XMLStreamException.class).isThrownBy(() -> codec.parseFile(file, LocalJdkMetadata.class));
+        }
+    }
+
+    @Nested
+    class SearchUpToDate
+    {
+        private JdkSearchUpToDateMetadata sampleMetadata()
+        throws Exception
+        {
+            JdkSearchUpToDateMetadata metadata = new JdkSearchUpToDateMetadata();
+            metadata.setSearches(List.of(
+                    new JdkSearchUpToDateMetadata.Search("[17,18)", Architecture.AMD64, OperatingSystem.LINUX, "zulu", ReleaseType.GA,
+                                                         DatatypeFactory.newDefaultInstance().newXMLGregorianCalendar("2020-01-01T00:00:00Z")),
+                    new JdkSearchUpToDateMetadata.Search("[11,12)", null, null, null, ReleaseType.EA,
+                                                         DatatypeFactory.newDefaultInstance().newXMLGregorianCalendar("2021-06-30T12:30:00.000Z"))
+            ));
+            return metadata;
+        }
+
+        @Test
+        void roundTrip()
+        throws Exception
+        {
+            Path file = tempDir.resolve("searches.xml");
+            codec.writeFile(sampleMetadata(), file);
+
+            JdkSearchUpToDateMetadata result = codec.parseFile(file, JdkSearchUpToDateMetadata.class);
+
+            assertThat(result).usingRecursiveComparison().isEqualTo(sampleMetadata());
+        }
+
+        @Test
+        void readsJaxbWrittenFile()
+        throws Exception
+        {
+            Path file = tempDir.resolve("searches.xml");
+            jaxbContext().createMarshaller().marshal(sampleMetadata(), file.toFile());
+
+            JdkSearchUpToDateMetadata result = codec.parseFile(file, JdkSearchUpToDateMetadata.class);
+
+            assertThat(result).usingRecursiveComparison().isEqualTo(sampleMetadata());
+        }
+
+        @Test
+        void writtenFileIsReadableByJaxb()
+        throws Exception
+        {
+            Path file = tempDir.resolve("searches.xml");
+            codec.writeFile(sampleMetadata(), file);
+
+            JdkSearchUpToDateMetadata result = jaxbContext().createUnmarshaller().unmarshal(new StreamSource(file.toFile()), JdkSearchUpToDateMetadata.class).getValue();
+
+            assertThat(result).usingRecursiveComparison().isEqualTo(sampleMetadata());
+        }
+    }
+}
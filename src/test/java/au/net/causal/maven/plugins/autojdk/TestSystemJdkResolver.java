@@ -0,0 +1,190 @@
+package au.net.causal.maven.plugins.autojdk;
+
+import au.net.causal.maven.plugins.autojdk.xml.metadata.ReleaseType;
+import eu.hansolo.jdktools.Architecture;
+import eu.hansolo.jdktools.OperatingSystem;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Collection;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+class TestSystemJdkResolver
+{
+    @TempDir
+    Path tempDir;
+
+    private static Path createJdk(Path jdkHome, String releaseFileContent)
+    throws Exception
+    {
+        Files.createDirectories(jdkHome.resolve("bin"));
+        Files.writeString(jdkHome.resolve("bin").resolve("javac"), "");
+        Files.writeString(jdkHome.resolve("release"), releaseFileContent);
+        return jdkHome;
+    }
+
+    @Test
+    void jdkInParentDirectoryIsFound()
+    throws Exception
+    {
+        Path jvmDir = tempDir.resolve("jvm");
+        Path jdkHome = createJdk(jvmDir.resolve("zulu-17"), "IMPLEMENTOR=\"Azul Systems, Inc.\"\nJAVA_VERSION=\"17.0.2\"\nOS_NAME=\"Linux\"\nOS_ARCH=\"x86_64\"\n");
+
+        SystemJdkResolver resolver = new SystemJdkResolver(List.of(jvmDir), List.of(), null);
+        Collection<? extends SystemJdkResolver.SystemJdk> jdks = resolver.getInstalledJdks(ReleaseType.GA);
+
+        assertThat(jdks).singleElement().satisfies(jdk ->
+        {
+            assertThat(jdk.getJdkDirectory()).isEqualTo(jdkHome.toRealPath());
+            assertThat(jdk.getVendor()).isEqualTo("zulu");
+            assertThat(jdk.getVersion().toString()).isEqualTo("17.0.2");
+            assertThat(jdk.getOperatingSystem()).isEqualTo(OperatingSystem.LINUX);
+            assertThat(jdk.getArchitecture()).isEqualTo(Architecture.X64);
+            assertThat(jdk.getReleaseType()).isEqualTo(ReleaseType.GA);
+        });
+    }
+
+    @Test
+    void jreWithoutCompilerIsIgnored()
+    throws Exception
+    {
+        Path jvmDir = tempDir.resolve("jvm");
+        Path jreHome = Files.createDirectories(jvmDir.resolve("jre-17"));
+        Files.writeString(jreHome.resolve("release"), "JAVA_VERSION=\"17.0.2\"\n");
+
+        SystemJdkResolver resolver = new SystemJdkResolver(List.of(jvmDir), List.of(), null);
+
+        assertThat(resolver.getInstalledJdks(ReleaseType.GA)).isEmpty();
+    }
+
+    @Test
+    void earlyAccessJdksAreOnlyReturnedForEarlyAccessReleaseType()
+    throws Exception
+    {
+        Path jvmDir = tempDir.resolve("jvm");
+        createJdk(jvmDir.resolve("jdk-23"), "IMPLEMENTOR=\"Oracle Corporation\"\nJAVA_VERSION=\"23-ea\"\n");
+
+        SystemJdkResolver resolver = new SystemJdkResolver(List.of(jvmDir), List.of(), null);
+
+        assertThat(resolver.getInstalledJdks(ReleaseType.GA)).isEmpty();
+        assertThat(resolver.getInstalledJdks(ReleaseType.EA)).singleElement().satisfies(jdk -> assertThat(jdk.getVendor()).isEqualTo("oracle_open_jdk"));
+    }
+
+    @Test
+    void macOsBundleHomeIsUsed()
+    throws Exception
+    {
+        Path jvmDir = tempDir.resolve("JavaVirtualMachines");
+        Path jdkHome = createJdk(jvmDir.resolve("temurin-11.jdk").resolve("Contents").resolve("Home"),
+                                 "IMPLEMENTOR=\"Eclipse Adoptium\"\nJAVA_VERSION=\"11.0.19\"\n");
+
+        SystemJdkResolver resolver = new SystemJdkResolver(List.of(jvmDir), List.of(), null);
+
+        assertThat(resolver.getInstalledJdks(ReleaseType.GA)).singleElement().satisfies(jdk ->
+        {
+            assertThat(jdk.getJdkDirectory()).isEqualTo(jdkHome.toRealPath());
+            assertThat(jdk.getVendor()).isEqualTo("temurin");
+        });
+    }
+
+    @Test
+    void jdkHomesFromToolchainsFileAreFound()
+    throws Exception
+    {
+        Path jdkHome = createJdk(tempDir.resolve("my-jdk"), "IMPLEMENTOR=\"Amazon.com Inc.\"\nJAVA_VERSION=\"21.0.1\"\n");
+        Path toolchainsFile = Files.writeString(tempDir.resolve("toolchains.xml"),
+                "<toolchains>\n" +
+                "  <toolchain>\n" +
+                "    <type>jdk</type>\n" +
+                "    <provides><version>21</version></provides>\n" +
+                "    <configuration><jdkHome>" + jdkHome + "</jdkHome></configuration>\n" +
+                "  </toolchain>\n" +
+                "  <toolchain>\n" +
+                "    <type>jdk</type>\n" +
+                "    <provides><version>17</version></provides>\n" +
+                "    <configuration><jdkHome>${env.JAVA17_HOME}</jdkHome></configuration>\n" +
+                "  </toolchain>\n" +
+                "</toolchains>\n");
+
+        SystemJdkResolver resolver = new SystemJdkResolver(List.of(), List.of(), toolchainsFile);
+
+        assertThat(resolver.getInstalledJdks(ReleaseType.GA)).singleElement().satisfies(jdk ->
+        {
+            assertThat(jdk.getJdkDirectory()).isEqualTo(jdkHome.toRealPath());
+            assertThat(jdk.getVendor()).isEqualTo("corretto");
+        });
+    }
+
+    @Test
+    void sameJdkFromMultipleLocationsIsOnlyReturnedOnce()
+    throws Exception
+    {
+        Path jvmDir = tempDir.resolve("jvm");
+        Path jdkHome = createJdk(jvmDir.resolve("zulu-17"), "IMPLEMENTOR=\"Azul Systems, Inc.\"\nJAVA_VERSION=\"17.0.2\"\n");
+
+        SystemJdkResolver resolver = new SystemJdkResolver(List.of(jvmDir), List.of(jdkHome), null);
+
+        assertThat(resolver.getInstalledJdks(ReleaseType.GA)).hasSize(1);
+    }
+
+    @Test
+    void newlyInstalledJdkIsFoundOnNextScan()
+    throws Exception
+    {
+        Path jvmDir = Files.createDirectories(tempDir.resolve("jvm"));
+        SystemJdkResolver resolver = new SystemJdkResolver(List.of(jvmDir), List.of(), null);
+
+        assertThat(resolver.getInstalledJdks(ReleaseType.GA)).isEmpty();
+
+        createJdk(jvmDir.resolve("zulu-17"), "IMPLEMENTOR=\"Azul Systems, Inc.\"\nJAVA_VERSION=\"17.0.2\"\n");
+
+        //Some filesystems have coarse modification times
+        Files.setLastModifiedTime(jvmDir, FileTime.fromMillis(Files.getLastModifiedTime(jvmDir).toMillis() + 10_000L));
+
+        assertThat(resolver.getInstalledJdks(ReleaseType.GA)).hasSize(1);
+    }
+
+    @Nested
+    class NormalizeJavaVersion
+    {
+        @Test
+        void legacyVersion()
+        {
+            assertThat(SystemJdkResolver.normalizeJavaVersion("1.8.0_302")).isEqualTo("8.0.302");
+        }
+
+        @Test
+        void modernVersion()
+        {
+            assertThat(SystemJdkResolver.normalizeJavaVersion("17.0.2")).isEqualTo("17.0.2");
+        }
+    }
+
+    @Nested
+    class VendorForImplementor
+    {
+        @Test
+        void knownImplementor()
+        {
+            assertThat(SystemJdkResolver.vendorForImplementor("Eclipse Adoptium")).isEqualTo("temurin");
+        }
+
+        @Test
+        void unknownImplementor()
+        {
+            assertThat(SystemJdkResolver.vendorForImplementor("My Custom Builds, Ltd.")).isEqualTo("my_custom_builds_ltd");
+        }
+
+        @Test
+        void missingImplementor()
+        {
+            assertThat(SystemJdkResolver.vendorForImplementor(null)).isEqualTo("unknown");
+        }
+    }
+}
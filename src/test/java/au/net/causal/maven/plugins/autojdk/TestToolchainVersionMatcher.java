@@ -0,0 +1,70 @@
+package au.net.causal.maven.plugins.autojdk;
+
+import org.apache.maven.artifact.versioning.DefaultArtifactVersion;
+import org.apache.maven.artifact.versioning.VersionRange;
+import org.apache.maven.toolchain.RequirementMatcherFactory;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+class TestToolchainVersionMatcher
+{
+    private static final List<String> versions = List.of(
+            "1.8", "8", "8.0.302", "8.0.302-8", "11", "11.0.19", "11.0.19-7", "17", "17.0.2", "17.0.2-8",
+            "17.0.2-ea", "18", "21.0.1", "22-ea", "6.0.119"
+    );
+
+    private static final List<String> ranges = List.of(
+            "17", "17.0.2", "[17, 18)", "[17,)", "(,11]", "[11, 17]", "[1.8, 9)", "[8, 9)", "[17.0.2-8]", "(11, 17.0.2)", "[22-ea]", "8"
+    );
+
+    @Test
+    void matchesSameAsToolchains()
+    throws Exception
+    {
+        for (String range : ranges)
+        {
+            ToolchainVersionMatcher matcher = new ToolchainVersionMatcher(VersionRange.createFromVersionSpec(range));
+            for (String version : versions)
+            {
+                boolean expected = RequirementMatcherFactory.createVersionMatcher(version).matches(VersionRange.createFromVersionSpec(range).toString());
+                assertThat(matcher.matches(new DefaultArtifactVersion(version)))
+                        .as("%s in %s", version, range)
+                        .isEqualTo(expected);
+            }
+        }
+    }
+
+    @Test
+    void invalidRequirementNeverMatches()
+    {
+        ToolchainVersionMatcher matcher = new ToolchainVersionMatcher("[17, 11]");
+
+        assertThat(matcher.matches(new DefaultArtifactVersion("17"))).isFalse();
+        assertThat(matcher.matches(new DefaultArtifactVersion("11"))).isFalse();
+    }
+
+    @Test
+    void belowRequirementOnlyForVersionsUnderTheLowestBound()
+    throws Exception
+    {
+        ToolchainVersionMatcher matcher = new ToolchainVersionMatcher(VersionRange.createFromVersionSpec("(11, 12)[17, 18)"));
+
+        assertThat(matcher.isBelowRequirement(new DefaultArtifactVersion("8.0.302"))).isTrue();
+        assertThat(matcher.isBelowRequirement(new DefaultArtifactVersion("11"))).isTrue();
+        assertThat(matcher.isBelowRequirement(new DefaultArtifactVersion("11.0.19"))).isFalse();
+        assertThat(matcher.isBelowRequirement(new DefaultArtifactVersion("16"))).as("older versions could be in the lower restriction").isFalse();
+        assertThat(matcher.isBelowRequirement(new DefaultArtifactVersion("21.0.1"))).isFalse();
+    }
+
+    @Test
+    void belowRequirementForExactVersion()
+    {
+        ToolchainVersionMatcher matcher = new ToolchainVersionMatcher("17.0.2");
+
+        assertThat(matcher.isBelowRequirement(new DefaultArtifactVersion("17.0.1"))).isTrue();
+        assertThat(matcher.isBelowRequirement(new DefaultArtifactVersion("17.0.3"))).isFalse();
+    }
+}
@@ -0,0 +1,192 @@
+package au.net.causal.maven.plugins.autojdk.foojay;
+
+import au.net.causal.maven.plugins.autojdk.foojay.openapi.handler.ApiClient;
+import com.github.tomakehurst.wiremock.junit5.WireMockRuntimeInfo;
+import com.github.tomakehurst.wiremock.junit5.WireMockTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static org.assertj.core.api.Assertions.*;
+
+@WireMockTest
+class TestConditionalCachingHttpClient
+{
+    private static final String DISTRIBUTIONS_JSON = "{\"result\":[{\"name\":\"Zulu\"}]}";
+
+    @TempDir
+    Path tempDir;
+
+    private URI baseUri;
+
+    @BeforeEach
+    void setUpBaseUri(WireMockRuntimeInfo wireMockRuntimeInfo)
+    {
+        baseUri = URI.create(wireMockRuntimeInfo.getHttpBaseUrl());
+    }
+
+    private static void stubConditionalResource(String path, String body)
+    {
+        stubFor(get(path).atPriority(1)
+                         .withHeader("If-None-Match", equalTo("\"v1\""))
+                         .willReturn(aResponse().withStatus(304)));
+        stubFor(get(path).atPriority(2)
+                         .willReturn(aResponse().withStatus(200)
+                                                .withHeader("ETag", "\"v1\"")
+                                                .withHeader("Content-Type", "application/json")
+                                                .withBody(body)));
+    }
+
+    private String fetch(HttpClient client, String path)
+    throws Exception
+    {
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(baseUri.resolve(path)).GET().build(), HttpResponse.BodyHandlers.ofString());
+        assertThat(response.statusCode()).isEqualTo(200);
+        return response.body();
+    }
+
+    @Test
+    void unchangedResponseIsServedFromCacheAfterRevalidation()
+    throws Exception
+    {
+        stubConditionalResource("/test/resource", "hello");
+        HttpClient client = new ConditionalCachingHttpClient(HttpClient.newHttpClient(), new FoojayResponseCache(tempDir, Duration.ZERO));
+
+        assertThat(fetch(client, "/test/resource")).isEqualTo("hello");
+        assertThat(fetch(client, "/test/resource")).isEqualTo("hello");
+
+        verify(1, getRequestedFor(urlEqualTo("/test/resource")).withoutHeader("If-None-Match"));
+        verify(1, getRequestedFor(urlEqualTo("/test/resource")).withHeader("If-None-Match", equalTo("\"v1\"")));
+    }
+
+    @Test
+    void freshEntryIsServedWithoutRequest()
+    throws Exception
+    {
+        stubConditionalResource("/test/resource", "hello");
+        Instant start = Instant.now();
+        HttpClient client = new ConditionalCachingHttpClient(HttpClient.newHttpClient(),
+                new FoojayResponseCache(tempDir, Duration.ofHours(1), Duration.ofDays(30), FoojayResponseCache.DEFAULT_MAX_SIZE, Clock.fixed(start, ZoneOffset.UTC)));
+        HttpClient laterClient = new ConditionalCachingHttpClient(HttpClient.newHttpClient(),
+                new FoojayResponseCache(tempDir, Duration.ofHours(1), Duration.ofDays(30), FoojayResponseCache.DEFAULT_MAX_SIZE, Clock.fixed(start.plus(Duration.ofHours(2)), ZoneOffset.UTC)));
+
+        assertThat(fetch(client, "/test/resource")).isEqualTo("hello");
+        assertThat(fetch(client, "/test/resource")).isEqualTo("hello");
+        verify(1, getRequestedFor(urlEqualTo("/test/resource")));
+
+        //Once older than the fresh age it is revalidated
+        assertThat(fetch(laterClient, "/test/resource")).isEqualTo("hello");
+        verify(1, getRequestedFor(urlEqualTo("/test/resource")).withHeader("If-None-Match", equalTo("\"v1\"")));
+    }
+
+    @Test
+    void responseWithoutValidatorsIsNotCached()
+    throws Exception
+    {
+        stubFor(get("/test/uncacheable").willReturn(aResponse().withStatus(200).withBody("hello")));
+        HttpClient client = new ConditionalCachingHttpClient(HttpClient.newHttpClient(), new FoojayResponseCache(tempDir));
+
+        fetch(client, "/test/uncacheable");
+        fetch(client, "/test/uncacheable");
+
+        verify(2, getRequestedFor(urlEqualTo("/test/uncacheable")).withoutHeader("If-None-Match"));
+    }
+
+    @Test
+    void expiredEntryIsNotRevalidated()
+    throws Exception
+    {
+        stubConditionalResource("/test/resource", "hello");
+        Instant start = Instant.now();
+        HttpClient client = new ConditionalCachingHttpClient(HttpClient.newHttpClient(),
+                new FoojayResponseCache(tempDir, Duration.ofDays(1), FoojayResponseCache.DEFAULT_MAX_SIZE, Clock.fixed(start, ZoneOffset.UTC)));
+        HttpClient laterClient = new ConditionalCachingHttpClient(HttpClient.newHttpClient(),
+                new FoojayResponseCache(tempDir, Duration.ofDays(1), FoojayResponseCache.DEFAULT_MAX_SIZE, Clock.fixed(start.plus(Duration.ofDays(2)), ZoneOffset.UTC)));
+
+        fetch(client, "/test/resource");
+        fetch(laterClient, "/test/resource");
+
+        verify(2, getRequestedFor(urlEqualTo("/test/resource")).withoutHeader("If-None-Match"));
+    }
+
+    @Test
+    void leastRecentlyValidatedEntriesAreDiscardedWhenOverSize()
+    throws Exception
+    {
+        String body = "x".repeat(1000);
+        stubConditionalResource("/test/first", body);
+        stubConditionalResource("/test/second", body);
+        Instant start = Instant.now();
+        FoojayResponseCache earlierCache = new FoojayResponseCache(tempDir, Duration.ofDays(30), 1500L, Clock.fixed(start, ZoneOffset.UTC));
+        FoojayResponseCache laterCache = new FoojayResponseCache(tempDir, Duration.ofDays(30), 1500L, Clock.fixed(start.plusSeconds(60), ZoneOffset.UTC));
+
+        fetch(new ConditionalCachingHttpClient(HttpClient.newHttpClient(), earlierCache), "/test/first");
+        fetch(new ConditionalCachingHttpClient(HttpClient.newHttpClient(), laterCache), "/test/second");
+
+        assertThat(laterCache.get(baseUri.resolve("/test/first"))).isNull();
+        assertThat(laterCache.get(baseUri.resolve("/test/second"))).isNotNull();
+    }
+
+    @Test
+    void streamedResponseIsCachedOnceReadCompletely()
+    throws Exception
+    {
+        String body = "x".repeat(100_000);
+        stubConditionalResource("/test/large", body);
+        FoojayResponseCache cache = new FoojayResponseCache(tempDir, Duration.ZERO);
+        HttpClient client = new ConditionalCachingHttpClient(HttpClient.newHttpClient(), cache);
+
+        HttpResponse<InputStream> response = client.send(HttpRequest.newBuilder(baseUri.resolve("/test/large")).GET().build(), HttpResponse.BodyHandlers.ofInputStream());
+        try (InputStream is = response.body())
+        {
+            assertThat(new String(is.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo(body);
+        }
+
+        assertThat(cache.get(baseUri.resolve("/test/large"))).isNotNull().satisfies(entry ->
+                assertThat(new String(entry.getBody(), StandardCharsets.UTF_8)).isEqualTo(body));
+    }
+
+    @Test
+    void responseTooLargeForCacheIsNotCached()
+    throws Exception
+    {
+        stubConditionalResource("/test/large", "x".repeat(2000));
+        FoojayResponseCache cache = new FoojayResponseCache(tempDir, Duration.ofDays(30), 1500L, Clock.systemUTC());
+        HttpClient client = new ConditionalCachingHttpClient(HttpClient.newHttpClient(), cache);
+
+        assertThat(fetch(client, "/test/large")).hasSize(2000);
+
+        assertThat(cache.get(baseUri.resolve("/test/large"))).isNull();
+    }
+
+    @Test
+    void foojayClientUsesCachedResponse()
+    throws Exception
+    {
+        stubConditionalResource("/disco/v3.0/distributions", DISTRIBUTIONS_JSON);
+        ApiClient apiClient = FoojayClient.createCachingApiClient(new FoojayResponseCache(tempDir, Duration.ZERO));
+        apiClient.updateBaseUri(baseUri.toString());
+        FoojayClient foojayClient = new FoojayClient(apiClient);
+
+        List<? extends JdkDistribution> first = foojayClient.getDistributions(null, null, null);
+        List<? extends JdkDistribution> second = foojayClient.getDistributions(null, null, null);
+
+        assertThat(first).extracting(JdkDistribution::getName).containsExactly("Zulu");
+        assertThat(second).extracting(JdkDistribution::getName).containsExactly("Zulu");
+        verify(1, getRequestedFor(urlPathEqualTo("/disco/v3.0/distributions")).withHeader("If-None-Match", equalTo("\"v1\"")));
+    }
+}
@@ -0,0 +1,87 @@
+package au.net.causal.maven.plugins.autojdk.foojay;
+
+import au.net.causal.maven.plugins.autojdk.foojay.openapi.handler.ApiException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TestFoojayMetadataMemo
+{
+    private static final Instant START = Instant.parse("2024-06-01T00:00:00Z");
+
+    @Mock
+    private FoojayClient foojayClient;
+
+    @Mock
+    private Clock clock;
+
+    private FoojayMetadataMemo memo;
+
+    @BeforeEach
+    void setUpMemo()
+    {
+        memo = new FoojayMetadataMemo(Duration.ofHours(1), clock);
+        when(foojayClient.getBaseUri()).thenReturn("https://api.foojay.io");
+    }
+
+    private static MajorVersion majorVersion(int version)
+    {
+        MajorVersion mv = new MajorVersion();
+        mv.setMajorVersion(version);
+        return mv;
+    }
+
+    @Test
+    void majorVersionsAreOnlyReadOnceWithinTimeToLive()
+    throws Exception
+    {
+        when(clock.instant()).thenReturn(START, START.plus(Duration.ofMinutes(30)));
+        doReturn(List.of(majorVersion(17))).when(foojayClient).getAllMajorVersions();
+
+        List<? extends MajorVersion> first = memo.getAllMajorVersions(foojayClient);
+        List<? extends MajorVersion> second = memo.getAllMajorVersions(foojayClient);
+
+        assertThat(second).isSameAs(first);
+        verify(foojayClient, times(1)).getAllMajorVersions();
+    }
+
+    @Test
+    void majorVersionsAreReadAgainAfterTimeToLive()
+    throws Exception
+    {
+        when(clock.instant()).thenReturn(START, START.plus(Duration.ofHours(2)));
+        doReturn(List.of(majorVersion(17))).when(foojayClient).getAllMajorVersions();
+
+        memo.getAllMajorVersions(foojayClient);
+        memo.getAllMajorVersions(foojayClient);
+
+        verify(foojayClient, times(2)).getAllMajorVersions();
+    }
+
+    @Test
+    void failuresAreNotRemembered()
+    throws Exception
+    {
+        when(clock.instant()).thenReturn(START);
+        JdkDistribution zulu = new JdkDistribution();
+        zulu.setName("Zulu");
+        when(foojayClient.getDistributions(false, true, null)).thenThrow(new ApiException("down")).thenAnswer(inv -> List.of(zulu));
+
+        assertThatExceptionOfType(ApiException.class).isThrownBy(() -> memo.getDistributionsWithSynonyms(foojayClient));
+        assertThat(memo.getDistributionsWithSynonyms(foojayClient)).extracting(JdkDistribution::getName).containsExactly("Zulu");
+        assertThat(memo.getDistributionsWithSynonyms(foojayClient)).extracting(JdkDistribution::getName).containsExactly("Zulu");
+
+        verify(foojayClient, times(2)).getDistributions(false, true, null);
+    }
+}
@@ -1,9 +1,24 @@
 package au.net.causal.maven.plugins.autojdk.foojay;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import eu.hansolo.jdktools.ArchiveType;
 import org.apache.maven.artifact.versioning.ArtifactVersion;
+import org.apache.maven.artifact.versioning.DefaultArtifactVersion;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
 import static org.assertj.core.api.Assertions.*;
 
 class TestFoojayOpenApiArtifact
@@ -32,6 +47,191 @@ class TestFoojayOpenApiArtifact
             assertThat(version.getIncrementalVersion()).isEqualTo(9);
             assertThat(version.getQualifier()).isEqualTo("1-1");
         }
+
+        @Test
+        void versionWithoutMajorVersionIsLeftAlone()
+        {
+            //Used to loop forever
+            assertThat(FoojayOpenApiArtifact.mavenSafeVersionString("0.9.1+2")).isEqualTo("0.9.1-2");
+        }
+
+        @Test
+        void resultsAreCached()
+        {
+            assertThat(FoojayOpenApiArtifact.mavenSafeVersionFromPkgVersion("21.0.2+13"))
+                    .isSameAs(FoojayOpenApiArtifact.mavenSafeVersionFromPkgVersion("21.0.2+13"));
+        }
     }
 
+    /**
+     * Checks that the version translation gives exactly the same results as the original algorithm which tried parsing each candidate version.
+     */
+    @Nested
+    class SameAsOriginalTranslation
+    {
+        /**
+         * The original algorithm, with a guard because it never finished for versions it could not fix.
+         *
+         * @return the translated version, or null if the original algorithm would never finish.
+         */
+        private ArtifactVersion originalMavenSafeVersionFromPkgVersion(String pkgVersion)
+        {
+            pkgVersion = pkgVersion.replace('+', '-');
+
+            String curVersion = pkgVersion;
+
+            int nthLastDotIndex = pkgVersion.length();
+            ArtifactVersion v;
+            int iterations = 0;
+            do
+            {
+                if (++iterations > 10)
+                    return null;
+
+                v = new DefaultArtifactVersion(curVersion);
+                if (v.getMajorVersion() != 0)
+                    return v;
+
+                nthLastDotIndex = pkgVersion.lastIndexOf('.', nthLastDotIndex);
+                if (nthLastDotIndex >= 0)
+                    curVersion = pkgVersion.substring(0, nthLastDotIndex) + "-" + pkgVersion.substring(nthLastDotIndex + 1);
+            }
+            while (v.getMajorVersion() == 0 && nthLastDotIndex >= 0);
+
+            return new DefaultArtifactVersion(pkgVersion);
+        }
+
+        private Set<String> fixtureVersions()
+        throws IOException
+        {
+            ObjectMapper objectMapper = new ObjectMapper();
+            Set<String> versions = new TreeSet<>();
+            try (Stream<Path> files = Files.list(Path.of("src/test/resources/__files")))
+            {
+                for (Path file : (Iterable<Path>)files.filter(f -> f.getFileName().toString().endsWith(".json"))::iterator)
+                {
+                    collectVersions(objectMapper.readTree(file.toFile()), versions);
+                }
+            }
+            return versions;
+        }
+
+        private void collectVersions(JsonNode node, Set<String> versions)
+        {
+            node.fields().forEachRemaining(field ->
+            {
+                if ((field.getKey().equals("java_version") || field.getKey().equals("distribution_version")) && field.getValue().isTextual())
+                    versions.add(field.getValue().asText());
+                else if (field.getKey().equals("versions") && field.getValue().isArray())
+                    field.getValue().forEach(v -> versions.add(v.asText()));
+                else
+                    collectVersions(field.getValue(), versions);
+            });
+            if (node.isArray())
+                node.forEach(element -> collectVersions(element, versions));
+        }
+
+        private List<String> variantsOf(String version)
+        {
+            return List.of(version + ".1", version + ".1.2", version + ".x", version + "+3", version + "-ea+3", "0" + version, "0." + version,
+                           "." + version, version + ".", version.replace(".", ".."), version.replace(".", ".0"), version + "99999999999");
+        }
+
+        private void assertSameAsOriginal(String pkgVersion)
+        {
+            ArtifactVersion expected = originalMavenSafeVersionFromPkgVersion(pkgVersion);
+            String actualString = FoojayOpenApiArtifact.mavenSafeVersionString(pkgVersion);
+            ArtifactVersion actual = new DefaultArtifactVersion(actualString);
+
+            //Where the original never finished, the version is left as it is
+            if (expected == null)
+            {
+                assertThat(actualString).as(pkgVersion).isEqualTo(pkgVersion.replace('+', '-'));
+                return;
+            }
+
+            assertThat(actual.toString()).as(pkgVersion).isEqualTo(expected.toString());
+            assertThat(actual.getMajorVersion()).as(pkgVersion).isEqualTo(expected.getMajorVersion());
+            assertThat(actual.getMinorVersion()).as(pkgVersion).isEqualTo(expected.getMinorVersion());
+            assertThat(actual.getIncrementalVersion()).as(pkgVersion).isEqualTo(expected.getIncrementalVersion());
+            assertThat(actual.getBuildNumber()).as(pkgVersion).isEqualTo(expected.getBuildNumber());
+            assertThat(actual.getQualifier()).as(pkgVersion).isEqualTo(expected.getQualifier());
+        }
+
+        @Test
+        void allFixtureVersions()
+        throws IOException
+        {
+            Set<String> versions = fixtureVersions();
+            assertThat(versions).hasSizeGreaterThan(1000);
+
+            versions.forEach(this::assertSameAsOriginal);
+        }
+
+        @Test
+        void variantsOfFixtureVersions()
+        throws IOException
+        {
+            for (String version : fixtureVersions())
+            {
+                variantsOf(version).forEach(this::assertSameAsOriginal);
+            }
+        }
+
+        @Test
+        void randomVersions()
+        {
+            String alphabet = "0123456789..--+ab";
+            Random random = new Random(4412L);
+            List<String> versions = new ArrayList<>();
+            for (int i = 0; i < 20000; i++)
+            {
+                StringBuilder buf = new StringBuilder();
+                int length = 1 + random.nextInt(14);
+                for (int j = 0; j < length; j++)
+                {
+                    buf.append(alphabet.charAt(random.nextInt(alphabet.length())));
+                }
+                versions.add(buf.toString());
+            }
+
+            versions.forEach(this::assertSameAsOriginal);
+        }
+    }
+
+    @Nested
+    class SharedValues
+    {
+        private JdkPackage jdkPackage(String id, String distribution, String javaVersion)
+        {
+            JdkPackage pkg = new JdkPackage();
+            pkg.setId(id);
+            //Copy strings so they start off as different instances, like they would be when read from separate responses
+            pkg.setDistribution(new String(distribution));
+            pkg.setJavaVersion(new String(javaVersion));
+            pkg.setArchiveType(ArchiveType.TAR_GZ);
+            pkg.setLinks(new JdkPackage.Links(null, "https://api.foojay.io/disco/v3.0/ids/" + id + "/redirect"));
+            return pkg;
+        }
+
+        @Test
+        void versionsAndDistributionsAreShared()
+        {
+            FoojayOpenApiArtifact a1 = new FoojayOpenApiArtifact(jdkPackage("a1", "zulu", "17.0.3+7"));
+            FoojayOpenApiArtifact a2 = new FoojayOpenApiArtifact(jdkPackage("a2", "zulu", "17.0.3+7"));
+
+            assertThat(a2.getVersion()).isSameAs(a1.getVersion());
+            assertThat(a2.getVendor()).isSameAs(a1.getVendor());
+            assertThat(a2.getVersion().toString()).isEqualTo("17.0.3-7");
+        }
+
+        @Test
+        void downloadUriIsReadFromLinks()
+        {
+            FoojayOpenApiArtifact artifact = new FoojayOpenApiArtifact(jdkPackage("a1", "zulu", "17.0.3+7"));
+
+            assertThat(artifact.getDownloadUri()).isEqualTo(URI.create("https://api.foojay.io/disco/v3.0/ids/a1/redirect"));
+            assertThat(artifact.getArchiveType()).isEqualTo(au.net.causal.maven.plugins.autojdk.xml.metadata.ArchiveType.TAR_GZ);
+        }
+    }
 }
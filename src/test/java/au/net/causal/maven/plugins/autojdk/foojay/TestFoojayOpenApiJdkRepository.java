@@ -3,27 +3,35 @@ package au.net.causal.maven.plugins.autojdk.foojay;
 import au.net.causal.maven.plugins.autojdk.FileDownloader;
 import au.net.causal.maven.plugins.autojdk.JdkArchive;
 import au.net.causal.maven.plugins.autojdk.JdkSearchRequest;
+import au.net.causal.maven.plugins.autojdk.foojay.openapi.handler.ApiException;
 import au.net.causal.maven.plugins.autojdk.xml.metadata.ReleaseType;
+import eu.hansolo.jdktools.ArchiveType;
 import eu.hansolo.jdktools.Architecture;
 import eu.hansolo.jdktools.Latest;
 import eu.hansolo.jdktools.OperatingSystem;
 import eu.hansolo.jdktools.versioning.VersionNumber;
 import org.apache.maven.artifact.versioning.VersionRange;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.stubbing.Answer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.net.URL;
 import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -215,8 +223,8 @@ class TestFoojayOpenApiJdkRepository extends AbstractApiClientMockTestCase
                 ReleaseType.GA));
 
         List<FoojayOpenApiArtifact> resultList = new ArrayList<>(results);
-        resultList.sort(Comparator.<FoojayOpenApiArtifact, String>comparing(x -> x.getJdkPackage().getDistribution())
-                                  .thenComparing(x -> x.getJdkPackage().getJavaVersion())
+        resultList.sort(Comparator.<FoojayOpenApiArtifact, String>comparing(x -> x.getVendor())
+                                  .thenComparing(x -> x.getJavaVersion())
         );
 
         resultList.forEach(r -> log.debug(r.toString()));
@@ -226,7 +234,7 @@ class TestFoojayOpenApiJdkRepository extends AbstractApiClientMockTestCase
         //Check that all results have an appropriate java version, arch, etc.
         assertThat(resultList).allMatch(r -> r.getVersion().toString().startsWith("18"))
                               .allMatch(r -> r.getOperatingSystem() == OperatingSystem.LINUX)
-                              .allMatch(r -> r.getJdkPackage().getLibCType() == OperatingSystem.LINUX.getLibCType()) //which is GLibC
+                              .allMatch(r -> r.getLibCType() == OperatingSystem.LINUX.getLibCType()) //which is GLibC
                               .map(FoojayOpenApiArtifact::getArchitecture).containsAnyOf(Architecture.AMD64, Architecture.X86_64, Architecture.X64);
     }
 
@@ -250,7 +258,7 @@ class TestFoojayOpenApiJdkRepository extends AbstractApiClientMockTestCase
 
         //There are 2 results, one with JavaFX and one without - so let's pick one for consistency
         FoojayOpenApiArtifact result = results.stream()
-                                       .filter(a -> Boolean.FALSE.equals(a.getJdkPackage().getJavafxBundled()))
+                                       .filter(a -> Boolean.FALSE.equals(a.getJavafxBundled()))
                                        .findFirst()
                                        .orElseThrow();
 
@@ -461,4 +469,235 @@ class TestFoojayOpenApiJdkRepository extends AbstractApiClientMockTestCase
             assertThat(result.getVersion().getMajorVersion()).isEqualTo(17);
         }
     }
+
+    /**
+     * Searches across multiple major versions are run concurrently, these tests use a mock client to control the order they complete in.
+     */
+    @Nested
+    class ConcurrentSearch
+    {
+        @Mock
+        private FoojayClient mockFoojayClient;
+
+        private FoojayOpenApiJdkRepository concurrentRepository;
+
+        @BeforeEach
+        void setUpRepository()
+        throws Exception
+        {
+            doReturn(List.of(majorVersion(17), majorVersion(21))).when(mockFoojayClient).getAllMajorVersions();
+            concurrentRepository = new FoojayOpenApiJdkRepository(mockFoojayClient, fileDownloader, new FoojayMetadataMemo(Duration.ofHours(1), Clock.systemUTC()));
+        }
+
+        private MajorVersion majorVersion(int version)
+        {
+            MajorVersion mv = new MajorVersion();
+            mv.setMajorVersion(version);
+            return mv;
+        }
+
+        private JdkPackage jdkPackage(String javaVersion)
+        {
+            JdkPackage pkg = new JdkPackage();
+            pkg.setJavaVersion(javaVersion);
+            pkg.setDistribution("zulu");
+            pkg.setArchiveType(ArchiveType.TAR_GZ);
+            return pkg;
+        }
+
+        private JdkPackage temurinPackage(String javaVersion)
+        {
+            JdkPackage pkg = jdkPackage(javaVersion);
+            pkg.setDistribution("temurin");
+            return pkg;
+        }
+
+        private void whenSearchingPackages(Answer<?> answer)
+        throws Exception
+        {
+            doAnswer(answer).when(mockFoojayClient).getJdkPackages(any(), any(), any(), any(), any(), any(), any(), any(), any(), any(),
+                                                                   any(), any(), any(), any(), any(), any(), any(), any(), any(), any());
+        }
+
+        /**
+         * @return a search that selects the best JDK, as when installing or checking for updates, so restricted queries may be used.
+         */
+        private JdkSearchRequest searchRequest()
+        throws Exception
+        {
+            return new JdkSearchRequest(VersionRange.createFromVersionSpec("[17,)"), null, null, null, ReleaseType.GA, false, true);
+        }
+
+        @Test
+        void highestMajorVersionWinsEvenWhenLowerCompletesFirst()
+        throws Exception
+        {
+            CountDownLatch lowerSearched = new CountDownLatch(1);
+            whenSearchingPackages(inv ->
+            {
+                if ("21".equals(inv.getArgument(0)))
+                {
+                    assertThat(lowerSearched.await(30, TimeUnit.SECONDS)).isTrue();
+                    return List.of(jdkPackage("21.0.1"));
+                }
+
+                lowerSearched.countDown();
+                return List.of(jdkPackage("17.0.2"));
+            });
+
+            Collection<? extends FoojayOpenApiArtifact> results = concurrentRepository.search(searchRequest());
+
+            assertThat(results).extracting(r -> r.getVersion().toString()).containsExactly("21.0.1");
+        }
+
+        @Test
+        void lowerMajorVersionUsedWhenHigherHasNoResults()
+        throws Exception
+        {
+            whenSearchingPackages(inv -> "21".equals(inv.getArgument(0)) ? List.of() : List.of(jdkPackage("17.0.2")));
+
+            Collection<? extends FoojayOpenApiArtifact> results = concurrentRepository.search(searchRequest());
+
+            assertThat(results).extracting(r -> r.getVersion().toString()).containsExactly("17.0.2");
+        }
+
+        @Test
+        void perDistributionSearchKeepsOnlyHighestMajorVersion()
+        throws Exception
+        {
+            FoojayQueryPlanner planner = new FoojayQueryPlanner();
+            FoojayOpenApiJdkRepository plannedRepository = new FoojayOpenApiJdkRepository(mockFoojayClient, fileDownloader,
+                                                                                          new FoojayMetadataMemo(Duration.ofHours(1), Clock.systemUTC()), planner);
+            whenSearchingPackages(inv -> inv.getArgument(13) == Latest.PER_DISTRIBUTION ? List.of(jdkPackage("21.0.1"), jdkPackage("17.0.2")) : List.of());
+
+            Collection<? extends FoojayOpenApiArtifact> results = plannedRepository.search(searchRequest());
+
+            assertThat(results).extracting(r -> r.getVersion().toString()).containsExactly("21.0.1");
+            assertThat(planner.getRestrictedSearchCount()).isEqualTo(1);
+            assertThat(planner.getSavedQueryCount()).isEqualTo(1);
+        }
+
+        @Test
+        void searchNotLimitedToLatestUsesFullQueries()
+        throws Exception
+        {
+            FoojayQueryPlanner planner = new FoojayQueryPlanner();
+            FoojayOpenApiJdkRepository plannedRepository = new FoojayOpenApiJdkRepository(mockFoojayClient, fileDownloader,
+                                                                                          new FoojayMetadataMemo(Duration.ofHours(1), Clock.systemUTC()), planner);
+            whenSearchingPackages(inv ->
+            {
+                assertThat(inv.<Latest>getArgument(13)).isEqualTo(Latest.ALL_OF_VERSION);
+                return "21".equals(inv.getArgument(0)) ? List.of(jdkPackage("21.0.1"), jdkPackage("21.0.0")) : List.of();
+            });
+
+            Collection<? extends FoojayOpenApiArtifact> results = plannedRepository.search(searchRequest().withLatestOnly(false));
+
+            assertThat(results).extracting(r -> r.getVersion().toString()).containsExactlyInAnyOrder("21.0.1", "21.0.0");
+            assertThat(planner.getRestrictedSearchCount()).isZero();
+            assertThat(planner.getFallbackSearchCount()).isZero();
+        }
+
+        @Test
+        void restrictedSearchFallsBackToFullSearchWhenNothingFound()
+        throws Exception
+        {
+            FoojayQueryPlanner planner = new FoojayQueryPlanner();
+            FoojayOpenApiJdkRepository plannedRepository = new FoojayOpenApiJdkRepository(mockFoojayClient, fileDownloader,
+                                                                                          new FoojayMetadataMemo(Duration.ofHours(1), Clock.systemUTC()), planner);
+            whenSearchingPackages(inv -> inv.getArgument(13) == Latest.ALL_OF_VERSION && "17".equals(inv.getArgument(0)) ? List.of(jdkPackage("17.0.2")) : List.of());
+
+            Collection<? extends FoojayOpenApiArtifact> results = plannedRepository.search(searchRequest());
+
+            assertThat(results).extracting(r -> r.getVersion().toString()).containsExactly("17.0.2");
+            assertThat(planner.getFallbackSearchCount()).isEqualTo(1);
+        }
+
+        @Test
+        void restrictedSearchFallsBackToFullSearchWhenVendorsLatestPackagesAreFilteredOut()
+        throws Exception
+        {
+            FoojayQueryPlanner planner = new FoojayQueryPlanner();
+            FoojayOpenApiJdkRepository plannedRepository = new FoojayOpenApiJdkRepository(mockFoojayClient, fileDownloader,
+                                                                                          new FoojayMetadataMemo(Duration.ofHours(1), Clock.systemUTC()), planner);
+            whenSearchingPackages(inv ->
+            {
+                JdkPackageFilter filter = inv.getArgument(19);
+                if (inv.getArgument(13) == Latest.PER_DISTRIBUTION)
+                {
+                    //Temurin's latest package is in an archive format that is filtered out, so its older packages might be the best choice
+                    assertThat(filter.accepts("temurin", null, ArchiveType.PKG)).isFalse();
+                    return List.of(jdkPackage("21.0.1"));
+                }
+
+                return "21".equals(inv.getArgument(0)) ? List.of(jdkPackage("21.0.1"), temurinPackage("21.0.0")) : List.of();
+            });
+
+            Collection<? extends FoojayOpenApiArtifact> results = plannedRepository.search(searchRequest());
+
+            assertThat(results).extracting(FoojayOpenApiArtifact::getVendor).containsExactlyInAnyOrder("zulu", "temurin");
+            assertThat(planner.getFallbackSearchCount()).isEqualTo(1);
+            assertThat(planner.getRestrictedSearchCount()).isZero();
+        }
+
+        @Test
+        void restrictedSearchDoesNotFallBackWhenVendorsLatestPackagesAreBelowRange()
+        throws Exception
+        {
+            FoojayQueryPlanner planner = new FoojayQueryPlanner();
+            FoojayOpenApiJdkRepository plannedRepository = new FoojayOpenApiJdkRepository(mockFoojayClient, fileDownloader,
+                                                                                          new FoojayMetadataMemo(Duration.ofHours(1), Clock.systemUTC()), planner);
+            //Temurin's latest is older than the range, so none of its older packages could match either
+            whenSearchingPackages(inv -> inv.getArgument(13) == Latest.PER_DISTRIBUTION ? List.of(jdkPackage("21.0.1"), temurinPackage("16.0.2")) : List.of());
+
+            Collection<? extends FoojayOpenApiArtifact> results = plannedRepository.search(searchRequest());
+
+            assertThat(results).extracting(r -> r.getVersion().toString()).containsExactly("21.0.1");
+            assertThat(planner.getFallbackSearchCount()).isZero();
+            assertThat(planner.getRestrictedSearchCount()).isEqualTo(1);
+        }
+
+        @Test
+        void restrictedSearchFallsBackWhenVendorsLatestPackagesAreGraalVersioned()
+        throws Exception
+        {
+            FoojayQueryPlanner planner = new FoojayQueryPlanner();
+            FoojayOpenApiJdkRepository plannedRepository = new FoojayOpenApiJdkRepository(mockFoojayClient, fileDownloader,
+                                                                                          new FoojayMetadataMemo(Duration.ofHours(1), Clock.systemUTC()), planner);
+            whenSearchingPackages(inv ->
+            {
+                if (inv.getArgument(13) == Latest.PER_DISTRIBUTION)
+                {
+                    //Temurin's latest package has mismatched versions, but an older package might be fine
+                    JdkPackage mismatchedPackage = temurinPackage("21.0.1");
+                    mismatchedPackage.setMajorVersion(22);
+                    mismatchedPackage.setJdkVersion(21);
+                    return List.of(jdkPackage("21.0.1"), mismatchedPackage);
+                }
+
+                return "21".equals(inv.getArgument(0)) ? List.of(jdkPackage("21.0.1"), temurinPackage("21.0.0")) : List.of();
+            });
+
+            Collection<? extends FoojayOpenApiArtifact> results = plannedRepository.search(searchRequest());
+
+            assertThat(results).extracting(FoojayOpenApiArtifact::getVendor).containsExactlyInAnyOrder("zulu", "temurin");
+            assertThat(planner.getFallbackSearchCount()).isEqualTo(1);
+        }
+
+        @Test
+        void failureOfLowerPrioritySearchIgnoredWhenHigherHasResults()
+        throws Exception
+        {
+            whenSearchingPackages(inv ->
+            {
+                if ("21".equals(inv.getArgument(0)))
+                    return List.of(jdkPackage("21.0.1"));
+
+                throw new ApiException("Lower priority search failed");
+            });
+
+            Collection<? extends FoojayOpenApiArtifact> results = concurrentRepository.search(searchRequest());
+
+            assertThat(results).extracting(r -> r.getVersion().toString()).containsExactly("21.0.1");
+        }
+    }
 }
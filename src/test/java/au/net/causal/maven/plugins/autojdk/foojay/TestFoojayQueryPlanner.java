@@ -0,0 +1,192 @@
+package au.net.causal.maven.plugins.autojdk.foojay;
+
+import au.net.causal.maven.plugins.autojdk.JdkSearchRequest;
+import au.net.causal.maven.plugins.autojdk.xml.metadata.ReleaseType;
+import eu.hansolo.jdktools.Latest;
+import eu.hansolo.jdktools.versioning.VersionNumber;
+import org.apache.maven.artifact.versioning.VersionRange;
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.*;
+
+class TestFoojayQueryPlanner
+{
+    private final FoojayQueryPlanner planner = new FoojayQueryPlanner();
+
+    private static JdkSearchRequest searchRequest(String versionSpec, String vendor, ReleaseType releaseType)
+    throws Exception
+    {
+        return new JdkSearchRequest(VersionRange.createFromVersionSpec(versionSpec), null, null, vendor, releaseType, false, true);
+    }
+
+    private static List<FoojayOpenApiJdkRepository.VersionNumberAndLatest> fullSearch(int... majorVersions)
+    {
+        return IntStream.of(majorVersions)
+                        .mapToObj(v -> new FoojayOpenApiJdkRepository.VersionNumberAndLatest(new VersionNumber(v), Latest.ALL_OF_VERSION))
+                        .collect(Collectors.toList());
+    }
+
+    @Nested
+    class PlanRestrictedSearch
+    {
+        @Test
+        void wholeMajorVersionWithAnyVendorIsNotRestricted()
+        throws Exception
+        {
+            //Latest available would only return the newest version of any vendor, not the latest of each vendor
+            assertThat(planner.planRestrictedSearch(searchRequest("[17,18)", null, ReleaseType.GA), fullSearch(17))).isNull();
+        }
+
+        @Test
+        void wholeMajorVersionWithVendorUsesPerVersion()
+        throws Exception
+        {
+            assertThat(planner.planRestrictedSearch(searchRequest("[17,18)", "zulu", ReleaseType.GA), fullSearch(17))).containsExactly(
+                    new FoojayOpenApiJdkRepository.VersionNumberAndLatest(new VersionNumber(17), Latest.PER_VERSION));
+        }
+
+        @Test
+        void unboundedRangeUsesSinglePerDistributionQuery()
+        throws Exception
+        {
+            assertThat(planner.planRestrictedSearch(searchRequest("[17,)", null, ReleaseType.GA), fullSearch(21, 20, 19, 18, 17))).containsExactly(
+                    new FoojayOpenApiJdkRepository.VersionNumberAndLatest(null, Latest.PER_DISTRIBUTION));
+        }
+
+        @Test
+        void partiallyCoveredMajorVersionKeepsFullQuery()
+        throws Exception
+        {
+            assertThat(planner.planRestrictedSearch(searchRequest("[16,17.0.3)", "zulu", ReleaseType.GA), fullSearch(17, 16))).containsExactly(
+                    new FoojayOpenApiJdkRepository.VersionNumberAndLatest(new VersionNumber(17), Latest.ALL_OF_VERSION),
+                    new FoojayOpenApiJdkRepository.VersionNumberAndLatest(new VersionNumber(16), Latest.PER_VERSION));
+        }
+
+        @Test
+        void rangeWithinMajorVersionIsNotRestricted()
+        throws Exception
+        {
+            assertThat(planner.planRestrictedSearch(searchRequest("[17.0.2,17.0.3)", null, ReleaseType.GA), fullSearch(17))).isNull();
+        }
+
+        @Test
+        void recommendedVersionIsNotRestricted()
+        throws Exception
+        {
+            assertThat(planner.planRestrictedSearch(searchRequest("17", null, ReleaseType.GA), fullSearch(17))).isNull();
+        }
+
+        @Test
+        void earlyAccessIsNotRestricted()
+        throws Exception
+        {
+            assertThat(planner.planRestrictedSearch(searchRequest("[17,18)", null, ReleaseType.EA), fullSearch(17))).isNull();
+        }
+
+        @Test
+        void fullQueriesPlannerNeverRestricts()
+        throws Exception
+        {
+            assertThat(FoojayQueryPlanner.fullQueries().planRestrictedSearch(searchRequest("[17,18)", null, ReleaseType.GA), fullSearch(17))).isNull();
+        }
+
+        @Test
+        void searchNotLimitedToLatestIsNotRestricted()
+        throws Exception
+        {
+            //Listing searches need every package, so even a range that would otherwise be restricted uses the full search
+            assertThat(planner.planRestrictedSearch(searchRequest("[17,)", "zulu", ReleaseType.GA).withLatestOnly(false), fullSearch(18, 17))).isNull();
+        }
+    }
+
+    @Nested
+    class Statistics
+    {
+        @Test
+        void savedBytesUseAverageMeasuredFullQuerySize()
+        throws Exception
+        {
+            planner.recordFullSearch(2, 3000L);
+            planner.recordRestrictedSearch(searchRequest("[17,)", null, ReleaseType.GA), 1, 3, 5, 400L);
+            planner.recordFallbackSearch(searchRequest("[17,)", null, ReleaseType.GA), "found nothing", 100L);
+
+            //3 avoided full queries of 1500 bytes each, less everything read by restricted queries
+            assertThat(planner.getSavedResponseBytes()).hasValue(3 * 1500L - 400L - 100L);
+            assertThat(planner.summary()).contains("1 restricted", "1 fell back", "saved 4000 bytes");
+        }
+
+        @Test
+        void savedBytesUnknownWithoutFullQueries()
+        throws Exception
+        {
+            planner.recordRestrictedSearch(searchRequest("[17,)", null, ReleaseType.GA), 1, 3, 5, 400L);
+
+            assertThat(planner.getSavedResponseBytes()).isEmpty();
+            assertThat(planner.hasSearched()).isTrue();
+        }
+
+        @Test
+        void nothingSearched()
+        {
+            assertThat(planner.hasSearched()).isFalse();
+        }
+    }
+
+    @Nested
+    class ForSession
+    {
+        @Test
+        void sameSessionSharesPlanner()
+        {
+            DefaultRepositorySystemSession session = new DefaultRepositorySystemSession();
+
+            assertThat(FoojayQueryPlanner.forSession(session)).isSameAs(FoojayQueryPlanner.forSession(session));
+        }
+
+        @Test
+        void differentSessionsHaveDifferentPlanners()
+        {
+            assertThat(FoojayQueryPlanner.forSession(new DefaultRepositorySystemSession()))
+                    .isNotSameAs(FoojayQueryPlanner.forSession(new DefaultRepositorySystemSession()));
+        }
+    }
+
+    @Nested
+    class CoversWholeMajorVersion
+    {
+        @Test
+        void exclusiveNextMajorUpperBound()
+        throws Exception
+        {
+            assertThat(FoojayQueryPlanner.coversWholeMajorVersion(VersionRange.createFromVersionSpec("[17,18)"), 17)).isTrue();
+        }
+
+        @Test
+        void exclusiveLowerBound()
+        throws Exception
+        {
+            assertThat(FoojayQueryPlanner.coversWholeMajorVersion(VersionRange.createFromVersionSpec("(17,18)"), 17)).isFalse();
+        }
+
+        @Test
+        void upperBoundWithinMajorVersion()
+        throws Exception
+        {
+            assertThat(FoojayQueryPlanner.coversWholeMajorVersion(VersionRange.createFromVersionSpec("[17,17.0.5)"), 17)).isFalse();
+        }
+
+        @Test
+        void lowerBoundWithinMajorVersion()
+        throws Exception
+        {
+            assertThat(FoojayQueryPlanner.coversWholeMajorVersion(VersionRange.createFromVersionSpec("[17.0.2,)"), 17)).isFalse();
+            assertThat(FoojayQueryPlanner.coversWholeMajorVersion(VersionRange.createFromVersionSpec("[17.0.2,)"), 18)).isTrue();
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package au.net.causal.maven.plugins.autojdk.foojay;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import eu.hansolo.jdktools.Architecture;
+import eu.hansolo.jdktools.ArchiveType;
+import eu.hansolo.jdktools.LibCType;
+import eu.hansolo.jdktools.OperatingSystem;
+import eu.hansolo.jdktools.ReleaseStatus;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+class TestJdkPackagesStreamReader
+{
+    private static final String ZULU_PACKAGE =
+            "{'id':'445f582502d1e075b055ca408a1eae25','archive_type':'zip','distribution':'zulu','major_version':17,'java_version':'17.0.2+8'," +
+            "'distribution_version':'17.32.13','jdk_version':17,'latest_build_available':false,'release_status':'ga','term_of_support':'lts'," +
+            "'operating_system':'linux','lib_c_type':'glibc','architecture':'x64','fpu':'unknown','package_type':'jdk','javafx_bundled':false," +
+            "'links':{'pkg_info_uri':'https://api.foojay.io/disco/v3.0/ids/445f','pkg_download_redirect':'https://api.foojay.io/disco/v3.0/ids/445f/redirect'}," +
+            "'tck_cert_uri':'','size':68056121,'feature':[{'name':'crac'}]}";
+
+    private static final String MUSL_PACKAGE =
+            "{'id':'musl1','archive_type':'tar.gz','distribution':'zulu','major_version':17,'java_version':'17.0.2+8','jdk_version':17," +
+            "'release_status':'ga','operating_system':'linux','lib_c_type':'musl','architecture':'x64','javafx_bundled':false}";
+
+    private static final String TEMURIN_MSI_PACKAGE =
+            "{'id':'temurin1','archive_type':'msi','distribution':'temurin','major_version':17,'java_version':'17.0.2+8','jdk_version':17," +
+            "'release_status':'ga','operating_system':'windows','architecture':'x64','javafx_bundled':false}";
+
+    private static JsonParser parser(String json)
+    throws IOException
+    {
+        return new JsonFactory().createParser(json.replace('\'', '"'));
+    }
+
+    private static String response(String... packages)
+    {
+        return "{'result':[" + String.join(",", packages) + "],'message':'','extra':{'nested':[1,2,{'a':'b'}]}}";
+    }
+
+    @Test
+    void knownPropertiesAreRead()
+    throws IOException
+    {
+        List<JdkPackage> packages = new JdkPackagesStreamReader(null).readPackages(parser(response(ZULU_PACKAGE)));
+
+        assertThat(packages).singleElement().satisfies(pkg ->
+        {
+            assertThat(pkg.getId()).isEqualTo("445f582502d1e075b055ca408a1eae25");
+            assertThat(pkg.getArchiveType()).isEqualTo(ArchiveType.ZIP);
+            assertThat(pkg.getDistribution()).isEqualTo("zulu");
+            assertThat(pkg.getMajorVersion()).isEqualTo(17);
+            assertThat(pkg.getJavaVersion()).isEqualTo("17.0.2+8");
+            assertThat(pkg.getJdkVersion()).isEqualTo(17);
+            assertThat(pkg.getReleaseStatus()).isEqualTo(ReleaseStatus.GA);
+            assertThat(pkg.getOperatingSystem()).isEqualTo(OperatingSystem.LINUX);
+            assertThat(pkg.getLibCType()).isEqualTo(LibCType.GLIBC);
+            assertThat(pkg.getArchitecture()).isEqualTo(Architecture.X64);
+            assertThat(pkg.getJavafxBundled()).isFalse();
+            assertThat(pkg.getLinks().getPkgInfoUri()).isEqualTo(URI.create("https://api.foojay.io/disco/v3.0/ids/445f"));
+            assertThat(pkg.getLinks().getPkgDownloadRedirect()).isEqualTo(URI.create("https://api.foojay.io/disco/v3.0/ids/445f/redirect"));
+        });
+    }
+
+    @Test
+    void allPackagesReadWithoutFilter()
+    throws IOException
+    {
+        List<JdkPackage> packages = new JdkPackagesStreamReader(null).readPackages(parser(response(ZULU_PACKAGE, MUSL_PACKAGE, TEMURIN_MSI_PACKAGE)));
+
+        assertThat(packages).extracting(JdkPackage::getId).containsExactly("445f582502d1e075b055ca408a1eae25", "musl1", "temurin1");
+    }
+
+    @Test
+    void filterRejectsPackagesWhileReading()
+    throws IOException
+    {
+        JdkPackageFilter filter = new JdkPackageFilter(List.of("zulu", "temurin"), LibCType.GLIBC, List.of(ArchiveType.ZIP, ArchiveType.TAR_GZ));
+        List<JdkPackage> packages = new JdkPackagesStreamReader(filter).readPackages(parser(response(ZULU_PACKAGE, MUSL_PACKAGE, TEMURIN_MSI_PACKAGE)));
+
+        assertThat(packages).extracting(JdkPackage::getId).containsExactly("445f582502d1e075b055ca408a1eae25");
+    }
+
+    @Test
+    void filterRejectsOtherDistributions()
+    throws IOException
+    {
+        JdkPackageFilter filter = new JdkPackageFilter(List.of("temurin"), null, null);
+        List<JdkPackage> packages = new JdkPackagesStreamReader(filter).readPackages(parser(response(ZULU_PACKAGE, MUSL_PACKAGE, TEMURIN_MSI_PACKAGE)));
+
+        assertThat(packages).extracting(JdkPackage::getId).containsExactly("temurin1");
+    }
+
+    @Test
+    void packageWithoutLibCTypePassesLibCTypeFilter()
+    throws IOException
+    {
+        JdkPackageFilter filter = new JdkPackageFilter(null, LibCType.GLIBC, null);
+        List<JdkPackage> packages = new JdkPackagesStreamReader(filter).readPackages(parser(response(TEMURIN_MSI_PACKAGE, MUSL_PACKAGE)));
+
+        assertThat(packages).extracting(JdkPackage::getId).containsExactly("temurin1");
+    }
+
+    @Test
+    void responseSizeIsRecordedInFilter()
+    throws IOException
+    {
+        String json = response(ZULU_PACKAGE, MUSL_PACKAGE).replace('\'', '"');
+        JdkPackageFilter filter = new JdkPackageFilter(null, null, null);
+        new JdkPackagesStreamReader(filter).readPackages(new JsonFactory().createParser(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8))));
+
+        assertThat(filter.getResponseSize()).isEqualTo(json.length());
+    }
+
+    @Test
+    void emptyResult()
+    throws IOException
+    {
+        List<JdkPackage> packages = new JdkPackagesStreamReader(null).readPackages(parser(response()));
+
+        assertThat(packages).isEmpty();
+    }
+
+    @Test
+    void nonObjectResponseIsRejected()
+    {
+        assertThatExceptionOfType(JsonParseException.class).isThrownBy(() -> new JdkPackagesStreamReader(null).readPackages(parser("[]")));
+    }
+}
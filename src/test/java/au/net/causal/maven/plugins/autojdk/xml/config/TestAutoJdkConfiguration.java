@@ -1,6 +1,8 @@
 package au.net.causal.maven.plugins.autojdk.xml.config;
 
+import au.net.causal.maven.plugins.autojdk.AutoJdkHome;
 import au.net.causal.maven.plugins.autojdk.AutoJdkXmlManager;
+import au.net.causal.maven.plugins.autojdk.CatalogJdkArchiveRepository;
 import au.net.causal.maven.plugins.autojdk.xml.config.AutoJdkConfiguration.ExtensionExclusion;
 import au.net.causal.maven.plugins.autojdk.config.ActivationProcessor;
 import jakarta.xml.bind.JAXB;
@@ -13,6 +15,7 @@ import org.apache.maven.model.profile.activation.FileProfileActivator;
 import org.apache.maven.model.profile.activation.JdkVersionProfileActivator;
 import org.apache.maven.model.profile.activation.OperatingSystemProfileActivator;
 import org.apache.maven.model.profile.activation.PropertyProfileActivator;
+import org.eclipse.aether.DefaultRepositorySystemSession;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 import org.slf4j.Logger;
@@ -431,6 +434,31 @@ class TestAutoJdkConfiguration
         assertThat(configuration.getExtensionExclusions()).isEqualTo(AutoJdkConfiguration.defaultExtensionExclusions());
     }
 
+    @Test
+    void catalogRepositoryNotUsedOfflineWithoutLocalMirror(@TempDir Path tempDir)
+    throws Exception
+    {
+        AutoJdkConfiguration.JdkCatalogRepository catalogRepository = new AutoJdkConfiguration.JdkCatalogRepository();
+        catalogRepository.setFile("catalog.xml");
+        catalogRepository.setMirrorUrl("https://mirror.example.com/jdks/");
+
+        assertThat(catalogRepository.createJdkArchiveRepository(null, new DefaultRepositorySystemSession(), true, false, () -> tempDir,
+                                                                new AutoJdkHome(tempDir), new AutoJdkXmlManager(), new AutoJdkConfiguration())).isNull();
+    }
+
+    @Test
+    void catalogRepositoryUsedOfflineWithLocalMirror(@TempDir Path tempDir)
+    throws Exception
+    {
+        AutoJdkConfiguration.JdkCatalogRepository catalogRepository = new AutoJdkConfiguration.JdkCatalogRepository();
+        catalogRepository.setFile("catalog.xml");
+        catalogRepository.setMirrorUrl(tempDir.resolve("mirror").toUri().toString());
+
+        assertThat(catalogRepository.createJdkArchiveRepository(null, new DefaultRepositorySystemSession(), true, false, () -> tempDir,
+                                                                new AutoJdkHome(tempDir), new AutoJdkXmlManager(), new AutoJdkConfiguration()))
+                .isInstanceOf(CatalogJdkArchiveRepository.class);
+    }
+
     private static ActivationProcessor createActivationProcessor()
     {
         FileProfileActivator fileProfileActivator = new FileProfileActivator();